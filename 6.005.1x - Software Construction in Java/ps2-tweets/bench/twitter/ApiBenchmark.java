@@ -0,0 +1,61 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measure every public method of Extract, Filter and SocialNetwork, in both
+ * the List<Tweet> and the TweetStore forms, on one generated corpus.
+ *
+ * Usage: java -cp bin twitter.ApiBenchmark [tweets=100000] [k=10]
+ *        [generator options, see TweetGenerator.fromArgs]
+ *        [harness options, see Benchmark.fromArgs]
+ */
+public class ApiBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 100_000);
+        int k = (int) Benchmark.option(args, "k", 10);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        TweetStore store = TweetStore.of(tweets);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        // a username of middling activity, a one-hour window and two common words
+        String username = tweets.get(size / 2).getAuthor();
+        Instant start = tweets.get(size / 3).getTimestamp();
+        Timespan timespan = new Timespan(start, start.plusSeconds(3600));
+        List<String> words = Arrays.asList("Obama", "coffee");
+
+        System.out.println("tweets=" + size + " " + generator);
+
+        benchmark.measure("Extract.getTimespan list", () -> Extract.getTimespan(tweets));
+        benchmark.measure("Extract.getTimespan store", () -> Extract.getTimespan(store));
+        benchmark.measure("Extract.getMentionedUsers list", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("Extract.getMentionedUsers store", () -> Extract.getMentionedUsers(store));
+        benchmark.measure("Extract.getHashtags list", () -> Extract.getHashtags(tweets));
+        benchmark.measure("Extract.getHashtags store", () -> Extract.getHashtags(store));
+
+        benchmark.measure("Filter.writtenBy list", () -> Filter.writtenBy(tweets, username));
+        benchmark.measure("Filter.writtenBy store", () -> Filter.writtenBy(store, username));
+        benchmark.measure("Filter.inTimespan list", () -> Filter.inTimespan(tweets, timespan));
+        benchmark.measure("Filter.inTimespan store", () -> Filter.inTimespan(store, timespan));
+        benchmark.measure("Filter.containing list", () -> Filter.containing(tweets, words));
+        benchmark.measure("Filter.containing store", () -> Filter.containing(store, words));
+
+        benchmark.measure("SocialNetwork.guessFollowsGraph list", () -> SocialNetwork.guessFollowsGraph(tweets));
+        benchmark.measure("SocialNetwork.guessFollowsGraph list capped",
+                () -> SocialNetwork.guessFollowsGraph(tweets, 100));
+        benchmark.measure("SocialNetwork.guessFollowsGraph store", () -> SocialNetwork.guessFollowsGraph(store));
+
+        Map<String, Set<String>> followsGraph = SocialNetwork.guessFollowsGraph(tweets);
+        FollowsGraph graph = FollowsGraph.fromMap(followsGraph);
+        benchmark.measure("SocialNetwork.influencers map", () -> SocialNetwork.influencers(followsGraph));
+        benchmark.measure("SocialNetwork.influencers map top-k", () -> SocialNetwork.influencers(followsGraph, k));
+        benchmark.measure("SocialNetwork.influencers graph", () -> SocialNetwork.influencers(graph));
+        benchmark.measure("SocialNetwork.influencers graph top-k", () -> SocialNetwork.influencers(graph, k));
+    }
+}
@@ -0,0 +1,82 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Measure per-author hashtag aggregation: Extract.getHashtags(), which keeps
+ * only each author's last tweet, against accumulating every tweet into
+ * HashSets of Strings, into AuthorHashtags, and into ConcurrentAuthorHashtags
+ * from several threads; and how many (author, hashtag) pairs each keeps.
+ *
+ * Usage: java -cp bin twitter.AuthorHashtagsBenchmark [tweets=1000000] [threads=#cores]
+ */
+public class AuthorHashtagsBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        int threads = (int) Benchmark.option(args, "threads", Runtime.getRuntime().availableProcessors());
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        AuthorHashtags all = new AuthorHashtags(tweets);
+        System.out.println("tweets=" + size + " " + generator);
+        System.out.printf("(author, hashtag) pairs: getHashtags %,d, accumulated %,d; "
+                + "AuthorHashtags sets %,d bytes%n", pairs(Extract.getHashtags(tweets)), pairs(all.toMap()),
+                all.memoryBytes());
+
+        benchmark.measure("Extract.getHashtags (last tweet only)", () -> Extract.getHashtags(tweets));
+        benchmark.measure("accumulate HashSet<String>", () -> accumulate(tweets));
+        benchmark.measure("AuthorHashtags", () -> new AuthorHashtags(tweets));
+        benchmark.measure("AuthorHashtags toMap", () -> new AuthorHashtags(tweets).toMap());
+        benchmark.measure("ConcurrentAuthorHashtags threads=" + threads, () -> {
+            ConcurrentAuthorHashtags hashtags = new ConcurrentAuthorHashtags(threads);
+            List<Thread> workers = new ArrayList<Thread>();
+            int pieceSize = (size + threads - 1) / threads;
+            for (int from = 0; from < size; from += pieceSize) {
+                List<Tweet> piece = tweets.subList(from, Math.min(from + pieceSize, size));
+                workers.add(new Thread(() -> hashtags.addAll(piece)));
+            }
+            for (Thread worker : workers) {
+                worker.start();
+            }
+            try {
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return hashtags;
+        });
+    }
+
+    private static Map<String, Set<String>> accumulate(List<Tweet> tweets) {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            Set<String> set = map.computeIfAbsent(tweet.getAuthor(), author -> new HashSet<String>());
+            String text = tweet.getText();
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    set.add(text.substring(tokenizer.start(), tokenizer.end()));
+                }
+            }
+        }
+        return map;
+    }
+
+    private static long pairs(Map<String, Set<String>> map) {
+        long pairs = 0;
+        for (Set<String> set : map.values()) {
+            pairs += set.size();
+        }
+        return pairs;
+    }
+}
@@ -0,0 +1,40 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compare Filter.writtenBy scans with AuthorIndex lookups, one username at a
+ * time and in batches.
+ *
+ * Usage: java -cp bin twitter.AuthorIndexBenchmark [tweets=1000000] [batch=100]
+ */
+public class AuthorIndexBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        int batch = (int) Benchmark.option(args, "batch", 100);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        AuthorIndex index = new AuthorIndex(tweets);
+        List<String> usernames = new ArrayList<String>();
+        for (int i = 0; i < batch; ++i) {
+            usernames.add(TweetGenerator.author(i * 37));
+        }
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        System.out.println("tweets=" + size + " batch=" + batch);
+        System.out.printf("index memory %,d bytes%n", index.memoryBytes());
+        benchmark.measure("build AuthorIndex", () -> new AuthorIndex(tweets));
+        benchmark.measure("writtenBy scan", () -> Filter.writtenBy(tweets, "USER_7"));
+        benchmark.measure("writtenBy index", () -> index.writtenBy("USER_7"));
+        benchmark.measure("writtenBy batch of scans", () -> {
+            int found = 0;
+            for (String username : usernames) {
+                found += Filter.writtenBy(tweets, username).size();
+            }
+            return found;
+        });
+        benchmark.measure("writtenBy batch one pass", () -> AuthorIndex.writtenBy(tweets, usernames));
+        benchmark.measure("writtenBy batch index", () -> index.writtenBy(usernames));
+    }
+}
@@ -0,0 +1,250 @@
+package twitter;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Benchmark is a small JMH-style measurement harness for the benchmarks in
+ * this folder: it runs an operation through warmup and measurement
+ * iterations, consumes every result so the JIT cannot discard the work, and
+ * reports average time and allocated bytes per operation (the equivalent of
+ * JMH's "gc.alloc.rate.norm"), the allocation rate in MB/s ("gc.alloc.rate")
+ * and the number of garbage collections during measurement ("gc.count").
+ *
+ * Allocation is read from the HotSpot per-thread allocation counter, so
+ * operations that hand work to other threads report only the calling
+ * thread's allocation.
+ */
+public class Benchmark {
+
+    /**
+     * An operation to measure. The result is consumed by the harness.
+     */
+    public interface Operation {
+        Object run();
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results are written here so that the JIT cannot eliminate them
+    private static volatile Object sink;
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final String only;
+
+    /**
+     * Make a harness with JMH-like defaults: 3 warmup and 5 measurement
+     * iterations of at least half a second each.
+     */
+    public Benchmark() {
+        this(3, 5, 500);
+    }
+
+    /**
+     * Make a harness.
+     *
+     * @param warmupIterations
+     *            number of unmeasured iterations, >= 0
+     * @param measurementIterations
+     *            number of measured iterations, >= 1
+     * @param iterationMillis
+     *            minimum duration of each iteration in milliseconds, >= 0
+     */
+    public Benchmark(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this(warmupIterations, measurementIterations, iterationMillis, "");
+    }
+
+    private Benchmark(int warmupIterations, int measurementIterations, long iterationMillis, String only) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+        this.only = only;
+    }
+
+    /**
+     * Make a harness from command-line options of the form "name=value":
+     * warmup and iterations (counts), millis (per iteration), and only, a
+     * substring of the names of the benchmarks to run (all by default).
+     *
+     * @param args
+     *            command-line arguments
+     * @param warmupIterations
+     *            default number of warmup iterations
+     * @param measurementIterations
+     *            default number of measurement iterations
+     * @param iterationMillis
+     *            default minimum duration of each iteration in milliseconds
+     * @return a new harness
+     */
+    public static Benchmark fromArgs(String[] args, int warmupIterations, int measurementIterations,
+            long iterationMillis) {
+        return new Benchmark((int) option(args, "warmup", warmupIterations),
+                (int) option(args, "iterations", measurementIterations),
+                option(args, "millis", iterationMillis), option(args, "only", ""));
+    }
+
+    /**
+     * Make a harness from command-line options, as by fromArgs() with the
+     * defaults of Benchmark().
+     *
+     * @param args
+     *            command-line arguments
+     * @return a new harness
+     */
+    public static Benchmark fromArgs(String[] args) {
+        return fromArgs(args, 3, 5, 500);
+    }
+
+    /**
+     * Measure an operation and print one result line.
+     *
+     * @param name
+     *            name of the benchmark
+     * @param operation
+     *            operation to measure
+     * @return average nanoseconds per operation
+     */
+    public double measure(String name, Operation operation) {
+        return measure(name, 0, operation);
+    }
+
+    /**
+     * Measure an operation that processes a known number of bytes per call,
+     * and print one result line including throughput in MB/s.
+     *
+     * @param name
+     *            name of the benchmark
+     * @param bytesPerOperation
+     *            input bytes processed by one call, or 0 if not applicable
+     * @param operation
+     *            operation to measure
+     * @return average nanoseconds per operation, or NaN if the benchmark was
+     *         not selected by the "only" option
+     */
+    public double measure(String name, long bytesPerOperation, Operation operation) {
+        if (!name.contains(only)) {
+            return Double.NaN;
+        }
+        for (int i = 0; i < warmupIterations; ++i) {
+            iteration(operation);
+        }
+
+        double sum = 0, sumOfSquares = 0, allocated = 0;
+        long collections = -collectionCount();
+        for (int i = 0; i < measurementIterations; ++i) {
+            double[] result = iteration(operation);
+            sum += result[0];
+            sumOfSquares += result[0] * result[0];
+            allocated += result[1];
+        }
+        collections += collectionCount();
+
+        double mean = sum / measurementIterations;
+        double deviation = Math.sqrt(Math.max(0, sumOfSquares / measurementIterations - mean * mean));
+        double allocatedPerOperation = allocated / measurementIterations;
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "%-48s %14.1f ns/op  +- %10.1f  %14.0f B/op  %8.1f MB/s alloc  %4d gc",
+                name, mean, deviation, allocatedPerOperation, allocatedPerOperation / mean * 1e9 / 1e6,
+                collections));
+        if (bytesPerOperation > 0) {
+            line.append(String.format(Locale.ROOT, "  %9.1f MB/s", bytesPerOperation / mean * 1e9 / 1e6));
+        }
+        System.out.println(line);
+        return mean;
+    }
+
+    /*
+     * Run one iteration of at least iterationNanos.
+     *
+     * @return { nanoseconds per operation, allocated bytes per operation }
+     */
+    private double[] iteration(Operation operation) {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        long elapsed;
+        long operations = 0;
+        do {
+            sink = operation.run();
+            ++operations;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new double[] { (double) elapsed / operations, (double) allocated / operations };
+    }
+
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Read an integer option of the form "name=value" from command-line
+     * arguments.
+     *
+     * @param args
+     *            command-line arguments
+     * @param name
+     *            option name
+     * @param defaultValue
+     *            value to use if the option is absent
+     * @return the option's value
+     */
+    public static long option(String[] args, String name, long defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return Long.parseLong(arg.substring(name.length() + 1).replace("_", ""));
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Read a decimal option of the form "name=value" from command-line
+     * arguments.
+     *
+     * @param args
+     *            command-line arguments
+     * @param name
+     *            option name
+     * @param defaultValue
+     *            value to use if the option is absent
+     * @return the option's value
+     */
+    public static double doubleOption(String[] args, String name, double defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return Double.parseDouble(arg.substring(name.length() + 1).replace("_", ""));
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Read a string option of the form "name=value" from command-line
+     * arguments.
+     *
+     * @param args
+     *            command-line arguments
+     * @param name
+     *            option name
+     * @param defaultValue
+     *            value to use if the option is absent
+     * @return the option's value
+     */
+    public static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+}
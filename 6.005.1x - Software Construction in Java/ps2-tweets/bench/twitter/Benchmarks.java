@@ -0,0 +1,77 @@
+package twitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Command-line entry point for the benchmarks in this folder: runs one
+ * benchmark by name, or all of them, passing on the remaining options.
+ *
+ * Usage: java -cp bin twitter.Benchmarks (list | all | name) [options...]
+ *   e.g. java -cp bin twitter.Benchmarks api tweets=200000 hashtagSkew=1.1 only=Filter
+ */
+public class Benchmarks {
+
+    /**
+     * The main method of a benchmark.
+     */
+    private interface Main {
+        void run(String[] args) throws Exception;
+    }
+
+    private static final Map<String, Main> BENCHMARKS = new LinkedHashMap<String, Main>();
+    static {
+        BENCHMARKS.put("api", ApiBenchmark::main);
+        BENCHMARKS.put("tokenizer", TokenizerBenchmark::main);
+        BENCHMARKS.put("parallel", ParallelBenchmark::main);
+        BENCHMARKS.put("store", TweetStoreBenchmark::main);
+        BENCHMARKS.put("timeIndex", TimeIndexBenchmark::main);
+        BENCHMARKS.put("wordIndex", WordIndexBenchmark::main);
+        BENCHMARKS.put("authorIndex", AuthorIndexBenchmark::main);
+        BENCHMARKS.put("commonHashtags", CommonHashtagsBenchmark::main);
+        BENCHMARKS.put("followsGraph", FollowsGraphBenchmark::main);
+        BENCHMARKS.put("influencers", InfluencersBenchmark::main);
+        BENCHMARKS.put("followsGraphBuilder", FollowsGraphBuilderBenchmark::main);
+        BENCHMARKS.put("loader", TweetLoaderBenchmark::main);
+        BENCHMARKS.put("snapshot", TweetSnapshotBenchmark::main);
+        BENCHMARKS.put("query", TweetQueryBenchmark::main);
+        BENCHMARKS.put("segments", TweetSegmentBenchmark::main);
+        BENCHMARKS.put("sketch", TweetSketchBenchmark::main);
+        BENCHMARKS.put("authorHashtags", AuthorHashtagsBenchmark::main);
+        BENCHMARKS.put("timeRollup", TimeRollupBenchmark::main);
+        BENCHMARKS.put("pageRank", PageRankBenchmark::main);
+        BENCHMARKS.put("ingestion", IngestionBenchmark::main);
+        BENCHMARKS.put("sharded", ShardedBenchmark::main);
+        BENCHMARKS.put("queryCache", QueryCacheBenchmark::main);
+        BENCHMARKS.put("caseFold", CaseFoldBenchmark::main);
+        BENCHMARKS.put("internTable", InternTableBenchmark::main);
+        BENCHMARKS.put("graphAnalytics", GraphAnalyticsBenchmark::main);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].equals("list")) {
+            System.out.println("Usage: java -cp bin twitter.Benchmarks (list | all | name) [options...]");
+            System.out.println("Benchmarks: " + String.join(", ", BENCHMARKS.keySet()));
+            System.out.println("Common options: tweets=N, generator options seed, authors, hashtags, mentions,");
+            System.out.println("  tags, authorSkew, hashtagSkew, and harness options warmup, iterations,");
+            System.out.println("  millis, only=<substring of benchmark names>");
+            return;
+        }
+
+        String[] options = new String[args.length - 1];
+        System.arraycopy(args, 1, options, 0, options.length);
+        for (Map.Entry<String, Main> entry : BENCHMARKS.entrySet()) {
+            if (args[0].equals("all") || args[0].equalsIgnoreCase(entry.getKey())) {
+                System.out.println("# " + entry.getKey());
+                entry.getValue().run(options);
+                if (!args[0].equals("all")) {
+                    return;
+                }
+            }
+        }
+        if (!args[0].equals("all")) {
+            System.err.println("unknown benchmark: " + args[0] + "; try list");
+            System.exit(1);
+        }
+    }
+}
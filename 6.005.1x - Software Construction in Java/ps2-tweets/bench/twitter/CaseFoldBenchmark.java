@@ -0,0 +1,145 @@
+package twitter;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Compare the case-insensitive paths of Extract, Filter and SocialNetwork,
+ * which fold and compare usernames in place with CaseFold, against the
+ * toLowerCase() copies they replaced, on mixed-case, mixed-script tweets:
+ * authors and mentions in random case, and Greek, Cyrillic and Turkish words
+ * mixed into the text. Watch the B/op column as much as the time.
+ *
+ * Usage: java -cp bin twitter.CaseFoldBenchmark [tweets=200000]
+ */
+public class CaseFoldBenchmark {
+
+    // Greek, Cyrillic and Turkish words, mostly capitalized, as escapes
+    private static final String[] WORDS = {
+        "\u039A\u03B1\u03BB\u03B7\u03BC\u03AD\u03C1\u03B1", "\u039F\u0394\u039F\u03A3",
+        "\u041F\u0440\u0438\u0432\u0435\u0442", "\u041C\u041E\u0421\u041A\u0412\u0410",
+        "\u0130stanbul", "KAPALI\u0131", "caf\u00E9", "\u00C9T\u00C9",
+    };
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 200_000);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = mixedCase(generator.tweets(size), new Random(1));
+        Benchmark benchmark = Benchmark.fromArgs(args);
+        System.out.println("tweets=" + size + " " + generator);
+
+        String author = tweets.get(size / 2).getAuthor().toUpperCase(Locale.ROOT);
+        List<String> words = Arrays.asList(CaseFold.fold(WORDS[0]), CaseFold.fold(WORDS[3]));
+        Map<String, Set<String>> graph = SocialNetwork.guessFollowsGraph(tweets, 100);
+
+        benchmark.measure("getMentionedUsers toLowerCase", () -> lowerCaseMentionedUsers(tweets));
+        benchmark.measure("getMentionedUsers CaseFold", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("writtenBy toLowerCase", () -> lowerCaseWrittenBy(tweets, author));
+        benchmark.measure("writtenBy CaseFold", () -> Filter.writtenBy(tweets, author));
+        benchmark.measure("containing CaseFold", () -> Filter.containing(tweets, words));
+        benchmark.measure("influencers top 10 toLowerCase", () -> lowerCaseInfluencers(graph, 10));
+        benchmark.measure("influencers top 10 CaseFold", () -> SocialNetwork.influencers(graph, 10));
+        benchmark.measure("guessFollowsGraph CaseFold", () -> SocialNetwork.guessFollowsGraph(tweets, 100));
+        benchmark.measure("FollowsGraphBuilder CaseFold", () -> {
+            FollowsGraphBuilder builder = new FollowsGraphBuilder(Duration.ofDays(365));
+            builder.addAll(tweets);
+            return builder.edgeCount();
+        });
+    }
+
+    /*
+     * @return tweets with authors and mentions in random case, and a word of
+     *         WORDS in place of about a third of the other words
+     */
+    private static List<Tweet> mixedCase(List<Tweet> tweets, Random random) {
+        List<Tweet> mixed = new ArrayList<Tweet>(tweets.size());
+        for (Tweet tweet : tweets) {
+            StringBuilder text = new StringBuilder();
+            for (String token : tweet.getText().split(" ", -1)) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                if (token.startsWith("@")) {
+                    text.append(randomCase(token, random));
+                } else if (!token.startsWith("#") && random.nextInt(3) == 0) {
+                    text.append(WORDS[random.nextInt(WORDS.length)]);
+                } else {
+                    text.append(token);
+                }
+            }
+            mixed.add(new Tweet(tweet.getId(), randomCase(tweet.getAuthor(), random), text.toString(),
+                                tweet.getTimestamp()));
+        }
+        return mixed;
+    }
+
+    private static String randomCase(String string, Random random) {
+        char[] chars = string.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            if (random.nextBoolean()) {
+                chars[i] = Character.toUpperCase(chars[i]);
+            }
+        }
+        return new String(chars);
+    }
+
+    /*
+     * Extract.getMentionedUsers as it was, copying and lower-casing every
+     * mention.
+     */
+    private static Set<String> lowerCaseMentionedUsers(List<Tweet> tweets) {
+        Set<String> users = new HashSet<String>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            String text = tweet.getText();
+            if (text.indexOf('@') < 0) {
+                continue;
+            }
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    users.add(text.substring(tokenizer.start(), tokenizer.end()).toLowerCase());
+                }
+            }
+        }
+        return users;
+    }
+
+    /*
+     * Filter.writtenBy by comparing lower case copies.
+     */
+    private static List<Tweet> lowerCaseWrittenBy(List<Tweet> tweets, String username) {
+        List<Tweet> written = new ArrayList<Tweet>();
+        String usernameLowerCase = username.toLowerCase();
+        for (Tweet tweet : tweets) {
+            if (tweet.getAuthor().toLowerCase().equals(usernameLowerCase)) {
+                written.add(tweet);
+            }
+        }
+        return written;
+    }
+
+    /*
+     * SocialNetwork.influencers(Map, k) as it was, lower-casing every edge.
+     */
+    private static List<String> lowerCaseInfluencers(Map<String, Set<String>> graph, int k) {
+        NameTable usernames = new NameTable(graph.size());
+        int[] counts = new int[2 * graph.size() + 16];
+        for (Map.Entry<String, Set<String>> entry : graph.entrySet()) {
+            usernames.intern(entry.getKey().toLowerCase());
+            for (String influencedUser : entry.getValue()) {
+                int id = usernames.intern(influencedUser.toLowerCase());
+                if (id >= counts.length) {
+                    counts = Arrays.copyOf(counts, 2 * id);
+                }
+                ++counts[id];
+            }
+        }
+        List<String> top = new ArrayList<String>();
+        for (int id : TopK.select(counts, 0, usernames.size(), k,
+                                  (a, b) -> usernames.name(a).compareTo(usernames.name(b)))) {
+            top.add(usernames.name(id));
+        }
+        return top;
+    }
+}
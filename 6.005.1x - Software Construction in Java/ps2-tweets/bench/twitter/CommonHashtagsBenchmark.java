@@ -0,0 +1,67 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * Measure SocialNetwork.guessFollowsGraph, whose common-hashtag evidence is
+ * found through a hashtag -> users inverted index, at increasing author
+ * counts, with and without a cap on popular hashtags. For small author counts
+ * the all-pairs comparison it replaced is measured too.
+ *
+ * Usage: java -cp bin twitter.CommonHashtagsBenchmark [authors=100000,1000000]
+ *            [tweetsPerAuthor=2] [cap=1000] [pairsLimit=5000]
+ */
+public class CommonHashtagsBenchmark {
+
+    public static void main(String[] args) {
+        int tweetsPerAuthor = (int) Benchmark.option(args, "tweetsPerAuthor", 2);
+        int cap = (int) Benchmark.option(args, "cap", 1000);
+        int pairsLimit = (int) Benchmark.option(args, "pairsLimit", 5000);
+        int[] authorCounts = { 100_000, 1_000_000 };
+        for (String arg : args) {
+            if (arg.startsWith("authors=")) {
+                authorCounts = Arrays.stream(arg.substring("authors=".length()).split(","))
+                        .mapToInt(Integer::parseInt).toArray();
+            }
+        }
+        Benchmark benchmark = Benchmark.fromArgs(args, 1, 3, 0);
+
+        for (int authors : authorCounts) {
+            // skewed enough that some hashtags are popular: one hashtag per 20 authors
+            TweetGenerator generator = new TweetGenerator(42, authors, Math.max(1, authors / 20), 0.5, 1.0);
+            List<Tweet> tweets = generator.tweets(authors * tweetsPerAuthor);
+            String suffix = " authors=" + authors;
+
+            System.out.println("authors=" + authors + " tweets=" + tweets.size());
+            benchmark.measure("guessFollowsGraph inverted" + suffix, () -> SocialNetwork.guessFollowsGraph(tweets));
+            benchmark.measure("guessFollowsGraph cap=" + cap + suffix, () -> SocialNetwork.guessFollowsGraph(tweets, cap));
+            if (authors <= pairsLimit) {
+                benchmark.measure("common hashtags all pairs" + suffix, () -> allPairs(Extract.getHashtags(tweets)));
+            }
+        }
+    }
+
+    /*
+     * The all-pairs common-hashtag comparison that guessFollowsGraph used to do.
+     */
+    private static Map<String, Set<String>> allPairs(Map<String, Set<String>> hashtagsMap) {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (String username : hashtagsMap.keySet()) {
+            map.put(username, new HashSet<String>());
+        }
+        for (String username : hashtagsMap.keySet()) {
+            for (String compareUsername : hashtagsMap.keySet()) {
+                if (username.equals(compareUsername)) {
+                    continue;
+                }
+                for (String hashtag : hashtagsMap.get(username)) {
+                    if (hashtagsMap.get(compareUsername).contains(hashtag)) {
+                        map.get(username).add(compareUsername);
+                        map.get(compareUsername).add(username);
+                    }
+                }
+            }
+        }
+        return map;
+    }
+}
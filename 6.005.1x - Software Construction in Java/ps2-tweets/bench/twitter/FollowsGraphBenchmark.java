@@ -0,0 +1,38 @@
+package twitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compare the Map and compressed (FollowsGraph) forms of the follows graph:
+ * heap retained, time to build from tweets, and influencers().
+ *
+ * Usage: java -cp bin twitter.FollowsGraphBenchmark [tweets=200000]
+ */
+public class FollowsGraphBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 200_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long before = TweetStoreBenchmark.usedHeap();
+        Map<String, Set<String>> map = SocialNetwork.guessFollowsGraph(tweets);
+        long mapHeap = TweetStoreBenchmark.usedHeap() - before;
+
+        before = TweetStoreBenchmark.usedHeap();
+        FollowsGraph graph = FollowsGraph.fromTweets(tweets);
+        long graphHeap = TweetStoreBenchmark.usedHeap() - before;
+
+        System.out.println("tweets=" + size + " users=" + graph.userCount() + " edges=" + graph.edgeCount());
+        System.out.printf("Map graph heap   %,d bytes (%.1f per edge)%n", mapHeap, (double) mapHeap / graph.edgeCount());
+        System.out.printf("FollowsGraph heap %,d bytes (%.1f per edge)%n", graphHeap, (double) graphHeap / graph.edgeCount());
+
+        benchmark.measure("guessFollowsGraph", () -> SocialNetwork.guessFollowsGraph(tweets));
+        benchmark.measure("FollowsGraph.fromTweets", () -> FollowsGraph.fromTweets(tweets));
+        benchmark.measure("FollowsGraph.fromMap", () -> FollowsGraph.fromMap(map));
+        benchmark.measure("influencers map", () -> SocialNetwork.influencers(map));
+        benchmark.measure("influencers graph", () -> SocialNetwork.influencers(graph));
+    }
+}
@@ -0,0 +1,53 @@
+package twitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+
+/**
+ * Compare keeping the follows graph of a sliding window up to date with
+ * FollowsGraphBuilder against recomputing SocialNetwork.guessFollowsGraph()
+ * over the window after every batch of tweets.
+ *
+ * Usage: java -cp bin twitter.FollowsGraphBuilderBenchmark [window=86400] [batch=1000]
+ * (window in seconds; the generator sends one tweet per second)
+ */
+public class FollowsGraphBuilderBenchmark {
+
+    public static void main(String[] args) {
+        int windowSeconds = (int) Benchmark.option(args, "window", 86_400);
+        int batch = (int) Benchmark.option(args, "batch", 1000);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        // fill the window before measuring
+        FollowsGraphBuilder builder = new FollowsGraphBuilder(Duration.ofSeconds(windowSeconds));
+        Deque<Tweet> window = new ArrayDeque<Tweet>();
+        for (Tweet tweet : generator.tweets(windowSeconds)) {
+            builder.add(tweet);
+            window.addLast(tweet);
+        }
+
+        System.out.println("window=" + windowSeconds + " tweets, batch=" + batch);
+        benchmark.measure("builder add batch", () -> {
+            builder.addAll(generator.tweets(batch));
+            return builder.edgeCount();
+        });
+        benchmark.measure("builder add batch + snapshot", () -> {
+            builder.addAll(generator.tweets(batch));
+            return builder.snapshot();
+        });
+        benchmark.measure("builder add batch + top 100", () -> {
+            builder.addAll(generator.tweets(batch));
+            return builder.influencers(100);
+        });
+        benchmark.measure("recompute after batch", () -> {
+            for (Tweet tweet : generator.tweets(batch)) {
+                window.addLast(tweet);
+                window.removeFirst();
+            }
+            return SocialNetwork.guessFollowsGraph(new ArrayList<Tweet>(window));
+        });
+    }
+}
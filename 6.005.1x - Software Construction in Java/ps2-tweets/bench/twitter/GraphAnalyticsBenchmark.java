@@ -0,0 +1,57 @@
+package twitter;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measure GraphAnalytics on a skewed follows graph (as in
+ * InfluencersBenchmark) of a few million edges: triangle counting, connected
+ * components, label-propagation communities and bounded-depth reachability,
+ * at increasing parallelism. The B/op column is the working memory of each
+ * algorithm, beyond the graph itself, whose heap is printed first.
+ *
+ * Usage: java -cp bin twitter.GraphAnalyticsBenchmark [users=1000000]
+ *     [edges=5000000] [depth=3] [maxIterations=20] [maxThreads=#cores]
+ */
+public class GraphAnalyticsBenchmark {
+
+    public static void main(String[] args) {
+        int users = (int) Benchmark.option(args, "users", 1_000_000);
+        int edges = (int) Benchmark.option(args, "edges", 5_000_000);
+        int depth = (int) Benchmark.option(args, "depth", 3);
+        int maxIterations = (int) Benchmark.option(args, "maxIterations", 20);
+        int maxThreads = (int) Benchmark.option(args, "maxThreads", Runtime.getRuntime().availableProcessors());
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long before = TweetStoreBenchmark.usedHeap();
+        FollowsGraph graph = InfluencersBenchmark.skewedGraph(users, edges);
+        long graphHeap = TweetStoreBenchmark.usedHeap() - before;
+        String source = TweetGenerator.author(users / 2);
+        System.out.println("users=" + users + " edges=" + edges + " depth=" + depth
+                + " maxIterations=" + maxIterations);
+        System.out.printf("graph: %,d users, %,d edges, %,d bytes of heap%n", graph.userCount(),
+                graph.edgeCount(), graphHeap);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            GraphAnalytics analytics = new GraphAnalytics(pool);
+            GraphAnalytics.Partition components = analytics.components(graph);
+            GraphAnalytics.Partition communities = analytics.communities(graph, maxIterations);
+            int reached = 0;
+            for (int distance : analytics.distancesFrom(graph, source, depth)) {
+                reached += distance >= 0 ? 1 : 0;
+            }
+            System.out.printf("threads=%d triangles %,d, components %,d, communities %,d after %d passes,"
+                    + " %,d reached from %s%n", threads, analytics.countTriangles(graph), components.count(),
+                    communities.count(), communities.iterations(), reached, source);
+
+            String suffix = " threads=" + threads;
+            benchmark.measure("countTriangles" + suffix, () -> analytics.countTriangles(graph));
+            benchmark.measure("trianglesPerUser" + suffix, () -> analytics.trianglesPerUser(graph));
+            benchmark.measure("components" + suffix, () -> analytics.components(graph));
+            benchmark.measure("communities" + suffix, () -> analytics.communities(graph, maxIterations));
+            benchmark.measure("distancesFrom" + suffix, () -> analytics.distancesFrom(graph, source, depth));
+            benchmark.measure("distancesTo" + suffix, () -> analytics.distancesTo(graph, source, depth));
+            pool.shutdown();
+        }
+    }
+}
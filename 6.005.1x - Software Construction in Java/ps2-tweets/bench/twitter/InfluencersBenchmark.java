@@ -0,0 +1,47 @@
+package twitter;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compare the full sort of influencers() with bounded-heap top-k selection,
+ * on the Map and compressed graph forms, sequentially and in parallel.
+ *
+ * Usage: java -cp bin twitter.InfluencersBenchmark [users=1000000] [edges=5000000] [k=100]
+ */
+public class InfluencersBenchmark {
+
+    public static void main(String[] args) {
+        int users = (int) Benchmark.option(args, "users", 1_000_000);
+        int edges = (int) Benchmark.option(args, "edges", 5_000_000);
+        int k = (int) Benchmark.option(args, "k", 100);
+        FollowsGraph graph = skewedGraph(users, edges);
+        Map<String, Set<String>> map = graph.toMap();
+        ParallelSocialNetwork parallel = new ParallelSocialNetwork();
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        System.out.println("users=" + users + " edges=" + graph.edgeCount() + " k=" + k);
+        benchmark.measure("influencers map full sort", () -> SocialNetwork.influencers(map));
+        benchmark.measure("influencers map top-k", () -> SocialNetwork.influencers(map, k));
+        benchmark.measure("influencers graph full sort", () -> SocialNetwork.influencers(graph));
+        benchmark.measure("influencers graph top-k", () -> SocialNetwork.influencers(graph, k));
+        benchmark.measure("influencers graph top-k parallel", () -> parallel.influencers(graph, k));
+    }
+
+    /*
+     * @return a graph whose follower counts are skewed towards low-numbered users
+     */
+    static FollowsGraph skewedGraph(int users, int edges) {
+        Random random = new Random(6005);
+        FollowsGraph.Builder builder = new FollowsGraph.Builder();
+        for (int u = 0; u < users; ++u) {
+            builder.addUser(TweetGenerator.author(u));
+        }
+        for (int e = 0; e < edges; ++e) {
+            int followed = (int) (users * Math.pow(random.nextDouble(), 3));
+            builder.addEdge(TweetGenerator.author(random.nextInt(users)), TweetGenerator.author(followed));
+        }
+        return builder.build();
+    }
+}
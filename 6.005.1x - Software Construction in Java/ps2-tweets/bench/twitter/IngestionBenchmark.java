@@ -0,0 +1,90 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the throughput of IngestionService with several producer threads,
+ * sampling its queue depth and ingest lag while they run, then the cost of
+ * queries on its snapshot against Filter on the list of the same tweets.
+ *
+ * Usage: java -cp bin twitter.IngestionBenchmark [tweets=1000000]
+ *     [producers=4] [queue=65536] [batch=8192]
+ */
+public class IngestionBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        int producers = (int) Benchmark.option(args, "producers", 4);
+        int capacity = (int) Benchmark.option(args, "queue", 1 << 16);
+        int batch = (int) Benchmark.option(args, "batch", 1 << 13);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+        System.out.println("tweets=" + size + " producers=" + producers + " queue=" + capacity
+                + " batch=" + batch + " " + generator);
+
+        IngestionService service = new IngestionService(capacity, batch);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; ++p) {
+            List<Tweet> share = tweets.subList((int) ((long) size * p / producers),
+                                               (int) ((long) size * (p + 1) / producers));
+            threads.add(new Thread(() -> {
+                try {
+                    for (Tweet tweet : share) {
+                        service.submit(tweet);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        int samples = 0;
+        long maxDepth = 0, maxLag = 0, totalLag = 0;
+        while (service.published() < size) {
+            Thread.sleep(5);
+            maxDepth = Math.max(maxDepth, service.queueDepth());
+            long lag = service.lagNanos();
+            maxLag = Math.max(maxLag, lag);
+            totalLag += lag;
+            ++samples;
+        }
+        long nanos = System.nanoTime() - start;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        IngestionService.Snapshot snapshot = service.snapshot();
+        service.close();
+
+        System.out.printf("ingested in %.1f ms (%,.0f tweets/s) in %d batches, %d segments%n",
+                nanos / 1e6, size / (nanos / 1e9), service.batches(), snapshot.segmentCount());
+        System.out.printf("queue depth max %,d of %,d; ingest lag mean %.1f ms, max %.1f ms%n",
+                maxDepth, capacity, totalLag / 1e6 / Math.max(1, samples), maxLag / 1e6);
+
+        String author = TweetGenerator.author(1234);
+        List<Tweet> published = new ArrayList<Tweet>(snapshot.tweets());
+        benchmark.measure("writtenBy snapshot", () -> snapshot.writtenBy(author));
+        benchmark.measure("writtenBy Filter", () -> Filter.writtenBy(published, author));
+        List<String> words = Arrays.asList("#tag17");
+        benchmark.measure("containing snapshot", () -> snapshot.containing(words));
+        benchmark.measure("containing Filter", () -> Filter.containing(published, words));
+        benchmark.measure("ingest 100K tweets", () -> {
+            try (IngestionService fresh = new IngestionService(capacity, batch)) {
+                for (Tweet tweet : tweets.subList(0, Math.min(size, 100_000))) {
+                    fresh.submit(tweet);
+                }
+                fresh.awaitPublished(1, TimeUnit.MINUTES);
+                return fresh.snapshot();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package twitter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compare the String and id forms of the follows graph, the mentioned users
+ * and the author hashtags: heap retained, and time to build from tweets. The
+ * id forms number users and hashtags through InternTables, whose heap is
+ * reported separately since the tables are shared by every query. For a
+ * graph of about a million users, run with authors=1000000 tweets=2000000
+ * hashtags=1000000 and a heap of a few GB; few hashtags make the
+ * common-hashtag evidence, and so the String form, very large.
+ *
+ * Usage: java -cp bin twitter.InternTableBenchmark [tweets=500000]
+ */
+public class InternTableBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 500_000);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long before = TweetStoreBenchmark.usedHeap();
+        Map<String, Set<String>> map = SocialNetwork.guessFollowsGraph(tweets);
+        Map<String, Set<String>> hashtagMap = Extract.getAllHashtags(tweets);
+        long mapHeap = TweetStoreBenchmark.usedHeap() - before;
+
+        // the tables are filled once and shared by every later query
+        before = TweetStoreBenchmark.usedHeap();
+        InternTable usernames = new InternTable(true);
+        InternTable hashtags = new InternTable(false);
+        SocialNetwork.guessFollowsGraph(tweets, usernames);
+        Extract.getAllHashtags(tweets, usernames, hashtags);
+        long tableHeap = TweetStoreBenchmark.usedHeap() - before;
+
+        before = TweetStoreBenchmark.usedHeap();
+        IdSetMap graph = SocialNetwork.guessFollowsGraph(tweets, usernames);
+        IdSetMap hashtagIds = Extract.getAllHashtags(tweets, usernames, hashtags);
+        long idHeap = TweetStoreBenchmark.usedHeap() - before;
+
+        System.out.println("tweets=" + size + " users=" + usernames.size() + " hashtags=" + hashtags.size()
+                + " edges=" + graph.valueCount() + " " + generator);
+        // both forms are still reachable here, so neither was collected while measuring the other
+        System.out.printf("String maps heap   %,d bytes (%,d authors)%n", mapHeap,
+                          Math.max(map.size(), hashtagMap.size()));
+        System.out.printf("IdSetMaps heap     %,d bytes (%,d authors, %.1fx smaller)%n", idHeap,
+                          hashtagIds.size(), (double) mapHeap / idHeap);
+        System.out.printf("InternTables heap  %,d bytes (%.1fx smaller with the maps)%n", tableHeap,
+                          (double) mapHeap / (idHeap + tableHeap));
+
+        benchmark.measure("guessFollowsGraph String", () -> SocialNetwork.guessFollowsGraph(tweets));
+        benchmark.measure("guessFollowsGraph ids", () -> SocialNetwork.guessFollowsGraph(tweets, usernames));
+        benchmark.measure("getMentionedUsers String", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("getMentionedUsers ids", () -> Extract.getMentionedUsers(tweets, usernames));
+        benchmark.measure("getAllHashtags String", () -> Extract.getAllHashtags(tweets));
+        benchmark.measure("getAllHashtags ids", () -> Extract.getAllHashtags(tweets, usernames, hashtags));
+    }
+}
@@ -0,0 +1,49 @@
+package twitter;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measure PageRank on a skewed follows graph (as in InfluencersBenchmark):
+ * cold and personalized ranking at increasing parallelism, against in-degree
+ * influencers, and a warm start after the graph grows by a few edges.
+ *
+ * Usage: java -cp bin twitter.PageRankBenchmark [users=1000000] [edges=5000000]
+ *     [growth=50000] [maxThreads=#cores] [tolerance=1e-9]
+ */
+public class PageRankBenchmark {
+
+    public static void main(String[] args) {
+        int users = (int) Benchmark.option(args, "users", 1_000_000);
+        int edges = (int) Benchmark.option(args, "edges", 5_000_000);
+        int growth = (int) Benchmark.option(args, "growth", 50_000);
+        int maxThreads = (int) Benchmark.option(args, "maxThreads", Runtime.getRuntime().availableProcessors());
+        double tolerance = Benchmark.doubleOption(args, "tolerance", 1e-9);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        // the same random edges, and then some more
+        FollowsGraph before = InfluencersBenchmark.skewedGraph(users, edges);
+        FollowsGraph after = InfluencersBenchmark.skewedGraph(users, edges + growth);
+        String seed = TweetGenerator.author(users / 2);
+        System.out.println("users=" + users + " edges=" + edges + " growth=" + growth);
+        System.out.printf("graph: %,d users, %,d edges; after growth %,d edges%n", before.userCount(),
+                before.edgeCount(), after.edgeCount());
+
+        benchmark.measure("influencers by in-degree", () -> SocialNetwork.influencers(before, 10));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            PageRank pageRank = new PageRank(pool, 0.85, tolerance, 1000);
+            PageRank.Ranking previous = pageRank.rank(before);
+            PageRank.Ranking cold = pageRank.rank(after);
+            PageRank.Ranking warm = pageRank.rank(after, previous);
+            PageRank.Ranking personalized = pageRank.rank(after, seed, null);
+            System.out.printf("threads=%d iterations: cold %d, warm %d, personalized %d%n", threads,
+                    cold.iterations(), warm.iterations(), personalized.iterations());
+
+            String suffix = " threads=" + threads;
+            benchmark.measure("PageRank cold" + suffix, () -> pageRank.rank(after));
+            benchmark.measure("PageRank warm after growth" + suffix, () -> pageRank.rank(after, previous));
+            benchmark.measure("PageRank personalized" + suffix, () -> pageRank.rank(after, seed, null));
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measure ParallelExtract and ParallelFilter at increasing parallelism, to
+ * check how close to linear they scale on the machine at hand.
+ *
+ * Usage: java -cp bin twitter.ParallelBenchmark [tweets=1000000] [maxThreads=#cores]
+ */
+public class ParallelBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        int maxThreads = (int) Benchmark.option(args, "maxThreads", Runtime.getRuntime().availableProcessors());
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        List<String> words = Arrays.asList("Obama", "coffee");
+        Timespan timespan = new Timespan(Instant.parse("2016-02-17T10:00:00Z"), Instant.parse("2016-02-18T10:00:00Z"));
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        System.out.println("tweets=" + size);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParallelExtract extract = new ParallelExtract(pool);
+            ParallelFilter filter = new ParallelFilter(pool);
+            String suffix = " threads=" + threads;
+
+            benchmark.measure("getTimespan" + suffix, () -> extract.getTimespan(tweets));
+            benchmark.measure("getMentionedUsers" + suffix, () -> extract.getMentionedUsers(tweets));
+            benchmark.measure("getHashtags" + suffix, () -> extract.getHashtags(tweets));
+            benchmark.measure("writtenBy" + suffix, () -> filter.writtenBy(tweets, "user_7"));
+            benchmark.measure("inTimespan" + suffix, () -> filter.inTimespan(tweets, timespan));
+            benchmark.measure("containing" + suffix, () -> filter.containing(tweets, words));
+            pool.shutdown();
+        }
+    }
+}
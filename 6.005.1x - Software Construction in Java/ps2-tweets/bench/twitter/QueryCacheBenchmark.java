@@ -0,0 +1,73 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measure an API-style workload, a stream of writtenBy, containing and
+ * getMentionedUsers calls drawn from a small set of distinct queries, answered
+ * through a QueryCache against the same calls on the TweetCorpus and against
+ * Filter and Extract on the list of tweets, then report the cache's counters.
+ *
+ * Usage: java -cp bin twitter.QueryCacheBenchmark [tweets=500000]
+ *     [distinct=200] [calls=1000] [maxWeight=1000000]
+ */
+public class QueryCacheBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 500_000);
+        int distinct = (int) Benchmark.option(args, "distinct", 200);
+        int calls = (int) Benchmark.option(args, "calls", 1000);
+        long maxWeight = Benchmark.option(args, "maxWeight", 1_000_000);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+        System.out.println("tweets=" + size + " distinct=" + distinct + " calls=" + calls
+                + " maxWeight=" + maxWeight + " " + generator);
+
+        TweetCorpus corpus = new TweetCorpus(tweets).indexAuthors().indexTokens(TweetTokenizer.Kind.WORD);
+        // query i: writtenBy author i, containing hashtag i, or getMentionedUsers
+        Random random = new Random(1);
+        int[] stream = new int[calls];
+        for (int i = 0; i < calls; ++i) {
+            stream[i] = random.nextInt(distinct);
+        }
+        QueryCache cache = new QueryCache(maxWeight);
+
+        benchmark.measure("calls x" + calls + " QueryCache", () -> {
+            int total = 0;
+            for (int query : stream) {
+                total += query == 0 ? cache.getMentionedUsers(corpus).size()
+                       : query % 2 == 0 ? cache.writtenBy(corpus, TweetGenerator.author(query)).size()
+                       : cache.containing(corpus, hashtag(query)).size();
+            }
+            return total;
+        });
+        benchmark.measure("calls x" + calls + " TweetCorpus", () -> {
+            int total = 0;
+            for (int query : stream) {
+                total += query == 0 ? Extract.getMentionedUsers(tweets).size()
+                       : query % 2 == 0 ? corpus.query(TweetQuery.writtenBy(TweetGenerator.author(query))).size()
+                       : corpus.query(TweetQuery.containing(hashtag(query))).size();
+            }
+            return total;
+        });
+        benchmark.measure("calls x" + (calls / 10) + " Filter/Extract", () -> {
+            int total = 0;
+            for (int query : Arrays.copyOf(stream, calls / 10)) {
+                total += query == 0 ? Extract.getMentionedUsers(tweets).size()
+                       : query % 2 == 0 ? Filter.writtenBy(tweets, TweetGenerator.author(query)).size()
+                       : Filter.containing(tweets, hashtag(query)).size();
+            }
+            return total;
+        });
+        System.out.printf("hits %,d misses %,d evictions %,d entries %,d weight %,d%n", cache.hits(),
+                cache.misses(), cache.evictions(), cache.size(), cache.weight());
+    }
+
+    private static List<String> hashtag(int i) {
+        return new ArrayList<String>(Arrays.asList("#tag" + i));
+    }
+}
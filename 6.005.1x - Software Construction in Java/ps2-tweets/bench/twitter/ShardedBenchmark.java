@@ -0,0 +1,92 @@
+package twitter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure ShardedTweets against ShardServer worker processes on loopback
+ * sockets: loading tweets into the shards, then Extract-style summaries and
+ * Filter-style queries, against the sequential methods on one list. Run with
+ * shards=1, 2, 4, ... to see how the work scales with the cores available.
+ *
+ * Usage: java -cp bin twitter.ShardedBenchmark [tweets=500000] [shards=4]
+ *     [workerHeap=512]
+ */
+public class ShardedBenchmark {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int size = (int) Benchmark.option(args, "tweets", 500_000);
+        int shards = (int) Benchmark.option(args, "shards", 4);
+        long heap = Benchmark.option(args, "workerHeap", 512);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+        System.out.println("tweets=" + size + " shards=" + shards + " " + generator);
+
+        List<Process> workers = new ArrayList<Process>();
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        try {
+            for (int i = 0; i < shards; ++i) {
+                Process worker = new ProcessBuilder(java, "-Xmx" + heap + "m", "-cp",
+                        System.getProperty("java.class.path"), "twitter.ShardServer")
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                workers.add(worker);
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(worker.getInputStream(), StandardCharsets.UTF_8));
+                String line = reader.readLine();
+                if (line == null || !line.startsWith("listening on ")) {
+                    throw new IOException("shard server did not start: " + line);
+                }
+                addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                                                    Integer.parseInt(line.substring("listening on ".length()))));
+            }
+
+            try (ShardedTweets sharded = new ShardedTweets(addresses)) {
+                long start = System.nanoTime();
+                for (int from = 0; from < size; from += 50_000) {
+                    sharded.addAll(tweets.subList(from, Math.min(size, from + 50_000)));
+                }
+                System.out.printf("loaded %d shards in %.1f ms%n", shards, (System.nanoTime() - start) / 1e6);
+
+                String author = TweetGenerator.author(1234);
+                List<String> words = Arrays.asList("#tag17");
+                benchmark.measure("summary sharded", () -> call(sharded::summary));
+                benchmark.measure("mentioned users Extract", () -> Extract.getMentionedUsers(tweets));
+                benchmark.measure("hashtags Extract", () -> Extract.getHashtags(tweets));
+                benchmark.measure("writtenBy sharded", () -> call(() -> sharded.writtenBy(author)));
+                benchmark.measure("writtenBy Filter", () -> Filter.writtenBy(tweets, author));
+                benchmark.measure("containing sharded", () -> call(() -> sharded.containing(words)));
+                benchmark.measure("containing Filter", () -> Filter.containing(tweets, words));
+                sharded.stopShards();
+            }
+        } finally {
+            for (Process worker : workers) {
+                if (!worker.waitFor(10, TimeUnit.SECONDS)) {
+                    worker.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private interface Call {
+        Object run() throws IOException;
+    }
+
+    private static Object call(Call call) {
+        try {
+            return call.run();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
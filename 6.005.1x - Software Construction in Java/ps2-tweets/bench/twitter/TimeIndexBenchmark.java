@@ -0,0 +1,39 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Compare sliding-window Filter.inTimespan scans with TimeIndex range queries
+ * over the same corpus.
+ *
+ * Usage: java -cp bin twitter.TimeIndexBenchmark [tweets=1000000] [windowSeconds=3600]
+ */
+public class TimeIndexBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        long window = Benchmark.option(args, "windowSeconds", 3600);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Instant first = tweets.get(0).getTimestamp();
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        System.out.println("tweets=" + size + " windowSeconds=" + window);
+        TimeIndex index = new TimeIndex(tweets);
+        benchmark.measure("build TimeIndex", () -> new TimeIndex(tweets));
+
+        long[] step = { 0 };
+        benchmark.measure("inTimespan scan", () -> Filter.inTimespan(tweets, nextWindow(first, step, window, size)));
+        benchmark.measure("inTimespan index", () -> index.inTimespan(nextWindow(first, step, window, size)));
+        benchmark.measure("getTimespan scan", () -> Extract.getTimespan(tweets));
+        benchmark.measure("getTimespan index", () -> index.getTimespan());
+    }
+
+    /*
+     * @return the next window, sliding through the corpus one minute at a time
+     */
+    private static Timespan nextWindow(Instant first, long[] step, long window, int size) {
+        long offset = (step[0]++ * 60) % Math.max(1, size - window);
+        return new Timespan(first.plusSeconds(offset), first.plusSeconds(offset + window));
+    }
+}
@@ -0,0 +1,88 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measure dashboard-style range queries, "top hashtags in the last 6 hours"
+ * and "distinct users mentioned in the last 6 hours" at many points in time,
+ * answered by TimeRollup against Filter.inTimespan() followed by a rescan
+ * of the tweets in the window.
+ *
+ * Usage: java -cp bin twitter.TimeRollupBenchmark [tweets=1000000] [windowHours=6] [queries=24]
+ */
+public class TimeRollupBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        long window = 3600 * Benchmark.option(args, "windowHours", 6);
+        int queries = (int) Benchmark.option(args, "queries", 24);
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        // windows ending at evenly spaced points of the stream
+        Instant first = tweets.get(0).getTimestamp();
+        Instant last = tweets.get(size - 1).getTimestamp();
+        List<Instant> ends = new ArrayList<Instant>();
+        for (int i = 1; i <= queries; ++i) {
+            ends.add(first.plusSeconds(window + (last.getEpochSecond() - first.getEpochSecond() - window) * i / queries));
+        }
+
+        long start = System.nanoTime();
+        TimeRollup rollup = new TimeRollup(tweets);
+        System.out.println("tweets=" + size + " " + generator);
+        System.out.printf("rollup built in %.1f ms; a %d-hour window reads %d buckets%n",
+                (System.nanoTime() - start) / 1e6, window / 3600,
+                rollup.bucketsCovering(ends.get(0).minusSeconds(window).plusSeconds(17), ends.get(0)));
+
+        benchmark.measure("TimeRollup build", () -> new TimeRollup(tweets));
+        benchmark.measure("top hashtags TimeRollup x" + queries, () -> {
+            List<List<String>> result = new ArrayList<List<String>>();
+            for (Instant end : ends) {
+                result.add(rollup.topHashtags(end.minusSeconds(window), end, 10));
+            }
+            return result;
+        });
+        benchmark.measure("top hashtags Filter rescan x" + queries, () -> {
+            List<Map<String, Integer>> result = new ArrayList<Map<String, Integer>>();
+            for (Instant end : ends) {
+                result.add(hashtagCounts(Filter.inTimespan(tweets,
+                        new Timespan(end.minusSeconds(window), end.minusNanos(1)))));
+            }
+            return result;
+        });
+        benchmark.measure("mentioned users TimeRollup x" + queries, () -> {
+            int total = 0;
+            for (Instant end : ends) {
+                total += rollup.mentionCounts(end.minusSeconds(window), end).size();
+            }
+            return total;
+        });
+        benchmark.measure("mentioned users Filter rescan x" + queries, () -> {
+            int total = 0;
+            for (Instant end : ends) {
+                total += Extract.getMentionedUsers(Filter.inTimespan(tweets,
+                        new Timespan(end.minusSeconds(window), end.minusNanos(1)))).size();
+            }
+            return total;
+        });
+    }
+
+    private static Map<String, Integer> hashtagCounts(List<Tweet> tweets) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            tokenizer.reset(tweet.getText());
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    counts.merge(tokenizer.foldedToken(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,94 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * Compare the single-pass TweetTokenizer paths in Extract and Filter against
+ * the split()-based implementations they replaced.
+ *
+ * Usage: java -cp bin twitter.TokenizerBenchmark [tweets=100000]
+ */
+public class TokenizerBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 100_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        List<String> words = Arrays.asList("Obama", "coffee");
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        System.out.println("tweets=" + size);
+        benchmark.measure("getMentionedUsers split", () -> splitMentionedUsers(tweets));
+        benchmark.measure("getMentionedUsers tokenizer", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("getHashtags split", () -> splitHashtags(tweets));
+        benchmark.measure("getHashtags tokenizer", () -> Extract.getHashtags(tweets));
+        benchmark.measure("containing split", () -> splitContaining(tweets, words));
+        benchmark.measure("containing tokenizer", () -> Filter.containing(tweets, words));
+    }
+
+    /*
+     * The split("@")-based Extract.getMentionedUsers, without its early return
+     * on a tweet with no "@".
+     */
+    private static Set<String> splitMentionedUsers(List<Tweet> tweets) {
+        Set<String> users = new HashSet<String>();
+        for (Tweet tweet : tweets) {
+            String[] partitions = tweet.getText().split("@");
+            for (int i = 1; i < partitions.length; ++i) {
+                if (partitions[i].length() == 0) {
+                    continue;
+                }
+                if (partitions[i - 1].length() > 0
+                        && TweetTokenizer.isUsernameChar(partitions[i - 1].charAt(partitions[i - 1].length() - 1))) {
+                    continue;
+                }
+                StringBuilder lettersInUsername = new StringBuilder();
+                for (char letter : partitions[i].toCharArray()) {
+                    if (!TweetTokenizer.isUsernameChar(letter)) {
+                        break;
+                    }
+                    lettersInUsername.append(letter);
+                }
+                if (lettersInUsername.length() > 0) {
+                    users.add(lettersInUsername.toString().toLowerCase());
+                }
+            }
+        }
+        return users;
+    }
+
+    /*
+     * The split(" ")-based Extract.getHashtags.
+     */
+    private static Map<String, Set<String>> splitHashtags(List<Tweet> tweets) {
+        Map<String, Set<String>> hashtags = new HashMap<String, Set<String>>();
+        for (Tweet tweet : tweets) {
+            Set<String> hashtagsByUser = new HashSet<String>();
+            for (String word : tweet.getText().split(" ")) {
+                if (word.startsWith("#") && word.length() > 1) {
+                    hashtagsByUser.add(word.substring(1));
+                }
+            }
+            hashtags.put(tweet.getAuthor(), hashtagsByUser);
+        }
+        return hashtags;
+    }
+
+    /*
+     * The split(" ")-based Filter.containing.
+     */
+    private static List<Tweet> splitContaining(List<Tweet> tweets, List<String> words) {
+        List<Tweet> result = new ArrayList<Tweet>();
+        for (Tweet tweet : tweets) {
+            search:
+            for (String wordInTweet : tweet.getText().split(" ")) {
+                for (String word : words) {
+                    if (wordInTweet.toLowerCase().equals(word.toLowerCase())) {
+                        result.add(tweet);
+                        break search;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,209 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * TweetGenerator makes reproducible synthetic tweets for benchmarks.
+ *
+ * Texts are sequences of words from a fixed vocabulary, sprinkled with
+ * @-mentions of other authors and #hashtags. Authors (of tweets and of
+ * mentions) and hashtags are drawn uniformly, or from a Zipf distribution
+ * with a given exponent, so that a few are much more popular than the rest.
+ * The same seed always produces the same tweets.
+ */
+public class TweetGenerator {
+
+    private static final String[] VOCABULARY = {
+        "the", "talk", "rivest", "is", "it", "reasonable", "to", "about", "so", "much",
+        "Obama", "minutes", "hype", "mit", "great", "lecture", "today", "tomorrow", "now",
+        "java", "code", "review", "bug", "fix", "ship", "coffee", "meeting", "late", "again",
+    };
+
+    private final Random random;
+    private final int authors;
+    private final int hashtags;
+    private final double mentionsPerTweet;
+    private final double hashtagsPerTweet;
+    private final int wordsPerTweet;
+    private final double authorSkew;
+    private final double hashtagSkew;
+
+    // cumulative Zipf weights of authors and hashtags, or null if uniform
+    private final double[] authorWeights;
+    private final double[] hashtagWeights;
+    private final Instant epoch = Instant.parse("2016-02-17T10:00:00Z");
+
+    private long nextId = 1;
+
+    /**
+     * Make a generator.
+     *
+     * @param seed
+     *            random seed
+     * @param authors
+     *            number of distinct authors, >= 1
+     * @param hashtags
+     *            number of distinct hashtags, >= 1
+     * @param mentionsPerTweet
+     *            average number of @-mentions per tweet, >= 0
+     * @param hashtagsPerTweet
+     *            average number of #hashtags per tweet, >= 0
+     */
+    public TweetGenerator(long seed, int authors, int hashtags, double mentionsPerTweet, double hashtagsPerTweet) {
+        this(seed, authors, hashtags, mentionsPerTweet, hashtagsPerTweet, 0, 0);
+    }
+
+    /**
+     * Make a generator with skewed popularity of authors and hashtags.
+     *
+     * @param seed
+     *            random seed
+     * @param authors
+     *            number of distinct authors, >= 1
+     * @param hashtags
+     *            number of distinct hashtags, >= 1
+     * @param mentionsPerTweet
+     *            average number of @-mentions per tweet, >= 0
+     * @param hashtagsPerTweet
+     *            average number of #hashtags per tweet, >= 0
+     * @param authorSkew
+     *            Zipf exponent of author popularity, >= 0; 0 is uniform, and
+     *            about 1 is typical of real social networks
+     * @param hashtagSkew
+     *            Zipf exponent of hashtag popularity, >= 0
+     */
+    public TweetGenerator(long seed, int authors, int hashtags, double mentionsPerTweet, double hashtagsPerTweet,
+            double authorSkew, double hashtagSkew) {
+        this.random = new Random(seed);
+        this.authors = authors;
+        this.hashtags = hashtags;
+        this.mentionsPerTweet = mentionsPerTweet;
+        this.hashtagsPerTweet = hashtagsPerTweet;
+        this.wordsPerTweet = 12;
+        this.authorSkew = authorSkew;
+        this.hashtagSkew = hashtagSkew;
+        this.authorWeights = zipf(authors, authorSkew);
+        this.hashtagWeights = zipf(hashtags, hashtagSkew);
+    }
+
+    /**
+     * Make a generator from command-line options of the form "name=value":
+     * seed, authors, hashtags, mentions (per tweet), tags (hashtags per
+     * tweet), authorSkew and hashtagSkew; absent options take the values of
+     * standard().
+     *
+     * @param args
+     *            command-line arguments
+     * @return a new generator
+     */
+    public static TweetGenerator fromArgs(String[] args) {
+        return new TweetGenerator(Benchmark.option(args, "seed", 42),
+                (int) Benchmark.option(args, "authors", 10_000),
+                (int) Benchmark.option(args, "hashtags", 1_000),
+                Benchmark.doubleOption(args, "mentions", 1.0),
+                Benchmark.doubleOption(args, "tags", 1.0),
+                Benchmark.doubleOption(args, "authorSkew", 0),
+                Benchmark.doubleOption(args, "hashtagSkew", 0));
+    }
+
+    /**
+     * @return a generator with moderate defaults: 10,000 authors, 1,000
+     *         hashtags, one mention and one hashtag per tweet on average
+     */
+    public static TweetGenerator standard() {
+        return new TweetGenerator(42, 10_000, 1_000, 1.0, 1.0);
+    }
+
+    /**
+     * @return the generator's parameters, in the form read by fromArgs()
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "authors=%d hashtags=%d mentions=%s tags=%s authorSkew=%s hashtagSkew=%s",
+                authors, hashtags, mentionsPerTweet, hashtagsPerTweet, authorSkew, hashtagSkew);
+    }
+
+    /**
+     * @return the username of author number i
+     */
+    public static String author(int i) {
+        return "user_" + i;
+    }
+
+    /**
+     * Make the next tweet. Ids increase by one, timestamps by one second.
+     *
+     * @return a new tweet
+     */
+    public Tweet next() {
+        long id = nextId++;
+        String author = author(pick(authors, authorWeights));
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordsPerTweet; ++i) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            double roll = random.nextDouble() * wordsPerTweet;
+            if (roll < mentionsPerTweet) {
+                text.append('@').append(author(pick(authors, authorWeights)));
+            } else if (roll < mentionsPerTweet + hashtagsPerTweet) {
+                text.append("#tag").append(pick(hashtags, hashtagWeights));
+            } else {
+                text.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            }
+        }
+        if (text.length() > 140) {
+            text.setLength(140);
+        }
+        return new Tweet(id, author, text.toString(), epoch.plusSeconds(id));
+    }
+
+    /**
+     * Make a list of tweets.
+     *
+     * @param count
+     *            number of tweets, >= 0
+     * @return a new list of count new tweets
+     */
+    public List<Tweet> tweets(int count) {
+        List<Tweet> tweets = new ArrayList<Tweet>(count);
+        for (int i = 0; i < count; ++i) {
+            tweets.add(next());
+        }
+        return tweets;
+    }
+
+    /*
+     * Draw one of n items, uniformly if weights is null, otherwise by the
+     * cumulative weights.
+     */
+    private int pick(int n, double[] weights) {
+        if (weights == null) {
+            return random.nextInt(n);
+        }
+        int i = Arrays.binarySearch(weights, random.nextDouble() * weights[n - 1]);
+        return Math.min(i < 0 ? -i - 1 : i, n - 1);
+    }
+
+    /*
+     * @return cumulative weights 1/(i+1)^exponent of n items, or null if
+     *         exponent is 0
+     */
+    private static double[] zipf(int n, double exponent) {
+        if (exponent == 0) {
+            return null;
+        }
+        double[] weights = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; ++i) {
+            total += Math.pow(i + 1, -exponent);
+            weights[i] = total;
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,116 @@
+package twitter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measure the throughput of TweetLoader on generated NDJSON and CSV files,
+ * against reading the same files line by line with a BufferedReader (which
+ * makes a String per line but parses nothing).
+ *
+ * Usage: java -cp bin twitter.TweetLoaderBenchmark [tweets=1000000]
+ */
+public class TweetLoaderBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        Path ndjson = Files.createTempFile("tweets", ".ndjson");
+        Path csv = Files.createTempFile("tweets", ".csv");
+        try {
+            write(tweets, ndjson, false);
+            write(tweets, csv, true);
+            System.out.println("tweets=" + size);
+
+            for (Path file : new Path[] { ndjson, csv }) {
+                long bytes = Files.size(file);
+                String format = file.toString().endsWith(".csv") ? "csv" : "ndjson";
+                System.out.printf("%s file %,d bytes%n", format, bytes);
+
+                benchmark.measure(format + " BufferedReader lines", bytes, () -> countLines(file));
+                benchmark.measure(format + " readAll", bytes, () -> readAll(file));
+                benchmark.measure(format + " stream count", bytes, () -> {
+                    try (TweetLoader loader = TweetLoader.open(file)) {
+                        return loader.stream().count();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                benchmark.measure(format + " batches to getMentionedUsers", bytes, () -> {
+                    try (TweetLoader loader = TweetLoader.open(file)) {
+                        int mentioned = 0;
+                        for (List<Tweet> batch = loader.nextBatch(10_000); !batch.isEmpty();
+                                batch = loader.nextBatch(10_000)) {
+                            mentioned += Extract.getMentionedUsers(batch).size();
+                        }
+                        return mentioned;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                benchmark.measure(format + " loadInto TweetStore", bytes, () -> {
+                    try (TweetLoader loader = TweetLoader.open(file)) {
+                        TweetStore store = new TweetStore(size);
+                        loader.loadInto(store);
+                        return store;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } finally {
+            Files.deleteIfExists(ndjson);
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    private static List<Tweet> readAll(Path file) {
+        try {
+            return TweetLoader.readAll(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long countLines(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lines = 0;
+            while (reader.readLine() != null) {
+                ++lines;
+            }
+            return lines;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Write tweets as NDJSON or CSV. Generated texts have no characters that
+     * need escaping in JSON; CSV texts are quoted.
+     */
+    static void write(List<Tweet> tweets, Path file, boolean csv) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (csv) {
+                writer.write("id,author,text,timestamp\n");
+            }
+            for (Tweet tweet : tweets) {
+                if (csv) {
+                    writer.write(tweet.getId() + "," + tweet.getAuthor() + ",\""
+                                 + tweet.getText().replace("\"", "\"\"") + "\"," + tweet.getTimestamp() + "\n");
+                } else {
+                    writer.write("{\"id\":" + tweet.getId() + ",\"author\":\"" + tweet.getAuthor()
+                                 + "\",\"text\":\"" + tweet.getText() + "\",\"timestamp\":\""
+                                 + tweet.getTimestamp() + "\"}\n");
+                }
+            }
+        }
+    }
+}
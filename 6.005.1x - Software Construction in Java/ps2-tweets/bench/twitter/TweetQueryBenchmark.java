@@ -0,0 +1,47 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compare chained Filter calls with one TweetQuery, evaluated in one pass
+ * over a list and answered from the indexes of a TweetCorpus.
+ *
+ * Usage: java -cp bin twitter.TweetQueryBenchmark [tweets=1000000]
+ *        [generator options, see TweetGenerator.fromArgs]
+ */
+public class TweetQueryBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long start = System.nanoTime();
+        TweetCorpus corpus = new TweetCorpus(tweets).indexAuthors().indexTimestamps()
+                .indexTokens(TweetTokenizer.Kind.WORD).indexTokens(TweetTokenizer.Kind.HASHTAG);
+        System.out.println("tweets=" + size);
+        System.out.printf("corpus indexes built in %.1f ms%n", (System.nanoTime() - start) / 1e6);
+
+        // a broad time range, a common word and a rare hashtag
+        Instant first = tweets.get(0).getTimestamp();
+        Timespan timespan = new Timespan(first, first.plusSeconds(size / 2));
+        List<String> words = Arrays.asList("coffee");
+        TweetQuery query = TweetQuery.and(TweetQuery.inTimespan(timespan), TweetQuery.containing(words),
+                TweetQuery.taggedWith("tag17"));
+
+        benchmark.measure("chained Filter calls", () ->
+                Filter.containing(Filter.containing(Filter.inTimespan(tweets, timespan), words),
+                        Arrays.asList("#tag17")));
+        benchmark.measure("TweetQuery.filter one pass", () -> query.filter(tweets));
+        benchmark.measure("TweetCorpus.query indexed", () -> corpus.query(query));
+
+        String author = TweetGenerator.author(3);
+        TweetQuery byAuthor = TweetQuery.and(TweetQuery.writtenBy(author), TweetQuery.containing(words));
+        benchmark.measure("author and word chained Filter", () ->
+                Filter.containing(Filter.writtenBy(tweets, author), words));
+        benchmark.measure("author and word TweetQuery.filter", () -> byAuthor.filter(tweets));
+        benchmark.measure("author and word TweetCorpus.query", () -> corpus.query(byAuthor));
+    }
+}
@@ -0,0 +1,80 @@
+package twitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measure how many segments the word filters of TweetSegment let
+ * Filter.containing() skip, for a selective word, an absent word and a
+ * common word, on segments in memory and on segments saved to disk, compared
+ * with one Filter.containing() scan over all the tweets.
+ *
+ * Usage: java -cp bin twitter.TweetSegmentBenchmark [tweets=500000]
+ *     [segment=1000] [fpp=0.01]
+ */
+public class TweetSegmentBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = (int) Benchmark.option(args, "tweets", 500_000);
+        int segmentSize = (int) Benchmark.option(args, "segment", 1_000);
+        double rate = Benchmark.doubleOption(args, "fpp", 0.01);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long start = System.nanoTime();
+        List<TweetSegment> segments = new ArrayList<TweetSegment>();
+        for (int from = 0; from < size; from += segmentSize) {
+            segments.add(TweetSegment.of(tweets.subList(from, Math.min(from + segmentSize, size)), rate));
+        }
+        long buildNanos = System.nanoTime() - start;
+        long filterBytes = 0;
+        for (TweetSegment segment : segments) {
+            filterBytes += segment.wordFilter().bitSize() / 8;
+        }
+        System.out.println("tweets=" + size + " segment=" + segmentSize + " fpp=" + rate);
+        System.out.printf("%d segments, built in %.1f ms, filters %,d bytes (%.1f per tweet), expected fpp %.4f%n",
+                segments.size(), buildNanos / 1e6, filterBytes, (double) filterBytes / size,
+                segments.get(0).wordFilter().expectedFalsePositiveRate());
+
+        Path folder = Files.createTempDirectory("segments");
+        List<TweetSegment> cold = new ArrayList<TweetSegment>();
+        try {
+            for (int i = 0; i < segments.size(); ++i) {
+                cold.add(segments.get(i).save(folder.resolve("segment" + i)));
+            }
+
+            List<List<String>> queries = Arrays.asList(
+                    Arrays.asList("@" + TweetGenerator.author(1234)),
+                    Arrays.asList("bitdiddle"),
+                    Arrays.asList("#tag17", "#tag18"));
+            for (List<String> words : queries) {
+                int scanned = 0;
+                for (TweetSegment segment : segments) {
+                    if (segment.mightContain(words)) {
+                        ++scanned;
+                    }
+                }
+                System.out.printf("%s: %d of %d segments scanned (%.1f%%), %d tweets found%n", words, scanned,
+                        segments.size(), 100.0 * scanned / segments.size(),
+                        TweetSegment.containing(segments, words).size());
+
+                benchmark.measure("containing " + words + " Filter scan", () -> Filter.containing(tweets, words));
+                benchmark.measure("containing " + words + " segments in memory",
+                        () -> TweetSegment.containing(segments, words));
+                benchmark.measure("containing " + words + " segments on disk",
+                        () -> TweetSegment.containing(cold, words));
+            }
+        } finally {
+            for (int i = 0; i < segments.size(); ++i) {
+                Path file = folder.resolve("segment" + i);
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".words"));
+            }
+            Files.deleteIfExists(folder);
+        }
+    }
+}
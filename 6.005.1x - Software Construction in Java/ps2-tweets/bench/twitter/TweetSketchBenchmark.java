@@ -0,0 +1,90 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Measure TweetSketch against the exact Extract.getMentionedUsers() and a
+ * per-hashtag count map: time and allocation to summarize the tweets, and
+ * the error of the sketch's answers. The sketch is also built by one piece
+ * per thread and merged, as a streaming job would across threads or nodes.
+ *
+ * Usage: java -cp bin twitter.TweetSketchBenchmark [tweets=1000000]
+ *     [threads=#cores] (skewed hashtags, e.g. hashtagSkew=1.1, give heavy hitters)
+ */
+public class TweetSketchBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        int threads = (int) Benchmark.option(args, "threads", Runtime.getRuntime().availableProcessors());
+        TweetGenerator generator = TweetGenerator.fromArgs(args);
+        List<Tweet> tweets = generator.tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        int exactMentions = Extract.getMentionedUsers(tweets).size();
+        Map<String, Integer> exactTags = hashtagCounts(tweets);
+        TweetSketch sketch = new TweetSketch();
+        sketch.addAll(tweets);
+        System.out.println("tweets=" + size + " " + generator);
+        System.out.printf("sketch %,d bytes; distinct mentions %,d exact, %,d estimated (%.2f%% off, "
+                + "standard error %.2f%%)%n", sketch.memoryBytes(), exactMentions, sketch.distinctMentions(),
+                100.0 * Math.abs(sketch.distinctMentions() - exactMentions) / exactMentions,
+                100 * sketch.distinctMentionsError());
+        long worst = 0;
+        for (Map.Entry<String, Integer> entry : exactTags.entrySet()) {
+            worst = Math.max(worst, sketch.hashtagCount(entry.getKey()) - entry.getValue());
+        }
+        System.out.printf("hashtags %,d distinct, worst count overestimate %,d of %,d occurrences%n",
+                exactTags.size(), worst, sketch.hashtagOccurrences());
+        List<String> top = sketch.topHashtags(5);
+        StringBuilder line = new StringBuilder("top hashtags (estimated/exact):");
+        for (String tag : top) {
+            line.append(' ').append(tag).append(' ').append(sketch.hashtagCount(tag)).append('/')
+                .append(exactTags.get(tag));
+        }
+        System.out.println(line);
+
+        benchmark.measure("getMentionedUsers exact", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("hashtag counts exact", () -> hashtagCounts(tweets));
+        benchmark.measure("TweetSketch addAll", () -> {
+            TweetSketch s = new TweetSketch();
+            s.addAll(tweets);
+            return s;
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        benchmark.measure("TweetSketch merged threads=" + threads, () -> pool.submit(() -> {
+            int pieceSize = (size + threads - 1) / threads;
+            List<TweetSketch> pieces = new ArrayList<TweetSketch>();
+            for (int from = 0; from < size; from += pieceSize) {
+                pieces.add(new TweetSketch());
+            }
+            IntStream.range(0, pieces.size()).parallel().forEach(i -> pieces.get(i)
+                    .addAll(tweets.subList(i * pieceSize, Math.min((i + 1) * pieceSize, size))));
+            TweetSketch merged = new TweetSketch();
+            for (TweetSketch piece : pieces) {
+                merged.merge(piece);
+            }
+            return merged;
+        }).join());
+        pool.shutdown();
+    }
+
+    private static Map<String, Integer> hashtagCounts(List<Tweet> tweets) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            tokenizer.reset(tweet.getText());
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    counts.merge(tokenizer.foldedToken(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,69 @@
+package twitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measure how soon a TweetSnapshot answers queries after it is opened, and
+ * compare its indexed queries and full decode with Filter scans and with
+ * loading the same tweets as text through TweetLoader.
+ *
+ * Usage: java -cp bin twitter.TweetSnapshotBenchmark [tweets=1000000]
+ */
+public class TweetSnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        TweetStore store = TweetStore.of(tweets);
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        Path snapshotFile = Files.createTempFile("tweets", ".snapshot");
+        Path ndjson = Files.createTempFile("tweets", ".ndjson");
+        try {
+            long start = System.nanoTime();
+            TweetSnapshot.write(store, snapshotFile);
+            long writeNanos = System.nanoTime() - start;
+            TweetLoaderBenchmark.write(tweets, ndjson, false);
+
+            System.out.println("tweets=" + size);
+            System.out.printf("write %.1f ms, snapshot %,d bytes (%.1f per tweet), ndjson %,d bytes%n",
+                    writeNanos / 1e6, Files.size(snapshotFile), (double) Files.size(snapshotFile) / size,
+                    Files.size(ndjson));
+
+            List<String> selective = Arrays.asList("#tag17");
+            benchmark.measure("open and query snapshot", () -> {
+                try (TweetSnapshot snapshot = TweetSnapshot.open(snapshotFile)) {
+                    return snapshot.containing(selective).size() + snapshot.writtenBy(TweetGenerator.author(3)).size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            benchmark.measure("load ndjson and scan", () -> {
+                try {
+                    List<Tweet> loaded = TweetLoader.readAll(ndjson);
+                    return Filter.containing(loaded, selective).size()
+                            + Filter.writtenBy(loaded, TweetGenerator.author(3)).size();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            try (TweetSnapshot snapshot = TweetSnapshot.open(snapshotFile)) {
+                List<String> broad = Arrays.asList("Obama", "coffee");
+                benchmark.measure("containing broad snapshot index", () -> snapshot.containing(broad));
+                benchmark.measure("containing broad Filter over asList", () -> Filter.containing(snapshot.asList(), broad));
+                benchmark.measure("getMentionedUsers snapshot index", () -> snapshot.getMentionedUsers());
+                benchmark.measure("getMentionedUsers Extract over list", () -> Extract.getMentionedUsers(tweets));
+                benchmark.measure("toStore", () -> snapshot.toStore());
+            }
+        } finally {
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(ndjson);
+        }
+    }
+}
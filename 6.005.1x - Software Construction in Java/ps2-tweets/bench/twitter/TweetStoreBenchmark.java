@@ -0,0 +1,51 @@
+package twitter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compare the heap footprint and scan speed of a List of Tweet objects with
+ * the same tweets in a columnar TweetStore.
+ *
+ * Usage: java -cp bin twitter.TweetStoreBenchmark [tweets=1000000]
+ */
+public class TweetStoreBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 1_000_000);
+        List<String> words = Arrays.asList("Obama", "coffee");
+        Benchmark benchmark = Benchmark.fromArgs(args);
+
+        long before = usedHeap();
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        long listHeap = usedHeap() - before;
+
+        before = usedHeap();
+        TweetStore store = TweetStore.of(tweets);
+        long storeHeap = usedHeap() - before;
+
+        System.out.println("tweets=" + size);
+        System.out.printf("List<Tweet> heap  %,d bytes (%.1f per tweet)%n", listHeap, (double) listHeap / size);
+        System.out.printf("TweetStore heap   %,d bytes (%.1f per tweet)%n", storeHeap, (double) storeHeap / size);
+
+        benchmark.measure("getTimespan list", () -> Extract.getTimespan(tweets));
+        benchmark.measure("getTimespan store", () -> Extract.getTimespan(store));
+        benchmark.measure("getMentionedUsers list", () -> Extract.getMentionedUsers(tweets));
+        benchmark.measure("getMentionedUsers store", () -> Extract.getMentionedUsers(store));
+        benchmark.measure("writtenBy list", () -> Filter.writtenBy(tweets, "user_7"));
+        benchmark.measure("writtenBy store", () -> Filter.writtenBy(store, "user_7"));
+        benchmark.measure("containing list", () -> Filter.containing(tweets, words));
+        benchmark.measure("containing store", () -> Filter.containing(store, words));
+    }
+
+    /*
+     * @return bytes of heap in use after a full collection
+     */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
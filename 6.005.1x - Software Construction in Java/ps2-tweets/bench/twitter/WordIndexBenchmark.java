@@ -0,0 +1,36 @@
+package twitter;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compare Filter.containing scans with WordIndex queries, and report the
+ * index's build time and memory.
+ *
+ * Usage: java -cp bin twitter.WordIndexBenchmark [tweets=5000000]
+ */
+public class WordIndexBenchmark {
+
+    public static void main(String[] args) {
+        int size = (int) Benchmark.option(args, "tweets", 5_000_000);
+        List<Tweet> tweets = TweetGenerator.fromArgs(args).tweets(size);
+        Benchmark benchmark = Benchmark.fromArgs(args, 1, 3, 1000);
+
+        long start = System.nanoTime();
+        WordIndex index = new WordIndex(tweets);
+        index.trimToSize();
+        long buildNanos = System.nanoTime() - start;
+
+        System.out.println("tweets=" + size);
+        System.out.printf("build %.1f ms, vocabulary %,d, index memory %,d bytes (%.1f per tweet)%n",
+                buildNanos / 1e6, index.vocabularySize(), index.memoryBytes(), (double) index.memoryBytes() / size);
+
+        // one selective query (a rare hashtag) and one broad query (common words)
+        List<String> selective = Arrays.asList("#tag17");
+        List<String> broad = Arrays.asList("Obama", "coffee");
+        benchmark.measure("containing selective scan", () -> Filter.containing(tweets, selective));
+        benchmark.measure("containing selective index", () -> index.containing(selective));
+        benchmark.measure("containing broad scan", () -> Filter.containing(tweets, broad));
+        benchmark.measure("containing broad index", () -> index.containing(broad));
+    }
+}
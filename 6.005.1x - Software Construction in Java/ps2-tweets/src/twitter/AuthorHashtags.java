@@ -0,0 +1,184 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * AuthorHashtags is a mutable map from each author to the set of hashtags
+ * used in all of that author's tweets, accumulated as tweets are added.
+ *
+ * Unlike Extract.getHashtags(), which keeps only the hashtags of each
+ * author's last tweet, every tweet's hashtags are kept. Authors and hashtags
+ * are keyed exactly as in Extract.getHashtags(): by Tweet.getAuthor() and by
+ * the hashtag text without "#", both as written. Each distinct hashtag is
+ * stored once and numbered, and each author's set is a set of those
+ * numbers, so memory grows with distinct (author, hashtag) pairs rather than
+ * with tweets.
+ *
+ * An AuthorHashtags is not safe for use by multiple threads; see
+ * ConcurrentAuthorHashtags.
+ */
+public class AuthorHashtags {
+
+    private final NameTable authors = new NameTable();
+    private final NameTable hashtags = new NameTable();
+    // hashtag ids per author id, null while the author has none
+    private IntSet[] sets = new IntSet[8];
+
+    private final TweetTokenizer tokenizer = new TweetTokenizer();
+
+    /* Rep invariant:
+     *    sets.length >= authors.size()
+     *    sets[a] is null or a nonempty set of ids < hashtags.size(), and
+     *      null for a >= authors.size()
+     */
+
+    /**
+     * Make an empty map.
+     */
+    public AuthorHashtags() {
+    }
+
+    /**
+     * Make a map of the hashtags of a list of tweets.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this constructor
+     */
+    public AuthorHashtags(List<Tweet> tweets) {
+        addAll(tweets);
+    }
+
+    /**
+     * Add the hashtags of a tweet to its author's set.
+     *
+     * @param tweet
+     *            tweet to add
+     */
+    public void add(Tweet tweet) {
+        int author = author(tweet.getAuthor());
+        String text = tweet.getText();
+        if (text.indexOf('#') < 0) {
+            return;
+        }
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                set(author).add(hashtags.intern(text, tokenizer.start(), tokenizer.end()));
+            }
+        }
+    }
+
+    /**
+     * Add the hashtags of tweets to their authors' sets.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * Add every author and hashtag of another map to this one.
+     *
+     * @param other
+     *            map to add; not modified by this method
+     */
+    public void merge(AuthorHashtags other) {
+        // renumber each of other's hashtags once
+        int[] ids = new int[other.hashtags.size()];
+        for (int i = 0; i < ids.length; ++i) {
+            ids[i] = hashtags.intern(other.hashtags.name(i));
+        }
+        for (int a = 0; a < other.authors.size(); ++a) {
+            int author = author(other.authors.name(a));
+            if (other.sets[a] != null) {
+                IntSet set = set(author);
+                for (int hashtag : other.sets[a].toArray()) {
+                    set.add(ids[hashtag]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of distinct authors of the tweets added
+     */
+    public int authorCount() {
+        return authors.size();
+    }
+
+    /**
+     * @return number of distinct hashtags in the tweets added
+     */
+    public int hashtagCount() {
+        return hashtags.size();
+    }
+
+    /**
+     * @param author
+     *            author to look up, exactly as in Tweet.getAuthor()
+     * @return a new set of the hashtags in all tweets added that were
+     *         written by author; empty if there are none
+     */
+    public Set<String> hashtags(String author) {
+        Set<String> result = new HashSet<String>();
+        int id = authors.get(author);
+        if (id >= 0 && sets[id] != null) {
+            for (int hashtag : sets[id].toArray()) {
+                result.add(hashtags.name(hashtag));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a new map from each author of the tweets added to a new set of
+     *         the hashtags in all of that author's tweets, in the form of
+     *         Extract.getHashtags()
+     */
+    public Map<String, Set<String>> toMap() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (int a = 0; a < authors.size(); ++a) {
+            Set<String> set = new HashSet<String>();
+            if (sets[a] != null) {
+                for (int hashtag : sets[a].toArray()) {
+                    set.add(hashtags.name(hashtag));
+                }
+            }
+            map.put(authors.name(a), set);
+        }
+        return map;
+    }
+
+    /**
+     * @return approximate bytes of heap retained by the per-author sets,
+     *         excluding the author and hashtag strings
+     */
+    public long memoryBytes() {
+        long bytes = 16 + 4L * sets.length;
+        for (int a = 0; a < authors.size(); ++a) {
+            if (sets[a] != null) {
+                bytes += sets[a].memoryBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private int author(String name) {
+        int author = authors.intern(name);
+        if (author == sets.length) {
+            sets = Arrays.copyOf(sets, 2 * sets.length);
+        }
+        return author;
+    }
+
+    private IntSet set(int author) {
+        if (sets[author] == null) {
+            sets[author] = new IntSet();
+        }
+        return sets[author];
+    }
+}
@@ -0,0 +1,236 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * AuthorIndex is a mutable, append-only index from case-folded author
+ * usernames to the positions of their tweets, which answers
+ * Filter.writtenBy() in O(1) time plus the size of the result.
+ *
+ * Each distinct folded username is stored once, and each distinct spelling of
+ * an author is folded once: indexing a tweet by an already-seen spelling
+ * allocates nothing but room in a positions array.
+ * An AuthorIndex is not safe for use by multiple threads while tweets are
+ * added; its query methods only read it, so once it is no longer modified and
+ * has been safely published, any number of threads may query it at once.
+ */
+public class AuthorIndex {
+
+    private final List<Tweet> tweets = new ArrayList<Tweet>();
+
+    // folded username -> positions of that author's tweets
+    private final Map<String, IntList> byUsername = new HashMap<String, IntList>();
+
+    // exact author spelling -> the same IntList as its folded username
+    private final Map<String, IntList> bySpelling = new HashMap<String, IntList>();
+
+    /* Rep invariant:
+     *    every key of byUsername is case-folded, as by CaseFold.fold()
+     *    byUsername.get(u) contains position p, in increasing order, iff
+     *      tweets.get(p).getAuthor() folds to u
+     *    bySpelling.get(s) == byUsername.get(fold(s)) for every key s
+     */
+
+    /**
+     * Make an empty index.
+     */
+    public AuthorIndex() {
+    }
+
+    /**
+     * Make an index of the authors of a list of tweets.
+     *
+     * @param tweets
+     *            tweets to index; not modified by this constructor, and later
+     *            changes to the list are not seen by the index.
+     */
+    public AuthorIndex(List<Tweet> tweets) {
+        addAll(tweets);
+    }
+
+    /**
+     * Append a tweet to the index.
+     *
+     * @param tweet
+     *            tweet to append, with an id distinct from the indexed tweets.
+     */
+    public void add(Tweet tweet) {
+        String author = tweet.getAuthor();
+        IntList positions = bySpelling.get(author);
+        if (positions == null) {
+            String username = CaseFold.fold(author);
+            positions = byUsername.get(username);
+            if (positions == null) {
+                positions = new IntList();
+                byUsername.put(username, positions);
+            }
+            bySpelling.put(author, positions);
+        }
+        positions.add(tweets.size());
+        tweets.add(tweet);
+    }
+
+    /**
+     * Append tweets to the index.
+     *
+     * @param tweets
+     *            tweets to append, in order, not modified by this method.
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return number of indexed tweets
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return the tweet at a position in indexing order, for 0 <= position < size()
+     */
+    public Tweet get(int position) {
+        return tweets.get(position);
+    }
+
+    /**
+     * @return an unmodifiable view of the distinct case-folded authors of the
+     *         indexed tweets
+     */
+    public Set<String> authors() {
+        return Collections.unmodifiableSet(byUsername.keySet());
+    }
+
+    /**
+     * Find the indexed tweets written by a particular user.
+     *
+     * @param username
+     *            Twitter username, compared ignoring case.
+     * @return all and only the indexed tweets whose author is username, in the
+     *         order they were indexed, as specified by Filter.writtenBy().
+     */
+    public List<Tweet> writtenBy(String username) {
+        return tweetsAt(positions(username));
+    }
+
+    /**
+     * Find the positions of the indexed tweets written by a particular user.
+     *
+     * @param username
+     *            Twitter username, compared ignoring case.
+     * @return new array of the positions (in indexing order, starting from 0)
+     *         of username's tweets, in increasing order
+     */
+    public int[] positionsWrittenBy(String username) {
+        IntList positions = positions(username);
+        return positions == null ? new int[0] : positions.toArray();
+    }
+
+    /**
+     * Count the indexed tweets written by a particular user.
+     *
+     * @param username
+     *            Twitter username, compared ignoring case.
+     * @return number of username's indexed tweets
+     */
+    public int frequency(String username) {
+        IntList positions = positions(username);
+        return positions == null ? 0 : positions.size();
+    }
+
+    /**
+     * Find the indexed tweets written by each of several users.
+     *
+     * @param usernames
+     *            Twitter usernames, compared ignoring case.
+     * @return a map from each of usernames (as given) to all and only the
+     *         indexed tweets it wrote, in indexing order
+     */
+    public Map<String, List<Tweet>> writtenBy(Collection<String> usernames) {
+        Map<String, List<Tweet>> result = new HashMap<String, List<Tweet>>();
+        for (String username : usernames) {
+            result.put(username, writtenBy(username));
+        }
+        return result;
+    }
+
+    /**
+     * Find the tweets written by each of several users in one pass over an
+     * unindexed list of tweets.
+     *
+     * @param tweets
+     *            a list of tweets, not modified by this method.
+     * @param usernames
+     *            Twitter usernames, compared ignoring case.
+     * @return a map from each of usernames (as given) to all and only the
+     *         tweets in the list that it wrote, in the same order as in the
+     *         list; usernames equal ignoring case share one list
+     */
+    public static Map<String, List<Tweet>> writtenBy(List<Tweet> tweets, Collection<String> usernames) {
+        Map<String, List<Tweet>> byUsername = new HashMap<String, List<Tweet>>();
+        Map<String, List<Tweet>> result = new HashMap<String, List<Tweet>>();
+        for (String username : usernames) {
+            String folded = CaseFold.fold(username);
+            List<Tweet> written = byUsername.get(folded);
+            if (written == null) {
+                written = new ArrayList<Tweet>();
+                byUsername.put(folded, written);
+            }
+            result.put(username, written);
+        }
+
+        // fold each distinct author spelling once; null marks an author not asked for
+        Map<String, List<Tweet>> bySpelling = new HashMap<String, List<Tweet>>();
+        for (Tweet tweet : tweets) {
+            String author = tweet.getAuthor();
+            List<Tweet> written = bySpelling.get(author);
+            if (written == null && !bySpelling.containsKey(author)) {
+                written = byUsername.get(CaseFold.fold(author));
+                bySpelling.put(author, written);
+            }
+            if (written != null) {
+                written.add(tweet);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Estimate the heap retained by the index, excluding the tweets themselves.
+     *
+     * @return approximate bytes used by the dictionaries, positions and the
+     *         list of tweet references
+     */
+    public long memoryBytes() {
+        final int referenceBytes = 8;
+        final int entryBytes = 32 + referenceBytes;
+        final int stringBytes = 24 + 16;
+
+        long bytes = (long) tweets.size() * referenceBytes;
+        for (Map.Entry<String, IntList> entry : byUsername.entrySet()) {
+            bytes += entryBytes + referenceBytes + stringBytes + entry.getKey().length();
+            bytes += entry.getValue().memoryBytes();
+        }
+        bytes += (long) bySpelling.size() * (entryBytes + referenceBytes);
+        return bytes;
+    }
+
+    private IntList positions(String username) {
+        IntList positions = bySpelling.get(username);
+        return positions != null ? positions : byUsername.get(CaseFold.fold(username));
+    }
+
+    private List<Tweet> tweetsAt(IntList positions) {
+        if (positions == null) {
+            return new ArrayList<Tweet>();
+        }
+        List<Tweet> result = new ArrayList<Tweet>(positions.size());
+        for (int i = 0; i < positions.size(); ++i) {
+            result.add(tweets.get(positions.get(i)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,214 @@
+package twitter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * BloomFilter is a mutable, compact set of case-folded strings that can
+ * answer "definitely absent" or "possibly present": mightContain() is always
+ * true for a string that was added, and false for other strings except with
+ * a false-positive rate chosen when the filter is made.
+ *
+ * Strings are compared ignoring case, as by CaseFold. Each
+ * string is hashed once to 64 bits, and the bits it sets are derived from
+ * the two halves of that hash (Kirsch-Mitzenmacher double hashing).
+ * A filter can be written to and read back from a stream.
+ */
+public class BloomFilter {
+
+    private static final int MAGIC = 0x424C4F31; // "BLO1"
+    private static final double LN2 = Math.log(2);
+
+    private final long[] bits;
+    private final long bitSize;
+    private final int hashCount;
+    private long insertions;
+
+    /* Rep invariant:
+     *    bitSize == 64 * bits.length > 0
+     *    hashCount >= 1
+     *    insertions >= 0
+     *
+     * Abstraction function:
+     *    represents a superset of the folded strings added, containing each
+     *    string all of whose hashCount bits are set
+     */
+
+    /**
+     * Make an empty filter sized for a number of strings.
+     *
+     * @param expectedInsertions
+     *            number of distinct strings expected, >= 0
+     * @param falsePositiveRate
+     *            desired false-positive rate once that many strings are
+     *            added, 0 < falsePositiveRate < 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 0 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("bad size " + expectedInsertions + " or rate " + falsePositiveRate);
+        }
+        long n = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        this.bits = new long[(int) Math.max(1, (optimalBits + 63) / 64)];
+        this.bitSize = 64L * bits.length;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitSize / n * LN2));
+    }
+
+    private BloomFilter(long[] bits, int hashCount, long insertions) {
+        this.bits = bits;
+        this.bitSize = 64L * bits.length;
+        this.hashCount = hashCount;
+        this.insertions = insertions;
+    }
+
+    /**
+     * Add a string.
+     *
+     * @param string
+     *            string to add, compared ignoring case
+     */
+    public void add(CharSequence string) {
+        addHash(hash(string, 0, string.length()));
+    }
+
+    /**
+     * @param string
+     *            string to look up, compared ignoring case
+     * @return false if string was certainly never added; true if it was, or
+     *         with about expectedFalsePositiveRate() probability otherwise
+     */
+    public boolean mightContain(CharSequence string) {
+        return mightContainHash(hash(string, 0, string.length()));
+    }
+
+    /**
+     * @return number of strings added, counting repeated additions
+     */
+    public long insertions() {
+        return insertions;
+    }
+
+    /**
+     * @return number of bits in the filter
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * @return number of bits set per string
+     */
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /**
+     * @return the false-positive rate expected after insertions() distinct
+     *         strings, (1 - e^(-k n / m))^k
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) insertions / bitSize), hashCount);
+    }
+
+    /**
+     * Write the filter to a stream, to be read back by readFrom().
+     *
+     * @param out
+     *            stream to write to; not closed by this method
+     * @throws IOException if out cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(hashCount);
+        data.writeLong(insertions);
+        data.writeInt(bits.length);
+        for (long word : bits) {
+            data.writeLong(word);
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a filter written by writeTo().
+     *
+     * @param in
+     *            stream to read from; not closed by this method
+     * @return the filter that was written
+     * @throws IOException if in cannot be read or does not hold a filter
+     */
+    public static BloomFilter readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a Bloom filter");
+        }
+        int hashCount = data.readInt();
+        long insertions = data.readLong();
+        int length = data.readInt();
+        if (hashCount < 1 || insertions < 0 || length < 1) {
+            throw new IOException("corrupt Bloom filter");
+        }
+        long[] bits = new long[length];
+        for (int i = 0; i < length; ++i) {
+            bits[i] = data.readLong();
+        }
+        return new BloomFilter(bits, hashCount, insertions);
+    }
+
+    /*
+     * Add a string given by its hash().
+     */
+    void addHash(long hash) {
+        int low = (int) hash;
+        int high = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; ++i) {
+            long bit = ((low + (long) i * high) & Long.MAX_VALUE) % bitSize;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        ++insertions;
+    }
+
+    /*
+     * Look up a string given by its hash().
+     */
+    boolean mightContainHash(long hash) {
+        int low = (int) hash;
+        int high = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; ++i) {
+            long bit = ((low + (long) i * high) & Long.MAX_VALUE) % bitSize;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * @return 64-bit hash of the chars of CaseFold.fold(string, from, to):
+     *         FNV-1a followed by a MurmurHash3 finalizer, so both halves are
+     *         well mixed
+     */
+    static long hash(CharSequence string, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; ) {
+            int c = CaseFold.fold(CaseFold.codePointAt(string, i, to));
+            if (Character.isBmpCodePoint(c)) {
+                hash = (hash ^ c) * 0x100000001b3L;
+                ++i;
+            } else {
+                hash = (hash ^ Character.highSurrogate(c)) * 0x100000001b3L;
+                hash = (hash ^ Character.lowSurrogate(c)) * 0x100000001b3L;
+                i += 2;
+            }
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,209 @@
+package twitter;
+
+/**
+ * CaseFold compares, hashes and folds usernames and words ignoring case,
+ * independent of the default locale, without making lower case copies.
+ *
+ * A character is folded to Character.toLowerCase(Character.toUpperCase()) of
+ * its code point, so that I, i, dotless i (U+0131) and dotted I (U+0130)
+ * all fold to i in every locale, and the three forms of sigma to U+03C3.
+ * Supplementary characters are folded as whole code points.
+ *
+ * Folding never changes the length of a string, so regions of text can be
+ * compared and hashed in place: two strings are equal ignoring case iff
+ * their folded forms are equal, and hashCode() of a region is the
+ * String.hashCode() of its folded form, so a region can be looked up among
+ * folded names without copying it.
+ */
+public class CaseFold {
+
+    /**
+     * @param c
+     *            a character other than a surrogate
+     * @return c folded
+     */
+    public static char fold(char c) {
+        if (c < 0x80) {
+            return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * @param codePoint
+     *            a Unicode code point
+     * @return codePoint folded, which takes as many UTF-16 chars as codePoint
+     */
+    public static int fold(int codePoint) {
+        if (codePoint < 0x80) {
+            return fold((char) codePoint);
+        }
+        int folded = Character.toLowerCase(Character.toUpperCase(codePoint));
+        return Character.charCount(folded) == Character.charCount(codePoint) ? folded : codePoint;
+    }
+
+    /**
+     * Fold a string.
+     *
+     * @param text
+     *            text to fold
+     * @return text folded; text itself if it is a String that is folded
+     *         already, so folding a folded string allocates nothing
+     */
+    public static String fold(CharSequence text) {
+        if (text instanceof String && isFolded(text, 0, text.length())) {
+            return (String) text;
+        }
+        return fold(text, 0, text.length());
+    }
+
+    /**
+     * Fold a region of text into a new string.
+     *
+     * @param text
+     *            text containing the region
+     * @param from
+     *            start of the region
+     * @param to
+     *            end of the region, from <= to <= text.length()
+     * @return a new string of the region folded
+     */
+    public static String fold(CharSequence text, int from, int to) {
+        char[] folded = new char[to - from];
+        for (int i = from; i < to; ) {
+            int c = fold(codePointAt(text, i, to));
+            i += write(c, folded, i - from);
+        }
+        return new String(folded);
+    }
+
+    /**
+     * @param text
+     *            text containing the region
+     * @param from
+     *            start of the region
+     * @param to
+     *            end of the region, from <= to <= text.length()
+     * @return true iff the region is equal to its folded form
+     */
+    public static boolean isFolded(CharSequence text, int from, int to) {
+        for (int i = from; i < to; ) {
+            char ascii = text.charAt(i);
+            if (ascii < 0x80) {
+                if (ascii >= 'A' && ascii <= 'Z') {
+                    return false;
+                }
+                ++i;
+                continue;
+            }
+            int c = codePointAt(text, i, to);
+            if (fold(c) != c) {
+                return false;
+            }
+            i += Character.charCount(c);
+        }
+        return true;
+    }
+
+    /**
+     * @return true iff a and b are equal ignoring case
+     */
+    public static boolean equals(CharSequence a, CharSequence b) {
+        return a.length() == b.length() && regionMatches(a, 0, b, 0, a.length());
+    }
+
+    /**
+     * Compare regions of two texts ignoring case.
+     *
+     * @param a
+     *            first text
+     * @param aFrom
+     *            start of the region of a
+     * @param b
+     *            second text
+     * @param bFrom
+     *            start of the region of b
+     * @param length
+     *            length of both regions, which must lie within their texts
+     * @return true iff the regions are equal ignoring case
+     */
+    public static boolean regionMatches(CharSequence a, int aFrom, CharSequence b, int bFrom, int length) {
+        int aTo = aFrom + length;
+        int bTo = bFrom + length;
+        for (int i = 0; i < length; ) {
+            char x = a.charAt(aFrom + i);
+            char y = b.charAt(bFrom + i);
+            if (x == y && !Character.isSurrogate(x)) {
+                ++i;
+                continue;
+            }
+            int p = codePointAt(a, aFrom + i, aTo);
+            int q = codePointAt(b, bFrom + i, bTo);
+            if (p != q && fold(p) != fold(q)) {
+                return false;
+            }
+            i += Character.charCount(p);
+        }
+        return true;
+    }
+
+    /**
+     * @param text
+     *            text containing the region
+     * @param from
+     *            start of the region
+     * @param to
+     *            end of the region, from <= to <= text.length()
+     * @return fold(text, from, to).hashCode(), computed without folding
+     */
+    public static int hashCode(CharSequence text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; ) {
+            char ascii = text.charAt(i);
+            if (ascii < 0x80) {
+                hash = 31 * hash + fold(ascii);
+                ++i;
+                continue;
+            }
+            int c = fold(codePointAt(text, i, to));
+            if (Character.isBmpCodePoint(c)) {
+                hash = 31 * hash + c;
+                ++i;
+            } else {
+                hash = 31 * (31 * hash + Character.highSurrogate(c)) + Character.lowSurrogate(c);
+                i += 2;
+            }
+        }
+        return hash;
+    }
+
+    /*
+     * @return the code point at i, counting a surrogate pair only if both
+     *         halves are before limit
+     */
+    static int codePointAt(CharSequence text, int i, int limit) {
+        char c = text.charAt(i);
+        if (Character.isHighSurrogate(c) && i + 1 < limit) {
+            char d = text.charAt(i + 1);
+            if (Character.isLowSurrogate(d)) {
+                return Character.toCodePoint(c, d);
+            }
+        }
+        return c;
+    }
+
+    /*
+     * Write a code point into chars at i.
+     *
+     * @return number of chars written
+     */
+    private static int write(int codePoint, char[] chars, int i) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            chars[i] = (char) codePoint;
+            return 1;
+        }
+        chars[i] = Character.highSurrogate(codePoint);
+        chars[i + 1] = Character.lowSurrogate(codePoint);
+        return 2;
+    }
+}
@@ -0,0 +1,133 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * ConcurrentAuthorHashtags is a thread-safe AuthorHashtags, for ingesting
+ * tweets from many threads at once.
+ *
+ * Authors are split by hash into a fixed number of stripes, each an
+ * AuthorHashtags guarded by its own lock, so threads adding tweets by
+ * different authors rarely wait for each other. Each stripe numbers its own
+ * hashtags, so a hashtag used in many stripes is stored once per stripe.
+ */
+public class ConcurrentAuthorHashtags {
+
+    private final AuthorHashtags[] stripes;
+
+    /* Rep invariant:
+     *    stripes.length is a power of two
+     *    each author is only in stripes[stripe(author)]
+     *
+     * Thread safety argument:
+     *    stripes is final and never reassigned; each stripe is accessed only
+     *    while holding its own lock
+     */
+
+    /**
+     * Make an empty map with enough stripes for the processors available.
+     */
+    public ConcurrentAuthorHashtags() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Make an empty map.
+     *
+     * @param concurrency
+     *            expected number of threads adding at once, >= 1; rounded up
+     *            to a power of two stripes
+     */
+    public ConcurrentAuthorHashtags(int concurrency) {
+        int count = 1;
+        while (count < concurrency) {
+            count <<= 1;
+        }
+        stripes = new AuthorHashtags[count];
+        for (int i = 0; i < count; ++i) {
+            stripes[i] = new AuthorHashtags();
+        }
+    }
+
+    /**
+     * Add the hashtags of a tweet to its author's set.
+     *
+     * @param tweet
+     *            tweet to add
+     */
+    public void add(Tweet tweet) {
+        AuthorHashtags stripe = stripes[stripe(tweet.getAuthor())];
+        synchronized (stripe) {
+            stripe.add(tweet);
+        }
+    }
+
+    /**
+     * Add the hashtags of tweets to their authors' sets.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return number of distinct authors of the tweets added
+     */
+    public int authorCount() {
+        int count = 0;
+        for (AuthorHashtags stripe : stripes) {
+            synchronized (stripe) {
+                count += stripe.authorCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @see AuthorHashtags#hashtags(String)
+     */
+    public Set<String> hashtags(String author) {
+        AuthorHashtags stripe = stripes[stripe(author)];
+        synchronized (stripe) {
+            return stripe.hashtags(author);
+        }
+    }
+
+    /**
+     * @return the same as AuthorHashtags.toMap() for the tweets added; if
+     *         tweets are added meanwhile, each author's set reflects some
+     *         moment during the call
+     */
+    public Map<String, Set<String>> toMap() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (AuthorHashtags stripe : stripes) {
+            synchronized (stripe) {
+                map.putAll(stripe.toMap());
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return a new AuthorHashtags with every author and hashtag added so
+     *         far, with each hashtag stored once
+     */
+    public AuthorHashtags snapshot() {
+        AuthorHashtags result = new AuthorHashtags();
+        for (AuthorHashtags stripe : stripes) {
+            synchronized (stripe) {
+                result.merge(stripe);
+            }
+        }
+        return result;
+    }
+
+    private int stripe(String author) {
+        int h = author.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
@@ -71,80 +71,27 @@ public class Extract {
      *         include a username at most once.
      */
     public static Set<String> getMentionedUsers(List<Tweet> tweets) {
-        Set<String> users = new HashSet<String>();
-        
-        // check if list of tweets is empty
-        if (tweets.size() == 0) {
-            return users;
-        }
+        NameTable users = new NameTable();
+        TweetTokenizer tokenizer = new TweetTokenizer();
         
         for (Tweet tweet : tweets) {
-            
             String tweetText = tweet.getText();
             
-            // divide the tweet text by @
-            String [] partitions = tweetText.split("@");
-            
-            // no @ in the string
-            if (partitions.length <= 1) {
-                return users;
+            // skip the tokenizer entirely for tweets without any @
+            if (tweetText.indexOf('@') < 0) {
+                continue;
             }
             
-            for (int i = 1; i < partitions.length; ++i) {
-                
-                // check the current parition's length
-                if (partitions[i].length() == 0) {
-                    continue;
-                }
-                
-                // ensure that the @ sign is not preceeded by a valid username char
-                if (partitions[i - 1].length() > 0) {
-                    if (isValidUserChar(partitions[i - 1].charAt(partitions[i - 1].length() - 1))) {
-                        continue;
-                    }
-                }
-                    
-                // break the partition into a char array
-                char [] lettersInPartition = partitions[i].toCharArray();
-
-                // add the username into a new StringBuilder
-                StringBuilder lettersInUsername = new StringBuilder();
-                boolean addUser = false;
-
-                for (char letter : lettersInPartition) {
-                    if (isValidUserChar(letter)) {
-                        lettersInUsername.append(letter);
-                        addUser = true;
-                    }
-                    else {
-                        break;
-                    }
-                }
-                
-                if (addUser) {
-                    users.add(lettersInUsername.toString().toLowerCase());
+            // fold each mention in place; only a new user makes a String
+            tokenizer.reset(tweetText);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    users.internFolded(tweetText, tokenizer.start(), tokenizer.end());
                 }
             }
         }
         
-        return users;
-    }
-    
-    /*
-     * Check if letter is a valid letter in a Twitter username,
-     * as specified by Tweet.getAuthor() spec.
-     * 
-     * @param letter
-     *          the letter to be checked
-     * 
-     * @return true if the letter is valid, else false
-     */
-    private static boolean isValidUserChar(char letter) {        
-        if ((letter >= 'A' && letter <= 'Z') || (letter >= 'a' && letter <= 'z') || (letter >= '0' && letter <= '9') || (letter == '_') || (letter == '-')) {
-            return true;
-        }
-        
-        return false;
+        return toSet(users);
     }
     
     /**
@@ -164,29 +111,208 @@ public class Extract {
             return hashtags;
         }
 
+        TweetTokenizer tokenizer = new TweetTokenizer();
+
         for (Tweet tweet : tweets) {
 
             String tweetText = tweet.getText();
             
             Set<String> hashtagsByUser = new HashSet<String>();
 
-            // extract individual words from the tweet
-            String [] words = tweetText.split(" ");
-
-            // extract the word(s) containing '#'
-            for (String word : words) {
-                if (word.startsWith("#") && word.length() > 1) {
-                    hashtagsByUser.add(word.substring(1));
+            // extract the hashtags from the tweet in a single pass
+            tokenizer.reset(tweetText);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    hashtagsByUser.add(tweetText.substring(tokenizer.start(), tokenizer.end()));
                 }
             }
             
             // add the user and hashtags
             hashtags.put(tweet.getAuthor(), hashtagsByUser);
         }
+
+        return hashtags;
+    }
+
+    /**
+     * Get hashtags mentioned in all of each author's tweets.
+     *
+     * @param tweets
+     *            list of tweets with distinct ids, not modified by this method.
+     *
+     * @return a map from tweet author to a set of strings, containing the hashtags
+     *         mentioned in every tweet of the user, not just the last one as in
+     *         getHashtags(List).
+     * @see AuthorHashtags
+     */
+    public static Map<String, Set<String>> getAllHashtags(List<Tweet> tweets) {
+        return new AuthorHashtags(tweets).toMap();
+    }
+
+    /**
+     * Get usernames mentioned in a list of tweets, as ids.
+     *
+     * @param tweets
+     *            list of tweets with distinct ids, not modified by this method.
+     * @param usernames
+     *            table that numbers usernames ignoring case, such as
+     *            InternTable.USERNAMES; mentions not in it are added
+     * @return a new array of the ids of the users in getMentionedUsers(tweets),
+     *         in increasing order
+     */
+    public static int[] getMentionedUsers(List<Tweet> tweets, InternTable usernames) {
+        IntSet users = new IntSet();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        for (Tweet tweet : tweets) {
+            String tweetText = tweet.getText();
+            if (tweetText.indexOf('@') < 0) {
+                continue;
+            }
+            tokenizer.reset(tweetText);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    users.add(usernames.intern(tweetText, tokenizer.start(), tokenizer.end()));
+                }
+            }
+        }
+        
+        int[] ids = users.toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    /**
+     * Get hashtags mentioned in all of each author's tweets, as ids.
+     *
+     * @param tweets
+     *            list of tweets with distinct ids, not modified by this method.
+     * @param usernames
+     *            table that numbers usernames ignoring case, such as
+     *            InternTable.USERNAMES; authors not in it are added
+     * @param hashtags
+     *            table that numbers hashtags as written, such as
+     *            InternTable.HASHTAGS; hashtags not in it are added
+     * @return a map from the id of each author to the ids of the hashtags
+     *         mentioned in every tweet of the author. Authors are compared
+     *         ignoring case, so unlike getAllHashtags(List), the tweets of
+     *         one user under different spellings share a set.
+     */
+    public static IdSetMap getAllHashtags(List<Tweet> tweets, InternTable usernames, InternTable hashtags) {
+        IntList authors = new IntList();
+        IntList sources = new IntList();
+        IntList destinations = new IntList();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        for (Tweet tweet : tweets) {
+            int author = usernames.intern(tweet.getAuthor());
+            authors.add(author);
+            String tweetText = tweet.getText();
+            if (tweetText.indexOf('#') < 0) {
+                continue;
+            }
+            tokenizer.reset(tweetText);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    sources.add(author);
+                    destinations.add(hashtags.intern(tweetText, tokenizer.start(), tokenizer.end()));
+                }
+            }
+        }
+        
+        return IdSetMap.build(authors, sources, destinations);
+    }
+
+    /**
+     * Get the time period spanned by the tweets in a TweetStore.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @return a minimum-length time interval that contains the timestamp of
+     *         every tweet in the store.
+     */
+    public static Timespan getTimespan(TweetStore store) {
+        if (store.size() == 0) {
+            Instant date = Instant.now();
+            return new Timespan(date, date);
+        }
+        
+        // reduce the timestamp column without creating any Instants
+        long minimumTimestamp = Long.MAX_VALUE, maximumTimestamp = Long.MIN_VALUE;
+        for (int i = 0; i < store.size(); ++i) {
+            long timestamp = store.epochNanos(i);
+            minimumTimestamp = Math.min(minimumTimestamp, timestamp);
+            maximumTimestamp = Math.max(maximumTimestamp, timestamp);
+        }
+        
+        return new Timespan(TweetStore.instant(minimumTimestamp), TweetStore.instant(maximumTimestamp));
+    }
+    
+    /**
+     * Get usernames mentioned in the tweets of a TweetStore.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @return the set of usernames who are mentioned in the text of the tweets,
+     *         as defined by getMentionedUsers(List).
+     */
+    public static Set<String> getMentionedUsers(TweetStore store) {
+        NameTable users = new NameTable();
+        char[] arena = store.arenaChars();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        for (int i = 0; i < store.size(); ++i) {
+            tokenizer.reset(arena, store.textStart(i), store.textEnd(i));
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    users.internFolded(tokenizer.text(), tokenizer.start(), tokenizer.end());
+                }
+            }
+        }
+        
+        return toSet(users);
+    }
+    
+    /**
+     * Get hashtags mentioned in the tweets of a TweetStore.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @return a map from tweet author to a set of strings, as defined by
+     *         getHashtags(List).
+     */
+    public static Map<String, Set<String>> getHashtags(TweetStore store) {
+        Map<String, Set<String>> hashtags = new HashMap<String, Set<String>>();
+        char[] arena = store.arenaChars();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        for (int i = 0; i < store.size(); ++i) {
+            Set<String> hashtagsByUser = new HashSet<String>();
+            
+            tokenizer.reset(arena, store.textStart(i), store.textEnd(i));
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    hashtagsByUser.add(new String(arena, tokenizer.start(), tokenizer.end() - tokenizer.start()));
+                }
+            }
+            
+            hashtags.put(store.authorName(store.authorId(i)), hashtagsByUser);
+        }
         
         return hashtags;
     }
 
+    /*
+     * @return a new set of the names of a table
+     */
+    private static Set<String> toSet(NameTable names) {
+        Set<String> set = new HashSet<String>(Math.max(16, 2 * names.size()));
+        for (int id = 0; id < names.size(); ++id) {
+            set.add(names.name(id));
+        }
+        return set;
+    }
+
     /* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
      * Redistribution of original or derived work requires explicit permission.
      * Don't post any of this code on the web or to a public Github repository.
@@ -30,8 +30,8 @@ public class Filter {
         
         for (Tweet tweet : tweets) {
             
-            // check if username = tweet.getAuthor()
-            if (username.toLowerCase().equals(tweet.getAuthor().toLowerCase())) {
+            // check if username = tweet.getAuthor(), without making lower case copies
+            if (CaseFold.equals(tweet.getAuthor(), username)) {
                 tweetsByUsername.add(tweet);
             }
         }
@@ -81,39 +81,127 @@ public class Filter {
      */
     public static List<Tweet> containing(List<Tweet> tweets, List<String> words) {
         List<Tweet> tweetsContainingWords = new ArrayList<Tweet>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
         
         for (Tweet tweet : tweets) {
             
-            // get the words in the tweet
-            String [] wordsInTweet = tweet.getText().split(" ");
+            // walk the words in the tweet without splitting it
+            tokenizer.reset(tweet.getText());
             
-            for (String wordInTweet : wordsInTweet) {
-                // variable to check if the tweet has been added yet
-                boolean isAdded = false;
+            search:
+            while (tokenizer.next()) {
+                if (tokenizer.kind() != TweetTokenizer.Kind.WORD) {
+                    continue;
+                }
                 
                 for (String word : words) {
                     
-                    // check if wordInTweet = word
-                    if (wordInTweet.toLowerCase().equals(word.toLowerCase())) {
+                    // check if the current word in the tweet = word
+                    if (tokenizer.matches(word)) {
                         tweetsContainingWords.add(tweet);
-                        
-                        // set the value of isAdded to stop the loop
-                        isAdded = true;
-                        
-                        break;
+                        break search;
                     }
                 }
-                
-                // break if the word is added
-                if (isAdded) {
-                    break;
-                }
             }
         }
         
         return tweetsContainingWords;
     }
 
+    /**
+     * Find the tweets in a TweetStore written by a particular user.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @param username
+     *            Twitter username, required to be a valid Twitter username as
+     *            defined by Tweet.getAuthor()'s spec.
+     * @return a new TweetStore with all and only the tweets in store whose
+     *         author is username, in the same order as in store.
+     */
+    public static TweetStore writtenBy(TweetStore store, String username) {
+        
+        // compare each distinct author spelling once, not once per tweet
+        boolean[] isUsername = new boolean[store.authorCount()];
+        for (int authorId = 0; authorId < isUsername.length; ++authorId) {
+            isUsername[authorId] = CaseFold.equals(store.authorName(authorId), username);
+        }
+        
+        int[] rows = new int[store.size()];
+        int count = 0;
+        for (int i = 0; i < store.size(); ++i) {
+            if (isUsername[store.authorId(i)]) {
+                rows[count++] = i;
+            }
+        }
+        
+        return store.select(rows, count);
+    }
+
+    /**
+     * Find the tweets in a TweetStore that were sent during a particular timespan.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @param timespan
+     *            timespan
+     * @return a new TweetStore with all and only the tweets in store that were
+     *         sent during the timespan, in the same order as in store.
+     */
+    public static TweetStore inTimespan(TweetStore store, Timespan timespan) {
+        long start = TweetStore.saturatedEpochNanos(timespan.getStart());
+        long end = TweetStore.saturatedEpochNanos(timespan.getEnd());
+        
+        int[] rows = new int[store.size()];
+        int count = 0;
+        for (int i = 0; i < store.size(); ++i) {
+            long timestamp = store.epochNanos(i);
+            if (timestamp >= start && timestamp <= end) {
+                rows[count++] = i;
+            }
+        }
+        
+        return store.select(rows, count);
+    }
+
+    /**
+     * Find the tweets in a TweetStore that contain certain words.
+     * 
+     * @param store
+     *            tweets with distinct ids, not modified by this method.
+     * @param words
+     *            a list of words to search for in the tweets, as defined by
+     *            containing(List, List).
+     * @return a new TweetStore with all and only the tweets in store that
+     *         include at least one of the words, as defined by
+     *         containing(List, List), in the same order as in store.
+     */
+    public static TweetStore containing(TweetStore store, List<String> words) {
+        char[] arena = store.arenaChars();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        int[] rows = new int[store.size()];
+        int count = 0;
+        for (int i = 0; i < store.size(); ++i) {
+            tokenizer.reset(arena, store.textStart(i), store.textEnd(i));
+            
+            search:
+            while (tokenizer.next()) {
+                if (tokenizer.kind() != TweetTokenizer.Kind.WORD) {
+                    continue;
+                }
+                for (String word : words) {
+                    if (tokenizer.matches(word)) {
+                        rows[count++] = i;
+                        break search;
+                    }
+                }
+            }
+        }
+        
+        return store.select(rows, count);
+    }
+
     /* Copyright (c) 2007-2016 MIT 6.005 course staff, all rights reserved.
      * Redistribution of original or derived work requires explicit permission.
      * Don't post any of this code on the web or to a public Github repository.
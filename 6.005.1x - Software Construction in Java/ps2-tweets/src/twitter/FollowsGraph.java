@@ -0,0 +1,342 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * FollowsGraph is an immutable social network (as defined by SocialNetwork)
+ * in compressed sparse row form: users are numbered 0..userCount()-1 in
+ * alphabetical order of their lower case usernames, and the users followed by
+ * user u are targets[offsets[u] .. offsets[u+1]), in increasing order.
+ *
+ * A graph with n users and m edges takes 4(n + m) bytes of arrays plus the
+ * usernames, instead of a HashMap entry per user and a HashSet entry per edge.
+ */
+public class FollowsGraph {
+
+    private final String[] usernames;
+    private final int[] offsets;
+    private final int[] targets;
+
+    /* Rep invariant:
+     *    usernames is sorted, without duplicates, and every username is lower case
+     *    offsets.length == usernames.length + 1, offsets[0] == 0,
+     *      offsets is nondecreasing, offsets[usernames.length] == targets.length
+     *    for each u, targets[offsets[u] .. offsets[u+1]) is strictly increasing,
+     *      within [0, usernames.length), and does not contain u
+     *
+     * Abstraction function:
+     *    represents the social network in which usernames[u] follows
+     *    usernames[targets[k]] for each offsets[u] <= k < offsets[u+1]
+     */
+
+    private FollowsGraph(String[] usernames, int[] offsets, int[] targets) {
+        this.usernames = usernames;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Builder accumulates users and follows edges, in any order and with
+     * duplicates, and then builds a FollowsGraph.
+     */
+    public static class Builder {
+
+        // folded usernames
+        private final NameTable users = new NameTable();
+        private final IntList sources = new IntList();
+        private final IntList destinations = new IntList();
+
+        /**
+         * Add a user, who may follow and be followed by nobody.
+         *
+         * @param username
+         *            Twitter username, case-insensitive
+         * @return this builder
+         */
+        public Builder addUser(String username) {
+            id(username);
+            return this;
+        }
+
+        /**
+         * Add evidence that one user follows another. Users can't follow
+         * themselves, so an edge from a user to the same user only adds the user.
+         *
+         * @param follower
+         *            Twitter username of the follower, case-insensitive
+         * @param followed
+         *            Twitter username of the followed user, case-insensitive
+         * @return this builder
+         */
+        public Builder addEdge(String follower, String followed) {
+            int source = id(follower);
+            int destination = id(followed);
+            if (source != destination) {
+                sources.add(source);
+                destinations.add(destination);
+            }
+            return this;
+        }
+
+        /**
+         * @return a new FollowsGraph of the users and edges added so far
+         */
+        public FollowsGraph build() {
+            List<String> names = new ArrayList<String>(users.size());
+            for (int u = 0; u < users.size(); ++u) {
+                names.add(users.name(u));
+            }
+            return FollowsGraph.build(names, sources, destinations);
+        }
+
+        private int id(String username) {
+            return users.internFolded(username, 0, username.length());
+        }
+    }
+
+    /*
+     * Build a graph from users numbered in any order and edges between them.
+     *
+     * @param names
+     *            distinct lower case usernames; user i is names.get(i)
+     * @param sources
+     *            followers of the edges, as indexes into names
+     * @param destinations
+     *            followed users of the edges, parallel to sources; may repeat
+     *            edges but must not contain self-edges
+     * @return a new graph of names and the edges
+     */
+    static FollowsGraph build(List<String> names, IntList sources, IntList destinations) {
+        int n = names.size();
+
+        // renumber users alphabetically
+        String[] sorted = names.toArray(new String[n]);
+        Arrays.sort(sorted);
+        int[] rank = new int[n];
+        for (int id = 0; id < n; ++id) {
+            rank[id] = Arrays.binarySearch(sorted, names.get(id));
+        }
+
+        // counting sort of the edges by source
+        int m = sources.size();
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < m; ++k) {
+            ++offsets[rank[sources.get(k)] + 1];
+        }
+        for (int u = 0; u < n; ++u) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] targets = new int[m];
+        for (int k = 0; k < m; ++k) {
+            targets[next[rank[sources.get(k)]]++] = rank[destinations.get(k)];
+        }
+
+        // sort each row and squeeze out duplicate edges
+        int write = 0;
+        for (int u = 0; u < n; ++u) {
+            int from = offsets[u], to = offsets[u + 1];
+            Arrays.sort(targets, from, to);
+            offsets[u] = write;
+            for (int k = from; k < to; ++k) {
+                if (k == from || targets[k] != targets[k - 1]) {
+                    targets[write++] = targets[k];
+                }
+            }
+        }
+        offsets[n] = write;
+
+        return new FollowsGraph(sorted, offsets, Arrays.copyOf(targets, write));
+    }
+
+    /**
+     * Make a FollowsGraph from the Map form of a social network.
+     *
+     * @param followsGraph
+     *            a social network (as defined by SocialNetwork), not modified
+     *            by this method
+     * @return a graph of the same users and follows
+     */
+    public static FollowsGraph fromMap(Map<String, Set<String>> followsGraph) {
+        Builder builder = new Builder();
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            builder.addUser(entry.getKey());
+            for (String followed : entry.getValue()) {
+                builder.addEdge(entry.getKey(), followed);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, without
+     * building the Map form.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @return a graph of the same follows as
+     *         SocialNetwork.guessFollowsGraph(tweets), in which every author and
+     *         every @-mentioned user is a user
+     */
+    public static FollowsGraph fromTweets(List<Tweet> tweets) {
+        return fromTweets(tweets, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, without
+     * building the Map form, ignoring hashtags too popular to be evidence of
+     * anything.
+     *
+     * The common-hashtag pairs are collected before duplicates are removed,
+     * so the memory used while building grows with the sum over hashtags of
+     * the square of their distinct users; bound it with maxUsersPerHashtag on
+     * tweets with popular hashtags.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param maxUsersPerHashtag
+     *            hashtags used by more than this many distinct users are not
+     *            taken as evidence, as for SocialNetwork.guessFollowsGraph(List,
+     *            int). Requires >= 0.
+     * @return a graph of the same follows as
+     *         SocialNetwork.guessFollowsGraph(tweets, maxUsersPerHashtag), in
+     *         which every author and every @-mentioned user is a user
+     */
+    public static FollowsGraph fromTweets(List<Tweet> tweets, int maxUsersPerHashtag) {
+        Builder builder = new Builder();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        NameTable hashtags = new NameTable();
+        LongCountMap memberships = new LongCountMap();
+        List<IntList> usersByHashtag = new ArrayList<IntList>();
+
+        // mention evidence, and a hashtag -> distinct users inverted index
+        for (Tweet tweet : tweets) {
+            String text = tweet.getText();
+            int user = builder.id(tweet.getAuthor());
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                // names are looked up in place, and only copied when new
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    int followed = builder.users.internFolded(text, tokenizer.start(), tokenizer.end());
+                    if (followed != user) {
+                        builder.sources.add(user);
+                        builder.destinations.add(followed);
+                    }
+                } else if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    int hashtag = hashtags.intern(text, tokenizer.start(), tokenizer.end());
+                    if (hashtag == usersByHashtag.size()) {
+                        usersByHashtag.add(new IntList());
+                    }
+                    if (memberships.add(LongCountMap.key(hashtag, user), 1) == 1) {
+                        usersByHashtag.get(hashtag).add(user);
+                    }
+                }
+            }
+        }
+
+        // common-hashtag evidence
+        for (IntList users : usersByHashtag) {
+            if (users.size() > maxUsersPerHashtag) {
+                continue;
+            }
+            for (int i = 0; i < users.size(); ++i) {
+                for (int j = 0; j < users.size(); ++j) {
+                    if (i != j) {
+                        builder.sources.add(users.get(i));
+                        builder.destinations.add(users.get(j));
+                    }
+                }
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * @return the Map form of this social network, with a key for every user
+     *         (mapped to the empty set if the user follows nobody)
+     */
+    public Map<String, Set<String>> toMap() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (int u = 0; u < usernames.length; ++u) {
+            Set<String> follows = new HashSet<String>();
+            for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                follows.add(usernames[targets[k]]);
+            }
+            map.put(usernames[u], follows);
+        }
+        return map;
+    }
+
+    /**
+     * @return number of users
+     */
+    public int userCount() {
+        return usernames.length;
+    }
+
+    /**
+     * @return number of follows edges
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * @return lower case username of user u, for 0 <= u < userCount()
+     */
+    public String username(int u) {
+        return usernames[u];
+    }
+
+    /**
+     * @param username
+     *            Twitter username, case-insensitive
+     * @return the user number of username, or -1 if it is not in the graph
+     */
+    public int id(String username) {
+        int u = Arrays.binarySearch(usernames, CaseFold.fold(username));
+        return u >= 0 ? u : -1;
+    }
+
+    /**
+     * @return number of users that user u follows, for 0 <= u < userCount()
+     */
+    public int outDegree(int u) {
+        return offsets[u + 1] - offsets[u];
+    }
+
+    /**
+     * @return new array of the users that user u follows, in increasing order
+     */
+    public int[] follows(int u) {
+        return Arrays.copyOfRange(targets, offsets[u], offsets[u + 1]);
+    }
+
+    /**
+     * @return new array whose entry u is the number of followers of user u
+     */
+    public int[] inDegrees() {
+        int[] inDegrees = new int[usernames.length];
+        for (int target : targets) {
+            ++inDegrees[target];
+        }
+        return inDegrees;
+    }
+
+    /*
+     * @return the offsets array itself, for algorithms in this package; must not be modified
+     */
+    int[] offsets() {
+        return offsets;
+    }
+
+    /*
+     * @return the targets array itself, for algorithms in this package; must not be modified
+     */
+    int[] targets() {
+        return targets;
+    }
+}
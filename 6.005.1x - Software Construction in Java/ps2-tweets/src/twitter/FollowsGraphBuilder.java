@@ -0,0 +1,374 @@
+package twitter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * FollowsGraphBuilder maintains the follows graph guessed from a stream of
+ * tweets, updating it as each tweet arrives instead of recomputing
+ * SocialNetwork.guessFollowsGraph() from the whole list.
+ *
+ * The evidence is that of guessFollowsGraph(): an author follows the users
+ * they @-mention, and users who have used a hashtag in common follow each
+ * other. Each edge keeps a count of the evidence for it, and each user a
+ * count of followers, so both are updated in time proportional to the
+ * evidence a tweet adds (for a hashtag, the number of its other users).
+ *
+ * Optionally, the builder keeps only the evidence of a sliding time window:
+ * tweets older than the window, measured back from the newest timestamp
+ * seen, are expired and their evidence withdrawn.
+ *
+ * Usernames are numbered as they are first seen and numbers are not reused,
+ * so memory grows with the number of distinct users ever seen.
+ * A FollowsGraphBuilder is not safe for use by multiple threads.
+ */
+public class FollowsGraphBuilder {
+
+    private final long windowNanos;
+    private long newestNanos = Long.MIN_VALUE;
+    private int tweetCount;
+
+    // users, and per user: live tweets and mentions referring to it, followers
+    private final NameTable users = new NameTable();
+    private int[] references = new int[16];
+    private int[] followers = new int[16];
+
+    // key(follower, followed) -> pieces of evidence for the edge
+    private final LongCountMap edges = new LongCountMap();
+
+    // hashtags, and the distinct users of each with their tweet counts
+    private final NameTable hashtags = new NameTable();
+    private final List<IntList> usersByHashtag = new ArrayList<IntList>();
+    private final LongCountMap memberships = new LongCountMap();
+    private final LongCountMap memberPositions = new LongCountMap();
+
+    // live tweets' evidence, oldest first; only kept with a window
+    private final PriorityQueue<Evidence> live =
+            new PriorityQueue<Evidence>((a, b) -> Long.compare(a.nanos, b.nanos));
+
+    private final TweetTokenizer tokenizer = new TweetTokenizer();
+    private final IntList mentionScratch = new IntList();
+    private final IntList hashtagScratch = new IntList();
+
+    /* Rep invariant:
+     *    windowNanos > 0, or windowNanos == Long.MAX_VALUE for no window
+     *    references[u] == number of live tweets by u plus number of live tweets
+     *      that mention u (other than their author)
+     *    edges.get(key(a, b)) == number of live tweets by a that mention b,
+     *      plus number of hashtags h with a and b both in usersByHashtag[h]
+     *    followers[b] == number of a with edges.get(key(a, b)) > 0
+     *    memberships.get(key(h, u)) == number of live tweets by u with hashtag h,
+     *      and u is in usersByHashtag[h] at position
+     *      memberPositions.get(key(h, u)) - 1 iff that count is > 0
+     *    with a window, live contains the evidence of exactly the live tweets,
+     *      and every live tweet is newer than newestNanos - windowNanos
+     */
+
+    /*
+     * The evidence added by one live tweet, in user and hashtag numbers.
+     */
+    private static class Evidence {
+        final long nanos;
+        final int author;
+        final int[] mentioned;
+        final int[] hashtags;
+
+        Evidence(long nanos, int author, int[] mentioned, int[] hashtags) {
+            this.nanos = nanos;
+            this.author = author;
+            this.mentioned = mentioned;
+            this.hashtags = hashtags;
+        }
+    }
+
+    /**
+     * Make a builder that keeps the evidence of every tweet added.
+     */
+    public FollowsGraphBuilder() {
+        this.windowNanos = Long.MAX_VALUE;
+    }
+
+    /**
+     * Make a builder that keeps only the evidence of recent tweets.
+     *
+     * @param window
+     *            positive length of the sliding window; a tweet is live while
+     *            its timestamp is after the newest timestamp seen minus window.
+     */
+    public FollowsGraphBuilder(Duration window) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("window must be positive: " + window);
+        }
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Add the evidence of a tweet, expiring any tweets that fall out of the
+     * window. A tweet already outside the window is ignored.
+     *
+     * @param tweet
+     *            tweet to add, with an id distinct from the tweets added so far
+     */
+    public void add(Tweet tweet) {
+        long nanos = TweetStore.saturatedEpochNanos(tweet.getTimestamp());
+        if (hasWindow() && nanos <= cutoff(Math.max(newestNanos, nanos))) {
+            return;
+        }
+
+        String author = tweet.getAuthor();
+        String text = tweet.getText();
+        int authorId = user(users.internFolded(author, 0, author.length()));
+
+        // distinct mentions and distinct hashtags of this tweet, in one pass
+        mentionScratch.clear();
+        hashtagScratch.clear();
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                int mentioned = user(users.internFolded(text, tokenizer.start(), tokenizer.end()));
+                if (mentioned != authorId) {
+                    addDistinct(mentionScratch, mentioned);
+                }
+            } else if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                addDistinct(hashtagScratch, hashtag(hashtags.intern(text, tokenizer.start(), tokenizer.end())));
+            }
+        }
+        Evidence evidence = new Evidence(nanos, authorId, mentionScratch.toArray(), hashtagScratch.toArray());
+
+        apply(evidence, +1);
+        if (hasWindow()) {
+            live.add(evidence);
+            advance(nanos);
+        }
+    }
+
+    /**
+     * Add the evidence of a batch of tweets, as by add() on each in order.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * Move the window forward without adding a tweet, expiring the tweets
+     * that fall out of it. Has no effect without a window, or if now is not
+     * after the newest timestamp seen.
+     *
+     * @param now
+     *            the current time
+     */
+    public void advanceTo(Instant now) {
+        if (hasWindow()) {
+            advance(TweetStore.saturatedEpochNanos(now));
+        }
+    }
+
+    /**
+     * @return number of live tweets: all the tweets added, without a window
+     */
+    public int size() {
+        return tweetCount;
+    }
+
+    /**
+     * @return number of follows edges in the current graph
+     */
+    public int edgeCount() {
+        return edges.size();
+    }
+
+    /**
+     * @param username
+     *            Twitter username, case-insensitive
+     * @return number of followers of username in the current graph
+     */
+    public int followerCount(String username) {
+        int id = users.get(CaseFold.fold(username));
+        return id < 0 ? 0 : followers[id];
+    }
+
+    /**
+     * Find the k people with the most followers in the current graph.
+     *
+     * @param k
+     *            number of people to find, >= 0
+     * @return the first min(k, n) usernames of
+     *         SocialNetwork.influencers(snapshot()), where n is the number of
+     *         users in the snapshot
+     */
+    public List<String> influencers(int k) {
+        // users without live evidence rank below everybody, and are dropped
+        int[] counts = Arrays.copyOf(followers, users.size());
+        for (int u = 0; u < counts.length; ++u) {
+            if (references[u] == 0) {
+                counts[u] = -1;
+            }
+        }
+        int[] top = TopK.select(counts, k, (a, b) -> users.name(a).compareTo(users.name(b)));
+
+        List<String> influencers = new ArrayList<String>(top.length);
+        for (int u : top) {
+            if (counts[u] >= 0) {
+                influencers.add(users.name(u));
+            }
+        }
+        return influencers;
+    }
+
+    /**
+     * Take a snapshot of the current graph; later tweets do not change it.
+     *
+     * @return a graph of the users with live evidence, in which a follows b iff
+     *         the live tweets are evidence for it; without a window, the same
+     *         follows as SocialNetwork.guessFollowsGraph() of the tweets added
+     */
+    public FollowsGraph snapshot() {
+        List<String> names = new ArrayList<String>();
+        int[] renumber = new int[users.size()];
+        for (int u = 0; u < renumber.length; ++u) {
+            if (references[u] > 0) {
+                renumber[u] = names.size();
+                names.add(users.name(u));
+            }
+        }
+
+        IntList sources = new IntList(edges.size());
+        IntList destinations = new IntList(edges.size());
+        edges.forEach((key, count) -> {
+            sources.add(renumber[LongCountMap.first(key)]);
+            destinations.add(renumber[LongCountMap.second(key)]);
+        });
+        return FollowsGraph.build(names, sources, destinations);
+    }
+
+    private boolean hasWindow() {
+        return windowNanos != Long.MAX_VALUE;
+    }
+
+    /*
+     * @return the newest expired timestamp if newest is the newest seen
+     */
+    private long cutoff(long newest) {
+        return newest < Long.MIN_VALUE + windowNanos ? Long.MIN_VALUE : newest - windowNanos;
+    }
+
+    private void advance(long nanos) {
+        newestNanos = Math.max(newestNanos, nanos);
+        long cutoff = cutoff(newestNanos);
+        while (!live.isEmpty() && live.peek().nanos <= cutoff) {
+            apply(live.poll(), -1);
+        }
+    }
+
+    /*
+     * Add (delta = +1) or withdraw (delta = -1) the evidence of a tweet.
+     */
+    private void apply(Evidence evidence, int delta) {
+        tweetCount += delta;
+        references[evidence.author] += delta;
+        for (int mentioned : evidence.mentioned) {
+            references[mentioned] += delta;
+            addEdge(evidence.author, mentioned, delta);
+        }
+        for (int hashtag : evidence.hashtags) {
+            if (delta > 0) {
+                join(hashtag, evidence.author);
+            } else {
+                leave(hashtag, evidence.author);
+            }
+        }
+    }
+
+    private void addEdge(int follower, int followed, int delta) {
+        int count = edges.add(LongCountMap.key(follower, followed), delta);
+        if (delta > 0 && count == delta) {
+            ++followers[followed];
+        } else if (delta < 0 && count == 0) {
+            --followers[followed];
+        }
+    }
+
+    private void join(int hashtag, int user) {
+        long key = LongCountMap.key(hashtag, user);
+        if (memberships.add(key, 1) > 1) {
+            return;
+        }
+        IntList members = usersByHashtag.get(hashtag);
+        for (int i = 0; i < members.size(); ++i) {
+            addEdge(user, members.get(i), +1);
+            addEdge(members.get(i), user, +1);
+        }
+        memberPositions.add(key, members.size() + 1);
+        members.add(user);
+    }
+
+    private void leave(int hashtag, int user) {
+        long key = LongCountMap.key(hashtag, user);
+        if (memberships.add(key, -1) > 0) {
+            return;
+        }
+
+        // swap the last member into this user's position
+        IntList members = usersByHashtag.get(hashtag);
+        int position = removePosition(key);
+        int last = members.get(members.size() - 1);
+        members.set(position, last);
+        members.removeLast();
+        if (last != user) {
+            long lastKey = LongCountMap.key(hashtag, last);
+            memberPositions.add(lastKey, position + 1 - memberPositions.get(lastKey));
+        }
+
+        for (int i = 0; i < members.size(); ++i) {
+            addEdge(user, members.get(i), -1);
+            addEdge(members.get(i), user, -1);
+        }
+    }
+
+    /*
+     * Remove a member's position from memberPositions.
+     *
+     * @return the position of the member
+     */
+    private int removePosition(long key) {
+        int position = memberPositions.get(key) - 1;
+        memberPositions.add(key, -(position + 1));
+        return position;
+    }
+
+    /*
+     * @return id, after making room for the counts of user id
+     */
+    private int user(int id) {
+        if (id == references.length) {
+            references = Arrays.copyOf(references, 2 * id);
+            followers = Arrays.copyOf(followers, 2 * id);
+        }
+        return id;
+    }
+
+    /*
+     * @return id, after making room for the users of hashtag id
+     */
+    private int hashtag(int id) {
+        if (id == usersByHashtag.size()) {
+            usersByHashtag.add(new IntList());
+        }
+        return id;
+    }
+
+    private static void addDistinct(IntList list, int value) {
+        for (int i = 0; i < list.size(); ++i) {
+            if (list.get(i) == value) {
+                return;
+            }
+        }
+        list.add(value);
+    }
+}
@@ -0,0 +1,638 @@
+package twitter;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * GraphAnalytics computes structural properties of a FollowsGraph, such as
+ * are used to find rings of accounts that follow and mention each other:
+ * triangles, connected components, label-propagation communities, and who
+ * can reach whom within a bounded number of follows.
+ *
+ * Triangles, components and communities ignore the direction of edges: two
+ * users are neighbours iff either follows the other. Reachability follows
+ * edges in their direction, forwards or backwards.
+ *
+ * Every algorithm works on the graph's arrays and int arrays of its own, one
+ * or two per user or per edge, and splits its work into ranges of users
+ * computed in parallel on a ForkJoinPool, as PageRank does. The results do
+ * not depend on the pool's parallelism.
+ */
+public class GraphAnalytics {
+
+    private static final int MINIMUM_PIECE = 1 << 12;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Make a GraphAnalytics that runs on the common ForkJoinPool.
+     */
+    public GraphAnalytics() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a GraphAnalytics.
+     *
+     * @param pool
+     *            pool to run on; its parallelism decides how many ranges of
+     *            users are computed at once
+     */
+    public GraphAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Partition is an immutable division of the users of a graph into
+     * disjoint groups, such as components or communities. Groups are
+     * numbered 0..count()-1 in order of their alphabetically first user.
+     */
+    public static class Partition {
+
+        private final FollowsGraph graph;
+        private final int[] groups;
+        private final int[] sizes;
+        private final int iterations;
+
+        /* Rep invariant:
+         *    groups.length == graph.userCount()
+         *    sizes[c] is the number of users u with groups[u] == c, and > 0
+         *    the first user of group c comes before the first user of c + 1
+         */
+
+        /*
+         * Make a partition from any labels of the users, renumbering them.
+         */
+        private Partition(FollowsGraph graph, int[] labels, int iterations) {
+            int n = labels.length;
+            int[] renumbered = new int[n];
+            Arrays.fill(renumbered, -1);
+            IntList sizes = new IntList();
+            int[] groups = new int[n];
+            for (int u = 0; u < n; ++u) {
+                int label = labels[u];
+                if (renumbered[label] < 0) {
+                    renumbered[label] = sizes.size();
+                    sizes.add(0);
+                }
+                groups[u] = renumbered[label];
+                sizes.set(groups[u], sizes.get(groups[u]) + 1);
+            }
+            this.graph = graph;
+            this.groups = groups;
+            this.sizes = sizes.toArray();
+            this.iterations = iterations;
+        }
+
+        /**
+         * @return the graph partitioned
+         */
+        public FollowsGraph graph() {
+            return graph;
+        }
+
+        /**
+         * @return number of groups
+         */
+        public int count() {
+            return sizes.length;
+        }
+
+        /**
+         * @return group of user u of graph(), for 0 <= u < graph().userCount()
+         */
+        public int group(int u) {
+            return groups[u];
+        }
+
+        /**
+         * @param username
+         *            Twitter username, case-insensitive
+         * @return group of username, or -1 if it is not in the graph
+         */
+        public int group(String username) {
+            int u = graph.id(username);
+            return u < 0 ? -1 : groups[u];
+        }
+
+        /**
+         * @return number of users in group c, for 0 <= c < count()
+         */
+        public int size(int c) {
+            return sizes[c];
+        }
+
+        /**
+         * @return lower case usernames of the users in group c, for
+         *         0 <= c < count(), in alphabetical order
+         */
+        public List<String> members(int c) {
+            List<String> members = new ArrayList<String>(sizes[c]);
+            for (int u = 0; u < groups.length; ++u) {
+                if (groups[u] == c) {
+                    members.add(graph.username(u));
+                }
+            }
+            return members;
+        }
+
+        /**
+         * @return number of passes over the graph taken to find the groups
+         */
+        public int iterations() {
+            return iterations;
+        }
+    }
+
+    /**
+     * Count the triangles of a graph: sets of three users who are each
+     * other's neighbours.
+     *
+     * @param graph
+     *            graph to count
+     * @return number of triangles
+     */
+    public long countTriangles(FollowsGraph graph) {
+        return triangles(graph, null);
+    }
+
+    /**
+     * Count the triangles each user of a graph is in.
+     *
+     * @param graph
+     *            graph to count
+     * @return new array whose entry u is the number of triangles containing
+     *         user u; the entries sum to 3 * countTriangles(graph)
+     */
+    public int[] trianglesPerUser(FollowsGraph graph) {
+        AtomicIntegerArray counts = new AtomicIntegerArray(graph.userCount());
+        triangles(graph, counts);
+        int[] result = new int[counts.length()];
+        for (int u = 0; u < result.length; ++u) {
+            result[u] = counts.get(u);
+        }
+        return result;
+    }
+
+    /*
+     * Count triangles by ordering users by degree and intersecting, for each
+     * edge u -> v forwards in that order, the forward neighbours of u and v,
+     * so each triangle is found exactly once, from its first user.
+     *
+     * @param counts
+     *            if not null, incremented for each user of each triangle
+     * @return number of triangles
+     */
+    private long triangles(FollowsGraph graph, AtomicIntegerArray counts) {
+        int n = graph.userCount();
+        int[][] undirected = undirected(graph);
+        int[] offsets = undirected[0], neighbours = undirected[1];
+
+        // keep the edges from each user to later users in (degree, id) order
+        int[] forwardOffsets = new int[n + 1];
+        for (int u = 0; u < n; ++u) {
+            int forward = 0;
+            for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                if (before(offsets, u, neighbours[k])) {
+                    ++forward;
+                }
+            }
+            forwardOffsets[u + 1] = forwardOffsets[u] + forward;
+        }
+        int[] forwards = new int[forwardOffsets[n]];
+        for (int u = 0, write = 0; u < n; ++u) {
+            for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                if (before(offsets, u, neighbours[k])) {
+                    forwards[write++] = neighbours[k];
+                }
+            }
+        }
+
+        return sum(n, (from, to) -> {
+            long triangles = 0;
+            for (int u = from; u < to; ++u) {
+                for (int k = forwardOffsets[u]; k < forwardOffsets[u + 1]; ++k) {
+                    int v = forwards[k];
+                    // merge the two rows, both in increasing order of id
+                    int i = forwardOffsets[u], iEnd = forwardOffsets[u + 1];
+                    int j = forwardOffsets[v], jEnd = forwardOffsets[v + 1];
+                    while (i < iEnd && j < jEnd) {
+                        if (forwards[i] < forwards[j]) {
+                            ++i;
+                        } else if (forwards[i] > forwards[j]) {
+                            ++j;
+                        } else {
+                            ++triangles;
+                            if (counts != null) {
+                                counts.incrementAndGet(u);
+                                counts.incrementAndGet(v);
+                                counts.incrementAndGet(forwards[i]);
+                            }
+                            ++i;
+                            ++j;
+                        }
+                    }
+                }
+            }
+            return triangles;
+        });
+    }
+
+    /*
+     * @return true iff u comes before v in order of degree and then id
+     */
+    private static boolean before(int[] offsets, int u, int v) {
+        int du = offsets[u + 1] - offsets[u];
+        int dv = offsets[v + 1] - offsets[v];
+        return du != dv ? du < dv : u < v;
+    }
+
+    /**
+     * Find the connected components of a graph.
+     *
+     * Edges are merged by a union-find forest shared by all threads, whose
+     * roots are only ever linked, by compare-and-set, under smaller users,
+     * so concurrent unions cannot form a cycle.
+     *
+     * @param graph
+     *            graph to divide
+     * @return partition of the users of graph into its components: u and v
+     *         are in the same group iff there is a path between them
+     */
+    public Partition components(FollowsGraph graph) {
+        int n = graph.userCount();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        AtomicIntegerArray parents = new AtomicIntegerArray(n);
+        for (int u = 0; u < n; ++u) {
+            parents.set(u, u);
+        }
+
+        sum(n, (from, to) -> {
+            for (int u = from; u < to; ++u) {
+                for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                    union(parents, u, targets[k]);
+                }
+            }
+            return 0;
+        });
+
+        int[] roots = new int[n];
+        sum(n, (from, to) -> {
+            for (int u = from; u < to; ++u) {
+                roots[u] = find(parents, u);
+            }
+            return 0;
+        });
+        return new Partition(graph, roots, 1);
+    }
+
+    /*
+     * @return root of u's tree, halving the path to it
+     */
+    private static int find(AtomicIntegerArray parents, int u) {
+        while (true) {
+            int parent = parents.get(u);
+            if (parent == u) {
+                return u;
+            }
+            int grandparent = parents.get(parent);
+            if (grandparent == parent) {
+                return parent;
+            }
+            parents.compareAndSet(u, parent, grandparent);
+            u = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parents, int u, int v) {
+        while (true) {
+            u = find(parents, u);
+            v = find(parents, v);
+            if (u == v) {
+                return;
+            }
+            // link the larger root under the smaller, if it is still a root
+            if (u < v) {
+                int swap = u;
+                u = v;
+                v = swap;
+            }
+            if (parents.compareAndSet(u, u, v)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find communities in a graph by label propagation: every user starts in
+     * a community of its own, and in each pass every user joins the most
+     * common community among itself and its neighbours, the smallest
+     * community on a tie, until no user moves. Passes are synchronous, so
+     * the result does not depend on the order users are visited in.
+     *
+     * @param graph
+     *            graph to divide
+     * @param maxIterations
+     *            most passes to run, >= 1
+     * @return partition of the users of graph into communities; every
+     *         community lies within one component
+     */
+    public Partition communities(FollowsGraph graph, int maxIterations) {
+        if (maxIterations < 1) {
+            throw new IllegalArgumentException("max iterations " + maxIterations);
+        }
+        int n = graph.userCount();
+        int[][] undirected = undirected(graph);
+        int[] offsets = undirected[0], neighbours = undirected[1];
+        int[][] labels = { new int[n], new int[n] };
+        for (int u = 0; u < n; ++u) {
+            labels[0][u] = u;
+        }
+
+        int iterations = 0;
+        long changed = 1;
+        while (changed > 0 && iterations < maxIterations) {
+            int[] current = labels[iterations % 2];
+            int[] next = labels[(iterations + 1) % 2];
+            changed = sum(n, (from, to) -> {
+                long moved = 0;
+                int[] scratch = new int[0];
+                for (int u = from; u < to; ++u) {
+                    int degree = offsets[u + 1] - offsets[u];
+                    if (scratch.length < degree + 1) {
+                        scratch = new int[Math.max(degree + 1, 2 * scratch.length)];
+                    }
+                    scratch[0] = current[u];
+                    for (int k = 0; k < degree; ++k) {
+                        scratch[k + 1] = current[neighbours[offsets[u] + k]];
+                    }
+                    next[u] = mostCommon(scratch, degree + 1);
+                    if (next[u] != current[u]) {
+                        ++moved;
+                    }
+                }
+                return moved;
+            });
+            ++iterations;
+        }
+        return new Partition(graph, labels[iterations % 2], iterations);
+    }
+
+    /*
+     * @return the most common of values[0, length), the smallest on a tie;
+     *         sorts that range
+     */
+    private static int mostCommon(int[] values, int length) {
+        Arrays.sort(values, 0, length);
+        int best = values[0], bestCount = 0;
+        for (int i = 0; i < length; ) {
+            int j = i;
+            while (j < length && values[j] == values[i]) {
+                ++j;
+            }
+            if (j - i > bestCount) {
+                best = values[i];
+                bestCount = j - i;
+            }
+            i = j;
+        }
+        return best;
+    }
+
+    /**
+     * Find who a user can reach by following at most a number of edges.
+     *
+     * @param graph
+     *            graph to search
+     * @param username
+     *            Twitter username of the starting user, case-insensitive
+     * @param maxDepth
+     *            most edges to follow, >= 0
+     * @return new array whose entry v is the fewest edges from username to
+     *         user v, or -1 if that is more than maxDepth
+     * @throws IllegalArgumentException if username is not a user of graph
+     */
+    public int[] distancesFrom(FollowsGraph graph, String username, int maxDepth) {
+        return search(graph.offsets(), graph.targets(), user(graph, username), maxDepth);
+    }
+
+    /**
+     * Find who can reach a user by following at most a number of edges.
+     *
+     * @param graph
+     *            graph to search
+     * @param username
+     *            Twitter username of the user to reach, case-insensitive
+     * @param maxDepth
+     *            most edges to follow, >= 0
+     * @return new array whose entry v is the fewest edges from user v to
+     *         username, or -1 if that is more than maxDepth
+     * @throws IllegalArgumentException if username is not a user of graph
+     */
+    public int[] distancesTo(FollowsGraph graph, String username, int maxDepth) {
+        int[][] reversed = reversed(graph);
+        return search(reversed[0], reversed[1], user(graph, username), maxDepth);
+    }
+
+    private static int user(FollowsGraph graph, String username) {
+        int u = graph.id(username);
+        if (u < 0) {
+            throw new IllegalArgumentException("not in the graph: " + username);
+        }
+        return u;
+    }
+
+    /*
+     * Breadth-first search one level at a time, expanding ranges of each
+     * level in parallel; a user is claimed for the next level by the first
+     * thread to set its distance.
+     *
+     * @return distance of each user from source, -1 beyond maxDepth
+     */
+    private int[] search(int[] offsets, int[] targets, int source, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("max depth " + maxDepth);
+        }
+        int n = offsets.length - 1;
+        AtomicIntegerArray distances = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; ++v) {
+            distances.set(v, -1);
+        }
+        distances.set(source, 0);
+        int[] frontier = { source };
+        for (int depth = 1; depth <= maxDepth && frontier.length > 0; ++depth) {
+            int level = depth;
+            int[] current = frontier;
+            frontier = pool.invoke(new ExpandTask(current, 0, current.length, threshold(current.length),
+                                                  (v, claimed) -> {
+                for (int k = offsets[v]; k < offsets[v + 1]; ++k) {
+                    if (distances.compareAndSet(targets[k], -1, level)) {
+                        claimed.add(targets[k]);
+                    }
+                }
+            })).toArray();
+        }
+        int[] result = new int[n];
+        for (int v = 0; v < n; ++v) {
+            result[v] = distances.get(v);
+        }
+        return result;
+    }
+
+    /*
+     * @return { offsets, neighbours } of the undirected graph, each row in
+     *         increasing order without duplicates
+     */
+    private static int[][] undirected(FollowsGraph graph) {
+        int n = graph.userCount();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[][] reversed = reversed(graph);
+        int[] inOffsets = reversed[0], sources = reversed[1];
+
+        // merge each user's rows out and in, both in increasing order
+        int[] merged = new int[n + 1];
+        int[] neighbours = new int[2 * targets.length];
+        int write = 0;
+        for (int u = 0; u < n; ++u) {
+            int i = offsets[u], iEnd = offsets[u + 1];
+            int j = inOffsets[u], jEnd = inOffsets[u + 1];
+            while (i < iEnd || j < jEnd) {
+                int next;
+                if (j == jEnd || (i < iEnd && targets[i] < sources[j])) {
+                    next = targets[i++];
+                } else if (i == iEnd || sources[j] < targets[i]) {
+                    next = sources[j++];
+                } else {
+                    next = targets[i++];
+                    ++j;
+                }
+                neighbours[write++] = next;
+            }
+            merged[u + 1] = write;
+        }
+        return new int[][] { merged, Arrays.copyOf(neighbours, write) };
+    }
+
+    /*
+     * @return { inOffsets, sources } of the reversed graph, each row in
+     *         increasing order
+     */
+    private static int[][] reversed(FollowsGraph graph) {
+        int n = graph.userCount();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] inOffsets = new int[n + 1];
+        for (int target : targets) {
+            ++inOffsets[target + 1];
+        }
+        for (int v = 0; v < n; ++v) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] sources = new int[targets.length];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; ++u) {
+            for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                sources[fill[targets[k]]++] = u;
+            }
+        }
+        return new int[][] { inOffsets, sources };
+    }
+
+    private int threshold(int n) {
+        return Math.max(MINIMUM_PIECE, TweetTask.threshold(n, pool.getParallelism()));
+    }
+
+    /*
+     * @return sum of range over [0, n), split into pieces computed in parallel
+     */
+    private long sum(int n, Range range) {
+        return pool.invoke(new RangeTask(range, 0, n, threshold(n)));
+    }
+
+    /*
+     * Work on the users [from, to), returning a count.
+     */
+    private interface Range {
+        long compute(int from, int to);
+    }
+
+    private static class RangeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Range range;
+        private final int from, to;
+        private final int threshold;
+
+        RangeTask(Range range, int from, int to, int threshold) {
+            this.range = range;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override protected Long compute() {
+            if (to - from <= threshold) {
+                return range.compute(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(range, from, middle, threshold);
+            RangeTask right = new RangeTask(range, middle, to, threshold);
+            left.fork();
+            long rightSum = right.compute();
+            return left.join() + rightSum;
+        }
+    }
+
+    /*
+     * Expand one user of a search level, adding the users it claims to claimed.
+     */
+    private interface Expansion {
+        void expand(int user, IntList claimed);
+    }
+
+    /*
+     * Expand the users frontier[from, to), concatenating what they claim.
+     */
+    private static class ExpandTask extends RecursiveTask<IntList> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] frontier;
+        private final int from, to;
+        private final int threshold;
+        private final Expansion expansion;
+
+        ExpandTask(int[] frontier, int from, int to, int threshold, Expansion expansion) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.expansion = expansion;
+        }
+
+        @Override protected IntList compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                ExpandTask left = new ExpandTask(frontier, from, middle, threshold, expansion);
+                ExpandTask right = new ExpandTask(frontier, middle, to, threshold, expansion);
+                left.fork();
+                IntList claimed = right.compute();
+                IntList leftClaimed = left.join();
+                for (int i = 0; i < claimed.size(); ++i) {
+                    leftClaimed.add(claimed.get(i));
+                }
+                return leftClaimed;
+            }
+
+            IntList claimed = new IntList();
+            for (int i = from; i < to; ++i) {
+                expansion.expand(frontier[i], claimed);
+            }
+            return claimed;
+        }
+    }
+}
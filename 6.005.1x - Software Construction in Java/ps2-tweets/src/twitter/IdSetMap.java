@@ -0,0 +1,177 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * IdSetMap is an immutable map from int ids to sets of int ids, such as from
+ * the InternTable ids of users to the users they follow, or to the hashtags
+ * they use.
+ *
+ * It is kept in compressed sparse row form, like FollowsGraph: the keys in
+ * increasing order, and the values of the i-th key in increasing order at
+ * values[offsets[i] .. offsets[i+1]). A map of n keys and m values takes
+ * 4(2n + m) bytes, instead of a HashMap entry, a HashSet and a String per
+ * key and a HashSet entry per value.
+ */
+public class IdSetMap {
+
+    private final int[] keys;
+    private final int[] offsets;
+    private final int[] values;
+
+    /* Rep invariant:
+     *    keys is strictly increasing, and every key is >= 0
+     *    offsets.length == keys.length + 1, offsets[0] == 0,
+     *      offsets is nondecreasing, offsets[keys.length] == values.length
+     *    for each i, values[offsets[i] .. offsets[i+1]) is strictly increasing
+     *      and every value is >= 0
+     *
+     * Abstraction function:
+     *    represents the map from each keys[i] to the set of
+     *    values[offsets[i] .. offsets[i+1])
+     */
+
+    private IdSetMap(int[] keys, int[] offsets, int[] values) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.values = values;
+    }
+
+    /*
+     * Build a map from keys and pairs, in any order and with duplicates.
+     *
+     * @param keys
+     *            ids to map, to the empty set if they are in no pair
+     * @param sources
+     *            keys of the pairs
+     * @param destinations
+     *            values of the pairs, parallel to sources
+     * @return a new map from each id of keys and sources to the set of its
+     *         values in the pairs
+     */
+    static IdSetMap build(IntList keys, IntList sources, IntList destinations) {
+        // the distinct keys, in order
+        int[] sorted = new int[keys.size() + sources.size()];
+        for (int i = 0; i < keys.size(); ++i) {
+            sorted[i] = keys.get(i);
+        }
+        for (int i = 0; i < sources.size(); ++i) {
+            sorted[keys.size() + i] = sources.get(i);
+        }
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; ++i) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[n++] = sorted[i];
+            }
+        }
+        sorted = Arrays.copyOf(sorted, n);
+
+        // counting sort of the pairs by key
+        int m = sources.size();
+        int[] rows = new int[m];
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < m; ++k) {
+            rows[k] = Arrays.binarySearch(sorted, sources.get(k));
+            ++offsets[rows[k] + 1];
+        }
+        for (int i = 0; i < n; ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, n);
+        int[] values = new int[m];
+        for (int k = 0; k < m; ++k) {
+            values[next[rows[k]]++] = destinations.get(k);
+        }
+
+        // sort each row and squeeze out duplicates
+        int write = 0;
+        for (int i = 0; i < n; ++i) {
+            int from = offsets[i], to = offsets[i + 1];
+            Arrays.sort(values, from, to);
+            offsets[i] = write;
+            for (int k = from; k < to; ++k) {
+                if (k == from || values[k] != values[k - 1]) {
+                    values[write++] = values[k];
+                }
+            }
+        }
+        offsets[n] = write;
+
+        return new IdSetMap(sorted, offsets, Arrays.copyOf(values, write));
+    }
+
+    /**
+     * @return number of keys
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return number of values, summed over all keys
+     */
+    public int valueCount() {
+        return values.length;
+    }
+
+    /**
+     * @return new array of the keys, in increasing order
+     */
+    public int[] keys() {
+        return keys.clone();
+    }
+
+    /**
+     * @return true iff key is a key of this map
+     */
+    public boolean containsKey(int key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * @return new array of the set that key maps to, in increasing order;
+     *         empty if key is not a key of this map
+     */
+    public int[] get(int key) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 ? Arrays.copyOfRange(values, offsets[i], offsets[i + 1]) : new int[0];
+    }
+
+    /**
+     * @return true iff key maps to a set containing value
+     */
+    public boolean contains(int key, int value) {
+        int i = Arrays.binarySearch(keys, key);
+        return i >= 0 && Arrays.binarySearch(values, offsets[i], offsets[i + 1], value) >= 0;
+    }
+
+    /**
+     * Convert to the map of the names of the ids.
+     *
+     * @param keyNames
+     *            table that numbered the keys
+     * @param valueNames
+     *            table that numbered the values
+     * @return a new map from the name of each key to a new set of the names
+     *         of its values
+     */
+    public Map<String, Set<String>> toMap(InternTable keyNames, InternTable valueNames) {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (int i = 0; i < keys.length; ++i) {
+            Set<String> set = new HashSet<String>();
+            for (int k = offsets[i]; k < offsets[i + 1]; ++k) {
+                set.add(valueNames.name(values[k]));
+            }
+            map.put(keyNames.name(keys[i]), set);
+        }
+        return map;
+    }
+
+    /**
+     * @return approximate bytes of heap retained by this map
+     */
+    public long memoryBytes() {
+        return 16 + 3 * 16 + 4L * (keys.length + offsets.length + values.length);
+    }
+}
@@ -0,0 +1,540 @@
+package twitter;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IngestionService is a long-running component that accepts tweets from any
+ * number of producer threads and makes them queryable, as Filter and Extract
+ * would query a list of all the tweets accepted so far.
+ *
+ * Producers submit tweets to a bounded queue, and block (or time out) while
+ * it is full, so a slow consumer pushes back on them rather than running out
+ * of memory. One background thread drains the queue in batches and indexes
+ * each batch as an immutable segment: a TweetCorpus with author, timestamp,
+ * word and hashtag indexes. Segments are merged as they accumulate, pairwise
+ * while the newer one is at least half the size of the older one, so there
+ * are O(log n) of them and each tweet is re-indexed O(log n) times.
+ *
+ * After each batch the thread publishes a new Snapshot, an immutable list of
+ * segments, through a volatile field. Readers take the current snapshot
+ * without locking and query it for as long as they like, seeing exactly the
+ * tweets accepted up to some batch, unaffected by later ones.
+ *
+ * The service reports its queue depth, how many tweets have been submitted
+ * and published, and the ingest lag: how long the oldest submitted but
+ * unpublished tweet has waited.
+ */
+public class IngestionService implements Closeable {
+
+    // longest a blocked producer or the idle worker waits before checking
+    // whether the service has failed or been closed
+    private static final long CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final Thread worker;
+
+    private volatile Snapshot snapshot = new Snapshot(new Segment[0]);
+    private volatile RuntimeException failure;
+    // set by close() once no producer is still enqueueing; the worker then
+    // stops when the queue is empty
+    private volatile boolean draining;
+
+    // submission time of the first tweet of the batch being indexed, or 0
+    private volatile long batchSince;
+
+    private final Object progress = new Object();
+    private boolean closed; // guarded by progress
+    private int enqueueing; // guarded by progress
+    private long submitted; // guarded by progress
+    private long published; // guarded by progress
+    private long batches;   // guarded by progress
+
+    /* Rep invariant:
+     *    published <= submitted
+     *    enqueueing >= 0 is the number of producers between accepting a
+     *      tweet and putting it in the queue; 0 once draining
+     *    snapshot holds exactly the first published tweets submitted, in the
+     *      order they were taken from the queue
+     *
+     * Thread safety argument:
+     *    the queue is thread-safe; segments and snapshots are immutable once
+     *    published, and are published through the volatile snapshot field,
+     *    so readers see them fully built; only the worker thread builds
+     *    segments; the counters are guarded by the progress lock, which
+     *    producers and the worker hold only briefly and never while
+     *    blocking on the queue
+     *
+     *    a producer checks closed and counts itself in enqueueing under the
+     *    progress lock, and close() sets closed and waits for enqueueing to
+     *    reach 0 under the same lock before letting the worker stop, so every
+     *    accepted tweet is in the queue before the worker looks for the last
+     *    time; a producer waiting on a full queue wakes at least every
+     *    CHECK_NANOS to check failure, so a dead worker never strands it
+     */
+
+    /**
+     * A tweet waiting in the queue, with the time it was submitted.
+     */
+    private static class Pending {
+        final Tweet tweet;
+        final long nanos;
+
+        Pending(Tweet tweet, long nanos) {
+            this.tweet = tweet;
+            this.nanos = nanos;
+        }
+    }
+
+    /**
+     * Make a service with a queue of 64K tweets, indexing at most 8K tweets
+     * per batch, and start its background thread.
+     */
+    public IngestionService() {
+        this(1 << 16, 1 << 13);
+    }
+
+    /**
+     * Make a service and start its background thread.
+     *
+     * @param queueCapacity
+     *            number of submitted tweets that may wait to be indexed
+     *            before producers block, >= 1
+     * @param maxBatch
+     *            largest number of tweets indexed as one batch, >= 1
+     */
+    public IngestionService(int queueCapacity, int maxBatch) {
+        if (queueCapacity < 1 || maxBatch < 1) {
+            throw new IllegalArgumentException("bad capacity " + queueCapacity + " or batch " + maxBatch);
+        }
+        this.queue = new ArrayBlockingQueue<Pending>(queueCapacity);
+        this.maxBatch = maxBatch;
+        this.worker = new Thread(this::run, "tweet-ingestion");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Submit a tweet, waiting while the queue is full.
+     *
+     * @param tweet
+     *            tweet to ingest, with an id distinct from the tweets
+     *            submitted before
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the service is closed or has failed
+     */
+    public void submit(Tweet tweet) throws InterruptedException {
+        enqueue(tweet, Long.MAX_VALUE);
+    }
+
+    /**
+     * Submit a tweet, waiting at most a given time while the queue is full.
+     *
+     * @param tweet
+     *            tweet to ingest, with an id distinct from the tweets
+     *            submitted before
+     * @param timeout
+     *            longest time to wait
+     * @param unit
+     *            unit of timeout
+     * @return true if the tweet was accepted; false if the queue stayed full
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the service is closed or has failed
+     */
+    public boolean offer(Tweet tweet, long timeout, TimeUnit unit) throws InterruptedException {
+        return enqueue(tweet, unit.toNanos(timeout));
+    }
+
+    /**
+     * @return the tweets published so far, as an immutable snapshot that
+     *         later ingestion does not change
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Wait until every tweet submitted before this call is published.
+     *
+     * @param timeout
+     *            longest time to wait
+     * @param unit
+     *            unit of timeout
+     * @return true if they were published in time
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the service fails while waiting
+     */
+    public boolean awaitPublished(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (progress) {
+            long target = submitted;
+            while (published < target) {
+                if (failure != null) {
+                    throw new IllegalStateException("ingestion failed", failure);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(progress, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return number of tweets waiting in the queue
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of tweets accepted by submit() and offer()
+     */
+    public long submitted() {
+        synchronized (progress) {
+            return submitted;
+        }
+    }
+
+    /**
+     * @return number of tweets visible in snapshot()
+     */
+    public long published() {
+        synchronized (progress) {
+            return published;
+        }
+    }
+
+    /**
+     * @return number of batches indexed
+     */
+    public long batches() {
+        synchronized (progress) {
+            return batches;
+        }
+    }
+
+    /**
+     * @return nanoseconds since the oldest submitted tweet that is not yet
+     *         published was submitted, or 0 if every tweet is published
+     */
+    public long lagNanos() {
+        long since = batchSince;
+        if (since == 0) {
+            Pending oldest = queue.peek();
+            if (oldest == null) {
+                return 0;
+            }
+            since = oldest.nanos;
+        }
+        return Math.max(0, System.nanoTime() - since);
+    }
+
+    /**
+     * Stop accepting tweets, publish those already accepted, and stop the
+     * background thread. Producers already waiting on a full queue are
+     * accepted, and close() waits for them.
+     */
+    @Override public void close() {
+        boolean interrupted = false;
+        synchronized (progress) {
+            closed = true;
+            while (enqueueing > 0) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        draining = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Accept a tweet and put it in the queue, waiting at most timeoutNanos
+     * (forever if Long.MAX_VALUE) while the queue is full.
+     *
+     * @return true if the tweet was put in the queue
+     */
+    private boolean enqueue(Tweet tweet, long timeoutNanos) throws InterruptedException {
+        synchronized (progress) {
+            checkFailure();
+            if (closed) {
+                throw new IllegalStateException("ingestion service closed");
+            }
+            ++submitted;
+            ++enqueueing;
+        }
+        boolean queued = false;
+        try {
+            Pending pending = new Pending(tweet, System.nanoTime());
+            long remaining = timeoutNanos;
+            while (true) {
+                long wait = Math.min(remaining, CHECK_NANOS);
+                long before = System.nanoTime();
+                if (queue.offer(pending, wait, TimeUnit.NANOSECONDS)) {
+                    queued = true;
+                    return true;
+                }
+                // the worker has died, and will never make room
+                checkFailure();
+                if (timeoutNanos != Long.MAX_VALUE) {
+                    remaining -= System.nanoTime() - before;
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                }
+            }
+        } finally {
+            synchronized (progress) {
+                if (!queued) {
+                    --submitted;
+                }
+                --enqueueing;
+                progress.notifyAll();
+            }
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new IllegalStateException("ingestion failed", failure);
+        }
+    }
+
+    /*
+     * Body of the background thread: index batches until closed and drained.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<Pending>(maxBatch);
+        try {
+            while (true) {
+                if (queue.isEmpty() && draining) {
+                    return;
+                }
+                Pending first;
+                try {
+                    first = queue.poll(CHECK_NANOS, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    // close() interrupts; drain what is left before stopping
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batchSince = first.nanos;
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                publish(batch);
+                batch.clear();
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /*
+     * Index a batch as a segment, merge segments, and publish a new snapshot.
+     */
+    private void publish(List<Pending> batch) {
+        List<Tweet> tweets = new ArrayList<Tweet>(batch.size());
+        for (Pending pending : batch) {
+            tweets.add(pending.tweet);
+        }
+
+        List<Segment> segments = new ArrayList<Segment>(Arrays.asList(snapshot.segments));
+        segments.add(new Segment(tweets));
+        while (segments.size() >= 2) {
+            Segment newer = segments.get(segments.size() - 1);
+            Segment older = segments.get(segments.size() - 2);
+            if (2 * newer.size() < older.size()) {
+                break;
+            }
+            List<Tweet> merged = new ArrayList<Tweet>(older.size() + newer.size());
+            merged.addAll(older.tweets);
+            merged.addAll(newer.tweets);
+            segments.remove(segments.size() - 1);
+            segments.set(segments.size() - 1, new Segment(merged));
+        }
+
+        snapshot = new Snapshot(segments.toArray(new Segment[segments.size()]));
+        batchSince = 0;
+        synchronized (progress) {
+            published += batch.size();
+            ++batches;
+            progress.notifyAll();
+        }
+    }
+
+    /**
+     * An immutable, indexed run of tweets. Its corpus is not modified after
+     * the constructor returns, so any number of threads may query it.
+     */
+    private static class Segment {
+        final List<Tweet> tweets;
+        final TweetCorpus corpus;
+        // Extract.getMentionedUsers(tweets), computed when first needed
+        private volatile Set<String> mentionedUsers;
+
+        Segment(List<Tweet> tweets) {
+            this.tweets = Collections.unmodifiableList(tweets);
+            this.corpus = new TweetCorpus(tweets).indexAuthors().indexTimestamps()
+                    .indexTokens(TweetTokenizer.Kind.WORD).indexTokens(TweetTokenizer.Kind.HASHTAG);
+        }
+
+        int size() {
+            return tweets.size();
+        }
+
+        Set<String> mentionedUsers() {
+            Set<String> users = mentionedUsers;
+            if (users == null) {
+                users = Collections.unmodifiableSet(Extract.getMentionedUsers(tweets));
+                mentionedUsers = users;
+            }
+            return users;
+        }
+    }
+
+    /**
+     * Snapshot is an immutable view of the tweets published by an
+     * IngestionService up to some batch, which answers the queries of Filter
+     * and Extract as they would be answered on the list of those tweets, in
+     * the order they were taken from the queue. It is safe for use by
+     * multiple threads: its segments' corpora are never modified once built,
+     * and are published through the service's volatile snapshot field, so
+     * concurrent queries only read them, as TweetCorpus allows.
+     */
+    public static class Snapshot {
+
+        private final Segment[] segments;
+        private final int size;
+
+        private Snapshot(Segment[] segments) {
+            this.segments = segments;
+            int size = 0;
+            for (Segment segment : segments) {
+                size += segment.size();
+            }
+            this.size = size;
+        }
+
+        /**
+         * @return number of tweets in this snapshot
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return number of indexed segments the tweets are held in
+         */
+        public int segmentCount() {
+            return segments.length;
+        }
+
+        /**
+         * @return an unmodifiable list of the tweets in this snapshot, in order
+         */
+        public List<Tweet> tweets() {
+            return new AbstractList<Tweet>() {
+                @Override public Tweet get(int index) {
+                    if (index < 0 || index >= size) {
+                        throw new IndexOutOfBoundsException(index + " of " + size);
+                    }
+                    for (Segment segment : segments) {
+                        if (index < segment.size()) {
+                            return segment.tweets.get(index);
+                        }
+                        index -= segment.size();
+                    }
+                    throw new AssertionError("unreachable");
+                }
+
+                @Override public int size() {
+                    return size;
+                }
+            };
+        }
+
+        /**
+         * Find the tweets that match a query, using the segments' indexes.
+         *
+         * @param query
+         *            query to answer
+         * @return the same as query.filter(tweets())
+         */
+        public List<Tweet> query(TweetQuery query) {
+            List<Tweet> result = new ArrayList<Tweet>();
+            for (Segment segment : segments) {
+                result.addAll(segment.corpus.query(query));
+            }
+            return result;
+        }
+
+        /**
+         * Count the tweets that match a query, using the segments' indexes.
+         *
+         * @param query
+         *            query to answer
+         * @return the same as query.filter(tweets()).size()
+         */
+        public int count(TweetQuery query) {
+            int count = 0;
+            for (Segment segment : segments) {
+                count += segment.corpus.count(query);
+            }
+            return count;
+        }
+
+        /**
+         * @return the same as Filter.writtenBy(tweets(), username)
+         */
+        public List<Tweet> writtenBy(String username) {
+            return query(TweetQuery.writtenBy(username));
+        }
+
+        /**
+         * @return the same as Filter.inTimespan(tweets(), timespan)
+         */
+        public List<Tweet> inTimespan(Timespan timespan) {
+            return query(TweetQuery.inTimespan(timespan));
+        }
+
+        /**
+         * @return the same as Filter.containing(tweets(), words)
+         */
+        public List<Tweet> containing(List<String> words) {
+            return query(TweetQuery.containing(words));
+        }
+
+        /**
+         * @return the same as Extract.getMentionedUsers(tweets())
+         */
+        public Set<String> getMentionedUsers() {
+            Set<String> users = new HashSet<String>();
+            for (Segment segment : segments) {
+                users.addAll(segment.mentionedUsers());
+            }
+            return users;
+        }
+    }
+}
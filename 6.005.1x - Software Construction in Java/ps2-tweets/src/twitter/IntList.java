@@ -0,0 +1,120 @@
+package twitter;
+
+import java.util.Arrays;
+
+/**
+ * IntList is a mutable, growable list of ints without boxing.
+ */
+class IntList {
+
+    private int[] values;
+    private int size;
+
+    /* Rep invariant:
+     *    0 <= size <= values.length
+     */
+
+    /**
+     * Make an empty list.
+     */
+    IntList() {
+        this(4);
+    }
+
+    /**
+     * Make an empty list with room for a number of values.
+     *
+     * @param capacity
+     *            expected number of values, >= 0
+     */
+    IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Append a value.
+     *
+     * @param value
+     *            value to append
+     */
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, 2 * size);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * @return value at index i, for 0 <= i < size()
+     */
+    int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " of " + size);
+        }
+        return values[i];
+    }
+
+    /**
+     * Replace the value at an index.
+     *
+     * @param i
+     *            index, 0 <= i < size()
+     * @param value
+     *            new value
+     */
+    void set(int i, int value) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i + " of " + size);
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Remove the last value; requires size() > 0.
+     */
+    void removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("empty list");
+        }
+        --size;
+    }
+
+    /**
+     * @return number of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Remove all values, keeping the capacity.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return a new array of the values, in order
+     */
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /**
+     * @return bytes of heap retained by this list, including object headers
+     */
+    long memoryBytes() {
+        final int objectBytes = 16 + 4 + 4;
+        final int arrayHeaderBytes = 16;
+        return objectBytes + arrayHeaderBytes + 4L * values.length;
+    }
+
+    /**
+     * Release unused capacity.
+     */
+    void trimToSize() {
+        if (values.length > size && size > 0) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package twitter;
+
+/**
+ * IntSet is a mutable, growable set of non-negative ints without boxing.
+ *
+ * It is an open-addressing hash table with linear probing, starting small,
+ * since most sets it is used for (such as the hashtags of one author) hold
+ * only a few values.
+ */
+class IntSet {
+
+    private int[] slots;
+    private int size;
+
+    /* Rep invariant:
+     *    slots.length is a power of two and > 2 * size
+     *    each slot is 0 (empty) or value + 1 for a distinct value >= 0, and
+     *      each value is reachable by probing from hash(value) without passing
+     *      an empty slot
+     *    size == number of nonempty slots
+     */
+
+    /**
+     * Make an empty set.
+     */
+    IntSet() {
+        slots = new int[4];
+    }
+
+    /**
+     * Add a value.
+     *
+     * @param value
+     *            value to add, >= 0
+     * @return true iff value was not already in the set
+     */
+    boolean add(int value) {
+        assert value >= 0;
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            if (slot == value + 1) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value + 1;
+        if (2 * ++size >= slots.length) {
+            rehash(2 * slots.length);
+        }
+        return true;
+    }
+
+    /**
+     * @return true iff value is in the set
+     */
+    boolean contains(int value) {
+        int mask = slots.length - 1;
+        int i = hash(value) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            if (slot == value + 1) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return number of values in the set
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return a new array of the values in the set, in no particular order
+     */
+    int[] toArray() {
+        int[] values = new int[size];
+        int n = 0;
+        for (int slot : slots) {
+            if (slot != 0) {
+                values[n++] = slot - 1;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return bytes of heap retained by this set, including object headers
+     */
+    long memoryBytes() {
+        final int objectBytes = 16 + 8 + 4;
+        final int arrayHeaderBytes = 16;
+        return objectBytes + arrayHeaderBytes + 4L * slots.length;
+    }
+
+    private void rehash(int length) {
+        int[] old = slots;
+        slots = new int[length];
+        int mask = length - 1;
+        for (int slot : old) {
+            if (slot != 0) {
+                int i = hash(slot - 1) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = slot;
+            }
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,115 @@
+package twitter;
+
+/**
+ * InternTable is a thread-safe, growable dictionary that numbers distinct
+ * usernames or hashtags 0, 1, 2, ... in the order they are first seen, so
+ * that mention sets, hashtag maps and follows graphs can be kept as int
+ * arrays (see IdSetMap) instead of collections of Strings.
+ *
+ * A table either ignores case, for usernames, holding each name folded by
+ * CaseFold, or compares names exactly, for hashtags, which Extract keeps as
+ * written. Names are looked up in place within tweet text, so a name already
+ * in the table costs no String at all.
+ *
+ * USERNAMES and HASHTAGS are shared by the whole process, so ids from
+ * different calls, threads and lists of tweets agree. A table never forgets
+ * a name, so a long-running process that sees an unbounded stream of names
+ * should use its own tables and drop them when done.
+ */
+public class InternTable {
+
+    /**
+     * Usernames, ignoring case, shared by the whole process.
+     */
+    public static final InternTable USERNAMES = new InternTable(true);
+
+    /**
+     * Hashtags as written, shared by the whole process.
+     */
+    public static final InternTable HASHTAGS = new InternTable(false);
+
+    private final boolean ignoreCase;
+    private final NameTable names = new NameTable();
+
+    /* Rep invariant:
+     *    if ignoreCase, every name of names is folded
+     *
+     * Thread safety argument:
+     *    names is accessed only while holding this table's lock; ids are
+     *    never reused or renumbered, so an id stays valid once returned
+     */
+
+    /**
+     * Make an empty table.
+     *
+     * @param ignoreCase
+     *            true to number names ignoring case, as for usernames; false
+     *            to number them exactly as written, as for hashtags
+     */
+    public InternTable(boolean ignoreCase) {
+        this.ignoreCase = ignoreCase;
+    }
+
+    /**
+     * @return true iff this table ignores case
+     */
+    public boolean ignoresCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * Look up a name, adding it if absent.
+     *
+     * @param name
+     *            name to look up
+     * @return the id of name
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Look up the name text.substring(from, to), adding it if absent,
+     * without making the substring unless it is added.
+     *
+     * @param text
+     *            text containing the name
+     * @param from
+     *            start of the name in text
+     * @param to
+     *            end of the name in text, from <= to <= text.length()
+     * @return the id of the name
+     */
+    public synchronized int intern(String text, int from, int to) {
+        return ignoreCase ? names.internFolded(text, from, to) : names.intern(text, from, to);
+    }
+
+    /**
+     * @param name
+     *            name to look up
+     * @return the id of name, or -1 if it is not in the table
+     */
+    public synchronized int id(String name) {
+        return names.get(ignoreCase ? CaseFold.fold(name) : name);
+    }
+
+    /**
+     * @param id
+     *            an id returned by this table
+     * @return the name with that id, folded if this table ignores case
+     * @throws IndexOutOfBoundsException if id is not an id of this table
+     */
+    public synchronized String name(int id) {
+        if (id < 0) {
+            throw new IndexOutOfBoundsException(Integer.toString(id));
+        }
+        return names.name(id);
+    }
+
+    /**
+     * @return number of names; every id is less than this
+     */
+    public synchronized int size() {
+        return names.size();
+    }
+}
@@ -0,0 +1,198 @@
+package twitter;
+
+/**
+ * LongCountMap is a mutable map from long keys to positive int counts, such
+ * as the number of pieces of evidence for each edge (follower, followed)
+ * packed as key(follower, followed).
+ *
+ * It is an open-addressing hash table with linear probing and backward-shift
+ * deletion, so keys whose count drops to 0 leave no tombstones, and updates
+ * allocate nothing but the table itself.
+ */
+class LongCountMap {
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    /* Rep invariant:
+     *    keys.length == counts.length, a power of two > 2 * size
+     *    counts[i] == 0 iff slot i is empty; otherwise counts[i] > 0
+     *    exactly size slots are nonempty, with distinct keys
+     *    each key is reachable by probing from hash(key) without passing an
+     *      empty slot
+     */
+
+    /**
+     * Make an empty map.
+     */
+    LongCountMap() {
+        keys = new long[16];
+        counts = new int[16];
+    }
+
+    /**
+     * Pack two nonnegative ints into one key, ordered by first and then second.
+     *
+     * @return a key unique to (first, second)
+     */
+    static long key(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return the first int of a key made by key(first, second)
+     */
+    static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    /**
+     * @return the second int of a key made by key(first, second)
+     */
+    static int second(long key) {
+        return (int) key;
+    }
+
+    /**
+     * @return the count of key, or 0 if it is absent
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return counts[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Add to the count of a key, removing the key if its count becomes 0.
+     *
+     * @param key
+     *            key to update
+     * @param delta
+     *            amount to add; the resulting count must be >= 0
+     * @return the new count of key
+     */
+    int add(long key, int delta) {
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (counts[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+
+        if (counts[i] == 0) {
+            assert delta >= 0;
+            if (delta == 0) {
+                return 0;
+            }
+            keys[i] = key;
+            counts[i] = delta;
+            if (2 * ++size >= keys.length) {
+                rehash(2 * keys.length);
+            }
+            return delta;
+        }
+
+        int count = counts[i] + delta;
+        assert count >= 0;
+        if (count == 0) {
+            remove(i);
+        } else {
+            counts[i] = count;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of keys with a positive count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Visitor of the entries of a LongCountMap.
+     */
+    interface Visitor {
+        /**
+         * Visit one entry.
+         *
+         * @param key
+         *            key of the entry
+         * @param count
+         *            count of key, > 0
+         */
+        void visit(long key, int count);
+    }
+
+    /**
+     * Visit every key with a positive count, in no particular order. The map
+     * must not be modified during the visit.
+     *
+     * @param visitor
+     *            called once per key
+     */
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; ++i) {
+            if (counts[i] != 0) {
+                visitor.visit(keys[i], counts[i]);
+            }
+        }
+    }
+
+    /**
+     * @return bytes of heap retained by this map, including object headers
+     */
+    long memoryBytes() {
+        final int objectBytes = 16 + 8 + 8 + 4;
+        final int arrayHeaderBytes = 16;
+        return objectBytes + 2 * arrayHeaderBytes + 12L * keys.length;
+    }
+
+    /*
+     * Empty slot i, shifting back any later entries of the same probe run that
+     * would otherwise become unreachable.
+     */
+    private void remove(int i) {
+        int mask = keys.length - 1;
+        int hole = i;
+        for (int j = (i + 1) & mask; counts[j] != 0; j = (j + 1) & mask) {
+            int home = hash(keys[j]) & mask;
+
+            // move j into the hole unless its home lies cyclically in (hole, j]
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                counts[hole] = counts[j];
+                hole = j;
+            }
+        }
+        counts[hole] = 0;
+        --size;
+    }
+
+    private void rehash(int length) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[length];
+        counts = new int[length];
+        int mask = length - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldCounts[i] != 0) {
+                int j = hash(oldKeys[i]) & mask;
+                while (counts[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                counts[j] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,199 @@
+package twitter;
+
+import java.util.Arrays;
+
+/**
+ * NameTable is a mutable, growable dictionary that numbers distinct strings
+ * 0, 1, 2, ... in the order they are first seen.
+ *
+ * It is an open-addressing hash table of int ids with linear probing, so a
+ * lookup or insertion allocates nothing but the table itself: no entry
+ * objects and no boxed Integers.
+ */
+class NameTable {
+
+    private String[] names;
+    private int[] slots;
+    private int size;
+
+    /* Rep invariant:
+     *    0 <= size <= names.length
+     *    names[0..size) are distinct and non-null
+     *    slots.length is a power of two and > 2 * size
+     *    each slot is 0 (empty) or id + 1 for an id in [0, size), and each id
+     *      is in exactly one slot, reachable by probing from hash(names[id])
+     *      without passing an empty slot
+     */
+
+    /**
+     * Make an empty table.
+     */
+    NameTable() {
+        this(8);
+    }
+
+    /**
+     * Make an empty table with room for a number of names.
+     *
+     * @param capacity
+     *            expected number of names, >= 0
+     */
+    NameTable(int capacity) {
+        names = new String[Math.max(capacity, 1)];
+        slots = new int[tableSize(capacity)];
+    }
+
+    /**
+     * Look up a name, adding it if absent.
+     *
+     * @param name
+     *            name to look up
+     * @return the id of name, which is size() - 1 if it was added
+     */
+    int intern(String name) {
+        int mask = slots.length - 1;
+        int i = hash(name) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            if (names[slot - 1].equals(name)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, 2 * size);
+        }
+        names[size] = name;
+        slots[i] = ++size;
+        if (2 * size >= slots.length) {
+            rehash(2 * slots.length);
+        }
+        return size - 1;
+    }
+
+    /**
+     * Look up the name text.substring(from, to), adding it if absent,
+     * without making the substring unless it is added.
+     *
+     * @param text
+     *            text containing the name
+     * @param from
+     *            start of the name in text
+     * @param to
+     *            end of the name in text, from <= to <= text.length()
+     * @return the id of the name, which is size() - 1 if it was added
+     */
+    int intern(String text, int from, int to) {
+        // String.hashCode() of the substring
+        int code = 0;
+        for (int j = from; j < to; ++j) {
+            code = 31 * code + text.charAt(j);
+        }
+
+        int mask = slots.length - 1;
+        int i = spread(code) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            String name = names[slot - 1];
+            if (name.length() == to - from && text.regionMatches(from, name, 0, to - from)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return intern(text.substring(from, to));
+    }
+
+    /**
+     * Look up the name text[from, to) case-folded, adding it if absent,
+     * without folding or copying it unless it is added. The names of a
+     * table used this way must all be folded.
+     *
+     * @param text
+     *            text containing the name
+     * @param from
+     *            start of the name in text
+     * @param to
+     *            end of the name in text, from <= to <= text.length()
+     * @return the id of the folded name, which is size() - 1 if it was added
+     * @see CaseFold
+     */
+    int internFolded(CharSequence text, int from, int to) {
+        int mask = slots.length - 1;
+        int i = spread(CaseFold.hashCode(text, from, to)) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            String name = names[slot - 1];
+            if (name.length() == to - from && CaseFold.regionMatches(text, from, name, 0, to - from)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return intern(CaseFold.fold(text, from, to));
+    }
+
+    /**
+     * @param name
+     *            name to look up
+     * @return the id of name, or -1 if it is not in the table
+     */
+    int get(String name) {
+        int mask = slots.length - 1;
+        int i = hash(name) & mask;
+        for (int slot = slots[i]; slot != 0; slot = slots[i]) {
+            if (names[slot - 1].equals(name)) {
+                return slot - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the name with an id, for 0 <= id < size()
+     */
+    String name(int id) {
+        if (id >= size) {
+            throw new IndexOutOfBoundsException(id + " of " + size);
+        }
+        return names[id];
+    }
+
+    /**
+     * @return number of names
+     */
+    int size() {
+        return size;
+    }
+
+    private void rehash(int length) {
+        int[] table = new int[length];
+        int mask = length - 1;
+        for (int id = 0; id < size; ++id) {
+            int i = hash(names[id]) & mask;
+            while (table[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            table[i] = id + 1;
+        }
+        slots = table;
+    }
+
+    /*
+     * Spread the bits of String.hashCode(), whose low bits are weak for short
+     * strings that differ only in their last characters.
+     */
+    private static int hash(String name) {
+        return spread(name.hashCode());
+    }
+
+    private static int spread(int code) {
+        int h = code * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSize(int capacity) {
+        int length = 16;
+        while (length <= 2 * capacity) {
+            length <<= 1;
+        }
+        return length;
+    }
+}
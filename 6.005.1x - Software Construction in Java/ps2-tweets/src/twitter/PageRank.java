@@ -0,0 +1,419 @@
+package twitter;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * PageRank ranks the users of a FollowsGraph by PageRank, in which following
+ * someone passes on a share of one's own rank, rather than by follower count
+ * as SocialNetwork.influencers() does; or by personalized PageRank, which
+ * ranks users by their importance to one seed user.
+ *
+ * Ranks are computed by power iteration over the graph's arrays: each
+ * iteration pulls the rank of every user from its followers through a
+ * reversed copy of the graph, over ranges of users computed in parallel on a
+ * ForkJoinPool, until the ranks change by less than a tolerance (in L1 norm)
+ * or an iteration limit is reached. Users who follow nobody pass on their
+ * rank as the random jump does. A previous Ranking, of the same or an
+ * earlier graph, can be given as the starting point, which saves most of
+ * the iterations after a small change to the graph.
+ */
+public class PageRank {
+
+    private static final int MINIMUM_PIECE = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+
+    /* Rep invariant:
+     *    0 <= damping < 1, tolerance > 0, maxIterations >= 1
+     */
+
+    /**
+     * Make a PageRank with the usual damping of 0.85, tolerance 1e-9 and at
+     * most 200 iterations, that runs on the common ForkJoinPool.
+     */
+    public PageRank() {
+        this(ForkJoinPool.commonPool(), 0.85, 1e-9, 200);
+    }
+
+    /**
+     * Make a PageRank.
+     *
+     * @param pool
+     *            pool to run on; its parallelism decides how many ranges of
+     *            users are computed at once
+     * @param damping
+     *            probability of following an edge rather than jumping,
+     *            0 <= damping < 1
+     * @param tolerance
+     *            iteration stops once the ranks change by less than this in
+     *            total, > 0
+     * @param maxIterations
+     *            most iterations to run, >= 1
+     */
+    public PageRank(ForkJoinPool pool, double damping, double tolerance, int maxIterations) {
+        if (!(damping >= 0 && damping < 1) || !(tolerance > 0) || maxIterations < 1) {
+            throw new IllegalArgumentException("bad PageRank parameters " + damping + ", " + tolerance + ", "
+                    + maxIterations);
+        }
+        this.pool = pool;
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Ranking is an immutable result of PageRank: a rank for each user of a
+     * graph, summing to 1.
+     */
+    public static class Ranking {
+
+        private final FollowsGraph graph;
+        private final double[] ranks;
+        private final int iterations;
+        private final boolean converged;
+
+        private Ranking(FollowsGraph graph, double[] ranks, int iterations, boolean converged) {
+            this.graph = graph;
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        /**
+         * @return the graph ranked
+         */
+        public FollowsGraph graph() {
+            return graph;
+        }
+
+        /**
+         * @param username
+         *            Twitter username, case-insensitive
+         * @return rank of username, or 0 if it is not in the graph
+         */
+        public double rank(String username) {
+            int u = graph.id(username);
+            return u < 0 ? 0 : ranks[u];
+        }
+
+        /**
+         * @return rank of user u of graph(), for 0 <= u < graph().userCount()
+         */
+        public double rank(int u) {
+            return ranks[u];
+        }
+
+        /**
+         * @return number of iterations run
+         */
+        public int iterations() {
+            return iterations;
+        }
+
+        /**
+         * @return true iff the ranks changed by less than the tolerance in the
+         *         last iteration
+         */
+        public boolean converged() {
+            return converged;
+        }
+
+        /**
+         * Find the highest ranked users.
+         *
+         * @param k
+         *            number of users wanted, >= 0
+         * @return the min(k, graph().userCount()) lower case usernames of the
+         *         highest ranked users, in decreasing order of rank, ties in
+         *         alphabetical order
+         */
+        public List<String> top(int k) {
+            // bounded min-heap of user ids; users are numbered alphabetically
+            int size = 0;
+            int[] heap = new int[Math.min(k, ranks.length)];
+            for (int u = 0; u < ranks.length && heap.length > 0; ++u) {
+                if (size < heap.length) {
+                    heap[size] = u;
+                    siftUp(heap, size++);
+                } else if (ranksBefore(u, heap[0])) {
+                    heap[0] = u;
+                    siftDown(heap, size);
+                }
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; ++i) {
+                order[i] = heap[i];
+            }
+            Arrays.sort(order, (a, b) -> ranksBefore(a, b) ? -1 : ranksBefore(b, a) ? 1 : 0);
+            List<String> top = new ArrayList<String>(size);
+            for (int u : order) {
+                top.add(graph.username(u));
+            }
+            return top;
+        }
+
+        private boolean ranksBefore(int a, int b) {
+            return ranks[a] != ranks[b] ? ranks[a] > ranks[b] : a < b;
+        }
+
+        private void siftUp(int[] heap, int i) {
+            int id = heap[i];
+            while (i > 0 && ranksBefore(heap[(i - 1) >>> 1], id)) {
+                heap[i] = heap[(i - 1) >>> 1];
+                i = (i - 1) >>> 1;
+            }
+            heap[i] = id;
+        }
+
+        private void siftDown(int[] heap, int size) {
+            int i = 0;
+            int id = heap[0];
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && ranksBefore(heap[child], heap[child + 1])) {
+                    ++child;
+                }
+                if (!ranksBefore(id, heap[child])) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = id;
+        }
+    }
+
+    /**
+     * Rank the users of a graph, jumping to any user uniformly.
+     *
+     * @param graph
+     *            graph to rank
+     * @return ranks of the users of graph
+     */
+    public Ranking rank(FollowsGraph graph) {
+        return rank(graph, null, null);
+    }
+
+    /**
+     * Rank the users of a graph, starting from a previous ranking.
+     *
+     * @param graph
+     *            graph to rank
+     * @param previous
+     *            ranking of graph or of an earlier version of it, whose ranks
+     *            are the starting point for users in both; may be null
+     * @return ranks of the users of graph
+     */
+    public Ranking rank(FollowsGraph graph, Ranking previous) {
+        return rank(graph, null, previous);
+    }
+
+    /**
+     * Rank the users of a graph by personalized PageRank, in which every
+     * jump returns to a seed user, starting from a previous ranking.
+     *
+     * @param graph
+     *            graph to rank
+     * @param seed
+     *            username of the seed user, case-insensitive, or null to
+     *            jump to any user uniformly
+     * @param previous
+     *            ranking of graph or of an earlier version of it with the same
+     *            seed, whose ranks are the starting point for users in both;
+     *            may be null
+     * @return ranks of the users of graph
+     * @throws IllegalArgumentException if seed is not a user of graph
+     */
+    public Ranking rank(FollowsGraph graph, String seed, Ranking previous) {
+        int n = graph.userCount();
+        int seedId = -1;
+        if (seed != null) {
+            seedId = graph.id(seed);
+            if (seedId < 0) {
+                throw new IllegalArgumentException("not in the graph: " + seed);
+            }
+        }
+        if (n == 0) {
+            return new Ranking(graph, new double[0], 0, true);
+        }
+
+        // reverse the graph, so each user's rank is pulled from its followers
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] inOffsets = new int[n + 1];
+        for (int target : targets) {
+            ++inOffsets[target + 1];
+        }
+        for (int v = 0; v < n; ++v) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] sources = new int[targets.length];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; ++u) {
+            for (int k = offsets[u]; k < offsets[u + 1]; ++k) {
+                sources[fill[targets[k]]++] = u;
+            }
+        }
+
+        Iteration iteration = new Iteration(offsets, inOffsets, sources, seedId, damping, start(graph, seedId, previous));
+        int threshold = Math.max(MINIMUM_PIECE, TweetTask.threshold(n, pool.getParallelism()));
+        int iterations = 0;
+        boolean converged = false;
+        while (iterations < maxIterations && !converged) {
+            ++iterations;
+            double dangling = pool.invoke(new RangeTask(iteration, true, 0, n, threshold));
+            iteration.jump = (1 - damping) + damping * dangling;
+            double change = pool.invoke(new RangeTask(iteration, false, 0, n, threshold));
+            iteration.swap();
+            converged = change < tolerance;
+        }
+        return new Ranking(graph, iteration.ranks, iterations, converged);
+    }
+
+    /*
+     * @return the starting ranks: previous ranks of users still in graph,
+     *         the jump distribution for the rest, normalized to sum to 1
+     */
+    private static double[] start(FollowsGraph graph, int seedId, Ranking previous) {
+        int n = graph.userCount();
+        double[] ranks = new double[n];
+        for (int u = 0; u < n; ++u) {
+            ranks[u] = seedId < 0 ? 1.0 / n : u == seedId ? 1 : 0;
+        }
+        if (previous == null) {
+            return ranks;
+        }
+
+        // both graphs number users alphabetically, so match them in one merge
+        FollowsGraph old = previous.graph;
+        double sum = 0;
+        for (int u = 0, v = 0; u < n; ++u) {
+            if (old != graph) {
+                String username = graph.username(u);
+                while (v < old.userCount() && old.username(v).compareTo(username) < 0) {
+                    ++v;
+                }
+                if (v < old.userCount() && old.username(v).equals(username)) {
+                    ranks[u] = previous.ranks[v];
+                }
+            } else {
+                ranks[u] = previous.ranks[u];
+            }
+            sum += ranks[u];
+        }
+        if (sum == 0) {
+            // nothing carried over from previous: start from the jump distribution
+            return start(graph, seedId, null);
+        }
+        for (int u = 0; u < n; ++u) {
+            ranks[u] /= sum;
+        }
+        return ranks;
+    }
+
+    /*
+     * The arrays of one power iteration, shared by the tasks of each step.
+     */
+    private static class Iteration {
+        final int[] offsets, inOffsets, sources;
+        final int seed;
+        final double damping;
+        // rank of each user, rank / out-degree passed to each followed user,
+        // and the next ranks
+        double[] ranks, shares, next;
+        // total rank passed on by jumping in this iteration
+        double jump;
+
+        Iteration(int[] offsets, int[] inOffsets, int[] sources, int seed, double damping, double[] ranks) {
+            this.offsets = offsets;
+            this.inOffsets = inOffsets;
+            this.sources = sources;
+            this.seed = seed;
+            this.damping = damping;
+            this.ranks = ranks;
+            this.shares = new double[ranks.length];
+            this.next = new double[ranks.length];
+        }
+
+        /*
+         * Compute shares for users [from, to).
+         * @return total rank of the users in [from, to) who follow nobody
+         */
+        double share(int from, int to) {
+            double dangling = 0;
+            for (int u = from; u < to; ++u) {
+                int degree = offsets[u + 1] - offsets[u];
+                if (degree == 0) {
+                    dangling += ranks[u];
+                    shares[u] = 0;
+                } else {
+                    shares[u] = ranks[u] / degree;
+                }
+            }
+            return dangling;
+        }
+
+        /*
+         * Compute next ranks for users [from, to).
+         * @return L1 change of the ranks of [from, to)
+         */
+        double pull(int from, int to) {
+            double change = 0;
+            int n = ranks.length;
+            for (int v = from; v < to; ++v) {
+                double sum = 0;
+                for (int k = inOffsets[v]; k < inOffsets[v + 1]; ++k) {
+                    sum += shares[sources[k]];
+                }
+                double jumped = seed < 0 ? jump / n : v == seed ? jump : 0;
+                next[v] = jumped + damping * sum;
+                change += Math.abs(next[v] - ranks[v]);
+            }
+            return change;
+        }
+
+        void swap() {
+            double[] old = ranks;
+            ranks = next;
+            next = old;
+        }
+    }
+
+    /*
+     * Run one step of an iteration over users [from, to), summing the results.
+     */
+    private static class RangeTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final Iteration iteration;
+        private final boolean share;
+        private final int from, to;
+        private final int threshold;
+
+        RangeTask(Iteration iteration, boolean share, int from, int to, int threshold) {
+            this.iteration = iteration;
+            this.share = share;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override protected Double compute() {
+            if (to - from <= threshold) {
+                return share ? iteration.share(from, to) : iteration.pull(from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(iteration, share, from, middle, threshold);
+            RangeTask right = new RangeTask(iteration, share, middle, to, threshold);
+            left.fork();
+            double rightSum = right.compute();
+            return left.join() + rightSum;
+        }
+    }
+}
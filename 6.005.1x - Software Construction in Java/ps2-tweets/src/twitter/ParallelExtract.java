@@ -0,0 +1,170 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ParallelExtract runs the methods of Extract over large lists of tweets on a
+ * ForkJoinPool.
+ *
+ * Each method has the same specification as the Extract method of the same
+ * name and returns an equal result: the list is split into pieces, each piece
+ * is processed by the sequential Extract method, and the partial results are
+ * merged in list order. Lists too small to be worth splitting are processed
+ * sequentially on the calling thread.
+ */
+public class ParallelExtract {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Make a ParallelExtract that runs on the common ForkJoinPool.
+     */
+    public ParallelExtract() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a ParallelExtract that runs on a given pool.
+     *
+     * @param pool
+     *            pool to run on; its parallelism decides how many pieces are
+     *            processed at once.
+     */
+    public ParallelExtract(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Get the time period spanned by tweets, as a parallel min/max reduction.
+     *
+     * @see Extract#getTimespan(List)
+     */
+    public Timespan getTimespan(List<Tweet> tweets) {
+        if (isSmall(tweets)) {
+            return Extract.getTimespan(tweets);
+        }
+        List<Tweet> list = randomAccess(tweets);
+        return pool.invoke(new TimespanTask(list, 0, list.size(), threshold(list)));
+    }
+
+    /**
+     * Get usernames mentioned in a list of tweets, merging per-piece sets.
+     *
+     * @see Extract#getMentionedUsers(List)
+     */
+    public Set<String> getMentionedUsers(List<Tweet> tweets) {
+        if (isSmall(tweets)) {
+            return Extract.getMentionedUsers(tweets);
+        }
+        List<Tweet> list = randomAccess(tweets);
+        return pool.invoke(new MentionsTask(list, 0, list.size(), threshold(list)));
+    }
+
+    /**
+     * Get hashtags mentioned in a list of tweets, merging per-piece maps so
+     * that later tweets take precedence exactly as in the sequential method.
+     *
+     * @see Extract#getHashtags(List)
+     */
+    public Map<String, Set<String>> getHashtags(List<Tweet> tweets) {
+        if (isSmall(tweets)) {
+            return Extract.getHashtags(tweets);
+        }
+        List<Tweet> list = randomAccess(tweets);
+        return pool.invoke(new HashtagsTask(list, 0, list.size(), threshold(list)));
+    }
+
+    private boolean isSmall(List<Tweet> tweets) {
+        return tweets.size() <= threshold(tweets);
+    }
+
+    private int threshold(List<Tweet> tweets) {
+        return TweetTask.threshold(tweets.size(), pool.getParallelism());
+    }
+
+    /*
+     * @return tweets if it supports fast subList/get, else a copy that does
+     */
+    static List<Tweet> randomAccess(List<Tweet> tweets) {
+        return tweets instanceof RandomAccess ? tweets : new ArrayList<Tweet>(tweets);
+    }
+
+    private static class TimespanTask extends TweetTask<Timespan> {
+        private static final long serialVersionUID = 1L;
+
+        TimespanTask(List<Tweet> tweets, int from, int to, int threshold) {
+            super(tweets, from, to, threshold);
+        }
+
+        @Override protected TweetTask<Timespan> subtask(int from, int to) {
+            return new TimespanTask(tweets, from, to, threshold);
+        }
+
+        @Override protected Timespan computeDirectly(List<Tweet> piece) {
+            return Extract.getTimespan(piece);
+        }
+
+        @Override protected Timespan merge(Timespan left, Timespan right) {
+            Instant start = left.getStart().isAfter(right.getStart()) ? right.getStart() : left.getStart();
+            Instant end = left.getEnd().isBefore(right.getEnd()) ? right.getEnd() : left.getEnd();
+            return new Timespan(start, end);
+        }
+    }
+
+    private static class MentionsTask extends TweetTask<Set<String>> {
+        private static final long serialVersionUID = 1L;
+
+        MentionsTask(List<Tweet> tweets, int from, int to, int threshold) {
+            super(tweets, from, to, threshold);
+        }
+
+        @Override protected TweetTask<Set<String>> subtask(int from, int to) {
+            return new MentionsTask(tweets, from, to, threshold);
+        }
+
+        @Override protected Set<String> computeDirectly(List<Tweet> piece) {
+            return Extract.getMentionedUsers(piece);
+        }
+
+        @Override protected Set<String> merge(Set<String> left, Set<String> right) {
+            // set union is order-insensitive, so add the smaller set to the larger
+            if (left.size() < right.size()) {
+                right.addAll(left);
+                return right;
+            }
+            left.addAll(right);
+            return left;
+        }
+    }
+
+    private static class HashtagsTask extends TweetTask<Map<String, Set<String>>> {
+        private static final long serialVersionUID = 1L;
+
+        HashtagsTask(List<Tweet> tweets, int from, int to, int threshold) {
+            super(tweets, from, to, threshold);
+        }
+
+        @Override protected TweetTask<Map<String, Set<String>>> subtask(int from, int to) {
+            return new HashtagsTask(tweets, from, to, threshold);
+        }
+
+        @Override protected Map<String, Set<String>> computeDirectly(List<Tweet> piece) {
+            return Extract.getHashtags(piece);
+        }
+
+        @Override protected Map<String, Set<String>> merge(Map<String, Set<String>> left,
+                                                         Map<String, Set<String>> right) {
+            // entries from the later range win, as with sequential put()
+            if (left.size() < right.size()) {
+                for (Map.Entry<String, Set<String>> entry : left.entrySet()) {
+                    right.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                return right;
+            }
+            left.putAll(right);
+            return left;
+        }
+    }
+}
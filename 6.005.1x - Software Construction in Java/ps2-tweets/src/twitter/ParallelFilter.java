@@ -0,0 +1,118 @@
+package twitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * ParallelFilter runs the methods of Filter over large lists of tweets on a
+ * ForkJoinPool.
+ *
+ * Each method has the same specification as the Filter method of the same
+ * name and returns an equal list: the input is split into pieces, each piece
+ * is filtered by the sequential Filter method, and the pieces' results are
+ * concatenated in input order. Lists too small to be worth splitting are
+ * filtered sequentially on the calling thread.
+ */
+public class ParallelFilter {
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Make a ParallelFilter that runs on the common ForkJoinPool.
+     */
+    public ParallelFilter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a ParallelFilter that runs on a given pool.
+     *
+     * @param pool
+     *            pool to run on; its parallelism decides how many pieces are
+     *            filtered at once.
+     */
+    public ParallelFilter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Find tweets written by a particular user.
+     *
+     * @see Filter#writtenBy(List, String)
+     */
+    public List<Tweet> writtenBy(List<Tweet> tweets, String username) {
+        return filter(tweets, piece -> Filter.writtenBy(piece, username));
+    }
+
+    /**
+     * Find tweets that were sent during a particular timespan.
+     *
+     * @see Filter#inTimespan(List, Timespan)
+     */
+    public List<Tweet> inTimespan(List<Tweet> tweets, Timespan timespan) {
+        return filter(tweets, piece -> Filter.inTimespan(piece, timespan));
+    }
+
+    /**
+     * Find tweets that contain certain words.
+     *
+     * @see Filter#containing(List, List)
+     */
+    public List<Tweet> containing(List<Tweet> tweets, List<String> words) {
+        return filter(tweets, piece -> Filter.containing(piece, words));
+    }
+
+    /*
+     * Apply a sequential filter to pieces of tweets in parallel and concatenate
+     * the pieces' results in order.
+     */
+    private List<Tweet> filter(List<Tweet> tweets, Function<List<Tweet>, List<Tweet>> sequential) {
+        int threshold = TweetTask.threshold(tweets.size(), pool.getParallelism());
+        if (tweets.size() <= threshold) {
+            return sequential.apply(tweets);
+        }
+
+        List<Tweet> list = ParallelExtract.randomAccess(tweets);
+        List<List<Tweet>> pieces = pool.invoke(new FilterTask(list, 0, list.size(), threshold, sequential));
+
+        // concatenate once at the end, rather than at every merge
+        int size = 0;
+        for (List<Tweet> piece : pieces) {
+            size += piece.size();
+        }
+        List<Tweet> result = new ArrayList<Tweet>(size);
+        for (List<Tweet> piece : pieces) {
+            result.addAll(piece);
+        }
+        return result;
+    }
+
+    private static class FilterTask extends TweetTask<List<List<Tweet>>> {
+        private static final long serialVersionUID = 1L;
+
+        private final Function<List<Tweet>, List<Tweet>> sequential;
+
+        FilterTask(List<Tweet> tweets, int from, int to, int threshold,
+                   Function<List<Tweet>, List<Tweet>> sequential) {
+            super(tweets, from, to, threshold);
+            this.sequential = sequential;
+        }
+
+        @Override protected TweetTask<List<List<Tweet>>> subtask(int from, int to) {
+            return new FilterTask(tweets, from, to, threshold, sequential);
+        }
+
+        @Override protected List<List<Tweet>> computeDirectly(List<Tweet> piece) {
+            List<List<Tweet>> pieces = new ArrayList<List<Tweet>>();
+            pieces.add(sequential.apply(piece));
+            return pieces;
+        }
+
+        @Override protected List<List<Tweet>> merge(List<List<Tweet>> left, List<List<Tweet>> right) {
+            left.addAll(right);
+            return left;
+        }
+    }
+}
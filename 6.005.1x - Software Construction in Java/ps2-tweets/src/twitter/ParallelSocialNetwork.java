@@ -0,0 +1,153 @@
+package twitter;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelSocialNetwork runs the methods of SocialNetwork over large
+ * compressed social networks on a ForkJoinPool.
+ *
+ * Each method has the same specification as the SocialNetwork method of the
+ * same name and returns an equal result. Graphs too small to be worth
+ * splitting are processed sequentially on the calling thread.
+ */
+public class ParallelSocialNetwork {
+
+    private static final int MINIMUM_PIECE = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Make a ParallelSocialNetwork that runs on the common ForkJoinPool.
+     */
+    public ParallelSocialNetwork() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Make a ParallelSocialNetwork that runs on a given pool.
+     *
+     * @param pool
+     *            pool to run on; its parallelism decides how many pieces are
+     *            processed at once.
+     */
+    public ParallelSocialNetwork(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Find the k people in a compressed social network who have the most
+     * followers.
+     *
+     * Follower counts are computed by one task per worker, each over a slice
+     * of the edges into its own array, and summed; so counting takes
+     * parallelism * 4 * followsGraph.userCount() bytes at most. The top k are
+     * then selected by a bounded heap per slice of users and merged.
+     *
+     * @see SocialNetwork#influencers(FollowsGraph, int)
+     */
+    public List<String> influencers(FollowsGraph followsGraph, int k) {
+        int parallelism = pool.getParallelism();
+        int edges = followsGraph.edgeCount();
+        int users = followsGraph.userCount();
+        if (parallelism == 1 || edges <= MINIMUM_PIECE) {
+            return SocialNetwork.influencers(followsGraph, k);
+        }
+
+        // a private array per worker, rather than pieces per worker as for tweets
+        int edgeThreshold = Math.max(MINIMUM_PIECE, (edges + parallelism - 1) / parallelism);
+        int[] counts = pool.invoke(new CountTask(followsGraph.targets(), users, 0, edges, edgeThreshold));
+
+        int userThreshold = Math.max(MINIMUM_PIECE, TweetTask.threshold(users, parallelism));
+        int[] top = pool.invoke(new SelectTask(counts, k, 0, users, userThreshold));
+        return SocialNetwork.usernames(followsGraph, top);
+    }
+
+    /*
+     * Count in-degrees over targets[from, to).
+     */
+    private static class CountTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] targets;
+        private final int users;
+        private final int from, to;
+        private final int threshold;
+
+        CountTask(int[] targets, int users, int from, int to, int threshold) {
+            this.targets = targets;
+            this.users = users;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override protected int[] compute() {
+            if (to - from <= threshold) {
+                int[] counts = new int[users];
+                for (int k = from; k < to; ++k) {
+                    ++counts[targets[k]];
+                }
+                return counts;
+            }
+
+            int middle = (from + to) >>> 1;
+            CountTask left = new CountTask(targets, users, from, middle, threshold);
+            CountTask right = new CountTask(targets, users, middle, to, threshold);
+            left.fork();
+            int[] rightCounts = right.compute();
+            int[] leftCounts = left.join();
+            for (int u = 0; u < users; ++u) {
+                leftCounts[u] += rightCounts[u];
+            }
+            return leftCounts;
+        }
+    }
+
+    /*
+     * Select the top k users in [from, to) by count, ties by id.
+     */
+    private static class SelectTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] counts;
+        private final int k;
+        private final int from, to;
+        private final int threshold;
+
+        SelectTask(int[] counts, int k, int from, int to, int threshold) {
+            this.counts = counts;
+            this.k = k;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override protected int[] compute() {
+            if (to - from <= threshold) {
+                return TopK.select(counts, from, to, k, Integer::compare);
+            }
+
+            int middle = (from + to) >>> 1;
+            SelectTask left = new SelectTask(counts, k, from, middle, threshold);
+            SelectTask right = new SelectTask(counts, k, middle, to, threshold);
+            left.fork();
+            int[] rightTop = right.compute();
+            int[] leftTop = left.join();
+
+            // merge two ranked lists, keeping the first k
+            int[] top = new int[Math.min(k, leftTop.length + rightTop.length)];
+            int i = 0, j = 0;
+            for (int n = 0; n < top.length; ++n) {
+                if (j == rightTop.length
+                        || i < leftTop.length && TopK.ranksBefore(leftTop[i], rightTop[j], counts, Integer::compare)) {
+                    top[n] = leftTop[i++];
+                } else {
+                    top[n] = rightTop[j++];
+                }
+            }
+            return top;
+        }
+    }
+}
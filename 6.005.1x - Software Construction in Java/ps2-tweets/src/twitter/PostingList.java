@@ -0,0 +1,139 @@
+package twitter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * PostingList is a mutable, compressed list of strictly increasing
+ * nonnegative ints, such as the positions of the tweets that contain a word.
+ *
+ * Each position is stored as the difference from the previous one in a
+ * variable-length encoding of 7 bits per byte, so dense lists take about one
+ * byte per position.
+ */
+class PostingList {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int length;
+    private int count;
+    private int last = -1;
+
+    /* Rep invariant:
+     *    0 <= length <= bytes.length
+     *    bytes[0..length) is the concatenated varint encoding of count deltas,
+     *      the first relative to -1, whose running sum ends at last
+     *    count == 0 iff last == -1
+     */
+
+    /**
+     * Append a position.
+     *
+     * @param position
+     *            position to append, >= the last position appended. Appending
+     *            the last position again has no effect.
+     */
+    void add(int position) {
+        if (position == last) {
+            return;
+        }
+        assert position > last;
+
+        if (length + 5 > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + 5, 2 * bytes.length));
+        }
+        int delta = position - last;
+        while ((delta & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((delta & 0x7F) | 0x80);
+            delta >>>= 7;
+        }
+        bytes[length++] = (byte) delta;
+        last = position;
+        ++count;
+    }
+
+    /**
+     * @return number of positions in this list
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * Decode the positions into an array.
+     *
+     * @param into
+     *            array with room for size() ints starting at offset
+     * @param offset
+     *            where to write the first position
+     * @return offset + size()
+     */
+    int decode(int[] into, int offset) {
+        int position = -1;
+        int i = 0;
+        while (i < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[i++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            position += delta;
+            into[offset++] = position;
+        }
+        return offset;
+    }
+
+    /**
+     * Set a bit for each position.
+     *
+     * @param bits
+     *            bit set with room for every position; bit p is
+     *            bits[p >>> 6] & (1L << p)
+     */
+    void mark(long[] bits) {
+        int position = -1;
+        int i = 0;
+        while (i < length) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[i++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            position += delta;
+            bits[position >>> 6] |= 1L << position;
+        }
+    }
+
+    /**
+     * @return read-only view of the encoded deltas, in the form decoded by
+     *         decode(); valid until the next add()
+     */
+    ByteBuffer encoded() {
+        return ByteBuffer.wrap(bytes, 0, length).asReadOnlyBuffer();
+    }
+
+    /**
+     * @return bytes of heap retained by this list, including object headers
+     */
+    long memoryBytes() {
+        final int objectBytes = 16 + 4 + 4 + 4 + 4;
+        final int arrayHeaderBytes = 16;
+        return objectBytes + arrayHeaderBytes + bytes.length;
+    }
+
+    /**
+     * Release unused capacity.
+     */
+    void trimToSize() {
+        if (bytes.length > length) {
+            bytes = Arrays.copyOf(bytes, length);
+        }
+    }
+}
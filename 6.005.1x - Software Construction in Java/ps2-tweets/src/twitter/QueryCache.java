@@ -0,0 +1,323 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * QueryCache is a bounded cache of the results of Filter and Extract queries
+ * over TweetCorpus objects, for callers that repeat the same queries many
+ * times over a corpus that changes rarely.
+ *
+ * A result is keyed on the corpus, its version and the query. A TweetCorpus
+ * is append-only, so its size is its version: appending tweets makes every
+ * cached result of the corpus stale, and the first lookup that sees the new
+ * version drops them (counted as invalidations). Each entry weighs one plus
+ * the number of tweets or usernames in its result, and when the total
+ * weight exceeds the bound, least recently used entries are evicted.
+ *
+ * Results are unmodifiable, so they may be shared by any number of callers
+ * and threads. A QueryCache is safe for use by multiple threads; a miss is
+ * computed outside the cache's lock, so a corpus may be queried by several
+ * threads at once, which TweetCorpus allows once it is no longer modified.
+ * A corpus that is still being appended to must be looked up only by the
+ * thread appending to it.
+ */
+public class QueryCache {
+
+    // kinds of query
+    private static final int CONTAINING = 0, WRITTEN_BY = 1, MENTIONED_USERS = 2;
+
+    private final long maxWeight;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    // latest version seen of each corpus with entries, and its number of entries
+    private final Map<TweetCorpus, Version> versions = new IdentityHashMap<TweetCorpus, Version>();
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /* Rep invariant:
+     *    weight is the sum of the weights of entries, and weight <= maxWeight
+     *    every key of entries has version == versions.get(key.corpus).version,
+     *      and versions.get(corpus).entries counts the keys of corpus
+     *    entries is in order of last use, least recent first
+     *
+     * Thread safety argument:
+     *    all fields but maxWeight are accessed only while holding this
+     *    cache's lock; cached results are unmodifiable
+     */
+
+    /**
+     * Make an empty cache.
+     *
+     * @param maxWeight
+     *            largest total weight of the entries, >= 1; an entry weighs
+     *            one plus the size of its result
+     */
+    public QueryCache(long maxWeight) {
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("max weight " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Find tweets that contain any of the words, through the cache.
+     *
+     * @param corpus
+     *            tweets with distinct ids, not modified by this method
+     * @param words
+     *            words as for Filter.containing(); not modified
+     * @return an unmodifiable list equal to Filter.containing() of the
+     *         tweets of corpus
+     */
+    public List<Tweet> containing(TweetCorpus corpus, List<String> words) {
+        // Filter.containing() ignores case, so queries differing only in case share an entry
+        List<String> folded = new ArrayList<String>(words.size());
+        for (String word : words) {
+            folded.add(CaseFold.fold(word));
+        }
+        Key key = new Key(corpus, corpus.size(), CONTAINING, folded);
+        return this.<List<Tweet>>lookup(key, () ->
+                Collections.unmodifiableList(corpus.query(TweetQuery.containing(words))));
+    }
+
+    /**
+     * Find tweets written by a user, through the cache.
+     *
+     * @param corpus
+     *            tweets with distinct ids, not modified by this method
+     * @param username
+     *            Twitter username
+     * @return an unmodifiable list equal to Filter.writtenBy() of the tweets
+     *         of corpus
+     */
+    public List<Tweet> writtenBy(TweetCorpus corpus, String username) {
+        Key key = new Key(corpus, corpus.size(), WRITTEN_BY, CaseFold.fold(username));
+        return this.<List<Tweet>>lookup(key, () ->
+                Collections.unmodifiableList(corpus.query(TweetQuery.writtenBy(username))));
+    }
+
+    /**
+     * Get usernames mentioned in the tweets of a corpus, through the cache.
+     *
+     * @param corpus
+     *            tweets with distinct ids, not modified by this method
+     * @return an unmodifiable set equal to Extract.getMentionedUsers() of the
+     *         tweets of corpus
+     */
+    public Set<String> getMentionedUsers(TweetCorpus corpus) {
+        Key key = new Key(corpus, corpus.size(), MENTIONED_USERS, null);
+        return this.<Set<String>>lookup(key, () ->
+                Collections.unmodifiableSet(Extract.getMentionedUsers(corpus.tweets())));
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * @return number of lookups that had to run the query
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * @return number of entries dropped to keep within the maximum weight
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return number of entries dropped because tweets were appended to
+     *         their corpus
+     */
+    public synchronized long invalidations() {
+        return invalidations;
+    }
+
+    /**
+     * @return number of entries in the cache
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return total weight of the entries in the cache
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Drop every entry. The counters are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        versions.clear();
+        weight = 0;
+    }
+
+    /*
+     * @return the cached result of key, or the result of query, cached
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T lookup(Key key, Query<T> query) {
+        synchronized (this) {
+            invalidateOlder(key);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                ++hits;
+                return (T) entry.result;
+            }
+            ++misses;
+        }
+
+        T result = null;
+        boolean ran = false;
+        try {
+            result = query.run();
+            ran = true;
+        } finally {
+            if (!ran) {
+                // the miss tracked key's corpus; don't keep it reachable
+                synchronized (this) {
+                    Version version = versions.get(key.corpus);
+                    if (version != null) {
+                        forgetIfUnused(key.corpus, version);
+                    }
+                }
+            }
+        }
+        int resultSize = result instanceof Collection ? ((Collection<?>) result).size() : 0;
+        long entryWeight = 1L + resultSize;
+
+        synchronized (this) {
+            Version version = invalidateOlder(key);
+            if (key.version < version.version || entryWeight > maxWeight) {
+                // computed for a version already superseded, or too heavy to keep
+                forgetIfUnused(key.corpus, version);
+                return result;
+            }
+            Entry previous = entries.put(key, new Entry(result, entryWeight));
+            if (previous != null) {
+                weight -= previous.weight;
+            } else {
+                ++version.entries;
+            }
+            weight += entryWeight;
+            Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight) {
+                Map.Entry<Key, Entry> victim = eldest.next();
+                weight -= victim.getValue().weight;
+                eldest.remove();
+                ++evictions;
+                TweetCorpus corpus = victim.getKey().corpus;
+                Version victimVersion = versions.get(corpus);
+                --victimVersion.entries;
+                forgetIfUnused(corpus, victimVersion);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * If key is of a newer version of its corpus than the entries cached,
+     * drop those entries. Requires the lock.
+     *
+     * @return the latest version of key's corpus, tracked
+     */
+    private Version invalidateOlder(Key key) {
+        Version version = versions.get(key.corpus);
+        if (version == null) {
+            version = new Version(key.version);
+            versions.put(key.corpus, version);
+        }
+        if (version.version >= key.version) {
+            return version;
+        }
+        version.version = key.version;
+        if (version.entries > 0) {
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Entry> entry = it.next();
+                if (entry.getKey().corpus == key.corpus) {
+                    weight -= entry.getValue().weight;
+                    it.remove();
+                    ++invalidations;
+                }
+            }
+            version.entries = 0;
+        }
+        return version;
+    }
+
+    /*
+     * Stop tracking a corpus with no entries left, so the cache does not keep
+     * it reachable. Requires the lock.
+     */
+    private void forgetIfUnused(TweetCorpus corpus, Version version) {
+        if (version.entries == 0) {
+            versions.remove(corpus);
+        }
+    }
+
+    private interface Query<T> {
+        T run();
+    }
+
+    private static class Version {
+        int version;
+        int entries;
+
+        Version(int version) {
+            this.version = version;
+        }
+    }
+
+    private static class Entry {
+        final Object result;
+        final long weight;
+
+        Entry(Object result, long weight) {
+            this.result = result;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A query of a version of a corpus. Corpora are compared by identity.
+     */
+    private static class Key {
+        final TweetCorpus corpus;
+        final int version;
+        final int kind;
+        final Object argument;
+
+        Key(TweetCorpus corpus, int version, int kind, Object argument) {
+            this.corpus = corpus;
+            this.version = version;
+            this.kind = kind;
+            this.argument = argument;
+        }
+
+        @Override public boolean equals(Object that) {
+            if (!(that instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) that;
+            return corpus == other.corpus && version == other.version && kind == other.kind
+                    && Objects.equals(argument, other.argument);
+        }
+
+        @Override public int hashCode() {
+            return ((System.identityHashCode(corpus) * 31 + version) * 31 + kind) * 31 + Objects.hashCode(argument);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package twitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * ShardServer holds one shard of a corpus of tweets, sharded by author, and
+ * answers the requests of ShardedTweets over loopback sockets: it appends
+ * tweets, computes the TweetSummary of its shard (the map phase of Extract
+ * and SocialNetwork), and finds the tweets of its shard that match the
+ * queries of Filter.
+ *
+ * The shard is kept as a TweetCorpus with author, timestamp and word
+ * indexes, and each tweet is tagged with its sequence number in the whole
+ * corpus, so the coordinator can merge the shards' matches back into corpus
+ * order. The summary is cached until more tweets arrive.
+ *
+ * Run as a process with "java twitter.ShardServer [port=0]"; it prints
+ * "listening on PORT" and serves until a client sends a stop request.
+ */
+public class ShardServer implements Closeable {
+
+    // requests, each answered before the next is read
+    static final int ADD = 1, SUMMARY = 2, WRITTEN_BY = 3, IN_TIMESPAN = 4, CONTAINING = 5, STOP = 6;
+    // reply to a request the server does not know, followed by a UTF message;
+    // the server then closes the connection
+    static final int UNKNOWN_REQUEST = -1;
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private volatile boolean stopped;
+    private volatile RuntimeException failure;
+
+    private final TweetCorpus corpus = new TweetCorpus().indexAuthors().indexTimestamps()
+            .indexTokens(TweetTokenizer.Kind.WORD);
+    private long[] sequence = new long[16];
+    private TweetSummary summary;
+
+    /* Rep invariant:
+     *    sequence[i] is the corpus sequence number of corpus.get(i), for
+     *      0 <= i < corpus.size(), strictly increasing if the client adds
+     *      tweets in corpus order
+     *    summary == null or summary is TweetSummary.of() the tweets of corpus
+     *
+     * Thread safety argument:
+     *    each connection is served by its own thread; corpus, sequence and
+     *    summary are accessed only while holding this server's lock
+     */
+
+    /**
+     * Start serving a new, empty shard on the loopback interface.
+     *
+     * @param port
+     *            port to listen on, or 0 for any free port
+     * @throws IOException if the port cannot be bound
+     */
+    public ShardServer(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::accept, "shard-" + server.getLocalPort());
+        acceptor.start();
+    }
+
+    /**
+     * @return the port this server listens on
+     */
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * @return number of tweets in this shard
+     */
+    public synchronized int size() {
+        return corpus.size();
+    }
+
+    /**
+     * @return the exception that most recently ended a connection other than
+     *         by its client disconnecting, or null
+     */
+    public RuntimeException failure() {
+        return failure;
+    }
+
+    /**
+     * Wait until a client sends a stop request or close() is called.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stop accepting connections. Connections already open are served until
+     * their clients close them.
+     */
+    @Override public void close() throws IOException {
+        stopped = true;
+        server.close();
+    }
+
+    /**
+     * Serve one shard until stopped.
+     *
+     * @param args
+     *            optional "port=N"
+     * @throws IOException if the port cannot be bound
+     * @throws InterruptedException if interrupted while serving
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = 0;
+        for (String arg : args) {
+            if (arg.startsWith("port=")) {
+                port = Integer.parseInt(arg.substring("port=".length()));
+            }
+        }
+        try (ShardServer shard = new ShardServer(port)) {
+            System.out.println("listening on " + shard.port());
+            System.out.flush();
+            shard.awaitStop();
+        }
+    }
+
+    private void accept() {
+        while (!stopped) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                // closed
+                return;
+            }
+            Thread connection = new Thread(() -> serve(socket), "shard-" + port() + "-" + socket.getPort());
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    /*
+     * Answer the requests of one client until it disconnects.
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            while (true) {
+                int request;
+                try {
+                    request = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                switch (request) {
+                case ADD:
+                    out.writeInt(add(in));
+                    break;
+                case SUMMARY:
+                    summary().writeTo(out);
+                    break;
+                case WRITTEN_BY:
+                    writeMatches(out, TweetQuery.writtenBy(in.readUTF()));
+                    break;
+                case IN_TIMESPAN:
+                    writeMatches(out, TweetQuery.inTimespan(new Timespan(readInstant(in), readInstant(in))));
+                    break;
+                case CONTAINING:
+                    List<String> words = new ArrayList<String>();
+                    for (int n = in.readInt(); n > 0; --n) {
+                        words.add(in.readUTF());
+                    }
+                    writeMatches(out, TweetQuery.containing(words));
+                    break;
+                case STOP:
+                    close();
+                    return;
+                default:
+                    String message = "unknown request " + request;
+                    failure = new UncheckedIOException(new IOException(message));
+                    out.writeByte(UNKNOWN_REQUEST);
+                    out.writeUTF(message);
+                    out.flush();
+                    return;
+                }
+                out.flush();
+            }
+        } catch (SocketException e) {
+            // the client went away
+        } catch (IOException e) {
+            if (!stopped) {
+                failure = new UncheckedIOException(e);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+    }
+
+    /*
+     * Read a batch of tweets and append them.
+     *
+     * @return number of tweets in the shard afterwards
+     */
+    private synchronized int add(DataInputStream in) throws IOException {
+        int n = in.readInt();
+        for (int i = 0; i < n; ++i) {
+            long seq = in.readLong();
+            Tweet tweet = readTweet(in);
+            if (corpus.size() == sequence.length) {
+                sequence = Arrays.copyOf(sequence, 2 * sequence.length);
+            }
+            sequence[corpus.size()] = seq;
+            corpus.add(tweet);
+        }
+        summary = null;
+        return corpus.size();
+    }
+
+    private synchronized TweetSummary summary() {
+        if (summary == null) {
+            List<Tweet> tweets = new ArrayList<Tweet>(corpus.size());
+            for (int i = 0; i < corpus.size(); ++i) {
+                tweets.add(corpus.get(i));
+            }
+            summary = TweetSummary.of(tweets);
+        }
+        return summary;
+    }
+
+    /*
+     * Write the tweets of the shard that match a query, with their sequence
+     * numbers, in shard order.
+     */
+    private synchronized void writeMatches(DataOutputStream out, TweetQuery query) throws IOException {
+        int[] positions = query.positions(corpus);
+        if (positions == null) {
+            IntList matches = new IntList();
+            for (int i = 0; i < corpus.size(); ++i) {
+                if (query.matches(corpus.get(i))) {
+                    matches.add(i);
+                }
+            }
+            positions = matches.toArray();
+        }
+        out.writeInt(positions.length);
+        for (int position : positions) {
+            out.writeLong(sequence[position]);
+            writeTweet(out, corpus.get(position));
+        }
+    }
+
+    /*
+     * Tweets are sent as their id, author, text and timestamp; text is
+     * limited to 64KB of modified UTF-8.
+     */
+    static void writeTweet(DataOutputStream out, Tweet tweet) throws IOException {
+        out.writeLong(tweet.getId());
+        out.writeUTF(tweet.getAuthor());
+        out.writeUTF(tweet.getText());
+        writeInstant(out, tweet.getTimestamp());
+    }
+
+    /*
+     * Read a tweet written by writeTweet().
+     */
+    static Tweet readTweet(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String author = in.readUTF();
+        String text = in.readUTF();
+        return new Tweet(id, author, text, readInstant(in));
+    }
+
+    static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+    }
+
+    static Instant readInstant(DataInputStream in) throws IOException {
+        return Instant.ofEpochSecond(in.readLong(), in.readInt());
+    }
+}
@@ -0,0 +1,307 @@
+package twitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+
+/**
+ * ShardedTweets is a corpus of tweets sharded by author across ShardServer
+ * processes, which answers the operations of Extract, Filter and
+ * SocialNetwork by sending a request to every shard and merging the partial
+ * results.
+ *
+ * Extract and SocialNetwork operations are answered by merging the shards'
+ * TweetSummary objects; since each author's tweets are all on one shard, the
+ * summaries merge exactly. Filter operations return each shard's matches
+ * tagged with their sequence numbers in the corpus, merged back into corpus
+ * order; writtenBy() asks only the author's shard. Requests are sent to
+ * every shard before any reply is read, so the shards work at once.
+ *
+ * A ShardedTweets is not safe for use by multiple threads.
+ */
+public class ShardedTweets implements Closeable {
+
+    private final Socket[] sockets;
+    private final DataInputStream[] in;
+    private final DataOutputStream[] out;
+    private long size;
+
+    /* Rep invariant:
+     *    sockets, in and out have the same length >= 1, and in[i] and out[i]
+     *      are streams of sockets[i]
+     *    size is the number of tweets added, and the tweets added have
+     *      sequence numbers 0..size-1 in the order added
+     *    every tweet by an author is on shard(author, sockets.length)
+     */
+
+    /**
+     * Connect to empty shard servers.
+     *
+     * @param shards
+     *            addresses of the shard servers, at least one
+     * @throws IOException if a shard cannot be reached
+     */
+    public ShardedTweets(List<InetSocketAddress> shards) throws IOException {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("no shards");
+        }
+        int n = shards.size();
+        sockets = new Socket[n];
+        in = new DataInputStream[n];
+        out = new DataOutputStream[n];
+        try {
+            for (int i = 0; i < n; ++i) {
+                sockets[i] = new Socket();
+                sockets[i].setTcpNoDelay(true);
+                sockets[i].connect(shards.get(i));
+                in[i] = new DataInputStream(new BufferedInputStream(sockets[i].getInputStream()));
+                out[i] = new DataOutputStream(new BufferedOutputStream(sockets[i].getOutputStream()));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param author
+     *            Twitter username
+     * @param shards
+     *            number of shards, >= 1
+     * @return the shard that holds the tweets of author, in [0, shards)
+     */
+    public static int shard(String author, int shards) {
+        int h = CaseFold.fold(author).hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), shards);
+    }
+
+    /**
+     * @return number of shards
+     */
+    public int shards() {
+        return sockets.length;
+    }
+
+    /**
+     * @return number of tweets added
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Append tweets to the corpus, sending each to its author's shard.
+     *
+     * @param tweets
+     *            tweets to append, in order, with ids distinct from each
+     *            other and from the tweets added before; not modified
+     * @throws IOException if a shard cannot be reached
+     */
+    public void addAll(List<Tweet> tweets) throws IOException {
+        List<List<Tweet>> batches = new ArrayList<List<Tweet>>();
+        List<IntList> offsets = new ArrayList<IntList>();
+        for (int i = 0; i < shards(); ++i) {
+            batches.add(new ArrayList<Tweet>());
+            offsets.add(new IntList());
+        }
+        for (int i = 0; i < tweets.size(); ++i) {
+            Tweet tweet = tweets.get(i);
+            int shard = shard(tweet.getAuthor(), shards());
+            batches.get(shard).add(tweet);
+            offsets.get(shard).add(i);
+        }
+
+        for (int i = 0; i < shards(); ++i) {
+            out[i].writeByte(ShardServer.ADD);
+            out[i].writeInt(batches.get(i).size());
+            for (int j = 0; j < batches.get(i).size(); ++j) {
+                out[i].writeLong(size + offsets.get(i).get(j));
+                ShardServer.writeTweet(out[i], batches.get(i).get(j));
+            }
+            out[i].flush();
+        }
+        for (int i = 0; i < shards(); ++i) {
+            in[i].readInt();
+        }
+        size += tweets.size();
+    }
+
+    /**
+     * Summarize the corpus by merging the summaries of the shards.
+     *
+     * @return a new summary of every tweet added, as TweetSummary.of() them
+     * @throws IOException if a shard cannot be reached
+     */
+    public TweetSummary summary() throws IOException {
+        broadcast(ShardServer.SUMMARY);
+        TweetSummary summary = new TweetSummary();
+        for (int i = 0; i < shards(); ++i) {
+            summary.merge(TweetSummary.readFrom(in[i]));
+        }
+        return summary;
+    }
+
+    /**
+     * @return the same as Extract.getTimespan() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public Timespan getTimespan() throws IOException {
+        return summary().getTimespan();
+    }
+
+    /**
+     * @return the same as Extract.getMentionedUsers() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public Set<String> getMentionedUsers() throws IOException {
+        return summary().getMentionedUsers();
+    }
+
+    /**
+     * @return the same as Extract.getHashtags() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public Map<String, Set<String>> getHashtags() throws IOException {
+        return summary().getHashtags();
+    }
+
+    /**
+     * @return the follower counts of the mention graph of the tweets added,
+     *         as TweetSummary.followerCounts()
+     * @throws IOException if a shard cannot be reached
+     */
+    public Map<String, Integer> followerCounts() throws IOException {
+        return summary().followerCounts();
+    }
+
+    /**
+     * @return the users of the tweets added with the most followers in the
+     *         mention graph, as TweetSummary.influencers()
+     * @throws IOException if a shard cannot be reached
+     */
+    public List<String> influencers(int k) throws IOException {
+        return summary().influencers(k);
+    }
+
+    /**
+     * @return the same as Filter.writtenBy() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public List<Tweet> writtenBy(String username) throws IOException {
+        int shard = shard(username, shards());
+        out[shard].writeByte(ShardServer.WRITTEN_BY);
+        out[shard].writeUTF(username);
+        out[shard].flush();
+        List<Tweet> result = new ArrayList<Tweet>();
+        for (int n = in[shard].readInt(); n > 0; --n) {
+            in[shard].readLong();
+            result.add(ShardServer.readTweet(in[shard]));
+        }
+        return result;
+    }
+
+    /**
+     * @return the same as Filter.inTimespan() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public List<Tweet> inTimespan(Timespan timespan) throws IOException {
+        for (int i = 0; i < shards(); ++i) {
+            out[i].writeByte(ShardServer.IN_TIMESPAN);
+            ShardServer.writeInstant(out[i], timespan.getStart());
+            ShardServer.writeInstant(out[i], timespan.getEnd());
+            out[i].flush();
+        }
+        return readMatches();
+    }
+
+    /**
+     * @return the same as Filter.containing() of the tweets added
+     * @throws IOException if a shard cannot be reached
+     */
+    public List<Tweet> containing(List<String> words) throws IOException {
+        for (int i = 0; i < shards(); ++i) {
+            out[i].writeByte(ShardServer.CONTAINING);
+            out[i].writeInt(words.size());
+            for (String word : words) {
+                out[i].writeUTF(word);
+            }
+            out[i].flush();
+        }
+        return readMatches();
+    }
+
+    /**
+     * Ask every shard server to stop once its connections close, and close
+     * this client's connections.
+     *
+     * @throws IOException if a shard cannot be reached
+     */
+    public void stopShards() throws IOException {
+        broadcast(ShardServer.STOP);
+        close();
+    }
+
+    /**
+     * Close the connections to the shards, which keep their tweets.
+     */
+    @Override public void close() throws IOException {
+        for (Socket socket : sockets) {
+            if (socket != null) {
+                socket.close();
+            }
+        }
+    }
+
+    private void broadcast(int request) throws IOException {
+        for (int i = 0; i < shards(); ++i) {
+            out[i].writeByte(request);
+            out[i].flush();
+        }
+    }
+
+    /*
+     * Read each shard's matches and merge them into corpus order.
+     */
+    private List<Tweet> readMatches() throws IOException {
+        int total = 0;
+        List<long[]> sequences = new ArrayList<long[]>();
+        List<Tweet[]> matches = new ArrayList<Tweet[]>();
+        for (int i = 0; i < shards(); ++i) {
+            int n = in[i].readInt();
+            long[] seqs = new long[n];
+            Tweet[] tweets = new Tweet[n];
+            for (int j = 0; j < n; ++j) {
+                seqs[j] = in[i].readLong();
+                tweets[j] = ShardServer.readTweet(in[i]);
+            }
+            sequences.add(seqs);
+            matches.add(tweets);
+            total += n;
+        }
+
+        // each shard's matches are in corpus order, so merge them with a heap of shard heads
+        int[] next = new int[shards()];
+        PriorityQueue<Integer> heads = new PriorityQueue<Integer>(Math.max(1, shards()),
+                (a, b) -> Long.compare(sequences.get(a)[next[a]], sequences.get(b)[next[b]]));
+        for (int i = 0; i < shards(); ++i) {
+            if (sequences.get(i).length > 0) {
+                heads.add(i);
+            }
+        }
+        List<Tweet> result = new ArrayList<Tweet>(total);
+        while (!heads.isEmpty()) {
+            int shard = heads.poll();
+            result.add(matches.get(shard)[next[shard]++]);
+            if (next[shard] < sequences.get(shard).length) {
+                heads.add(shard);
+            }
+        }
+        return result;
+    }
+}
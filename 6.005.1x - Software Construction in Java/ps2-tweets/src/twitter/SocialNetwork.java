@@ -37,18 +37,55 @@ public class SocialNetwork {
      *         either authors or @-mentions in the list of tweets.
      */
     public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets) {
+        return guessFollowsGraph(tweets, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, ignoring
+     * hashtags too popular to be evidence of anything.
+     * 
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param maxUsersPerHashtag
+     *            hashtags used by more than this many distinct users are not
+     *            taken as evidence, which bounds the number of edges any one
+     *            hashtag can add to maxUsersPerHashtag^2. Requires >= 0.
+     * @return a social network (as defined above), as guessFollowsGraph(List)
+     *         but without the common-hashtag evidence of popular hashtags.
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(List<Tweet> tweets, int maxUsersPerHashtag) {
         final Map<String, Set<String>> map = new HashMap<String, Set<String>>();
         
         // START OF BASIC IMPLEMENTATION
         
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        Map<String, Set<String>> hashtagsMap = new HashMap<String, Set<String>>();
+        
         for (Tweet tweet : tweets) {
-            Set<String> followedUsers = Extract.getMentionedUsers(Arrays.asList(tweet));
-            Set<String> followedUsersLowerCase = new HashSet<String>();
-            String author = tweet.getAuthor().toLowerCase();
+            String author = CaseFold.fold(tweet.getAuthor());
+            String text = tweet.getText();
+            
+            // accumulate over all of the author's tweets, not just the last one
+            Set<String> followedUsersLowerCase = map.get(author);
+            if (followedUsersLowerCase == null) {
+                followedUsersLowerCase = new HashSet<String>();
+                map.put(author, followedUsersLowerCase);
+                hashtagsMap.put(author, new HashSet<String>());
+            }
+            Set<String> hashtags = hashtagsMap.get(author);
             
-            // convert all entries to lower case
-            for (String user : followedUsers) {
-                String userLowerCase = user.toLowerCase();
+            // collect the mentions in lower case, and the hashtags, in one pass
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    hashtags.add(text.substring(tokenizer.start(), tokenizer.end()));
+                    continue;
+                }
+                if (tokenizer.kind() != TweetTokenizer.Kind.MENTION) {
+                    continue;
+                }
+                String userLowerCase = CaseFold.fold(text, tokenizer.start(), tokenizer.end());
                 
                 // skip the author
                 if (userLowerCase.equals(author)) {
@@ -57,51 +94,219 @@ public class SocialNetwork {
                 
                 followedUsersLowerCase.add(userLowerCase);
             }
-            
-            map.put(author, followedUsersLowerCase);
         }
         
         // END OF BASIC IMPLEMENTATION
 
         // START OF 'COMMON HASHTAGS' TECHNIQUE
         
-        Map<String, Set<String>> hashtagsMap = Extract.getHashtags(tweets);
+        addCommonHashtagEdges(map, hashtagsMap, maxUsersPerHashtag);
         
-        for (String username : hashtagsMap.keySet()) {
-            for (String compareUsername : hashtagsMap.keySet()) {
-                
-                // get next username if the two usernames are the same
-                if (username.equals(compareUsername)) {
+        // END OF 'COMMON HASHTAGS' TECHNIQUE
+        
+        return map;
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, with users
+     * as ids.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param usernames
+     *            table that numbers usernames ignoring case, such as
+     *            InternTable.USERNAMES; users not in it are added
+     * @return a map from the id of each author to the ids of the users the
+     *         author follows, with the same evidence as
+     *         guessFollowsGraph(List); toMap(usernames, usernames) of it
+     *         equals guessFollowsGraph(tweets).
+     */
+    public static IdSetMap guessFollowsGraph(List<Tweet> tweets, InternTable usernames) {
+        return guessFollowsGraph(tweets, usernames, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in tweets, with users
+     * as ids, ignoring hashtags too popular to be evidence of anything.
+     *
+     * The common-hashtag pairs are collected before duplicates are removed,
+     * so the memory used while building grows with the sum over hashtags of
+     * the square of their distinct users, not with the edges of the result:
+     * one hashtag shared by 100,000 users needs 10^10 pairs. Bound it with
+     * maxUsersPerHashtag on tweets with popular hashtags.
+     *
+     * @param tweets
+     *            a list of tweets providing the evidence, not modified by this
+     *            method.
+     * @param usernames
+     *            table that numbers usernames ignoring case, such as
+     *            InternTable.USERNAMES; users not in it are added
+     * @param maxUsersPerHashtag
+     *            hashtags used by more than this many distinct users are not
+     *            taken as evidence, as for guessFollowsGraph(List, int).
+     *            Requires >= 0.
+     * @return a map from the id of each author to the ids of the users the
+     *         author follows; toMap(usernames, usernames) of it equals
+     *         guessFollowsGraph(tweets, maxUsersPerHashtag).
+     */
+    public static IdSetMap guessFollowsGraph(List<Tweet> tweets, InternTable usernames, int maxUsersPerHashtag) {
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        IntList authors = new IntList();
+        IntList sources = new IntList();
+        IntList destinations = new IntList();
+        // hashtags are only matched with each other, so they need no shared ids
+        NameTable hashtags = new NameTable();
+        LongCountMap memberships = new LongCountMap();
+        List<IntList> usersByHashtag = new ArrayList<IntList>();
+        
+        // mention evidence, and a hashtag -> distinct users inverted index
+        for (Tweet tweet : tweets) {
+            String text = tweet.getText();
+            int author = usernames.intern(tweet.getAuthor());
+            authors.add(author);
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    int user = usernames.intern(text, tokenizer.start(), tokenizer.end());
+                    if (user != author) {
+                        sources.add(author);
+                        destinations.add(user);
+                    }
+                } else if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    int hashtag = hashtags.intern(text, tokenizer.start(), tokenizer.end());
+                    if (hashtag == usersByHashtag.size()) {
+                        usersByHashtag.add(new IntList());
+                    }
+                    if (memberships.add(LongCountMap.key(hashtag, author), 1) == 1) {
+                        usersByHashtag.get(hashtag).add(author);
+                    }
+                }
+            }
+        }
+        
+        // common-hashtag evidence
+        for (IntList users : usersByHashtag) {
+            if (users.size() > maxUsersPerHashtag) {
+                continue;
+            }
+            for (int i = 0; i < users.size(); ++i) {
+                for (int j = 0; j < users.size(); ++j) {
+                    if (i != j) {
+                        sources.add(users.get(i));
+                        destinations.add(users.get(j));
+                    }
+                }
+            }
+        }
+        
+        return IdSetMap.build(authors, sources, destinations);
+    }
+
+    /**
+     * Guess who might follow whom, from evidence found in the tweets of a
+     * TweetStore.
+     * 
+     * @param store
+     *            tweets providing the evidence, not modified by this method.
+     * @return a social network (as defined above), with the same evidence as
+     *         guessFollowsGraph(List).
+     */
+    public static Map<String, Set<String>> guessFollowsGraph(TweetStore store) {
+        final Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        Map<String, Set<String>> hashtagsMap = new HashMap<String, Set<String>>();
+        char[] arena = store.arenaChars();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        
+        // fold each distinct author spelling once
+        String[] authorsLowerCase = new String[store.authorCount()];
+        for (int authorId = 0; authorId < authorsLowerCase.length; ++authorId) {
+            authorsLowerCase[authorId] = CaseFold.fold(store.authorName(authorId));
+        }
+        
+        for (int i = 0; i < store.size(); ++i) {
+            String author = authorsLowerCase[store.authorId(i)];
+            Set<String> followedUsersLowerCase = map.get(author);
+            if (followedUsersLowerCase == null) {
+                followedUsersLowerCase = new HashSet<String>();
+                map.put(author, followedUsersLowerCase);
+                hashtagsMap.put(author, new HashSet<String>());
+            }
+            Set<String> hashtags = hashtagsMap.get(author);
+            
+            tokenizer.reset(arena, store.textStart(i), store.textEnd(i));
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.WORD) {
                     continue;
                 }
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    hashtags.add(new String(arena, tokenizer.start(), tokenizer.end() - tokenizer.start()));
+                    continue;
+                }
+                String userLowerCase = CaseFold.fold(tokenizer.text(), tokenizer.start(), tokenizer.end());
                 
-                // get the two sets of hashtags
-                Set<String> hashtags = hashtagsMap.get(username);
-                Set<String> compareHashtags = hashtagsMap.get(compareUsername);
-                
-                // the users are related if they have atleast one hashtag in common
-                for (String hashtag : hashtags) {
-                    if (compareHashtags.contains(hashtag)) {
-                        
-                        // add compareUsername to username's followers
-                        Set<String> existingFollowers = map.get(username);
-                        existingFollowers.add(compareUsername);
-                        map.put(username.toLowerCase(), existingFollowers);
-                        
-                        // add username to compareUsername's followers
-                        existingFollowers = map.get(compareUsername);
-                        existingFollowers.add(username);
-                        map.put(compareUsername.toLowerCase(), existingFollowers);                        
-                    }
+                // skip the author
+                if (!userLowerCase.equals(author)) {
+                    followedUsersLowerCase.add(userLowerCase);
                 }
             }
         }
         
-        // END OF 'COMMON HASHTAGS' TECHNIQUE
+        addCommonHashtagEdges(map, hashtagsMap, Integer.MAX_VALUE);
         
         return map;
     }
-
+    
+    /*
+     * Add 'common hashtags' evidence to a follows graph: users who have at
+     * least one hashtag in common follow each other.
+     * 
+     * Rather than comparing every pair of users, invert the hashtags map into
+     * hashtag -> users and connect the users of each hashtag, which takes time
+     * proportional to the number of co-occurrences.
+     * 
+     * @param map
+     *            follows graph with a key for every author in hashtagsMap,
+     *            in lower case; modified by this method.
+     * @param hashtagsMap
+     *            map from author to the hashtags of all of the author's tweets
+     * @param maxUsersPerHashtag
+     *            hashtags with more users than this are skipped
+     */
+    private static void addCommonHashtagEdges(Map<String, Set<String>> map, Map<String, Set<String>> hashtagsMap,
+                                              int maxUsersPerHashtag) {
+        
+        // invert the map; the hashtags map keeps each author's own spelling,
+        // but the graph is keyed on lower case usernames
+        Map<String, Set<String>> usersByHashtag = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : hashtagsMap.entrySet()) {
+            String usernameLowerCase = CaseFold.fold(entry.getKey());
+            for (String hashtag : entry.getValue()) {
+                Set<String> users = usersByHashtag.get(hashtag);
+                if (users == null) {
+                    users = new HashSet<String>();
+                    usersByHashtag.put(hashtag, users);
+                }
+                users.add(usernameLowerCase);
+            }
+        }
+        
+        // the users of a hashtag are related to each other
+        for (Set<String> users : usersByHashtag.values()) {
+            if (users.size() < 2 || users.size() > maxUsersPerHashtag) {
+                continue;
+            }
+            for (String username : users) {
+                Set<String> existingFollows = map.get(username);
+                for (String compareUsername : users) {
+                    if (!compareUsername.equals(username)) {
+                        existingFollows.add(compareUsername);
+                    }
+                }
+            }
+        }
+    }
+    
     /**
      * Find the people in a social network who have the greatest influence, in
      * the sense that they have the most followers.
@@ -117,22 +322,23 @@ public class SocialNetwork {
         for (String username : followsGraph.keySet()) {
             
             // add entry if not present
-            if (!numberOfFollowers.containsKey(username)) {
-                numberOfFollowers.put(username.toLowerCase(), 0);
+            String usernameFolded = CaseFold.fold(username);
+            if (!numberOfFollowers.containsKey(usernameFolded)) {
+                numberOfFollowers.put(usernameFolded, 0);
             }
             
             for (String influencedUser : followsGraph.get(username)) {
                 
-                Integer existingNumberOfFollowers = numberOfFollowers.get(influencedUser.toLowerCase());
+                Integer existingNumberOfFollowers = numberOfFollowers.get(CaseFold.fold(influencedUser));
                 
                 // define a new entry for influencedUser, if not defined before
                 if (existingNumberOfFollowers == null) {
-                    numberOfFollowers.put(influencedUser.toLowerCase(), 1);
+                    numberOfFollowers.put(CaseFold.fold(influencedUser), 1);
                 }
                 
                 // increase the followers of influencedUser
                 else {
-                    numberOfFollowers.put(influencedUser.toLowerCase(), ++existingNumberOfFollowers);
+                    numberOfFollowers.put(CaseFold.fold(influencedUser), ++existingNumberOfFollowers);
                 }
             }
         }
@@ -146,7 +352,105 @@ public class SocialNetwork {
         
         return mostInfluential;
     }
-    
+
+    /**
+     * Find the people in a social network who have the greatest influence, in
+     * the sense that they have the most followers.
+     *
+     * @param followsGraph
+     *            a social network in compressed form
+     * @return a list of all the users of followsGraph, in descending order of
+     *         follower count, and in alphabetical order among users with the
+     *         same follower count, as influencers(Map).
+     */
+    public static List<String> influencers(FollowsGraph followsGraph) {
+        int[] inDegrees = followsGraph.inDegrees();
+
+        // pack (descending in-degree, ascending user number) into one sortable long
+        long[] keys = new long[inDegrees.length];
+        for (int u = 0; u < inDegrees.length; ++u) {
+            keys[u] = ((long) (Integer.MAX_VALUE - inDegrees[u]) << 32) | u;
+        }
+        Arrays.sort(keys);
+
+        List<String> mostInfluential = new ArrayList<String>(keys.length);
+        for (long key : keys) {
+            mostInfluential.add(followsGraph.username((int) key));
+        }
+        return mostInfluential;
+    }
+
+    /**
+     * Find the k people in a social network who have the most followers.
+     *
+     * Follower counts are kept in an int array indexed through an
+     * open-addressing table of lower case usernames, and the top k are
+     * selected with a bounded heap, so this takes O(n log k) time and O(k)
+     * space beyond the counts.
+     *
+     * @param followsGraph
+     *            a social network (as defined above)
+     * @param k
+     *            number of people to find, >= 0
+     * @return the first min(k, n) usernames of influencers(followsGraph), where
+     *         n is the number of distinct usernames in followsGraph, in lower case
+     */
+    public static List<String> influencers(Map<String, Set<String>> followsGraph, int k) {
+        NameTable usernames = new NameTable(followsGraph.size());
+        int[] counts = new int[Math.max(16, followsGraph.size())];
+
+        for (Map.Entry<String, Set<String>> entry : followsGraph.entrySet()) {
+            counts = ensureCapacity(counts, usernames.intern(CaseFold.fold(entry.getKey())));
+            for (String influencedUser : entry.getValue()) {
+                // usually folded already, so this neither copies nor rehashes
+                int id = usernames.intern(CaseFold.fold(influencedUser));
+                counts = ensureCapacity(counts, id);
+                ++counts[id];
+            }
+        }
+
+        int[] top = TopK.select(counts, 0, usernames.size(), k,
+                (a, b) -> usernames.name(a).compareTo(usernames.name(b)));
+        List<String> mostInfluential = new ArrayList<String>(top.length);
+        for (int id : top) {
+            mostInfluential.add(usernames.name(id));
+        }
+        return mostInfluential;
+    }
+
+    /**
+     * Find the k people in a compressed social network who have the most
+     * followers, selected with a bounded heap.
+     *
+     * @param followsGraph
+     *            a social network in compressed form
+     * @param k
+     *            number of people to find, >= 0
+     * @return the first min(k, followsGraph.userCount()) usernames of
+     *         influencers(followsGraph)
+     */
+    public static List<String> influencers(FollowsGraph followsGraph, int k) {
+        return usernames(followsGraph, TopK.select(followsGraph.inDegrees(), k, Integer::compare));
+    }
+
+    /*
+     * @return the usernames of users of followsGraph, in the order of ids
+     */
+    static List<String> usernames(FollowsGraph followsGraph, int[] ids) {
+        List<String> usernames = new ArrayList<String>(ids.length);
+        for (int id : ids) {
+            usernames.add(followsGraph.username(id));
+        }
+        return usernames;
+    }
+
+    /*
+     * @return counts, or a larger copy of it, with room for index i
+     */
+    private static int[] ensureCapacity(int[] counts, int i) {
+        return i < counts.length ? counts : Arrays.copyOf(counts, 2 * counts.length);
+    }
+
     /**
      * Sort the keys in the map by their values in descending order,
      * given that the values are comparable.
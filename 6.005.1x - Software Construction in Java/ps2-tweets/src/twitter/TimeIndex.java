@@ -0,0 +1,351 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TimeIndex is a mutable, append-only index of tweets by timestamp that
+ * answers Filter.inTimespan() in O(log n + k log k) time for k results, and
+ * Extract.getTimespan() in O(1) time.
+ *
+ * The index keeps the tweets' timestamps as a sorted array of epoch
+ * nanoseconds plus the permutation from sorted order back to insertion order.
+ * Tweets appended in timestamp order extend the sorted array directly; tweets
+ * appended out of order are inserted into a small sorted tail of at most
+ * about sqrt(n) entries, which is merged into the main array in linear time
+ * once full, so appending never re-sorts the whole index.
+ * A TimeIndex is not safe for use by multiple threads while tweets are
+ * added; its query methods only read it (the tail is merged only by add()),
+ * so once it is no longer modified and has been safely published, any number
+ * of threads may query it at once.
+ */
+public class TimeIndex {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MINIMUM_TAIL = 64;
+
+    private final List<Tweet> tweets;
+
+    private long[] sortedTimestamps;
+    private int[] sortedPositions;
+    private int sortedSize;
+
+    private long[] tailTimestamps;
+    private int[] tailPositions;
+    private int tailSize;
+
+    private long minimumTimestamp = Long.MAX_VALUE, maximumTimestamp = Long.MIN_VALUE;
+
+    /* Rep invariant:
+     *    sortedSize + tailSize == tweets.size()
+     *    sortedTimestamps[0..sortedSize) is sorted, ties ordered by position
+     *    sortedTimestamps[i] == epochNanos(tweets.get(sortedPositions[i]))
+     *    tailTimestamps[0..tailSize) is sorted, ties ordered by position
+     *    tailTimestamps[j] == epochNanos(tweets.get(tailPositions[j]))
+     *    every position in [0, tweets.size()) appears exactly once in
+     *      sortedPositions[0..sortedSize) or tailPositions[0..tailSize)
+     *    tailSize <= max(MINIMUM_TAIL, sqrt(sortedSize))
+     *    minimumTimestamp, maximumTimestamp are the extremes of all timestamps
+     */
+
+    /**
+     * Make an empty index.
+     */
+    public TimeIndex() {
+        this.tweets = new ArrayList<Tweet>();
+        this.sortedTimestamps = new long[INITIAL_CAPACITY];
+        this.sortedPositions = new int[INITIAL_CAPACITY];
+        this.tailTimestamps = new long[MINIMUM_TAIL];
+        this.tailPositions = new int[MINIMUM_TAIL];
+    }
+
+    /**
+     * Make an index of a list of tweets, in O(n log n) time, or O(n) time if
+     * the tweets are already in timestamp order.
+     *
+     * @param tweets
+     *            tweets to index; not modified by this constructor, and later
+     *            changes to the list are not seen by the index.
+     *            Requires timestamps between the years 1678 and 2261.
+     */
+    public TimeIndex(List<Tweet> tweets) {
+        int n = tweets.size();
+        this.tweets = new ArrayList<Tweet>(tweets);
+        this.sortedTimestamps = new long[Math.max(n, INITIAL_CAPACITY)];
+        this.sortedPositions = new int[Math.max(n, INITIAL_CAPACITY)];
+        this.tailTimestamps = new long[MINIMUM_TAIL];
+        this.tailPositions = new int[MINIMUM_TAIL];
+
+        boolean inOrder = true;
+        for (int i = 0; i < n; ++i) {
+            long timestamp = TweetStore.epochNanos(this.tweets.get(i).getTimestamp());
+            sortedTimestamps[i] = timestamp;
+            sortedPositions[i] = i;
+            inOrder &= i == 0 || sortedTimestamps[i - 1] <= timestamp;
+            minimumTimestamp = Math.min(minimumTimestamp, timestamp);
+            maximumTimestamp = Math.max(maximumTimestamp, timestamp);
+        }
+        sortedSize = n;
+
+        if (!inOrder) {
+            sort(sortedTimestamps, sortedPositions, n);
+        }
+    }
+
+    /**
+     * Append a tweet to the index, in amortized O(1) time if its timestamp is
+     * no earlier than every indexed timestamp, else in amortized O(sqrt n) time.
+     *
+     * @param tweet
+     *            tweet to append, with an id distinct from the indexed tweets.
+     *            Requires a timestamp between the years 1678 and 2261.
+     */
+    public void add(Tweet tweet) {
+        long timestamp = TweetStore.epochNanos(tweet.getTimestamp());
+        int position = tweets.size();
+        tweets.add(tweet);
+
+        if (tailSize == 0 && (sortedSize == 0 || sortedTimestamps[sortedSize - 1] <= timestamp)) {
+            if (sortedSize == sortedTimestamps.length) {
+                sortedTimestamps = Arrays.copyOf(sortedTimestamps, 2 * sortedSize);
+                sortedPositions = Arrays.copyOf(sortedPositions, 2 * sortedSize);
+            }
+            sortedTimestamps[sortedSize] = timestamp;
+            sortedPositions[sortedSize] = position;
+            ++sortedSize;
+        } else {
+            if (tailSize == tailTimestamps.length) {
+                tailTimestamps = Arrays.copyOf(tailTimestamps, 2 * tailSize);
+                tailPositions = Arrays.copyOf(tailPositions, 2 * tailSize);
+            }
+
+            // insert after any equal timestamps, keeping ties in position order
+            int j = firstAfter(tailTimestamps, tailSize, timestamp);
+            System.arraycopy(tailTimestamps, j, tailTimestamps, j + 1, tailSize - j);
+            System.arraycopy(tailPositions, j, tailPositions, j + 1, tailSize - j);
+            tailTimestamps[j] = timestamp;
+            tailPositions[j] = position;
+            ++tailSize;
+            if (tailSize > Math.max(MINIMUM_TAIL, (int) Math.sqrt(sortedSize))) {
+                mergeTail();
+            }
+        }
+
+        minimumTimestamp = Math.min(minimumTimestamp, timestamp);
+        maximumTimestamp = Math.max(maximumTimestamp, timestamp);
+    }
+
+    /**
+     * Append tweets to the index.
+     *
+     * @param tweets
+     *            tweets to append, in order, not modified by this method.
+     * @see #add(Tweet)
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return number of indexed tweets
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return the tweet at a position in indexing order, for 0 <= position < size()
+     */
+    public Tweet get(int position) {
+        return tweets.get(position);
+    }
+
+    /**
+     * Get the time period spanned by the indexed tweets, in O(1) time.
+     *
+     * @return a minimum-length time interval that contains the timestamp of
+     *         every indexed tweet, as specified by Extract.getTimespan().
+     */
+    public Timespan getTimespan() {
+        if (tweets.isEmpty()) {
+            Instant date = Instant.now();
+            return new Timespan(date, date);
+        }
+        return new Timespan(TweetStore.instant(minimumTimestamp), TweetStore.instant(maximumTimestamp));
+    }
+
+    /**
+     * Find the indexed tweets that were sent during a particular timespan.
+     *
+     * @param timespan
+     *            timespan
+     * @return all and only the indexed tweets that were sent during the
+     *         timespan, in the order they were indexed, as specified by
+     *         Filter.inTimespan().
+     */
+    public List<Tweet> inTimespan(Timespan timespan) {
+        int[] positions = positionsInTimespan(timespan);
+        List<Tweet> result = new ArrayList<Tweet>(positions.length);
+        for (int position : positions) {
+            result.add(tweets.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Find the positions of the indexed tweets that were sent during a
+     * particular timespan.
+     *
+     * @param timespan
+     *            timespan
+     * @return new array of the positions (in indexing order, starting from 0)
+     *         of the tweets sent during the timespan, in increasing order
+     */
+    public int[] positionsInTimespan(Timespan timespan) {
+        long start = TweetStore.saturatedEpochNanos(timespan.getStart());
+        long end = TweetStore.saturatedEpochNanos(timespan.getEnd());
+
+        int from = firstAtLeast(sortedTimestamps, sortedSize, start);
+        int to = firstAfter(sortedTimestamps, sortedSize, end);
+        int tailFrom = firstAtLeast(tailTimestamps, tailSize, start);
+        int tailTo = firstAfter(tailTimestamps, tailSize, end);
+
+        int[] positions = new int[(to - from) + (tailTo - tailFrom)];
+        System.arraycopy(sortedPositions, from, positions, 0, to - from);
+        System.arraycopy(tailPositions, tailFrom, positions, to - from, tailTo - tailFrom);
+
+        // restore indexing order, which the spec of inTimespan requires
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Count the indexed tweets that were sent during a particular timespan,
+     * in O(log n) time.
+     *
+     * @param timespan
+     *            timespan
+     * @return number of indexed tweets sent during the timespan
+     */
+    public int countInTimespan(Timespan timespan) {
+        long start = TweetStore.saturatedEpochNanos(timespan.getStart());
+        long end = TweetStore.saturatedEpochNanos(timespan.getEnd());
+        return firstAfter(sortedTimestamps, sortedSize, end) - firstAtLeast(sortedTimestamps, sortedSize, start)
+                + firstAfter(tailTimestamps, tailSize, end) - firstAtLeast(tailTimestamps, tailSize, start);
+    }
+
+    /*
+     * @return the smallest i in [0, size] with timestamps[i] >= timestamp,
+     *         given timestamps[0..size) sorted
+     */
+    private static int firstAtLeast(long[] timestamps, int size, long timestamp) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * @return the smallest i in [0, size] with timestamps[i] > timestamp,
+     *         given timestamps[0..size) sorted
+     */
+    private static int firstAfter(long[] timestamps, int size, long timestamp) {
+        int low = 0, high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[middle] <= timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /*
+     * Merge the tail into the sorted arrays in O(sortedSize + tailSize) time.
+     */
+    private void mergeTail() {
+        int n = sortedSize + tailSize;
+        long[] timestamps = new long[Math.max(n, sortedTimestamps.length)];
+        int[] positions = new int[timestamps.length];
+        int i = 0, j = 0, k = 0;
+        while (i < sortedSize && j < tailSize) {
+            // tail positions are all later than sorted ones with the same timestamp
+            if (sortedTimestamps[i] <= tailTimestamps[j]) {
+                timestamps[k] = sortedTimestamps[i];
+                positions[k++] = sortedPositions[i++];
+            } else {
+                timestamps[k] = tailTimestamps[j];
+                positions[k++] = tailPositions[j++];
+            }
+        }
+        while (i < sortedSize) {
+            timestamps[k] = sortedTimestamps[i];
+            positions[k++] = sortedPositions[i++];
+        }
+        while (j < tailSize) {
+            timestamps[k] = tailTimestamps[j];
+            positions[k++] = tailPositions[j++];
+        }
+
+        sortedTimestamps = timestamps;
+        sortedPositions = positions;
+        sortedSize = n;
+        tailSize = 0;
+    }
+
+    /*
+     * Stably sort keys[0..n) in increasing order, permuting values[0..n) the
+     * same way, with a bottom-up merge sort.
+     */
+    private static void sort(long[] keys, int[] values, int n) {
+        long[] keyBuffer = new long[n];
+        int[] valueBuffer = new int[n];
+        long[] fromKeys = keys, toKeys = keyBuffer;
+        int[] fromValues = values, toValues = valueBuffer;
+
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int middle = Math.min(low + width, n), high = Math.min(low + 2 * width, n);
+                int i = low, j = middle, k = low;
+                while (i < middle && j < high) {
+                    if (fromKeys[i] <= fromKeys[j]) {
+                        toKeys[k] = fromKeys[i];
+                        toValues[k++] = fromValues[i++];
+                    } else {
+                        toKeys[k] = fromKeys[j];
+                        toValues[k++] = fromValues[j++];
+                    }
+                }
+                while (i < middle) {
+                    toKeys[k] = fromKeys[i];
+                    toValues[k++] = fromValues[i++];
+                }
+                while (j < high) {
+                    toKeys[k] = fromKeys[j];
+                    toValues[k++] = fromValues[j++];
+                }
+            }
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            int[] swapValues = fromValues;
+            fromValues = toValues;
+            toValues = swapValues;
+        }
+
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, n);
+            System.arraycopy(fromValues, 0, values, 0, n);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TimeRollup is a mutable summary of a stream of tweets as counts of
+ * mentions and hashtags per minute, per hour and per day, which answers
+ * range queries such as "top hashtags in the last 6 hours" without
+ * rescanning the tweets.
+ *
+ * A range is covered by the coarsest whole buckets that fit in it: whole
+ * days in the middle, then whole hours, then minutes at the edges, so a
+ * query reads at most 2 * (59 + 23) buckets plus one per whole day, however
+ * many tweets the range holds. A query sums only those buckets, so its cost
+ * depends on the names in them, not on how many names the rollup has seen.
+ * Ranges are rounded outward to whole minutes.
+ *
+ * Mentions and hashtags are counted by occurrence, case-folded as by
+ * CaseFold, and reported without "@" or "#". Tweets may be
+ * added in any order. A TimeRollup is not safe for use by multiple threads.
+ */
+public class TimeRollup {
+
+    // bucket levels, and the minutes each bucket of a level spans
+    private static final int MINUTE = 0, HOUR = 1, DAY = 2;
+    private static final int[] MINUTES = { 1, 60, 24 * 60 };
+
+    // kinds of count in a bucket, packed with an id as LongCountMap.key(kind, id)
+    private static final int MENTION = 0, HASHTAG = 1, TWEETS = 2;
+
+    private final NameTable mentions = new NameTable();
+    private final NameTable hashtags = new NameTable();
+    // per level, bucket number (minutes since the epoch / MINUTES[level]) to counts
+    private final List<Map<Long, LongCountMap>> levels = new ArrayList<Map<Long, LongCountMap>>();
+
+    private final TweetTokenizer tokenizer = new TweetTokenizer();
+    // buckets of the minute of the last tweet added, since streams are mostly in order
+    private long lastMinute;
+    private LongCountMap[] lastBuckets;
+
+    /* Rep invariant:
+     *    levels.size() == 3
+     *    for each level, the counts of a bucket are the sums of the counts
+     *      of the MINUTE buckets it spans; no bucket is empty
+     *    each key of a bucket is key(MENTION, id < mentions.size()),
+     *      key(HASHTAG, id < hashtags.size()) or key(TWEETS, 0)
+     */
+
+    /**
+     * Make an empty rollup.
+     */
+    public TimeRollup() {
+        for (int level = MINUTE; level <= DAY; ++level) {
+            levels.add(new HashMap<Long, LongCountMap>());
+        }
+    }
+
+    /**
+     * Make a rollup of a list of tweets.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this constructor
+     */
+    public TimeRollup(List<Tweet> tweets) {
+        this();
+        addAll(tweets);
+    }
+
+    /**
+     * Add a tweet to the buckets of its timestamp.
+     *
+     * @param tweet
+     *            tweet to add
+     */
+    public void add(Tweet tweet) {
+        long minute = Math.floorDiv(tweet.getTimestamp().getEpochSecond(), 60);
+        if (lastBuckets == null || minute != lastMinute) {
+            lastMinute = minute;
+            lastBuckets = new LongCountMap[MINUTES.length];
+            for (int level = MINUTE; level <= DAY; ++level) {
+                lastBuckets[level] = levels.get(level).computeIfAbsent(Math.floorDiv(minute, MINUTES[level]),
+                        bucket -> new LongCountMap());
+            }
+        }
+        LongCountMap[] buckets = lastBuckets;
+
+        count(buckets, LongCountMap.key(TWEETS, 0));
+        String text = tweet.getText();
+        if (text.indexOf('@') < 0 && text.indexOf('#') < 0) {
+            return;
+        }
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            // the token is only folded and copied if it is new
+            int start = tokenizer.start(), end = tokenizer.end();
+            if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                count(buckets, LongCountMap.key(MENTION, mentions.internFolded(text, start, end)));
+            } else if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                count(buckets, LongCountMap.key(HASHTAG, hashtags.internFolded(text, start, end)));
+            }
+        }
+    }
+
+    /**
+     * Add tweets to the buckets of their timestamps.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * Count the tweets in a range of time.
+     *
+     * @param from
+     *            start of the range, inclusive, rounded down to a whole minute
+     * @param to
+     *            end of the range, exclusive, rounded up to a whole minute
+     * @return number of tweets added with timestamps in the rounded range
+     */
+    public int tweetCount(Instant from, Instant to) {
+        return sum(from, to).get(LongCountMap.key(TWEETS, 0));
+    }
+
+    /**
+     * Count the mentions in a range of time.
+     *
+     * @param from
+     *            start of the range, inclusive, rounded down to a whole minute
+     * @param to
+     *            end of the range, exclusive, rounded up to a whole minute
+     * @return a new map from each folded username mentioned in the tweets of
+     *         the rounded range to its number of mentions there; its keys
+     *         are Extract.getMentionedUsers() of those tweets
+     */
+    public Map<String, Integer> mentionCounts(Instant from, Instant to) {
+        return toMap(sum(from, to), MENTION, mentions);
+    }
+
+    /**
+     * Count the hashtags in a range of time.
+     *
+     * @param from
+     *            start of the range, inclusive, rounded down to a whole minute
+     * @param to
+     *            end of the range, exclusive, rounded up to a whole minute
+     * @return a new map from each folded hashtag in the tweets of the
+     *         rounded range to its number of occurrences there
+     */
+    public Map<String, Integer> hashtagCounts(Instant from, Instant to) {
+        return toMap(sum(from, to), HASHTAG, hashtags);
+    }
+
+    /**
+     * Find the most mentioned users in a range of time.
+     *
+     * @param from
+     *            start of the range, inclusive, rounded down to a whole minute
+     * @param to
+     *            end of the range, exclusive, rounded up to a whole minute
+     * @param k
+     *            number of users wanted, >= 0
+     * @return the up to k folded usernames mentioned most in the rounded
+     *         range, in decreasing order of mentions and then alphabetically
+     */
+    public List<String> topMentions(Instant from, Instant to, int k) {
+        return top(sum(from, to), MENTION, mentions, k);
+    }
+
+    /**
+     * Find the most used hashtags in a range of time.
+     *
+     * @param from
+     *            start of the range, inclusive, rounded down to a whole minute
+     * @param to
+     *            end of the range, exclusive, rounded up to a whole minute
+     * @param k
+     *            number of hashtags wanted, >= 0
+     * @return the up to k folded hashtags used most in the rounded range, in
+     *         decreasing order of occurrences and then alphabetically
+     */
+    public List<String> topHashtags(Instant from, Instant to, int k) {
+        return top(sum(from, to), HASHTAG, hashtags, k);
+    }
+
+    /*
+     * @return number of buckets a query of [from, to) reads, empty or not
+     */
+    int bucketsCovering(Instant from, Instant to) {
+        int buckets = 0;
+        long[] range = minutes(from, to);
+        for (long minute = range[0]; minute < range[1]; minute += MINUTES[level(minute, range[1])]) {
+            ++buckets;
+        }
+        return buckets;
+    }
+
+    private static void count(LongCountMap[] buckets, long key) {
+        for (LongCountMap bucket : buckets) {
+            bucket.add(key, 1);
+        }
+    }
+
+    /*
+     * @return the counts of the buckets covering [from, to) summed, keyed as
+     *         in a bucket; holds only the names in those buckets, so a query
+     *         costs nothing per name seen elsewhere
+     */
+    private LongCountMap sum(Instant from, Instant to) {
+        LongCountMap counts = new LongCountMap();
+        long[] range = minutes(from, to);
+        for (long minute = range[0]; minute < range[1]; ) {
+            int level = level(minute, range[1]);
+            LongCountMap bucket = levels.get(level).get(Math.floorDiv(minute, MINUTES[level]));
+            if (bucket != null) {
+                bucket.forEach(counts::add);
+            }
+            minute += MINUTES[level];
+        }
+        return counts;
+    }
+
+    /*
+     * @return the minutes since the epoch [first, last) covering [from, to)
+     */
+    private static long[] minutes(Instant from, Instant to) {
+        long first = Math.floorDiv(from.getEpochSecond(), 60);
+        long endSecond = to.getEpochSecond() + (to.getNano() > 0 ? 1 : 0);
+        long last = -Math.floorDiv(-endSecond, 60);
+        return new long[] { first, last };
+    }
+
+    /*
+     * @return the coarsest level whose bucket starts at minute and ends by end
+     */
+    private static int level(long minute, long end) {
+        int level = DAY;
+        while (level > MINUTE && !(Math.floorMod(minute, MINUTES[level]) == 0 && minute + MINUTES[level] <= end)) {
+            --level;
+        }
+        return level;
+    }
+
+    private static Map<String, Integer> toMap(LongCountMap counts, int kind, NameTable names) {
+        Map<String, Integer> map = new HashMap<String, Integer>();
+        counts.forEach((key, count) -> {
+            if (LongCountMap.first(key) == kind) {
+                map.put(names.name(LongCountMap.second(key)), count);
+            }
+        });
+        return map;
+    }
+
+    private static List<String> top(LongCountMap counts, int kind, NameTable names, int k) {
+        // number the names of kind in counts densely, for TopK
+        IntList ids = new IntList();
+        IntList idCounts = new IntList();
+        counts.forEach((key, count) -> {
+            if (LongCountMap.first(key) == kind) {
+                ids.add(LongCountMap.second(key));
+                idCounts.add(count);
+            }
+        });
+        List<String> top = new ArrayList<String>();
+        for (int i : TopK.select(idCounts.toArray(), k,
+                                 (a, b) -> names.name(ids.get(a)).compareTo(names.name(ids.get(b))))) {
+            top.add(names.name(ids.get(i)));
+        }
+        return top;
+    }
+}
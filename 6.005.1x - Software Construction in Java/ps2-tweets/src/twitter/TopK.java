@@ -0,0 +1,110 @@
+package twitter;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * TopK selects the k highest-counted ids with a bounded heap, in
+ * O(n log k) time and O(k) space, instead of sorting all n of them.
+ */
+class TopK {
+
+    /**
+     * Select the ids with the highest counts.
+     *
+     * @param counts
+     *            counts[id] is the count of id, for 0 <= id < counts.length;
+     *            not modified by this method
+     * @param k
+     *            number of ids to select, >= 0
+     * @param tieBreak
+     *            orders ids with equal counts: tieBreak(a, b) < 0 iff a ranks
+     *            before b; must be a total order on ids
+     * @return new array of the min(k, counts.length) highest-ranked ids, in
+     *         descending order of count, ties ranked by tieBreak
+     */
+    static int[] select(int[] counts, int k, IntBinaryOperator tieBreak) {
+        return select(counts, 0, counts.length, k, tieBreak);
+    }
+
+    /**
+     * Select the ids with the highest counts in a range.
+     *
+     * @param counts
+     *            counts[id] is the count of id; not modified by this method
+     * @param from
+     *            first id to consider, inclusive
+     * @param to
+     *            last id to consider, exclusive
+     * @param k
+     *            number of ids to select, >= 0
+     * @param tieBreak
+     *            orders ids with equal counts, as in select(int[], int, IntBinaryOperator)
+     * @return new array of the min(k, to - from) highest-ranked ids in
+     *         [from, to), in descending order of count, ties ranked by tieBreak
+     */
+    static int[] select(int[] counts, int from, int to, int k, IntBinaryOperator tieBreak) {
+        int capacity = Math.min(k, to - from);
+        int[] heap = new int[capacity];
+        int size = 0;
+
+        // heap[0] is the lowest-ranked id kept so far
+        for (int id = from; id < to; ++id) {
+            if (size < capacity) {
+                heap[size] = id;
+                siftUp(heap, size++, counts, tieBreak);
+            } else if (capacity > 0 && ranksBefore(id, heap[0], counts, tieBreak)) {
+                heap[0] = id;
+                siftDown(heap, size, counts, tieBreak);
+            }
+        }
+
+        // pop the lowest-ranked into the back, leaving the ids in ranking order
+        for (int end = size - 1; end > 0; --end) {
+            int lowest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = lowest;
+            siftDown(heap, end, counts, tieBreak);
+        }
+        return heap;
+    }
+
+    /**
+     * @return true iff id a ranks strictly before id b
+     */
+    static boolean ranksBefore(int a, int b, int[] counts, IntBinaryOperator tieBreak) {
+        if (counts[a] != counts[b]) {
+            return counts[a] > counts[b];
+        }
+        return tieBreak.applyAsInt(a, b) < 0;
+    }
+
+    private static void siftUp(int[] heap, int i, int[] counts, IntBinaryOperator tieBreak) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!ranksBefore(heap[parent], id, counts, tieBreak)) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = id;
+    }
+
+    private static void siftDown(int[] heap, int size, int[] counts, IntBinaryOperator tieBreak) {
+        int id = heap[0];
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && ranksBefore(heap[child], heap[child + 1], counts, tieBreak)) {
+                ++child;
+            }
+            if (!ranksBefore(id, heap[child], counts, tieBreak)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = id;
+    }
+}
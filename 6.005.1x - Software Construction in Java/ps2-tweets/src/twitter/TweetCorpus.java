@@ -0,0 +1,204 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * TweetCorpus is a mutable, append-only list of tweets with whichever
+ * indexes the caller chooses to keep (AuthorIndex, TimeIndex, and a WordIndex
+ * per kind of token), which answers TweetQuery queries from those indexes.
+ *
+ * A query is answered by intersecting the posting lists of its most
+ * selective indexed conditions, checking the remaining conditions only on
+ * the candidates left, and uniting the results of or(); a query that the
+ * indexes cannot narrow is answered by one pass over the tweets, as
+ * TweetQuery.filter().
+ *
+ * A TweetCorpus is not safe for use by multiple threads while tweets are
+ * added or indexes made. Once it is no longer modified, any number of
+ * threads may call query(), count(), size() and get() at once, provided the
+ * corpus was safely published to them (e.g. through a volatile field or a
+ * lock): those methods only read the tweets and indexes.
+ */
+public class TweetCorpus {
+
+    private final List<Tweet> tweets = new ArrayList<Tweet>();
+    private AuthorIndex authors;
+    private TimeIndex times;
+    private final Map<TweetTokenizer.Kind, WordIndex> tokens =
+            new EnumMap<TweetTokenizer.Kind, WordIndex>(TweetTokenizer.Kind.class);
+
+    /* Rep invariant:
+     *    authors, times and each value of tokens are null or index exactly
+     *      tweets, in order
+     *    tokens.get(kind) indexes tokens of kind
+     *
+     * Thread safety argument:
+     *    query() and count() read tweets and the indexes through their
+     *    read-only query methods, and keep any scratch state (a
+     *    TweetQuery.Evaluator, position arrays) in objects of their own, so
+     *    concurrent queries of an unmodified corpus share nothing mutable
+     */
+
+    /**
+     * Make an empty corpus without indexes.
+     */
+    public TweetCorpus() {
+    }
+
+    /**
+     * Make a corpus of a list of tweets, without indexes.
+     *
+     * @param tweets
+     *            tweets to add, in order; not modified by this constructor, and
+     *            later changes to the list are not seen by the corpus.
+     */
+    public TweetCorpus(List<Tweet> tweets) {
+        addAll(tweets);
+    }
+
+    /**
+     * Keep an index of the tweets' authors, from now on.
+     *
+     * @return this corpus
+     */
+    public TweetCorpus indexAuthors() {
+        if (authors == null) {
+            authors = new AuthorIndex(tweets);
+        }
+        return this;
+    }
+
+    /**
+     * Keep an index of the tweets' timestamps, from now on.
+     *
+     * @return this corpus
+     */
+    public TweetCorpus indexTimestamps() {
+        if (times == null) {
+            times = new TimeIndex(tweets);
+        }
+        return this;
+    }
+
+    /**
+     * Keep an index of one kind of token of the tweets, from now on.
+     *
+     * @param kind
+     *            kind of token to index
+     * @return this corpus
+     */
+    public TweetCorpus indexTokens(TweetTokenizer.Kind kind) {
+        if (!tokens.containsKey(kind)) {
+            WordIndex index = new WordIndex(kind);
+            index.addAll(tweets);
+            tokens.put(kind, index);
+        }
+        return this;
+    }
+
+    /**
+     * Append a tweet, updating the indexes.
+     *
+     * @param tweet
+     *            tweet to append, with an id distinct from the tweets so far
+     */
+    public void add(Tweet tweet) {
+        tweets.add(tweet);
+        if (authors != null) {
+            authors.add(tweet);
+        }
+        if (times != null) {
+            times.add(tweet);
+        }
+        for (WordIndex index : tokens.values()) {
+            index.add(tweet);
+        }
+    }
+
+    /**
+     * Append tweets, updating the indexes.
+     *
+     * @param tweets
+     *            tweets to append, in order, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return number of tweets in this corpus
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return the tweet at a position, for 0 <= position < size()
+     */
+    public Tweet get(int position) {
+        return tweets.get(position);
+    }
+
+    /**
+     * Find the tweets that match a query.
+     *
+     * @param query
+     *            query to answer
+     * @return all and only the tweets of this corpus that match query, in
+     *         the order they were added; the same as query.filter() on them
+     */
+    public List<Tweet> query(TweetQuery query) {
+        int[] positions = query.positions(this);
+        if (positions == null) {
+            return query.filter(tweets);
+        }
+        List<Tweet> result = new ArrayList<Tweet>(positions.length);
+        for (int position : positions) {
+            result.add(tweets.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Count the tweets that match a query.
+     *
+     * @param query
+     *            query to answer
+     * @return number of tweets of this corpus that match query
+     */
+    public int count(TweetQuery query) {
+        int[] positions = query.positions(this);
+        if (positions != null) {
+            return positions.length;
+        }
+        TweetQuery.Evaluator evaluator = new TweetQuery.Evaluator(query);
+        int count = 0;
+        for (Tweet tweet : tweets) {
+            if (query.evaluate(evaluator, tweet)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    /*
+     * @return an unmodifiable view of the tweets, in order
+     */
+    List<Tweet> tweets() {
+        return Collections.unmodifiableList(tweets);
+    }
+
+    AuthorIndex authorIndex() {
+        return authors;
+    }
+
+    TimeIndex timeIndex() {
+        return times;
+    }
+
+    WordIndex tokenIndex(TweetTokenizer.Kind kind) {
+        return tokens.get(kind);
+    }
+}
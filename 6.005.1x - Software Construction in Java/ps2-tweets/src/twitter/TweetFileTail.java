@@ -0,0 +1,202 @@
+package twitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TweetFileTail follows a growing NDJSON tweet file, as "tail -f" does, and
+ * submits each tweet appended to it to an IngestionService.
+ *
+ * Each poll() reads the complete lines appended since the last one, with a
+ * TweetLoader over just those bytes; a partly written last line is left for
+ * a later poll. The tail can be polled by its caller, or by a background
+ * thread started by start(). It is not safe for polling by multiple threads.
+ */
+public class TweetFileTail implements Closeable {
+
+    private static final int REGION_SIZE = 1 << 24;
+    private static final int SCAN_SIZE = 1 << 12;
+
+    private final Path file;
+    private final IngestionService service;
+    // written only by the polling thread, and read by any
+    private volatile long offset;
+    private volatile long tweets;
+
+    private Thread poller;
+    private volatile boolean closed;
+    private volatile RuntimeException failure;
+
+    /* Rep invariant:
+     *    offset is the start of a line of file, just past the last line
+     *      whose tweet was submitted
+     *    tweets is the number of tweets submitted
+     */
+
+    /**
+     * Make a tail of a file from its start.
+     *
+     * @param file
+     *            NDJSON file to follow, which need not exist yet
+     * @param service
+     *            service to submit its tweets to
+     */
+    public TweetFileTail(Path file, IngestionService service) {
+        this(file, service, 0);
+    }
+
+    /**
+     * Make a tail of a file from an offset, e.g. one returned by offset()
+     * before a restart.
+     *
+     * @param file
+     *            NDJSON file to follow, which need not exist yet
+     * @param service
+     *            service to submit its tweets to
+     * @param offset
+     *            offset in file of the start of the first line to read, >= 0
+     */
+    public TweetFileTail(Path file, IngestionService service, long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("negative offset " + offset);
+        }
+        this.file = file;
+        this.service = service;
+        this.offset = offset;
+    }
+
+    /**
+     * Submit the tweets of the complete lines appended since the last poll,
+     * waiting while the service's queue is full.
+     *
+     * @return number of tweets submitted
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if interrupted while submitting; the
+     *             tweets submitted before are not read again
+     * @throws java.io.UncheckedIOException if a line is malformed
+     */
+    public int poll() throws IOException, InterruptedException {
+        if (!file.toFile().exists()) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = lastLineEnd(channel);
+            if (end <= offset) {
+                return 0;
+            }
+            int count = 0;
+            try (TweetLoader loader = new TweetLoader(channel, file.toString(), TweetLoader.Format.NDJSON,
+                                                      REGION_SIZE, offset, end)) {
+                while (loader.hasNext()) {
+                    Tweet tweet = loader.next();
+                    service.submit(tweet);
+                    offset = loader.bytesRead();
+                    ++count;
+                    ++tweets;
+                }
+            }
+            offset = end;
+            return count;
+        }
+    }
+
+    /**
+     * Start a background thread that polls the file until close().
+     *
+     * @param intervalMillis
+     *            time to sleep after a poll that found nothing new, > 0
+     */
+    public synchronized void start(long intervalMillis) {
+        if (poller != null) {
+            throw new IllegalStateException("already started");
+        }
+        poller = new Thread(() -> {
+            try {
+                while (!closed) {
+                    if (poll() == 0) {
+                        Thread.sleep(intervalMillis);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } catch (IOException e) {
+                failure = new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }, "tweet-tail " + file.getFileName());
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * @return offset in the file of the first line not yet read
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return number of tweets submitted so far
+     */
+    public long tweets() {
+        return tweets;
+    }
+
+    /**
+     * @return the exception that stopped the background thread, or null
+     */
+    public RuntimeException failure() {
+        return failure;
+    }
+
+    /**
+     * Stop the background thread, if started. Tweets already submitted stay
+     * in the service.
+     */
+    @Override public void close() {
+        closed = true;
+        Thread thread;
+        synchronized (this) {
+            thread = poller;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /*
+     * @return offset just past the last '\n' of the channel at or after
+     *         offset, or offset if there is none
+     */
+    private long lastLineEnd(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long end = channel.size();
+        while (end > offset) {
+            long start = Math.max(offset, end - SCAN_SIZE);
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) < 0) {
+                    throw new IOException(file + " shrank while being read");
+                }
+            }
+            for (int i = buffer.position() - 1; i >= 0; --i) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return offset;
+    }
+}
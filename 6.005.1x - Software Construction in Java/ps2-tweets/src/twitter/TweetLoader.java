@@ -0,0 +1,969 @@
+package twitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * TweetLoader reads tweets from a UTF-8 file of newline-delimited JSON
+ * objects or of comma-separated values, through memory-mapped regions of the
+ * file.
+ *
+ * An NDJSON file has one object per line with the fields "id" (a number),
+ * "author", "text" and "timestamp" (strings); other fields are ignored. A CSV
+ * file (RFC 4180) starts with a header naming its columns, which must include
+ * id, author, text and timestamp in any order; other columns are ignored.
+ * Timestamps are ISO-8601 instants such as "2016-02-17T10:00:00Z". Blank
+ * lines are skipped, and lines may end with "\n" or "\r\n".
+ *
+ * The mapped bytes are copied in bulk into a reusable window and records are
+ * decoded from there into reusable buffers, so the only objects made per
+ * tweet are the Tweet itself, its text and its timestamp; loadInto(TweetStore)
+ * makes none of those. Recently seen authors share one String.
+ *
+ * Malformed input is reported by an UncheckedIOException naming the file and
+ * the record number. A TweetLoader is not safe for use by multiple threads.
+ */
+public class TweetLoader implements Iterator<Tweet>, Closeable {
+
+    /**
+     * Format of a tweet file.
+     */
+    public enum Format { NDJSON, CSV }
+
+    private static final int DEFAULT_REGION_SIZE = 1 << 26;
+    private static final int MAX_WINDOW_SIZE = 1 << 20;
+    private static final int AUTHOR_CACHE_SIZE = 1 << 12;
+
+    // fields of a record, as bits
+    private static final int ID = 1, AUTHOR = 2, TEXT = 4, TIMESTAMP = 8, ALL_FIELDS = 15;
+    private static final String[] FIELD_NAMES = { "id", "author", "text", "timestamp" };
+
+    private final FileChannel channel;
+    private final String name;
+    private final Format format;
+    // end of the bytes to read, normally the size of the file
+    private final long limit;
+    private final int regionSize;
+
+    // the mapped region of the file
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    // a copy of bytes [windowStart, windowStart + windowLimit) of the file
+    private final byte[] window;
+    private long windowStart;
+    private int windowLimit;
+    private int position;
+    private long record;
+
+    // CSV column -> field bit, or 0 for an ignored column; null before the header
+    private int[] columns;
+
+    // fields of the record parsed ahead of next(), valid iff ready
+    private boolean ready;
+    private long id;
+    private String author;
+    private final CharSink text = new CharSink(256);
+    private long seconds;
+    private int nanos;
+
+    private final CharSink scratch = new CharSink(64);
+    private final String[] authorCache = new String[AUTHOR_CACHE_SIZE];
+
+    /* Rep invariant:
+     *    region == null iff nothing was to be read or the loader is closed
+     *    regionStart + region.limit() <= limit
+     *    window[0..windowLimit) == bytes [windowStart, windowStart + windowLimit)
+     *      of the file, and windowStart + windowLimit <= limit
+     *    0 <= position <= windowLimit, and windowStart + position is the
+     *      start of the next unparsed record
+     *    columns != null once a CSV header has been parsed
+     *    if ready, id, author, text, seconds and nanos are those of a parsed
+     *      record not yet returned
+     */
+
+    /**
+     * Open a tweet file, choosing the format by its extension: ".csv" for
+     * CSV, anything else for NDJSON.
+     *
+     * @param file
+     *            file to read
+     * @return a loader positioned at the first tweet of file
+     * @throws IOException
+     *             if file cannot be opened or mapped
+     */
+    public static TweetLoader open(Path file) throws IOException {
+        boolean csv = CaseFold.fold(file.getFileName().toString()).endsWith(".csv");
+        return open(file, csv ? Format.CSV : Format.NDJSON);
+    }
+
+    /**
+     * Open a tweet file.
+     *
+     * @param file
+     *            file to read
+     * @param format
+     *            format of file
+     * @return a loader positioned at the first tweet of file
+     * @throws IOException
+     *             if file cannot be opened or mapped
+     */
+    public static TweetLoader open(Path file, Format format) throws IOException {
+        return new TweetLoader(FileChannel.open(file, StandardOpenOption.READ), file.toString(), format,
+                               DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Read a whole tweet file into a list, e.g. to pass to Extract and Filter.
+     *
+     * @param file
+     *            file to read, in a format chosen as by open(Path)
+     * @return the tweets of file, in file order
+     * @throws IOException
+     *             if file cannot be read
+     */
+    public static List<Tweet> readAll(Path file) throws IOException {
+        try (TweetLoader loader = open(file)) {
+            List<Tweet> tweets = new ArrayList<Tweet>();
+            while (loader.hasNext()) {
+                tweets.add(loader.next());
+            }
+            return tweets;
+        }
+    }
+
+    /**
+     * Make a loader over an open channel.
+     *
+     * @param channel
+     *            channel to read from its start; closed by close()
+     * @param name
+     *            name of the file, for error messages
+     * @param format
+     *            format of the file
+     * @param regionSize
+     *            bytes mapped at a time, > 0; min(regionSize, 1 MiB) bounds
+     *            the length of a record
+     * @throws IOException
+     *             if the channel cannot be mapped
+     */
+    TweetLoader(FileChannel channel, String name, Format format, int regionSize) throws IOException {
+        this(channel, name, format, regionSize, 0, channel.size());
+    }
+
+    /**
+     * Make a loader over a range of an open channel, e.g. the lines appended
+     * to a file since it was last read.
+     *
+     * @param channel
+     *            channel to read; closed by close()
+     * @param name
+     *            name of the file, for error messages
+     * @param format
+     *            format of the file; a CSV range must start with the header
+     * @param regionSize
+     *            bytes mapped at a time, > 0; min(regionSize, 1 MiB) bounds
+     *            the length of a record
+     * @param start
+     *            offset of the first byte to read, at the start of a record
+     * @param end
+     *            offset just past the last byte to read, at the end of a
+     *            record, with start <= end <= channel.size()
+     * @throws IOException
+     *             if the channel cannot be mapped
+     */
+    TweetLoader(FileChannel channel, String name, Format format, int regionSize, long start, long end)
+            throws IOException {
+        this.channel = channel;
+        this.name = name;
+        this.format = format;
+        this.regionSize = regionSize;
+        this.limit = end;
+        this.window = new byte[Math.min(regionSize, MAX_WINDOW_SIZE)];
+        this.windowStart = start;
+        if (end > start) {
+            fill(start);
+        }
+    }
+
+    /**
+     * @return true iff there is another tweet to read
+     * @throws UncheckedIOException
+     *             if the next record is malformed or cannot be read
+     */
+    @Override public boolean hasNext() {
+        if (!ready) {
+            ready = advance();
+        }
+        return ready;
+    }
+
+    /**
+     * @return the next tweet of the file
+     * @throws NoSuchElementException
+     *             if there are no more tweets
+     * @throws UncheckedIOException
+     *             if the next record is malformed or cannot be read
+     */
+    @Override public Tweet next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ready = false;
+        return new Tweet(id, author, text.toString(), Instant.ofEpochSecond(seconds, nanos));
+    }
+
+    /**
+     * Read up to a fixed number of tweets, e.g. to process a file in batches
+     * with Extract and Filter.
+     *
+     * @param size
+     *            largest number of tweets to read, > 0
+     * @return a new list of the next min(size, remaining) tweets; empty iff
+     *         there are no more tweets
+     */
+    public List<Tweet> nextBatch(int size) {
+        List<Tweet> batch = new ArrayList<Tweet>(Math.min(size, 1024));
+        while (batch.size() < size && hasNext()) {
+            batch.add(next());
+        }
+        return batch;
+    }
+
+    /**
+     * Append all the remaining tweets to a TweetStore, without making a
+     * Tweet, text String or Instant for each.
+     *
+     * @param store
+     *            store to append to. Requires every timestamp to be
+     *            representable as a long number of epoch nanoseconds.
+     * @return number of tweets appended
+     */
+    public int loadInto(TweetStore store) {
+        int count = 0;
+        while (hasNext()) {
+            ready = false;
+            long epochNanos = Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), nanos);
+            store.add(id, author, text.chars, 0, text.length, epochNanos);
+            ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Make a lazy, sequential stream of the remaining tweets. Closing the
+     * stream closes this loader.
+     *
+     * @return stream of the remaining tweets, in file order
+     */
+    public Stream<Tweet> stream() {
+        Spliterator<Tweet> spliterator =
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * @return offset in the file just past the bytes consumed so far, which
+     *         is the number of bytes consumed if reading began at the start
+     */
+    public long bytesRead() {
+        return windowStart + position;
+    }
+
+    /**
+     * Close the file. The loader must not be used afterwards.
+     */
+    @Override public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    /*
+     * Parse the next record ahead into the fields.
+     *
+     * @return false iff there are no more records
+     */
+    private boolean advance() {
+        while (windowStart + position < limit) {
+            ++record;
+            int end = recordEnd();
+            int start = position;
+            position = Math.min(end + 1, windowLimit);
+
+            int last = end;
+            if (last > start && window[last - 1] == '\r') {
+                --last;
+            }
+            if (isBlank(start, last)) {
+                continue;
+            }
+            if (format == Format.NDJSON) {
+                parseJson(start, last);
+                return true;
+            }
+            if (columns == null) {
+                parseHeader(start, last);
+                continue;
+            }
+            parseCsv(start, last);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+     * Find the end of the record at position, refilling the window so that
+     * the whole record is in it (which may move position).
+     *
+     * @return index in the window of the '\n' that ends the record, or
+     *         windowLimit for a last record without one
+     */
+    private int recordEnd() {
+        while (true) {
+            int end = scanRecord(position);
+            if (end >= 0) {
+                return end;
+            }
+            if (windowStart + windowLimit == limit) {
+                return windowLimit;
+            }
+            if (position == 0) {
+                throw error("record longer than " + window.length + " bytes");
+            }
+            try {
+                fill(windowStart + position);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /*
+     * @return index of the '\n' ending the record that starts at p, or -1 if
+     *         it is not in the window; in CSV, newlines in quotes do not count
+     */
+    private int scanRecord(int p) {
+        boolean quoted = false;
+        for (; p < windowLimit; ++p) {
+            byte b = window[p];
+            if (b == '\n' && !quoted) {
+                return p;
+            }
+            if (b == '"' && format == Format.CSV) {
+                quoted = !quoted;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Copy the file from start into the window, mapping the next region of
+     * the file first if the current one does not cover the window.
+     */
+    private void fill(long start) throws IOException {
+        int length = (int) Math.min(window.length, limit - start);
+        if (region == null || start + length > regionStart + region.limit()) {
+            long size = Math.min(Math.max(regionSize, length), limit - start);
+            region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            regionStart = start;
+        }
+        region.position((int) (start - regionStart));
+        region.get(window, 0, length);
+        windowStart = start;
+        windowLimit = length;
+        position = 0;
+    }
+
+    // NDJSON
+
+    private void parseJson(int p, int end) {
+        int seen = 0;
+        p = expect(skipSpace(p, end), end, '{');
+        p = skipSpace(p, end);
+        if (p < end && window[p] == '}') {
+            ++p;
+        } else {
+            while (true) {
+                p = skipSpace(p, end);
+                if (p >= end || window[p] != '"') {
+                    throw error("expected a field name");
+                }
+                int keyStart = p + 1;
+                p = skipJsonString(p, end);
+                int field = field(keyStart, p - 1);
+                p = skipSpace(expect(skipSpace(p, end), end, ':'), end);
+
+                if (field == 0) {
+                    p = skipJsonValue(p, end);
+                } else if (field == ID) {
+                    scratch.clear();
+                    p = copyJsonNumber(p, end, scratch);
+                    id = parseId(scratch);
+                } else {
+                    CharSink sink = field == TEXT ? text : scratch;
+                    sink.clear();
+                    p = decodeJsonString(p, end, sink);
+                    setField(field, sink);
+                }
+                seen |= field;
+
+                p = skipSpace(p, end);
+                if (p < end && window[p] == ',') {
+                    ++p;
+                } else {
+                    p = expect(p, end, '}');
+                    break;
+                }
+            }
+        }
+        if (skipSpace(p, end) != end) {
+            throw error("unexpected data after the object");
+        }
+        checkFields(seen);
+    }
+
+    /*
+     * @return the field bit of the unescaped key bytes [from, to), or 0
+     */
+    private int field(int from, int to) {
+        for (int i = 0; i < FIELD_NAMES.length; ++i) {
+            String fieldName = FIELD_NAMES[i];
+            if (fieldName.length() != to - from) {
+                continue;
+            }
+            int k = 0;
+            while (k < fieldName.length() && window[from + k] == fieldName.charAt(k)) {
+                ++k;
+            }
+            if (k == fieldName.length()) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+
+    /*
+     * Decode the JSON string starting at the '"' at p into sink.
+     *
+     * @return index after the closing '"'
+     */
+    private int decodeJsonString(int p, int end, CharSink sink) {
+        p = expect(p, end, '"');
+        while (p < end) {
+            byte b = window[p];
+            if (b == '"') {
+                return p + 1;
+            }
+            if (b == '\\') {
+                if (p + 1 >= end) {
+                    break;
+                }
+                byte escaped = window[p + 1];
+                p += 2;
+                switch (escaped) {
+                case '"': sink.append('"'); break;
+                case '\\': sink.append('\\'); break;
+                case '/': sink.append('/'); break;
+                case 'b': sink.append('\b'); break;
+                case 'f': sink.append('\f'); break;
+                case 'n': sink.append('\n'); break;
+                case 'r': sink.append('\r'); break;
+                case 't': sink.append('\t'); break;
+                case 'u':
+                    if (p + 4 > end) {
+                        throw error("truncated \\u escape");
+                    }
+                    int c = 0;
+                    for (int k = 0; k < 4; ++k) {
+                        int digit = Character.digit(window[p + k], 16);
+                        if (digit < 0) {
+                            throw error("bad \\u escape");
+                        }
+                        c = (c << 4) | digit;
+                    }
+                    sink.append((char) c);
+                    p += 4;
+                    break;
+                default:
+                    throw error("bad escape \\" + (char) escaped);
+                }
+            } else if (b >= 0) {
+                int run = p + 1;
+                while (run < end && window[run] >= 0 && window[run] != '"' && window[run] != '\\') {
+                    ++run;
+                }
+                sink.appendAscii(window, p, run);
+                p = run;
+            } else {
+                p = decodeUtf8(p, end, sink);
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    /*
+     * @return index after the JSON string starting at the '"' at p
+     */
+    private int skipJsonString(int p, int end) {
+        for (++p; p < end; ++p) {
+            byte b = window[p];
+            if (b == '"') {
+                return p + 1;
+            }
+            if (b == '\\') {
+                ++p;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    /*
+     * Copy a JSON number, or a string of digits, starting at p into sink.
+     *
+     * @return index after the number
+     */
+    private int copyJsonNumber(int p, int end, CharSink sink) {
+        if (p < end && window[p] == '"') {
+            return decodeJsonString(p, end, sink);
+        }
+        while (p < end) {
+            byte b = window[p];
+            if (b == ',' || b == '}' || b == ' ' || b == '\t') {
+                break;
+            }
+            sink.append((char) b);
+            ++p;
+        }
+        return p;
+    }
+
+    /*
+     * @return index after the JSON value starting at p
+     */
+    private int skipJsonValue(int p, int end) {
+        int depth = 0;
+        while (p < end) {
+            byte b = window[p];
+            if (b == '"') {
+                p = skipJsonString(p, end);
+                if (depth == 0) {
+                    return p;
+                }
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                ++depth;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return p;
+                }
+                if (--depth == 0) {
+                    return p + 1;
+                }
+            } else if (depth == 0 && (b == ',' || b == ' ' || b == '\t')) {
+                return p;
+            }
+            ++p;
+        }
+        if (depth > 0) {
+            throw error("unterminated value");
+        }
+        return p;
+    }
+
+    // CSV
+
+    private void parseHeader(int p, int end) {
+        IntList fields = new IntList();
+        while (true) {
+            scratch.clear();
+            p = decodeCsvField(p, end, scratch);
+            String column = scratch.toString().trim();
+            int field = 0;
+            for (int i = 0; i < FIELD_NAMES.length; ++i) {
+                if (CaseFold.equals(FIELD_NAMES[i], column)) {
+                    field = 1 << i;
+                }
+            }
+            fields.add(field);
+            if (p == end) {
+                break;
+            }
+            ++p;
+        }
+
+        int seen = 0;
+        for (int i = 0; i < fields.size(); ++i) {
+            seen |= fields.get(i);
+        }
+        if (seen != ALL_FIELDS) {
+            throw error("header must name the columns id, author, text and timestamp");
+        }
+        columns = fields.toArray();
+    }
+
+    private void parseCsv(int p, int end) {
+        int seen = 0;
+        for (int column = 0; ; ++column) {
+            int field = column < columns.length ? columns[column] : 0;
+            CharSink sink = field == TEXT ? text : scratch;
+            sink.clear();
+            p = decodeCsvField(p, end, sink);
+            if (field == ID) {
+                id = parseId(sink);
+            } else if (field != 0) {
+                setField(field, sink);
+            }
+            seen |= field;
+            if (p == end) {
+                break;
+            }
+            ++p;
+        }
+        checkFields(seen);
+    }
+
+    /*
+     * Decode the CSV field starting at p into sink.
+     *
+     * @return index of the ',' after the field, or end
+     */
+    private int decodeCsvField(int p, int end, CharSink sink) {
+        if (p < end && window[p] == '"') {
+            for (++p; p < end; ) {
+                byte b = window[p];
+                if (b == '"') {
+                    if (p + 1 < end && window[p + 1] == '"') {
+                        sink.append('"');
+                        p += 2;
+                        continue;
+                    }
+                    ++p;
+                    if (p < end && window[p] != ',') {
+                        throw error("unexpected data after a quoted field");
+                    }
+                    return p;
+                }
+                if (b >= 0) {
+                    int run = p + 1;
+                    while (run < end && window[run] >= 0 && window[run] != '"') {
+                        ++run;
+                    }
+                    sink.appendAscii(window, p, run);
+                    p = run;
+                } else {
+                    p = decodeUtf8(p, end, sink);
+                }
+            }
+            throw error("unterminated quoted field");
+        }
+
+        while (p < end) {
+            byte b = window[p];
+            if (b == ',') {
+                break;
+            }
+            if (b >= 0) {
+                int run = p + 1;
+                while (run < end && window[run] >= 0 && window[run] != ',') {
+                    ++run;
+                }
+                sink.appendAscii(window, p, run);
+                p = run;
+            } else {
+                p = decodeUtf8(p, end, sink);
+            }
+        }
+        return p;
+    }
+
+    // fields
+
+    private void setField(int field, CharSink sink) {
+        if (field == AUTHOR) {
+            author = author(sink);
+        } else if (field == TIMESTAMP) {
+            parseTimestamp(sink);
+        }
+    }
+
+    private void checkFields(int seen) {
+        for (int i = 0; i < FIELD_NAMES.length; ++i) {
+            if ((seen & (1 << i)) == 0) {
+                throw error("missing field " + FIELD_NAMES[i]);
+            }
+        }
+    }
+
+    private long parseId(CharSink sink) {
+        int i = 0;
+        boolean negative = sink.length > 0 && sink.chars[0] == '-';
+        if (negative) {
+            ++i;
+        }
+        if (i == sink.length) {
+            throw error("id is not a number");
+        }
+        long value = 0;
+        for (; i < sink.length; ++i) {
+            int digit = sink.chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("id is not a number: " + sink);
+            }
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                throw error("id out of range: " + sink);
+            }
+            value = value * 10 - digit;
+        }
+        if (!negative) {
+            if (value == Long.MIN_VALUE) {
+                throw error("id out of range: " + sink);
+            }
+            value = -value;
+        }
+        return value;
+    }
+
+    /*
+     * @return an author String equal to sink, shared with recent records
+     */
+    private String author(CharSink sink) {
+        if (sink.length == 0) {
+            throw error("empty author");
+        }
+        int hash = 0;
+        for (int i = 0; i < sink.length; ++i) {
+            char c = sink.chars[i];
+            if (!TweetTokenizer.isUsernameChar(c)) {
+                throw error("bad character in author: " + sink);
+            }
+            hash = 31 * hash + c;
+        }
+
+        int slot = (hash ^ (hash >>> 12)) & (AUTHOR_CACHE_SIZE - 1);
+        String cached = authorCache[slot];
+        if (cached != null && sink.contentEquals(cached)) {
+            return cached;
+        }
+        String author = sink.toString();
+        authorCache[slot] = author;
+        return author;
+    }
+
+    /*
+     * Parse an ISO-8601 instant, quickly in the form yyyy-MM-ddTHH:mm:ss[.f]Z
+     * that Instant.toString() writes, and by Instant.parse() otherwise.
+     */
+    private void parseTimestamp(CharSink sink) {
+        char[] c = sink.chars;
+        int n = sink.length;
+        if (n >= 20 && c[4] == '-' && c[7] == '-' && c[10] == 'T' && c[13] == ':' && c[16] == ':'
+                && c[n - 1] == 'Z') {
+            int year = digits(c, 0, 4), month = digits(c, 5, 7), day = digits(c, 8, 10);
+            int hour = digits(c, 11, 13), minute = digits(c, 14, 16), second = digits(c, 17, 19);
+            int fraction = 0;
+            boolean valid = year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= monthLength(year, month)
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60;
+            if (n == 20) {
+                // no fraction
+            } else if (c[19] == '.' && n >= 22 && n <= 30) {
+                fraction = digits(c, 20, n - 1);
+                for (int k = n - 1; k < 29; ++k) {
+                    fraction *= 10;
+                }
+                valid &= fraction >= 0;
+            } else {
+                valid = false;
+            }
+            if (valid) {
+                seconds = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second;
+                nanos = fraction;
+                return;
+            }
+        }
+
+        try {
+            Instant instant = Instant.parse(sink.toString());
+            seconds = instant.getEpochSecond();
+            nanos = instant.getNano();
+        } catch (DateTimeParseException e) {
+            throw error("bad timestamp: " + sink);
+        }
+    }
+
+    /*
+     * @return the decimal number c[from, to), or -1 if it has a non-digit
+     */
+    private static int digits(char[] c, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; ++i) {
+            int digit = c[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int monthLength(int year, int month) {
+        if (month == 2) {
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /*
+     * @return days from 1970-01-01 to a date of the proleptic Gregorian calendar
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    // bytes
+
+    /*
+     * Decode the multi-byte UTF-8 sequence at p into sink, replacing a
+     * malformed sequence with U+FFFD.
+     *
+     * @return index after the sequence
+     */
+    private int decodeUtf8(int p, int end, CharSink sink) {
+        int lead = window[p] & 0xFF;
+        int length = lead >= 0xF0 ? 4 : lead >= 0xE0 ? 3 : lead >= 0xC0 ? 2 : 1;
+        int codePoint = lead & (0x7F >> length);
+        if (length == 1 || p + length > end) {
+            sink.append('\uFFFD');
+            return p + 1;
+        }
+        for (int k = 1; k < length; ++k) {
+            int b = window[p + k] & 0xFF;
+            if ((b & 0xC0) != 0x80) {
+                sink.append('\uFFFD');
+                return p + k;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        if (Character.isBmpCodePoint(codePoint)) {
+            sink.append((char) codePoint);
+        } else if (Character.isValidCodePoint(codePoint)) {
+            sink.append(Character.highSurrogate(codePoint));
+            sink.append(Character.lowSurrogate(codePoint));
+        } else {
+            sink.append('\uFFFD');
+        }
+        return p + length;
+    }
+
+    private int skipSpace(int p, int end) {
+        while (p < end) {
+            byte b = window[p];
+            if (b != ' ' && b != '\t') {
+                break;
+            }
+            ++p;
+        }
+        return p;
+    }
+
+    private boolean isBlank(int from, int to) {
+        return skipSpace(from, to) == to;
+    }
+
+    private int expect(int p, int end, char c) {
+        if (p >= end || window[p] != c) {
+            throw error("expected " + c);
+        }
+        return p + 1;
+    }
+
+    private UncheckedIOException error(String message) {
+        return new UncheckedIOException(new IOException(name + ": record " + record + ": " + message));
+    }
+
+    /*
+     * A growable buffer of chars decoded from the file.
+     */
+    private static class CharSink implements CharSequence {
+        char[] chars;
+        int length;
+
+        CharSink(int capacity) {
+            chars = new char[capacity];
+        }
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, 2 * length);
+            }
+            chars[length++] = c;
+        }
+
+        /*
+         * Append ASCII bytes [from, to) as chars, growing once.
+         */
+        void appendAscii(byte[] bytes, int from, int to) {
+            int newLength = length + to - from;
+            if (newLength > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(newLength, 2 * chars.length));
+            }
+            for (int i = from; i < to; ++i) {
+                chars[length++] = (char) bytes[i];
+            }
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        boolean contentEquals(String s) {
+            if (s.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; ++i) {
+                if (s.charAt(i) != chars[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override public int length() {
+            return length;
+        }
+
+        @Override public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
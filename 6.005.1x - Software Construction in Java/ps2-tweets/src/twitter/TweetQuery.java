@@ -0,0 +1,573 @@
+package twitter;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TweetQuery is an immutable predicate on tweets, built as a tree of the
+ * conditions of Filter (author, timespan, words) plus @-mentions and
+ * hashtags, combined with and() and or().
+ *
+ * A query is planned when it is built: the operands of and() and or() are
+ * ordered so that cheap, decisive conditions are tested first, and
+ * evaluation stops as soon as the result is known. filter() then selects
+ * the matching tweets of a list in one pass, tokenizing each tweet at most
+ * once however many token conditions the query has, and without the
+ * intermediate lists of chained Filter calls. TweetCorpus runs the same
+ * queries on its indexes instead, where it has them.
+ *
+ * For example, the tweets by alyssa during a timespan that mention bob:
+ *   and(writtenBy("alyssa"), inTimespan(timespan), mentioning("bob")).filter(tweets)
+ */
+public abstract class TweetQuery {
+
+    // relative costs of testing one tweet, for planning
+    private static final double TIME_COST = 1, AUTHOR_COST = 2, TOKEN_COST = 20;
+
+    // assumed fractions of tweets that match, for planning without an index
+    private static final double AUTHOR_SELECTIVITY = 0.01, TIME_SELECTIVITY = 0.5;
+    private static final double WORD_SELECTIVITY = 0.1, TAG_SELECTIVITY = 0.02;
+
+    // and() checks candidates one by one rather than intersect with a list this many times longer
+    private static final int VERIFY_RATIO = 8;
+
+    private TweetQuery() {
+    }
+
+    /**
+     * @param username
+     *            Twitter username, compared ignoring case
+     * @return a query matching the tweets written by username, as
+     *         Filter.writtenBy()
+     */
+    public static TweetQuery writtenBy(String username) {
+        return new Author(username);
+    }
+
+    /**
+     * @param timespan
+     *            timespan
+     * @return a query matching the tweets sent during timespan, as
+     *         Filter.inTimespan()
+     */
+    public static TweetQuery inTimespan(Timespan timespan) {
+        return new Time(timespan);
+    }
+
+    /**
+     * @param words
+     *            nonempty words, compared ignoring case
+     * @return a query matching the tweets that contain at least one of words,
+     *         as Filter.containing()
+     */
+    public static TweetQuery containing(List<String> words) {
+        return new Tokens(TweetTokenizer.Kind.WORD, words);
+    }
+
+    /**
+     * @param username
+     *            Twitter username, compared ignoring case
+     * @return a query matching the tweets that @-mention username, as
+     *         Extract.getMentionedUsers() finds mentions
+     */
+    public static TweetQuery mentioning(String username) {
+        return new Tokens(TweetTokenizer.Kind.MENTION, Arrays.asList(username));
+    }
+
+    /**
+     * @param hashtag
+     *            hashtag, with or without its "#", compared ignoring case
+     * @return a query matching the tweets that use hashtag
+     */
+    public static TweetQuery taggedWith(String hashtag) {
+        String tag = hashtag.startsWith("#") ? hashtag.substring(1) : hashtag;
+        return new Tokens(TweetTokenizer.Kind.HASHTAG, Arrays.asList(tag));
+    }
+
+    /**
+     * @param queries
+     *            queries to combine
+     * @return a query matching the tweets that match every one of queries;
+     *         with no queries, every tweet
+     */
+    public static TweetQuery and(TweetQuery... queries) {
+        return new And(Arrays.asList(queries));
+    }
+
+    /**
+     * @param queries
+     *            queries to combine
+     * @return a query matching the tweets that match at least one of queries;
+     *         with no queries, no tweet
+     */
+    public static TweetQuery or(TweetQuery... queries) {
+        return new Or(Arrays.asList(queries));
+    }
+
+    /**
+     * @param tweet
+     *            tweet to test
+     * @return true iff tweet matches this query
+     */
+    public boolean matches(Tweet tweet) {
+        return evaluate(new Evaluator(this), tweet);
+    }
+
+    /**
+     * Select the tweets of a list that match this query, in one pass.
+     *
+     * @param tweets
+     *            tweets to filter, not modified by this method
+     * @return all and only the tweets of the list that match this query, in
+     *         the same order as in the list
+     */
+    public List<Tweet> filter(List<Tweet> tweets) {
+        Evaluator evaluator = new Evaluator(this);
+        List<Tweet> result = new ArrayList<Tweet>();
+        for (Tweet tweet : tweets) {
+            if (evaluate(evaluator, tweet)) {
+                result.add(tweet);
+            }
+        }
+        return result;
+    }
+
+    /*
+     * Test a tweet, using evaluator for token conditions.
+     */
+    abstract boolean evaluate(Evaluator evaluator, Tweet tweet);
+
+    /*
+     * @return estimated cost of evaluate() on one tweet
+     */
+    abstract double cost();
+
+    /*
+     * @return estimated fraction of tweets that match, in [0, 1]
+     */
+    abstract double selectivity();
+
+    /*
+     * @return number of corpus tweets that match, or an upper bound on it,
+     *         from the corpus's indexes; -1 if they cannot answer this query
+     */
+    abstract long estimate(TweetCorpus corpus);
+
+    /*
+     * @return new array of the positions of the corpus tweets that match, in
+     *         increasing order, or null if the indexes cannot answer this query
+     */
+    abstract int[] positions(TweetCorpus corpus);
+
+    /*
+     * Add the token conditions of this query to leaves.
+     */
+    void collectTokens(List<Tokens> leaves) {
+    }
+
+    private static class Author extends TweetQuery {
+        private final String username;
+
+        Author(String username) {
+            this.username = username;
+        }
+
+        @Override boolean evaluate(Evaluator evaluator, Tweet tweet) {
+            return CaseFold.equals(tweet.getAuthor(), username);
+        }
+
+        @Override double cost() {
+            return AUTHOR_COST;
+        }
+
+        @Override double selectivity() {
+            return AUTHOR_SELECTIVITY;
+        }
+
+        @Override long estimate(TweetCorpus corpus) {
+            return corpus.authorIndex() == null ? -1 : corpus.authorIndex().frequency(username);
+        }
+
+        @Override int[] positions(TweetCorpus corpus) {
+            return corpus.authorIndex() == null ? null : corpus.authorIndex().positionsWrittenBy(username);
+        }
+
+        @Override public String toString() {
+            return "writtenBy(" + username + ")";
+        }
+    }
+
+    private static class Time extends TweetQuery {
+        private final Timespan timespan;
+
+        Time(Timespan timespan) {
+            this.timespan = timespan;
+        }
+
+        @Override boolean evaluate(Evaluator evaluator, Tweet tweet) {
+            Instant timestamp = tweet.getTimestamp();
+            return timestamp.compareTo(timespan.getStart()) >= 0 && timestamp.compareTo(timespan.getEnd()) <= 0;
+        }
+
+        @Override double cost() {
+            return TIME_COST;
+        }
+
+        @Override double selectivity() {
+            return TIME_SELECTIVITY;
+        }
+
+        @Override long estimate(TweetCorpus corpus) {
+            return corpus.timeIndex() == null ? -1 : corpus.timeIndex().countInTimespan(timespan);
+        }
+
+        @Override int[] positions(TweetCorpus corpus) {
+            return corpus.timeIndex() == null ? null : corpus.timeIndex().positionsInTimespan(timespan);
+        }
+
+        @Override public String toString() {
+            return "inTimespan(" + timespan + ")";
+        }
+    }
+
+    /*
+     * Matches the tweets with at least one token of a kind among some words.
+     */
+    private static class Tokens extends TweetQuery {
+        private final TweetTokenizer.Kind kind;
+        private final String[] words;
+
+        Tokens(TweetTokenizer.Kind kind, List<String> words) {
+            this.kind = kind;
+            this.words = words.toArray(new String[words.size()]);
+        }
+
+        @Override boolean evaluate(Evaluator evaluator, Tweet tweet) {
+            return evaluator.satisfied(this, tweet);
+        }
+
+        @Override double cost() {
+            return TOKEN_COST;
+        }
+
+        @Override double selectivity() {
+            double each = kind == TweetTokenizer.Kind.WORD ? WORD_SELECTIVITY : TAG_SELECTIVITY;
+            return Math.min(1, each * words.length);
+        }
+
+        @Override long estimate(TweetCorpus corpus) {
+            WordIndex index = corpus.tokenIndex(kind);
+            if (index == null) {
+                return -1;
+            }
+            long total = 0;
+            for (String word : words) {
+                total += index.frequency(word);
+            }
+            return total;
+        }
+
+        @Override int[] positions(TweetCorpus corpus) {
+            WordIndex index = corpus.tokenIndex(kind);
+            return index == null ? null : index.positionsContaining(Arrays.asList(words));
+        }
+
+        @Override void collectTokens(List<Tokens> leaves) {
+            leaves.add(this);
+        }
+
+        @Override public String toString() {
+            return CaseFold.fold(kind.toString()) + Arrays.toString(words);
+        }
+    }
+
+    private static class And extends TweetQuery {
+        private final TweetQuery[] operands;
+
+        And(List<TweetQuery> operands) {
+            // test first the operands most likely to reject a tweet per unit cost
+            List<TweetQuery> ordered = new ArrayList<TweetQuery>(operands);
+            ordered.sort(Comparator.comparingDouble(q -> q.cost() / Math.max(1e-9, 1 - q.selectivity())));
+            this.operands = ordered.toArray(new TweetQuery[ordered.size()]);
+        }
+
+        @Override boolean evaluate(Evaluator evaluator, Tweet tweet) {
+            for (TweetQuery operand : operands) {
+                if (!operand.evaluate(evaluator, tweet)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override double cost() {
+            double cost = 0, reached = 1;
+            for (TweetQuery operand : operands) {
+                cost += reached * operand.cost();
+                reached *= operand.selectivity();
+            }
+            return cost;
+        }
+
+        @Override double selectivity() {
+            double selectivity = 1;
+            for (TweetQuery operand : operands) {
+                selectivity *= operand.selectivity();
+            }
+            return selectivity;
+        }
+
+        @Override long estimate(TweetCorpus corpus) {
+            long estimate = -1;
+            for (TweetQuery operand : operands) {
+                long operandEstimate = operand.estimate(corpus);
+                if (operandEstimate >= 0 && (estimate < 0 || operandEstimate < estimate)) {
+                    estimate = operandEstimate;
+                }
+            }
+            return estimate;
+        }
+
+        @Override int[] positions(TweetCorpus corpus) {
+            // start from the most selective indexed operand
+            List<TweetQuery> indexed = new ArrayList<TweetQuery>();
+            Map<TweetQuery, Long> estimates = new IdentityHashMap<TweetQuery, Long>();
+            List<TweetQuery> residual = new ArrayList<TweetQuery>();
+            for (TweetQuery operand : operands) {
+                long estimate = operand.estimate(corpus);
+                if (estimate >= 0) {
+                    indexed.add(operand);
+                    estimates.put(operand, estimate);
+                } else {
+                    residual.add(operand);
+                }
+            }
+            if (indexed.isEmpty()) {
+                return null;
+            }
+            indexed.sort(Comparator.comparingLong(estimates::get));
+
+            // intersect with lists of similar length; check candidates against the others
+            int[] candidates = indexed.get(0).positions(corpus);
+            for (TweetQuery operand : indexed.subList(1, indexed.size())) {
+                if (candidates.length == 0) {
+                    return candidates;
+                }
+                if ((long) candidates.length * VERIFY_RATIO < estimates.get(operand)) {
+                    residual.add(operand);
+                } else {
+                    candidates = intersect(candidates, operand.positions(corpus));
+                }
+            }
+            if (residual.isEmpty()) {
+                return candidates;
+            }
+
+            TweetQuery rest = new And(residual);
+            Evaluator evaluator = new Evaluator(rest);
+            int count = 0;
+            for (int position : candidates) {
+                if (rest.evaluate(evaluator, corpus.get(position))) {
+                    candidates[count++] = position;
+                }
+            }
+            return Arrays.copyOf(candidates, count);
+        }
+
+        @Override void collectTokens(List<Tokens> leaves) {
+            for (TweetQuery operand : operands) {
+                operand.collectTokens(leaves);
+            }
+        }
+
+        @Override public String toString() {
+            return "and" + Arrays.toString(operands);
+        }
+    }
+
+    private static class Or extends TweetQuery {
+        private final TweetQuery[] operands;
+
+        Or(List<TweetQuery> operands) {
+            // test first the operands most likely to accept a tweet per unit cost
+            List<TweetQuery> ordered = new ArrayList<TweetQuery>(operands);
+            ordered.sort(Comparator.comparingDouble(q -> q.cost() / Math.max(1e-9, q.selectivity())));
+            this.operands = ordered.toArray(new TweetQuery[ordered.size()]);
+        }
+
+        @Override boolean evaluate(Evaluator evaluator, Tweet tweet) {
+            for (TweetQuery operand : operands) {
+                if (operand.evaluate(evaluator, tweet)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override double cost() {
+            double cost = 0, reached = 1;
+            for (TweetQuery operand : operands) {
+                cost += reached * operand.cost();
+                reached *= 1 - operand.selectivity();
+            }
+            return cost;
+        }
+
+        @Override double selectivity() {
+            double rejected = 1;
+            for (TweetQuery operand : operands) {
+                rejected *= 1 - operand.selectivity();
+            }
+            return 1 - rejected;
+        }
+
+        @Override long estimate(TweetCorpus corpus) {
+            long total = 0;
+            for (TweetQuery operand : operands) {
+                long estimate = operand.estimate(corpus);
+                if (estimate < 0) {
+                    return -1;
+                }
+                total += estimate;
+            }
+            return total;
+        }
+
+        @Override int[] positions(TweetCorpus corpus) {
+            int[] union = new int[0];
+            for (TweetQuery operand : operands) {
+                int[] positions = operand.positions(corpus);
+                if (positions == null) {
+                    return null;
+                }
+                union = union(union, positions);
+            }
+            return union;
+        }
+
+        @Override void collectTokens(List<Tokens> leaves) {
+            for (TweetQuery operand : operands) {
+                operand.collectTokens(leaves);
+            }
+        }
+
+        @Override public String toString() {
+            return "or" + Arrays.toString(operands);
+        }
+    }
+
+    /*
+     * Evaluates the token conditions of a query: tokenizes each tweet once,
+     * on the first token condition it reaches, and records which of the
+     * conditions the tweet satisfies.
+     */
+    static class Evaluator {
+        private final Tokens[] leaves;
+        private final boolean[] satisfied;
+        private final TweetTokenizer tokenizer = new TweetTokenizer();
+        private Tweet tokenized;
+
+        Evaluator(TweetQuery query) {
+            List<Tokens> leaves = new ArrayList<Tokens>();
+            query.collectTokens(leaves);
+            this.leaves = leaves.toArray(new Tokens[leaves.size()]);
+            this.satisfied = new boolean[this.leaves.length];
+        }
+
+        boolean satisfied(Tokens leaf, Tweet tweet) {
+            if (tweet != tokenized) {
+                tokenize(tweet);
+            }
+            for (int i = 0; i < leaves.length; ++i) {
+                if (leaves[i] == leaf) {
+                    return satisfied[i];
+                }
+            }
+            throw new AssertionError("unknown condition " + leaf);
+        }
+
+        private void tokenize(Tweet tweet) {
+            tokenized = tweet;
+            Arrays.fill(satisfied, false);
+            int remaining = leaves.length;
+            tokenizer.reset(tweet.getText());
+            while (remaining > 0 && tokenizer.next()) {
+                for (int i = 0; i < leaves.length; ++i) {
+                    if (!satisfied[i] && leaves[i].kind == tokenizer.kind() && matchesAny(leaves[i].words)) {
+                        satisfied[i] = true;
+                        --remaining;
+                    }
+                }
+            }
+        }
+
+        private boolean matchesAny(String[] words) {
+            for (String word : words) {
+                if (tokenizer.matches(word)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /*
+     * @return new sorted array of the values in both sorted arrays a and b,
+     *         galloping through the longer one
+     */
+    static int[] intersect(int[] a, int[] b) {
+        if (a.length > b.length) {
+            return intersect(b, a);
+        }
+        int[] result = new int[a.length];
+        int count = 0;
+        int low = 0;
+        for (int value : a) {
+            // find the first b[j] >= value by doubling, then binary search
+            int step = 1;
+            int high = low;
+            while (high < b.length && b[high] < value) {
+                low = high + 1;
+                high += step;
+                step *= 2;
+            }
+            high = Math.min(high + 1, b.length);
+            int j = Arrays.binarySearch(b, low, high, value);
+            if (j >= 0) {
+                result[count++] = value;
+                low = j + 1;
+            } else {
+                low = -j - 1;
+            }
+            if (low >= b.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /*
+     * @return new sorted array of the values in either sorted array a or b
+     */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                result[count++] = a[i++];
+            } else if (a[i] > b[j]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i++];
+                ++j;
+            }
+        }
+        while (i < a.length) {
+            result[count++] = a[i++];
+        }
+        while (j < b.length) {
+            result[count++] = b[j++];
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,220 @@
+package twitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * TweetSegment is an immutable run of tweets carrying a Bloom filter of the
+ * case-folded words they contain, so that Filter.containing() over many
+ * segments can skip, without reading them, the segments that cannot match.
+ *
+ * A segment is held in memory, or saved as a TweetSnapshot file with its
+ * filter alongside (the same path plus ".words"); a segment loaded from disk
+ * keeps only its filter in memory and reads its tweets when a query cannot
+ * skip it. This suits archived segments that are rarely queried, where a
+ * full WordIndex per segment would cost too much.
+ */
+public class TweetSegment {
+
+    private static final String FILTER_SUFFIX = ".words";
+
+    private final int size;
+    private final BloomFilter words;
+
+    // exactly one of these is non-null
+    private final List<Tweet> tweets;
+    private final Path file;
+
+    /* Rep invariant:
+     *    exactly one of tweets and file is null
+     *    words.mightContain(w) for every folded word w of the tweets
+     *    size == number of tweets
+     */
+
+    private TweetSegment(int size, BloomFilter words, List<Tweet> tweets, Path file) {
+        this.size = size;
+        this.words = words;
+        this.tweets = tweets;
+        this.file = file;
+    }
+
+    /**
+     * Make an in-memory segment of tweets.
+     *
+     * @param tweets
+     *            tweets of the segment, in order; not modified by this
+     *            method, and later changes to the list are not seen
+     * @param falsePositiveRate
+     *            desired rate at which the segment's filter lets through a
+     *            word it does not contain, 0 < falsePositiveRate < 1
+     * @return a new segment
+     */
+    public static TweetSegment of(List<Tweet> tweets, double falsePositiveRate) {
+        // hash each distinct word once, then size the filter for exactly those
+        LongCountMap hashes = new LongCountMap();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            String text = tweet.getText();
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.WORD) {
+                    long hash = BloomFilter.hash(text, tokenizer.start(), tokenizer.end());
+                    if (hashes.get(hash) == 0) {
+                        hashes.add(hash, 1);
+                    }
+                }
+            }
+        }
+
+        BloomFilter words = new BloomFilter(hashes.size(), falsePositiveRate);
+        hashes.forEach((hash, count) -> words.addHash(hash));
+        return new TweetSegment(tweets.size(), words, Collections.unmodifiableList(new ArrayList<Tweet>(tweets)),
+                null);
+    }
+
+    /**
+     * Load a segment saved by save(), reading only its filter.
+     *
+     * @param file
+     *            snapshot file of the segment
+     * @return a segment that reads its tweets from file when needed
+     * @throws IOException if the segment's filter cannot be read
+     */
+    public static TweetSegment load(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(filterFile(file)))) {
+            int size = new DataInputStream(in).readInt();
+            return new TweetSegment(size, BloomFilter.readFrom(in), null, file);
+        }
+    }
+
+    /**
+     * Save this segment as a snapshot file and a filter file next to it.
+     *
+     * @param file
+     *            snapshot file to write, replaced if it exists; the filter
+     *            goes to the same path plus ".words"
+     * @return a segment with the same tweets that keeps only its filter in
+     *         memory, as by load(file)
+     * @throws IOException if the files cannot be written
+     */
+    public TweetSegment save(Path file) throws IOException {
+        TweetSnapshot.write(TweetStore.of(tweets()), file, EnumSet.noneOf(TweetTokenizer.Kind.class));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(filterFile(file)))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(size);
+            words.writeTo(data);
+        }
+        return new TweetSegment(size, words, null, file);
+    }
+
+    /**
+     * @return number of tweets in this segment
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true iff this segment's tweets are held in memory
+     */
+    public boolean isLoaded() {
+        return tweets != null;
+    }
+
+    /**
+     * @return the filter of this segment's folded words; must not be modified
+     */
+    public BloomFilter wordFilter() {
+        return words;
+    }
+
+    /**
+     * @return the tweets of this segment, in order, read from its file if it
+     *         is not loaded
+     * @throws UncheckedIOException if the segment's file cannot be read
+     */
+    public List<Tweet> tweets() {
+        if (tweets != null) {
+            return tweets;
+        }
+        try (TweetSnapshot snapshot = TweetSnapshot.open(file)) {
+            return new ArrayList<Tweet>(snapshot.asList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Check the filter for words, without reading the tweets.
+     *
+     * @param words
+     *            words to look for, as in Filter.containing()
+     * @return false if no tweet of this segment contains any of words; true
+     *         if one might
+     */
+    public boolean mightContain(List<String> words) {
+        for (String word : words) {
+            if (this.words.mightContain(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the tweets of this segment that contain certain words, reading
+     * them only if the filter cannot rule out every word.
+     *
+     * @param words
+     *            words to search for, as in Filter.containing()
+     * @return the same tweets as Filter.containing(tweets(), words)
+     * @throws UncheckedIOException if the segment's file cannot be read
+     */
+    public List<Tweet> containing(List<String> words) {
+        if (!mightContain(words)) {
+            return new ArrayList<Tweet>();
+        }
+        if (tweets != null) {
+            return Filter.containing(tweets, words);
+        }
+        try (TweetSnapshot snapshot = TweetSnapshot.open(file)) {
+            return snapshot.containing(words);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Find the tweets of a sequence of segments that contain certain words,
+     * skipping the segments whose filters rule out every word.
+     *
+     * @param segments
+     *            segments to search, in order
+     * @param words
+     *            words to search for, as in Filter.containing()
+     * @return the same tweets as Filter.containing() on the concatenated
+     *         tweets of the segments
+     * @throws UncheckedIOException if a segment's file cannot be read
+     */
+    public static List<Tweet> containing(List<TweetSegment> segments, List<String> words) {
+        List<Tweet> result = new ArrayList<Tweet>();
+        for (TweetSegment segment : segments) {
+            // containing() probes the filter itself, and skips the segment if it rules out every word
+            result.addAll(segment.containing(words));
+        }
+        return result;
+    }
+
+    private static Path filterFile(Path file) {
+        return file.resolveSibling(file.getFileName() + FILTER_SUFFIX);
+    }
+}
@@ -0,0 +1,494 @@
+package twitter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * TweetSketch is a mutable, fixed-size summary of a stream of tweets that
+ * answers approximately what Extract.getMentionedUsers() and
+ * Extract.getHashtags() answer exactly: how many distinct users are
+ * mentioned, how often each hashtag is used, and which hashtags are used most.
+ *
+ * The memory it uses is fixed when it is made, however many tweets it sees:
+ * - distinct mentions are counted by a HyperLogLog of 2^precision one-byte
+ *   registers, with a relative standard error of about 1.04 / sqrt(2^precision)
+ *   (0.81% for the default precision of 14);
+ * - hashtag counts are estimated by a Count-Min sketch of depth rows of width
+ *   counters; an estimate is never below the true count, and exceeds it by
+ *   more than e / width * hashtagOccurrences() with probability at most e^-depth;
+ * - the top hashtags are tracked by Space-Saving over capacity entries; every
+ *   hashtag used more than hashtagOccurrences() / capacity times is tracked,
+ *   and a tracked count exceeds the true count by at most that much.
+ *
+ * Usernames and hashtags are compared ignoring case, as by
+ * CaseFold.fold(), and hashtags are reported folded, without "#".
+ * Sketches made with the same parameters can be merged, so a stream can be
+ * sketched by many threads, or many machines via writeTo() and readFrom(),
+ * and the pieces combined; merged error bounds are those of one sketch of the
+ * whole stream. A TweetSketch is not safe for use by multiple threads.
+ */
+public class TweetSketch {
+
+    private static final int MAGIC = 0x534B5431; // "SKT1"
+
+    private final int precision;
+    private final int width;
+    private final int depth;
+    private final int capacity;
+
+    private long tweets;
+    private long hashtagOccurrences;
+
+    // HyperLogLog registers of mentions
+    private final byte[] registers;
+
+    // Count-Min counters of hashtags, row r at [r * width, (r + 1) * width)
+    private final long[] counters;
+
+    // Space-Saving summary of hashtags: entry i has hash keys[i], folded name
+    // names[i], count counts[i] overestimating by at most errors[i]
+    private final long[] keys;
+    private final String[] names;
+    private final long[] counts;
+    private final long[] errors;
+    private int tracked;
+    // entries 0..tracked-1 as a binary min-heap on counts, and each entry's
+    // position in it; slots maps an entry's hash to its index + 1
+    private final int[] heap;
+    private final int[] heapPosition;
+    private final LongCountMap slots = new LongCountMap();
+
+    private final TweetTokenizer tokenizer = new TweetTokenizer();
+
+    /* Rep invariant:
+     *    4 <= precision <= 18, registers.length == 2^precision
+     *    width >= 1, depth >= 1, counters.length == width * depth
+     *    each row of counters sums to hashtagOccurrences
+     *    0 <= tracked <= capacity
+     *    heap[0..tracked) is a permutation of 0..tracked-1 with
+     *      counts[heap[i]] >= counts[heap[(i - 1) / 2]], heapPosition[heap[i]] == i
+     *    slots maps exactly keys[0..tracked) to 1..tracked
+     *    0 <= errors[i] <= counts[i] for i < tracked
+     */
+
+    /**
+     * Make an empty sketch with the default parameters: precision 14, width
+     * 2048, depth 5 and capacity 256, about 110 KB.
+     */
+    public TweetSketch() {
+        this(14, 2048, 5, 256);
+    }
+
+    /**
+     * Make an empty sketch.
+     *
+     * @param precision
+     *            log2 of the number of HyperLogLog registers, 4 <= precision <= 18
+     * @param width
+     *            number of Count-Min counters per row, >= 1
+     * @param depth
+     *            number of Count-Min rows, >= 1
+     * @param capacity
+     *            number of hashtags tracked for topHashtags(), >= 1
+     */
+    public TweetSketch(int precision, int width, int depth, int capacity) {
+        if (precision < 4 || precision > 18 || width < 1 || depth < 1 || capacity < 1
+                || (long) width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("bad sketch parameters " + precision + ", " + width + ", " + depth
+                    + ", " + capacity);
+        }
+        this.precision = precision;
+        this.width = width;
+        this.depth = depth;
+        this.capacity = capacity;
+        this.registers = new byte[1 << precision];
+        this.counters = new long[width * depth];
+        this.keys = new long[capacity];
+        this.names = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPosition = new int[capacity];
+    }
+
+    /**
+     * Add a tweet to the sketch.
+     *
+     * @param tweet
+     *            tweet to add
+     */
+    public void add(Tweet tweet) {
+        addText(tweet.getText());
+    }
+
+    /**
+     * Add tweets to the sketch.
+     *
+     * @param tweets
+     *            tweets to add, not modified by this method
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            addText(tweet.getText());
+        }
+    }
+
+    /**
+     * Add everything another sketch has seen to this one.
+     *
+     * @param other
+     *            sketch made with the same parameters as this one; not
+     *            modified by this method
+     */
+    public void merge(TweetSketch other) {
+        if (other.precision != precision || other.width != width || other.depth != depth
+                || other.capacity != capacity) {
+            throw new IllegalArgumentException("cannot merge sketches with different parameters");
+        }
+        tweets += other.tweets;
+        hashtagOccurrences += other.hashtagOccurrences;
+        for (int i = 0; i < registers.length; ++i) {
+            registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+        }
+        for (int i = 0; i < counters.length; ++i) {
+            counters[i] += other.counters[i];
+        }
+        mergeSummary(other);
+    }
+
+    /**
+     * @return number of tweets added
+     */
+    public long tweets() {
+        return tweets;
+    }
+
+    /**
+     * @return number of hashtags in the tweets added, counting repeats
+     */
+    public long hashtagOccurrences() {
+        return hashtagOccurrences;
+    }
+
+    /**
+     * @return estimated number of distinct users mentioned in the tweets
+     *         added, ignoring case
+     */
+    public long distinctMentions() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52); // 2^-register
+            if (register == 0) {
+                ++zeros;
+            }
+        }
+        double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+        double estimate = alpha * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // small range: count empty registers instead
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return relative standard error of distinctMentions(), 1.04 / sqrt(2^precision)
+     */
+    public double distinctMentionsError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Estimate how often a hashtag was used.
+     *
+     * @param hashtag
+     *            hashtag, with or without a leading "#", compared ignoring case
+     * @return an estimate >= the number of times hashtag occurs in the tweets
+     *         added; see the class comment for its error
+     */
+    public long hashtagCount(String hashtag) {
+        int from = hashtag.startsWith("#") ? 1 : 0;
+        long hash = BloomFilter.hash(hashtag, from, hashtag.length());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; ++row) {
+            estimate = Math.min(estimate, counters[counter(hash, row)]);
+        }
+        int slot = slots.get(hash);
+        if (slot > 0) {
+            estimate = Math.min(estimate, counts[slot - 1]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Find the most used hashtags.
+     *
+     * @param k
+     *            number of hashtags wanted, >= 0
+     * @return up to min(k, capacity) distinct folded hashtags without "#", in
+     *         decreasing order of estimated count and then alphabetically;
+     *         every hashtag used more than hashtagOccurrences() / capacity
+     *         times is among the first capacity
+     */
+    public List<String> topHashtags(int k) {
+        Integer[] order = new Integer[tracked];
+        for (int i = 0; i < tracked; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> counts[a] != counts[b] ? Long.compare(counts[b], counts[a])
+                                                             : names[a].compareTo(names[b]));
+        List<String> top = new ArrayList<String>();
+        for (int i = 0; i < Math.min(k, tracked); ++i) {
+            top.add(names[order[i]]);
+        }
+        return top;
+    }
+
+    /**
+     * @return bytes of heap retained by this sketch, excluding the tracked
+     *         hashtag strings; fixed when the sketch is made
+     */
+    public long memoryBytes() {
+        return registers.length + 8L * counters.length + (8L + 8 + 8 + 4 + 4 + 8) * capacity
+                + 6 * 16 + slots.memoryBytes();
+    }
+
+    /**
+     * Write the sketch to a stream, to be read back by readFrom().
+     *
+     * @param out
+     *            stream to write to; not closed by this method
+     * @throws IOException if out cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(precision);
+        data.writeInt(width);
+        data.writeInt(depth);
+        data.writeInt(capacity);
+        data.writeLong(tweets);
+        data.writeLong(hashtagOccurrences);
+        data.write(registers);
+        for (long counter : counters) {
+            data.writeLong(counter);
+        }
+        data.writeInt(tracked);
+        for (int i = 0; i < tracked; ++i) {
+            data.writeUTF(names[i]);
+            data.writeLong(counts[i]);
+            data.writeLong(errors[i]);
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a sketch written by writeTo().
+     *
+     * @param in
+     *            stream to read from; not closed by this method
+     * @return the sketch that was written
+     * @throws IOException if in cannot be read or does not hold a sketch
+     */
+    public static TweetSketch readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a tweet sketch");
+        }
+        TweetSketch sketch;
+        try {
+            sketch = new TweetSketch(data.readInt(), data.readInt(), data.readInt(), data.readInt());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("corrupt tweet sketch", e);
+        }
+        sketch.tweets = data.readLong();
+        sketch.hashtagOccurrences = data.readLong();
+        data.readFully(sketch.registers);
+        for (int i = 0; i < sketch.counters.length; ++i) {
+            sketch.counters[i] = data.readLong();
+        }
+        int tracked = data.readInt();
+        if (tracked < 0 || tracked > sketch.capacity) {
+            throw new IOException("corrupt tweet sketch");
+        }
+        for (int i = 0; i < tracked; ++i) {
+            String name = data.readUTF();
+            long hash = BloomFilter.hash(name, 0, name.length());
+            long count = data.readLong();
+            long error = data.readLong();
+            if (count < 0 || error < 0 || error > count) {
+                throw new IOException("corrupt tweet sketch");
+            }
+            int slot = sketch.slots.get(hash);
+            if (slot > 0) {
+                // two entries for one folded hashtag, as older versions could
+                // write: both counted it, so summing keeps the count an upper bound
+                sketch.counts[slot - 1] += count;
+                sketch.errors[slot - 1] += error;
+                sketch.siftDown(sketch.heapPosition[slot - 1]);
+            } else {
+                sketch.track(hash, name, count, error);
+            }
+        }
+        return sketch;
+    }
+
+    private void addText(String text) {
+        ++tweets;
+        if (text.indexOf('@') < 0 && text.indexOf('#') < 0) {
+            return;
+        }
+        tokenizer.reset(text);
+        while (tokenizer.next()) {
+            if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                addMention(BloomFilter.hash(text, tokenizer.start(), tokenizer.end()));
+            } else if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                addHashtag(BloomFilter.hash(text, tokenizer.start(), tokenizer.end()));
+            }
+        }
+    }
+
+    private void addMention(long hash) {
+        // the top bits pick a register, which keeps the longest run of leading
+        // zeros seen in the remaining bits (plus one)
+        int register = (int) (hash >>> (64 - precision));
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+    private void addHashtag(long hash) {
+        ++hashtagOccurrences;
+        for (int row = 0; row < depth; ++row) {
+            ++counters[counter(hash, row)];
+        }
+
+        int slot = slots.get(hash);
+        if (slot > 0) {
+            ++counts[slot - 1];
+            siftDown(heapPosition[slot - 1]);
+        } else if (tracked < capacity) {
+            track(hash, tokenizer.foldedToken(), 1, 0);
+        } else {
+            // replace the least counted hashtag, inheriting its count as error
+            int replaced = heap[0];
+            slots.add(keys[replaced], -(replaced + 1));
+            slots.add(hash, replaced + 1);
+            keys[replaced] = hash;
+            names[replaced] = tokenizer.foldedToken();
+            errors[replaced] = counts[replaced];
+            ++counts[replaced];
+            siftDown(0);
+        }
+    }
+
+    /*
+     * Merge the Space-Saving summary of other into this one, as in Agarwal et
+     * al., "Mergeable Summaries": a hashtag missing from a full summary may
+     * have been counted up to that summary's minimum there.
+     */
+    private void mergeSummary(TweetSketch other) {
+        long thisMin = tracked == capacity ? counts[heap[0]] : 0;
+        long otherMin = other.tracked == other.capacity ? other.counts[other.heap[0]] : 0;
+
+        int n = 0;
+        long[] mergedKeys = new long[tracked + other.tracked];
+        String[] mergedNames = new String[mergedKeys.length];
+        long[] mergedCounts = new long[mergedKeys.length];
+        long[] mergedErrors = new long[mergedKeys.length];
+        for (int i = 0; i < tracked; ++i) {
+            int otherSlot = other.slots.get(keys[i]);
+            mergedKeys[n] = keys[i];
+            mergedNames[n] = names[i];
+            mergedCounts[n] = counts[i] + (otherSlot > 0 ? other.counts[otherSlot - 1] : otherMin);
+            mergedErrors[n] = errors[i] + (otherSlot > 0 ? other.errors[otherSlot - 1] : otherMin);
+            ++n;
+        }
+        for (int i = 0; i < other.tracked; ++i) {
+            if (slots.get(other.keys[i]) == 0) {
+                mergedKeys[n] = other.keys[i];
+                mergedNames[n] = other.names[i];
+                mergedCounts[n] = other.counts[i] + thisMin;
+                mergedErrors[n] = other.errors[i] + thisMin;
+                ++n;
+            }
+        }
+
+        // keep the capacity largest counts
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; ++i) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(mergedCounts[b], mergedCounts[a]));
+        for (int i = 0; i < tracked; ++i) {
+            slots.add(keys[i], -(i + 1));
+        }
+        tracked = 0;
+        for (int i = 0; i < Math.min(n, capacity); ++i) {
+            int j = order[i];
+            track(mergedKeys[j], mergedNames[j], mergedCounts[j], mergedErrors[j]);
+        }
+    }
+
+    private void track(long hash, String name, long count, long error) {
+        int slot = tracked++;
+        keys[slot] = hash;
+        names[slot] = name;
+        counts[slot] = count;
+        errors[slot] = error;
+        slots.add(hash, slot + 1);
+        heap[slot] = slot;
+        heapPosition[slot] = slot;
+        siftUp(slot);
+    }
+
+    private int counter(long hash, int row) {
+        int low = (int) hash;
+        int high = (int) (hash >>> 32);
+        return row * width + (int) (((low + (long) row * high) & Long.MAX_VALUE) % width);
+    }
+
+    private void siftUp(int position) {
+        int entry = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[heap[parent]] <= counts[entry]) {
+                break;
+            }
+            place(heap[parent], position);
+            position = parent;
+        }
+        place(entry, position);
+    }
+
+    private void siftDown(int position) {
+        int entry = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= tracked) {
+                break;
+            }
+            if (child + 1 < tracked && counts[heap[child + 1]] < counts[heap[child]]) {
+                ++child;
+            }
+            if (counts[heap[child]] >= counts[entry]) {
+                break;
+            }
+            place(heap[child], position);
+            position = child;
+        }
+        place(entry, position);
+    }
+
+    private void place(int entry, int position) {
+        heap[position] = entry;
+        heapPosition[entry] = position;
+    }
+}
@@ -0,0 +1,900 @@
+package twitter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * TweetSnapshot is an immutable corpus of tweets read from a binary snapshot
+ * file, which write() makes from a TweetStore. Opening a snapshot maps the
+ * file into memory and reads only its header, so a snapshot of any size is
+ * ready for queries at once; tweets are decoded from the mapped bytes as they
+ * are used.
+ *
+ * The file holds, after a fixed-size header:
+ *   text     the UTF-8 text of each tweet, concatenated;
+ *   rows     per tweet, as varints: the zigzag-encoded differences of its id
+ *            and timestamp from the previous tweet's, its author's dictionary
+ *            id, and the byte length of its text;
+ *   blocks   for every BLOCK_SIZE tweets, where their rows and text start,
+ *            so tweet i is found by decoding at most BLOCK_SIZE rows;
+ *   authors  the author dictionary, as UTF-8 strings;
+ *   indexes  inverted indexes from case-folded author usernames and,
+ *            optionally, words, hashtags and @-mentions to the positions of
+ *            the tweets that contain them, as sorted keys and PostingList
+ *            encodings.
+ *
+ * asList() is a read-only List view to pass to Extract, Filter and
+ * SocialNetwork; writtenBy(), containing() and getMentionedUsers() answer
+ * the same questions from the indexes without decoding every tweet.
+ * Unpaired surrogates in text are written as '?', as by String.getBytes().
+ * A TweetSnapshot is not safe for use by multiple threads.
+ */
+public class TweetSnapshot implements Closeable {
+
+    private static final long MAGIC = 0x5457534e41500001L; // "TWSNAP" 0 1
+    private static final int HEADER_BYTES = 64;
+    private static final int BLOCK_SIZE = 128;
+    private static final int BLOCK_ENTRY_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int DEFAULT_REGION_SHIFT = 30;
+
+    // mapped regions overlap by this much, so ints, longs and varints never straddle two
+    private static final int REGION_OVERLAP = 16;
+
+    // codes of the indexes in the file
+    private static final int AUTHOR_INDEX = 0, WORD_INDEX = 1, HASHTAG_INDEX = 2, MENTION_INDEX = 3;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] regions;
+    private final int regionShift;
+    private final long regionMask;
+
+    private final int size;
+    private final int authorCount;
+    private final long rowsOffset;
+    private final long blocksOffset;
+    private final long authorsOffset;
+    private final String[] authors;
+
+    // per index code: number of keys and offset of the entries, or -1 if absent
+    private final int[] keyCounts = { -1, -1, -1, -1 };
+    private final long[] entryOffsets = new long[4];
+
+    // the row most recently decoded, for cheap sequential access
+    private int cursor = -1;
+    private long cursorRow;
+    private long cursorId;
+    private long cursorNanos;
+    private int cursorAuthor;
+    private long cursorText;
+    private int cursorTextLength;
+
+    private byte[] byteScratch = new byte[256];
+    private char[] charScratch = new char[256];
+
+    /* Rep invariant:
+     *    regions[k] maps bytes [k << regionShift, (k + 1) << regionShift)
+     *      of the file, plus up to REGION_OVERLAP bytes after that
+     *    0 <= cursor < size iff cursorRow .. cursorTextLength describe row cursor,
+     *      with cursorRow the offset just past its encoding
+     *    authors[j] is null or the decoded name of author j
+     *
+     * Abstraction function:
+     *    represents the tweets decoded from the rows and text of the file,
+     *    in order
+     */
+
+    private TweetSnapshot(FileChannel channel, int regionShift) throws IOException {
+        this.channel = channel;
+        this.regionShift = regionShift;
+        this.regionMask = (1L << regionShift) - 1;
+
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES) {
+            throw new IOException("not a tweet snapshot: too short");
+        }
+        int regionCount = (int) ((fileSize + regionMask) >>> regionShift);
+        this.regions = new MappedByteBuffer[regionCount];
+        for (int k = 0; k < regionCount; ++k) {
+            long start = (long) k << regionShift;
+            long length = Math.min(fileSize - start, (1L << regionShift) + REGION_OVERLAP);
+            regions[k] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        }
+
+        if (getLong(0) != MAGIC) {
+            throw new IOException("not a tweet snapshot: bad magic number");
+        }
+        if (getInt(8) != BLOCK_SIZE) {
+            throw new IOException("unsupported tweet snapshot: block size " + getInt(8));
+        }
+        this.size = getInt(12);
+        this.authorCount = getInt(16);
+        this.rowsOffset = getLong(24);
+        this.blocksOffset = getLong(32);
+        this.authorsOffset = getLong(40);
+        this.authors = new String[authorCount];
+
+        long indexesOffset = getLong(48);
+        int indexCount = getInt(indexesOffset);
+        for (int x = 0; x < indexCount; ++x) {
+            long at = indexesOffset + 4 + 16L * x;
+            int code = getInt(at);
+            keyCounts[code] = getInt(at + 4);
+            entryOffsets[code] = getLong(at + 8);
+        }
+    }
+
+    /**
+     * Open a snapshot file written by write().
+     *
+     * @param file
+     *            snapshot file, which must not change while the snapshot is open
+     * @return a snapshot of the tweets in file
+     * @throws IOException if file cannot be read or is not a tweet snapshot
+     */
+    public static TweetSnapshot open(Path file) throws IOException {
+        return open(file, DEFAULT_REGION_SHIFT);
+    }
+
+    /*
+     * Open a snapshot file, mapping it in regions of 2^regionShift bytes.
+     */
+    static TweetSnapshot open(Path file, int regionShift) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TweetSnapshot(channel, regionShift);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Write a snapshot of a store with every kind of index.
+     *
+     * @param store
+     *            tweets to write, not modified by this method
+     * @param file
+     *            file to write, replaced if it exists
+     * @throws IOException if file cannot be written
+     */
+    public static void write(TweetStore store, Path file) throws IOException {
+        write(store, file, EnumSet.allOf(TweetTokenizer.Kind.class));
+    }
+
+    /**
+     * Write a snapshot of a store.
+     *
+     * @param store
+     *            tweets to write, not modified by this method
+     * @param file
+     *            file to write, replaced if it exists
+     * @param indexed
+     *            kinds of token to index, besides the authors, which are
+     *            always indexed
+     * @throws IOException if file cannot be written
+     */
+    public static void write(TweetStore store, Path file, Set<TweetTokenizer.Kind> indexed) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            new Writer(store, channel, indexed).write();
+        }
+    }
+
+    /**
+     * @return number of tweets in this snapshot
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return id of tweet i, for 0 <= i < size()
+     */
+    public long id(int i) {
+        seek(i);
+        return cursorId;
+    }
+
+    /**
+     * @return timestamp of tweet i in nanoseconds since the epoch, for 0 <= i < size()
+     */
+    public long epochNanos(int i) {
+        seek(i);
+        return cursorNanos;
+    }
+
+    /**
+     * @return author of tweet i, for 0 <= i < size()
+     */
+    public String author(int i) {
+        seek(i);
+        return authorName(cursorAuthor);
+    }
+
+    /**
+     * @return text of tweet i, for 0 <= i < size()
+     */
+    public String text(int i) {
+        seek(i);
+        return new String(charScratch, 0, decodeText());
+    }
+
+    /**
+     * @return tweet i as a Tweet object, for 0 <= i < size()
+     */
+    public Tweet get(int i) {
+        seek(i);
+        String author = authorName(cursorAuthor);
+        String text = new String(charScratch, 0, decodeText());
+        return new Tweet(cursorId, author, text, TweetStore.instant(cursorNanos));
+    }
+
+    /**
+     * @return a read-only list view of this snapshot's tweets, in order,
+     *         decoding each tweet when it is read; fastest in order
+     */
+    public List<Tweet> asList() {
+        return new TweetList();
+    }
+
+    /**
+     * @return a new TweetStore holding this snapshot's tweets, in order
+     */
+    public TweetStore toStore() {
+        TweetStore store = new TweetStore(size);
+        for (int i = 0; i < size; ++i) {
+            seek(i);
+            int length = decodeText();
+            store.add(cursorId, authorName(cursorAuthor), charScratch, 0, length, cursorNanos);
+        }
+        return store;
+    }
+
+    /**
+     * @return true iff this snapshot has an index of the tokens of kind
+     */
+    public boolean isIndexed(TweetTokenizer.Kind kind) {
+        return keyCounts[code(kind)] >= 0;
+    }
+
+    /**
+     * Count the tweets that contain a token, without decoding them.
+     *
+     * @param kind
+     *            kind of token, which must be indexed
+     * @param token
+     *            token to look up, compared ignoring case; hashtags and
+     *            mentions without the "#" or "@"
+     * @return number of tweets containing token as a token of kind
+     */
+    public int frequency(TweetTokenizer.Kind kind, String token) {
+        long entry = find(indexCode(kind), token);
+        return entry < 0 ? 0 : getInt(entry + 12);
+    }
+
+    /**
+     * Find the tweets that contain a token.
+     *
+     * @param kind
+     *            kind of token, which must be indexed
+     * @param token
+     *            token to look up, as in frequency()
+     * @return new array of the positions of the tweets that contain token as a
+     *         token of kind, in increasing order
+     */
+    public int[] positions(TweetTokenizer.Kind kind, String token) {
+        long entry = find(indexCode(kind), token);
+        return entry < 0 ? new int[0] : postings(entry);
+    }
+
+    /**
+     * Find the tweets written by a particular user, using the author index.
+     *
+     * @param username
+     *            Twitter username, compared ignoring case
+     * @return the same tweets as Filter.writtenBy(asList(), username)
+     */
+    public List<Tweet> writtenBy(String username) {
+        long entry = find(AUTHOR_INDEX, username);
+        return entry < 0 ? new ArrayList<Tweet>() : tweetsAt(postings(entry));
+    }
+
+    /**
+     * Find the tweets that contain certain words, using the word index if
+     * there is one.
+     *
+     * @param words
+     *            a list of words to search for, as in Filter.containing()
+     * @return the same tweets as Filter.containing(asList(), words)
+     */
+    public List<Tweet> containing(List<String> words) {
+        if (!isIndexed(TweetTokenizer.Kind.WORD)) {
+            return Filter.containing(asList(), words);
+        }
+
+        IntList all = new IntList();
+        Set<String> seen = new HashSet<String>();
+        for (String word : words) {
+            long entry = find(WORD_INDEX, word);
+            if (entry >= 0 && seen.add(CaseFold.fold(word))) {
+                for (int position : postings(entry)) {
+                    all.add(position);
+                }
+            }
+        }
+
+        // remove tweets that contain more than one of the words
+        int[] positions = all.toArray();
+        Arrays.sort(positions);
+        int count = 0;
+        for (int i = 0; i < positions.length; ++i) {
+            if (count == 0 || positions[count - 1] != positions[i]) {
+                positions[count++] = positions[i];
+            }
+        }
+        return tweetsAt(Arrays.copyOf(positions, count));
+    }
+
+    /**
+     * Get the usernames mentioned in the tweets, using the mention index if
+     * there is one.
+     *
+     * @return the same set as Extract.getMentionedUsers(asList())
+     */
+    public Set<String> getMentionedUsers() {
+        if (!isIndexed(TweetTokenizer.Kind.MENTION)) {
+            return Extract.getMentionedUsers(asList());
+        }
+        Set<String> users = new HashSet<String>();
+        long entries = entryOffsets[MENTION_INDEX];
+        for (int k = 0; k < keyCounts[MENTION_INDEX]; ++k) {
+            long entry = entries + (long) k * INDEX_ENTRY_BYTES;
+            int length = getInt(entry + 8);
+            users.add(new String(read(getLong(entry), length), 0, length, StandardCharsets.UTF_8));
+        }
+        return users;
+    }
+
+    /**
+     * Release the file. The mapped memory is released when the snapshot is
+     * garbage-collected; the snapshot must not be used after close().
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /*
+     * The read-only list view returned by asList().
+     */
+    private class TweetList extends AbstractList<Tweet> implements RandomAccess {
+        @Override
+        public Tweet get(int i) {
+            return TweetSnapshot.this.get(i);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /*
+     * Decode row i into the cursor, continuing from the cursor when i is
+     * after it in the same block.
+     */
+    private void seek(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("tweet " + i + " of " + size);
+        }
+        if (i == cursor) {
+            return;
+        }
+        if (cursor < 0 || i < cursor || i / BLOCK_SIZE != cursor / BLOCK_SIZE) {
+            long block = blocksOffset + (long) (i / BLOCK_SIZE) * BLOCK_ENTRY_BYTES;
+            cursor = i - i % BLOCK_SIZE - 1;
+            cursorRow = getLong(block);
+            cursorText = getLong(block + 8);
+            cursorTextLength = 0;
+            cursorId = 0;
+            cursorNanos = 0;
+        }
+
+        long row = cursorRow;
+        while (cursor < i) {
+            cursorText += cursorTextLength;
+            long delta = varint(row);
+            row += varintLength(delta);
+            cursorId += unzigzag(delta);
+            delta = varint(row);
+            row += varintLength(delta);
+            cursorNanos += unzigzag(delta);
+            long value = varint(row);
+            row += varintLength(value);
+            cursorAuthor = (int) value;
+            value = varint(row);
+            row += varintLength(value);
+            cursorTextLength = (int) value;
+            ++cursor;
+        }
+        cursorRow = row;
+    }
+
+    /*
+     * Decode the text of the cursor's row into charScratch.
+     *
+     * @return number of chars decoded
+     */
+    private int decodeText() {
+        int length = cursorTextLength;
+        byte[] bytes = read(cursorText, length);
+        if (charScratch.length < length) {
+            charScratch = new char[Math.max(length, 2 * charScratch.length)];
+        }
+
+        // the writer only writes well-formed UTF-8
+        char[] chars = charScratch;
+        int count = 0;
+        int p = 0;
+        while (p < length) {
+            int b = bytes[p];
+            if (b >= 0) {
+                chars[count++] = (char) b;
+                p += 1;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) (((b & 0x1F) << 6) | (bytes[p + 1] & 0x3F));
+                p += 2;
+            } else if ((b & 0xF0) == 0xE0) {
+                chars[count++] = (char) (((b & 0x0F) << 12) | ((bytes[p + 1] & 0x3F) << 6) | (bytes[p + 2] & 0x3F));
+                p += 3;
+            } else {
+                int codePoint = ((b & 0x07) << 18) | ((bytes[p + 1] & 0x3F) << 12)
+                        | ((bytes[p + 2] & 0x3F) << 6) | (bytes[p + 3] & 0x3F);
+                chars[count++] = Character.highSurrogate(codePoint);
+                chars[count++] = Character.lowSurrogate(codePoint);
+                p += 4;
+            }
+        }
+        return count;
+    }
+
+    private String authorName(int authorId) {
+        String name = authors[authorId];
+        if (name == null) {
+            long entry = authorsOffset + 4L * authorId;
+            int start = getInt(entry);
+            int length = getInt(entry + 4) - start;
+            long blob = authorsOffset + 4L * (authorCount + 1);
+            name = new String(read(blob + start, length), 0, length, StandardCharsets.UTF_8);
+            authors[authorId] = name;
+        }
+        return name;
+    }
+
+    private List<Tweet> tweetsAt(int[] positions) {
+        List<Tweet> tweets = new ArrayList<Tweet>(positions.length);
+        for (int position : positions) {
+            tweets.add(get(position));
+        }
+        return tweets;
+    }
+
+    private int indexCode(TweetTokenizer.Kind kind) {
+        int code = code(kind);
+        if (keyCounts[code] < 0) {
+            throw new IllegalStateException("snapshot has no " + kind + " index");
+        }
+        return code;
+    }
+
+    private static int code(TweetTokenizer.Kind kind) {
+        switch (kind) {
+        case WORD:
+            return WORD_INDEX;
+        case HASHTAG:
+            return HASHTAG_INDEX;
+        case MENTION:
+            return MENTION_INDEX;
+        default:
+            throw new AssertionError(kind);
+        }
+    }
+
+    /*
+     * Binary search an index for a token, comparing UTF-8 bytes unsigned.
+     *
+     * @return offset of the token's entry, or -1 if it is absent
+     */
+    private long find(int code, String token) {
+        byte[] key = CaseFold.fold(token).getBytes(StandardCharsets.UTF_8);
+        long entries = entryOffsets[code];
+        int low = 0;
+        int high = keyCounts[code] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long entry = entries + (long) middle * INDEX_ENTRY_BYTES;
+            int comparison = compareKey(getLong(entry), getInt(entry + 8), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(long offset, int length, byte[] key) {
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; ++i) {
+            int comparison = Integer.compare(getByte(offset + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    /*
+     * Decode the posting list of an index entry.
+     */
+    private int[] postings(long entry) {
+        int[] positions = new int[getInt(entry + 12)];
+        long p = getLong(entry + 16);
+        int position = -1;
+        for (int k = 0; k < positions.length; ++k) {
+            long delta = varint(p);
+            p += varintLength(delta);
+            position += (int) delta;
+            positions[k] = position;
+        }
+        return positions;
+    }
+
+    private byte getByte(long offset) {
+        return regions[(int) (offset >>> regionShift)].get((int) (offset & regionMask));
+    }
+
+    private int getInt(long offset) {
+        return regions[(int) (offset >>> regionShift)].getInt((int) (offset & regionMask));
+    }
+
+    private long getLong(long offset) {
+        return regions[(int) (offset >>> regionShift)].getLong((int) (offset & regionMask));
+    }
+
+    /*
+     * @return the varint at offset; never straddles two regions
+     */
+    private long varint(long offset) {
+        MappedByteBuffer region = regions[(int) (offset >>> regionShift)];
+        int p = (int) (offset & regionMask);
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = region.get(p++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int varintLength(long value) {
+        return value == 0 ? 1 : (63 - Long.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /*
+     * Copy bytes [offset, offset + length) of the file into byteScratch,
+     * which may straddle regions.
+     *
+     * @return byteScratch
+     */
+    private byte[] read(long offset, int length) {
+        if (byteScratch.length < length) {
+            byteScratch = new byte[Math.max(length, 2 * byteScratch.length)];
+        }
+        int done = 0;
+        while (done < length) {
+            long at = offset + done;
+            ByteBuffer region = regions[(int) (at >>> regionShift)].duplicate();
+            region.position((int) (at & regionMask));
+            int count = Math.min(length - done, region.remaining());
+            region.get(byteScratch, done, count);
+            done += count;
+        }
+        return byteScratch;
+    }
+
+    /*
+     * Writes the sections of a snapshot file in one sequential pass, then
+     * fills in the header.
+     */
+    private static class Writer {
+        private final TweetStore store;
+        private final FileChannel channel;
+        private final Set<TweetTokenizer.Kind> indexed;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private long position;
+
+        Writer(TweetStore store, FileChannel channel, Set<TweetTokenizer.Kind> indexed) {
+            this.store = store;
+            this.channel = channel;
+            this.indexed = indexed;
+        }
+
+        void write() throws IOException {
+            int n = store.size();
+            char[] arena = store.arenaChars();
+            skip(HEADER_BYTES);
+
+            // text, remembering each tweet's byte length
+            long textOffset = position;
+            int[] textLengths = new int[n];
+            for (int i = 0; i < n; ++i) {
+                long start = position;
+                putUtf8(arena, store.textStart(i), store.textEnd(i));
+                textLengths[i] = (int) (position - start);
+            }
+
+            // rows, remembering where each block starts
+            long[] blockStarts = new long[2 * ((n + BLOCK_SIZE - 1) / BLOCK_SIZE)];
+            long rowsOffset = position;
+            long text = textOffset;
+            long id = 0;
+            long nanos = 0;
+            for (int i = 0; i < n; ++i) {
+                if (i % BLOCK_SIZE == 0) {
+                    blockStarts[2 * (i / BLOCK_SIZE)] = position;
+                    blockStarts[2 * (i / BLOCK_SIZE) + 1] = text;
+                    id = 0;
+                    nanos = 0;
+                }
+                putVarint(zigzag(store.id(i) - id));
+                putVarint(zigzag(store.epochNanos(i) - nanos));
+                putVarint(store.authorId(i));
+                putVarint(textLengths[i]);
+                id = store.id(i);
+                nanos = store.epochNanos(i);
+                text += textLengths[i];
+            }
+
+            long blocksOffset = position;
+            for (long start : blockStarts) {
+                putLong(start);
+            }
+
+            // author dictionary: end offsets, then the names
+            long authorsOffset = position;
+            byte[][] names = new byte[store.authorCount()][];
+            int end = 0;
+            putInt(end);
+            for (int j = 0; j < names.length; ++j) {
+                names[j] = store.authorName(j).getBytes(StandardCharsets.UTF_8);
+                end += names[j].length;
+                putInt(end);
+            }
+            for (byte[] name : names) {
+                putBytes(name);
+            }
+
+            // indexes, then the table of indexes
+            List<long[]> table = new ArrayList<long[]>();
+            table.add(writeIndex(AUTHOR_INDEX, authorPostings()));
+            for (TweetTokenizer.Kind kind : TweetTokenizer.Kind.values()) {
+                if (indexed.contains(kind)) {
+                    table.add(writeIndex(code(kind), tokenPostings(kind, arena)));
+                }
+            }
+            long indexesOffset = position;
+            putInt(table.size());
+            for (long[] index : table) {
+                putInt((int) index[0]);
+                putInt((int) index[1]);
+                putLong(index[2]);
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(BLOCK_SIZE).putInt(n).putInt(store.authorCount()).putInt(0)
+                  .putLong(rowsOffset).putLong(blocksOffset).putLong(authorsOffset).putLong(indexesOffset);
+            header.rewind();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+
+        private Map<String, PostingList> authorPostings() {
+            Map<String, PostingList> postings = new HashMap<String, PostingList>();
+            PostingList[] byAuthorId = new PostingList[store.authorCount()];
+            for (int j = 0; j < byAuthorId.length; ++j) {
+                String username = CaseFold.fold(store.authorName(j));
+                PostingList list = postings.get(username);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(username, list);
+                }
+                byAuthorId[j] = list;
+            }
+            for (int i = 0; i < store.size(); ++i) {
+                byAuthorId[store.authorId(i)].add(i);
+            }
+            return postings;
+        }
+
+        private Map<String, PostingList> tokenPostings(TweetTokenizer.Kind kind, char[] arena) {
+            Map<String, PostingList> postings = new HashMap<String, PostingList>();
+            TweetTokenizer tokenizer = new TweetTokenizer();
+            for (int i = 0; i < store.size(); ++i) {
+                tokenizer.reset(arena, store.textStart(i), store.textEnd(i));
+                while (tokenizer.next()) {
+                    if (tokenizer.kind() != kind) {
+                        continue;
+                    }
+                    String token = tokenizer.foldedToken();
+                    PostingList list = postings.get(token);
+                    if (list == null) {
+                        list = new PostingList();
+                        postings.put(token, list);
+                    }
+                    list.add(i);
+                }
+            }
+            return postings;
+        }
+
+        /*
+         * Write the posting lists, keys and entries of one index.
+         *
+         * @return { code, number of keys, offset of the entries }
+         */
+        private long[] writeIndex(int code, Map<String, PostingList> postings) throws IOException {
+            List<byte[]> keys = new ArrayList<byte[]>(postings.size());
+            Map<byte[], PostingList> byKey = new IdentityHashMap<byte[], PostingList>();
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                byte[] key = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                keys.add(key);
+                byKey.put(key, entry.getValue());
+            }
+            keys.sort(Writer::compareUnsigned);
+
+            long[] postingOffsets = new long[keys.size()];
+            for (int k = 0; k < keys.size(); ++k) {
+                postingOffsets[k] = position;
+                putBytes(byKey.get(keys.get(k)).encoded());
+            }
+            long[] keyOffsets = new long[keys.size()];
+            for (int k = 0; k < keys.size(); ++k) {
+                keyOffsets[k] = position;
+                putBytes(keys.get(k));
+            }
+
+            long entriesOffset = position;
+            for (int k = 0; k < keys.size(); ++k) {
+                putLong(keyOffsets[k]);
+                putInt(keys.get(k).length);
+                putInt(byKey.get(keys.get(k)).size());
+                putLong(postingOffsets[k]);
+            }
+            return new long[] { code, keys.size(), entriesOffset };
+        }
+
+        private static int compareUnsigned(byte[] a, byte[] b) {
+            int common = Math.min(a.length, b.length);
+            for (int i = 0; i < common; ++i) {
+                int comparison = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(a.length, b.length);
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private void putUtf8(char[] chars, int from, int to) throws IOException {
+            for (int i = from; i < to; ++i) {
+                char c = chars[i];
+                if (c < 0x80) {
+                    putByte(c);
+                } else if (c < 0x800) {
+                    putByte(0xC0 | (c >> 6));
+                    putByte(0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(chars[i + 1])) {
+                    int codePoint = Character.toCodePoint(c, chars[++i]);
+                    putByte(0xF0 | (codePoint >> 18));
+                    putByte(0x80 | ((codePoint >> 12) & 0x3F));
+                    putByte(0x80 | ((codePoint >> 6) & 0x3F));
+                    putByte(0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    putByte('?');
+                } else {
+                    putByte(0xE0 | (c >> 12));
+                    putByte(0x80 | ((c >> 6) & 0x3F));
+                    putByte(0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void putVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                putByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            putByte((int) value);
+        }
+
+        private void putByte(int value) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) value);
+            ++position;
+        }
+
+        private void putInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        private void putLong(long value) throws IOException {
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            putBytes(ByteBuffer.wrap(bytes));
+        }
+
+        private void putBytes(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(bytes.remaining(), buffer.remaining());
+                ByteBuffer slice = bytes.duplicate();
+                slice.limit(slice.position() + count);
+                buffer.put(slice);
+                bytes.position(bytes.position() + count);
+                position += count;
+            }
+        }
+
+        private void skip(int count) throws IOException {
+            for (int i = 0; i < count; ++i) {
+                putByte(0);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package twitter;
+
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TweetStore is a mutable, append-only collection of tweets stored column by
+ * column in primitive arrays, for analytics over corpora too large to keep as
+ * a List of Tweet objects.
+ *
+ * Tweet i is described by
+ *   id(i)           its id,
+ *   epochNanos(i)   its timestamp in nanoseconds since 1970-01-01T00:00:00Z,
+ *   authorId(i)     an index into a dictionary of distinct author spellings,
+ *   textStart(i), textEnd(i)
+ *                   the bounds of its text in one shared character arena.
+ *
+ * Extract, Filter and SocialNetwork have overloads that work on a TweetStore
+ * directly; toList() and of() convert to and from the List<Tweet> form.
+ * The arena holds at most about 2^31 characters of text in total.
+ * A TweetStore is not safe for use by multiple threads.
+ */
+public class TweetStore {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EXPECTED_TEXT_LENGTH = 32;
+
+    private int size;
+    private long[] ids;
+    private long[] timestamps;
+    private int[] authorIds;
+    private int[] textOffsets;
+    private char[] arena;
+
+    private final List<String> authors;
+    private final Map<String, Integer> authorDictionary;
+
+    /* Rep invariant:
+     *    0 <= size <= ids.length == timestamps.length == authorIds.length < textOffsets.length
+     *    textOffsets[0] == 0, textOffsets is nondecreasing on [0, size], textOffsets[size] <= arena.length
+     *    0 <= authorIds[i] < authors.size() for i < size
+     *    authorDictionary.get(authors.get(j)) == j for all j, and has no other keys
+     *
+     * Abstraction function:
+     *    represents the tweets new Tweet(ids[i], authors.get(authorIds[i]),
+     *    arena[textOffsets[i] .. textOffsets[i+1]), instant(timestamps[i])) for i < size
+     */
+
+    /**
+     * Make an empty TweetStore.
+     */
+    public TweetStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Make an empty TweetStore with room for a number of tweets.
+     *
+     * @param capacity
+     *            expected number of tweets, >= 0
+     */
+    public TweetStore(int capacity) {
+        this(capacity, (int) Math.min(Integer.MAX_VALUE - 8, (long) capacity * EXPECTED_TEXT_LENGTH));
+    }
+
+    private TweetStore(int capacity, int arenaCapacity) {
+        int n = Math.max(capacity, 1);
+        this.ids = new long[n];
+        this.timestamps = new long[n];
+        this.authorIds = new int[n];
+        this.textOffsets = new int[n + 1];
+        this.arena = new char[arenaCapacity];
+        this.authors = new ArrayList<String>();
+        this.authorDictionary = new HashMap<String, Integer>();
+    }
+
+    /**
+     * Make a TweetStore holding a list of tweets.
+     *
+     * @param tweets
+     *            tweets to store, in order; not modified by this method.
+     * @return a new TweetStore with tweets.get(i) as tweet i
+     */
+    public static TweetStore of(List<Tweet> tweets) {
+        long textLength = 0;
+        for (Tweet tweet : tweets) {
+            textLength += tweet.getText().length();
+        }
+        TweetStore store = new TweetStore(tweets.size(), (int) Math.min(Integer.MAX_VALUE - 8, textLength));
+        for (Tweet tweet : tweets) {
+            store.add(tweet);
+        }
+        return store;
+    }
+
+    /**
+     * Append a tweet.
+     *
+     * @param tweet
+     *            tweet to append. Requires its timestamp to be representable
+     *            as a long number of epoch nanoseconds (years 1678 to 2261).
+     */
+    public void add(Tweet tweet) {
+        add(tweet.getId(), tweet.getAuthor(), tweet.getText(), epochNanos(tweet.getTimestamp()));
+    }
+
+    /**
+     * Append a tweet given by its fields.
+     *
+     * @param id
+     *            unique identifier for the tweet
+     * @param author
+     *            Twitter username who wrote this tweet
+     * @param text
+     *            text of the tweet, copied into the arena
+     * @param epochNanos
+     *            timestamp in nanoseconds since the epoch
+     */
+    public void add(long id, String author, CharSequence text, long epochNanos) {
+        int textStart = reserve(text.length());
+        for (int i = 0; i < text.length(); ++i) {
+            arena[textStart + i] = text.charAt(i);
+        }
+        append(id, intern(author), textStart + text.length(), epochNanos);
+    }
+
+    /*
+     * Append a tweet whose text is a range of a char array, e.g. a parser's
+     * buffer, copied into the arena in bulk.
+     */
+    void add(long id, String author, char[] text, int from, int to, long epochNanos) {
+        int textStart = reserve(to - from);
+        System.arraycopy(text, from, arena, textStart, to - from);
+        append(id, intern(author), textStart + to - from, epochNanos);
+    }
+
+    /**
+     * Make a new TweetStore holding some of this store's tweets.
+     *
+     * @param rows
+     *            indexes of the tweets to keep, each in [0, size())
+     * @param count
+     *            number of entries of rows to use
+     * @return a new TweetStore whose tweet j is this store's tweet rows[j]
+     */
+    public TweetStore select(int[] rows, int count) {
+        long textLength = 0;
+        for (int j = 0; j < count; ++j) {
+            textLength += textOffsets[rows[j] + 1] - textOffsets[rows[j]];
+        }
+        TweetStore selected = new TweetStore(count, (int) Math.min(Integer.MAX_VALUE - 8, textLength));
+        for (int j = 0; j < count; ++j) {
+            int i = rows[j];
+            int length = textOffsets[i + 1] - textOffsets[i];
+            int textStart = selected.reserve(length);
+            System.arraycopy(arena, textOffsets[i], selected.arena, textStart, length);
+            selected.append(ids[i], selected.intern(authors.get(authorIds[i])), textStart + length, timestamps[i]);
+        }
+        return selected;
+    }
+
+    /**
+     * @return number of tweets in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return id of tweet i, for 0 <= i < size()
+     */
+    public long id(int i) {
+        checkIndex(i);
+        return ids[i];
+    }
+
+    /**
+     * @return timestamp of tweet i in nanoseconds since the epoch, for 0 <= i < size()
+     */
+    public long epochNanos(int i) {
+        checkIndex(i);
+        return timestamps[i];
+    }
+
+    /**
+     * @return dictionary id of the author of tweet i, for 0 <= i < size()
+     */
+    public int authorId(int i) {
+        checkIndex(i);
+        return authorIds[i];
+    }
+
+    /**
+     * @return number of distinct author spellings in the dictionary
+     */
+    public int authorCount() {
+        return authors.size();
+    }
+
+    /**
+     * @return author spelling with dictionary id authorId, for 0 <= authorId < authorCount()
+     */
+    public String authorName(int authorId) {
+        return authors.get(authorId);
+    }
+
+    /**
+     * @return offset in arena() of the first character of the text of tweet i
+     */
+    public int textStart(int i) {
+        checkIndex(i);
+        return textOffsets[i];
+    }
+
+    /**
+     * @return offset in arena() just past the text of tweet i
+     */
+    public int textEnd(int i) {
+        checkIndex(i);
+        return textOffsets[i + 1];
+    }
+
+    /**
+     * @return read-only view of the text arena holding the text of every
+     *         tweet; valid until the next add()
+     */
+    public CharBuffer arena() {
+        return CharBuffer.wrap(arena, 0, textOffsets[size]).asReadOnlyBuffer();
+    }
+
+    /*
+     * @return the text arena itself, for tokenizing in place within this
+     *         package; must not be modified, and valid until the next add()
+     */
+    char[] arenaChars() {
+        return arena;
+    }
+
+    /**
+     * @return tweet i as a Tweet object, for 0 <= i < size()
+     */
+    public Tweet get(int i) {
+        checkIndex(i);
+        return new Tweet(ids[i], authors.get(authorIds[i]),
+                new String(arena, textOffsets[i], textOffsets[i + 1] - textOffsets[i]), instant(timestamps[i]));
+    }
+
+    /**
+     * @return a new list of this store's tweets as Tweet objects, in order
+     */
+    public List<Tweet> toList() {
+        List<Tweet> tweets = new ArrayList<Tweet>(size);
+        for (int i = 0; i < size; ++i) {
+            tweets.add(get(i));
+        }
+        return tweets;
+    }
+
+    /**
+     * Convert an Instant to nanoseconds since the epoch.
+     *
+     * @param instant
+     *            instant between the years 1678 and 2261
+     * @return nanoseconds since 1970-01-01T00:00:00Z
+     * @throws ArithmeticException if instant is out of range
+     */
+    public static long epochNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+    }
+
+    /*
+     * Convert an Instant to epoch nanoseconds, clamping instants outside the
+     * range of a long to Long.MIN_VALUE or Long.MAX_VALUE.
+     */
+    static long saturatedEpochNanos(Instant instant) {
+        try {
+            return epochNanos(instant);
+        } catch (ArithmeticException e) {
+            return instant.getEpochSecond() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Convert nanoseconds since the epoch to an Instant.
+     *
+     * @param epochNanos
+     *            nanoseconds since 1970-01-01T00:00:00Z
+     * @return the corresponding instant
+     */
+    public static Instant instant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                Math.floorMod(epochNanos, NANOS_PER_SECOND));
+    }
+
+    /*
+     * Make room for one more tweet whose text has length characters.
+     *
+     * @return offset in the arena where the new tweet's text goes
+     */
+    private int reserve(int length) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            authorIds = Arrays.copyOf(authorIds, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+        }
+
+        int textStart = textOffsets[size];
+        long textEnd = (long) textStart + length;
+        if (textEnd > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("text arena is full");
+        }
+        if (textEnd > arena.length) {
+            arena = Arrays.copyOf(arena, (int) Math.min(Integer.MAX_VALUE - 8, Math.max(textEnd, 2L * arena.length)));
+        }
+        return textStart;
+    }
+
+    /*
+     * Record the columns of a tweet whose text was already copied to the arena
+     * just before textEnd.
+     */
+    private void append(long id, int authorId, int textEnd, long epochNanos) {
+        ids[size] = id;
+        timestamps[size] = epochNanos;
+        authorIds[size] = authorId;
+        textOffsets[size + 1] = textEnd;
+        ++size;
+    }
+
+    private int intern(String author) {
+        Integer id = authorDictionary.get(author);
+        if (id == null) {
+            id = authors.size();
+            authors.add(author);
+            authorDictionary.put(author, id);
+        }
+        return id;
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("tweet " + i + " of " + size);
+        }
+    }
+}
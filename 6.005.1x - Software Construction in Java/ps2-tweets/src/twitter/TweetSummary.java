@@ -0,0 +1,291 @@
+package twitter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * TweetSummary is a mutable partial result of Extract and SocialNetwork over
+ * one partition of a corpus, which can be merged with the summaries of the
+ * other partitions and sent between processes.
+ *
+ * A summary holds the timespan of its tweets, the users they mention, the
+ * hashtags map of Extract.getHashtags(), and the number of followers of each
+ * user in the mention graph, in which A follows B iff A mentions B. The
+ * timespan and mentions merge for any partitions; the hashtags map and
+ * follower counts merge correctly only if the partitions hold the tweets of
+ * disjoint sets of authors, compared case-insensitively, as when tweets are
+ * sharded by author, since then each author's tweets, and each follower
+ * edge, are in exactly one partition.
+ */
+public class TweetSummary {
+
+    private static final int MAGIC = 0x54534D31; // "TSM1"
+
+    private long tweets;
+    private Instant start;
+    private Instant end;
+    private final Set<String> mentions = new HashSet<String>();
+    private final Map<String, Set<String>> hashtags = new HashMap<String, Set<String>>();
+    private final Map<String, Integer> followers = new HashMap<String, Integer>();
+
+    /* Rep invariant:
+     *    tweets >= 0
+     *    start == null iff end == null iff tweets == 0; start <= end
+     *    mentions, the keys of followers and the sets of hashtags hold
+     *      usernames in lower case and hashtags as written
+     *    every value of followers is >= 0, and every username in mentions
+     *      is a key of followers
+     */
+
+    /**
+     * Make a summary of no tweets.
+     */
+    public TweetSummary() {
+    }
+
+    /**
+     * Summarize a partition of tweets: the map phase.
+     *
+     * @param tweets
+     *            tweets of the partition, with distinct ids, in the order of
+     *            the whole corpus; not modified by this method
+     * @return a summary of tweets
+     */
+    public static TweetSummary of(List<Tweet> tweets) {
+        TweetSummary summary = new TweetSummary();
+        Map<String, Set<String>> follows = new HashMap<String, Set<String>>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+
+        for (Tweet tweet : tweets) {
+            ++summary.tweets;
+            Instant timestamp = tweet.getTimestamp();
+            if (summary.start == null || timestamp.isBefore(summary.start)) {
+                summary.start = timestamp;
+            }
+            if (summary.end == null || timestamp.isAfter(summary.end)) {
+                summary.end = timestamp;
+            }
+
+            String author = CaseFold.fold(tweet.getAuthor());
+            Set<String> followed = follows.get(author);
+            if (followed == null) {
+                followed = new HashSet<String>();
+                follows.put(author, followed);
+            }
+
+            // the last tweet of each author spelling wins, as in Extract.getHashtags()
+            String text = tweet.getText();
+            Set<String> hashtagsByUser = new HashSet<String>();
+            tokenizer.reset(text);
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == TweetTokenizer.Kind.HASHTAG) {
+                    hashtagsByUser.add(text.substring(tokenizer.start(), tokenizer.end()));
+                } else if (tokenizer.kind() == TweetTokenizer.Kind.MENTION) {
+                    String user = CaseFold.fold(text, tokenizer.start(), tokenizer.end());
+                    summary.mentions.add(user);
+                    if (!user.equals(author)) {
+                        followed.add(user);
+                    }
+                }
+            }
+            summary.hashtags.put(tweet.getAuthor(), hashtagsByUser);
+        }
+
+        for (Map.Entry<String, Set<String>> entry : follows.entrySet()) {
+            summary.followers.putIfAbsent(entry.getKey(), 0);
+            for (String user : entry.getValue()) {
+                summary.followers.merge(user, 1, Integer::sum);
+            }
+        }
+        for (String user : summary.mentions) {
+            summary.followers.putIfAbsent(user, 0);
+        }
+        return summary;
+    }
+
+    /**
+     * Merge another partition's summary into this one: the merge phase.
+     *
+     * @param other
+     *            summary of tweets by authors, compared case-insensitively,
+     *            none of whom wrote the tweets of this summary; not modified
+     *            by this method
+     */
+    public void merge(TweetSummary other) {
+        if (other.tweets == 0) {
+            return;
+        }
+        if (tweets == 0 || other.start.isBefore(start)) {
+            start = other.start;
+        }
+        if (tweets == 0 || other.end.isAfter(end)) {
+            end = other.end;
+        }
+        tweets += other.tweets;
+        mentions.addAll(other.mentions);
+        hashtags.putAll(other.hashtags);
+        for (Map.Entry<String, Integer> entry : other.followers.entrySet()) {
+            followers.merge(entry.getKey(), entry.getValue(), Integer::sum);
+        }
+    }
+
+    /**
+     * @return number of tweets summarized
+     */
+    public long tweets() {
+        return tweets;
+    }
+
+    /**
+     * @return the same as Extract.getTimespan() of the tweets summarized
+     */
+    public Timespan getTimespan() {
+        if (tweets == 0) {
+            Instant date = Instant.now();
+            return new Timespan(date, date);
+        }
+        return new Timespan(start, end);
+    }
+
+    /**
+     * @return a new set equal to Extract.getMentionedUsers() of the tweets
+     *         summarized, in lower case
+     */
+    public Set<String> getMentionedUsers() {
+        return new HashSet<String>(mentions);
+    }
+
+    /**
+     * @return a new map equal to Extract.getHashtags() of the tweets
+     *         summarized, if they are in corpus order
+     */
+    public Map<String, Set<String>> getHashtags() {
+        Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+        for (Map.Entry<String, Set<String>> entry : hashtags.entrySet()) {
+            result.put(entry.getKey(), new HashSet<String>(entry.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * @return a new map from each author and mentioned user, in lower case,
+     *         to the number of distinct other authors who mention them; the
+     *         in-degrees of SocialNetwork.guessFollowsGraph(tweets, 1), which
+     *         takes no hashtag evidence
+     */
+    public Map<String, Integer> followerCounts() {
+        return new HashMap<String, Integer>(followers);
+    }
+
+    /**
+     * Find the users with the most followers in the mention graph.
+     *
+     * @param k
+     *            number of users wanted, >= 0
+     * @return the min(k, n) users of followerCounts() with the most
+     *         followers, in descending order of followers and then
+     *         alphabetically
+     */
+    public List<String> influencers(int k) {
+        String[] users = followers.keySet().toArray(new String[followers.size()]);
+        Arrays.sort(users);
+        int[] counts = new int[users.length];
+        for (int i = 0; i < users.length; ++i) {
+            counts[i] = followers.get(users[i]);
+        }
+        List<String> top = new ArrayList<String>();
+        for (int i : TopK.select(counts, k, Integer::compare)) {
+            top.add(users[i]);
+        }
+        return top;
+    }
+
+    /**
+     * Write the summary to a stream, to be read back by readFrom().
+     *
+     * @param out
+     *            stream to write to; not closed by this method
+     * @throws IOException if out cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeLong(tweets);
+        if (tweets > 0) {
+            data.writeLong(start.getEpochSecond());
+            data.writeInt(start.getNano());
+            data.writeLong(end.getEpochSecond());
+            data.writeInt(end.getNano());
+        }
+        data.writeInt(mentions.size());
+        for (String user : mentions) {
+            data.writeUTF(user);
+        }
+        data.writeInt(hashtags.size());
+        for (Map.Entry<String, Set<String>> entry : hashtags.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue().size());
+            for (String hashtag : entry.getValue()) {
+                data.writeUTF(hashtag);
+            }
+        }
+        data.writeInt(followers.size());
+        for (Map.Entry<String, Integer> entry : followers.entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue());
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a summary written by writeTo().
+     *
+     * @param in
+     *            stream to read from; not closed by this method
+     * @return the summary that was written
+     * @throws IOException if in cannot be read or does not hold a summary
+     */
+    public static TweetSummary readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("not a tweet summary");
+        }
+        TweetSummary summary = new TweetSummary();
+        summary.tweets = data.readLong();
+        if (summary.tweets < 0) {
+            throw new IOException("corrupt tweet summary");
+        }
+        if (summary.tweets > 0) {
+            summary.start = Instant.ofEpochSecond(data.readLong(), data.readInt());
+            summary.end = Instant.ofEpochSecond(data.readLong(), data.readInt());
+        }
+        for (int i = length(data); i > 0; --i) {
+            summary.mentions.add(data.readUTF());
+        }
+        for (int i = length(data); i > 0; --i) {
+            String author = data.readUTF();
+            Set<String> hashtagsByUser = new HashSet<String>();
+            for (int j = length(data); j > 0; --j) {
+                hashtagsByUser.add(data.readUTF());
+            }
+            summary.hashtags.put(author, hashtagsByUser);
+        }
+        for (int i = length(data); i > 0; --i) {
+            summary.followers.put(data.readUTF(), data.readInt());
+        }
+        return summary;
+    }
+
+    private static int length(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            throw new IOException("corrupt tweet summary");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,108 @@
+package twitter;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * TweetTask is a fork/join task that splits a range of a list of tweets in
+ * halves until each piece has at most a threshold number of tweets, computes
+ * each piece sequentially, and merges the partial results in list order.
+ *
+ * Subclasses compute a piece with the sequential Extract/Filter method, so the
+ * merged result is the sequential result as long as merge() respects the
+ * order of its arguments.
+ *
+ * @param <R> type of the (partial) result
+ */
+abstract class TweetTask<R> extends RecursiveTask<R> {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final List<Tweet> tweets;
+    protected final int from, to;
+    protected final int threshold;
+
+    /* Rep invariant:
+     *    0 <= from <= to <= tweets.size()
+     *    threshold >= 1
+     *    tweets is a RandomAccess list
+     */
+
+    /**
+     * Make a task over tweets[from, to).
+     *
+     * @param tweets
+     *            random-access list of tweets, not modified by this task.
+     * @param from
+     *            start of the range, inclusive.
+     * @param to
+     *            end of the range, exclusive.
+     * @param threshold
+     *            largest range computed without splitting, >= 1.
+     */
+    protected TweetTask(List<Tweet> tweets, int from, int to, int threshold) {
+        this.tweets = tweets;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Make a task of the same kind over a subrange.
+     *
+     * @return a new task over tweets[from, to)
+     */
+    protected abstract TweetTask<R> subtask(int from, int to);
+
+    /**
+     * Compute the result for a piece sequentially.
+     *
+     * @param piece
+     *            view of tweets[from, to), not modified by this method.
+     * @return the partial result for piece
+     */
+    protected abstract R computeDirectly(List<Tweet> piece);
+
+    /**
+     * Merge the partial results of two adjacent ranges.
+     *
+     * @param left
+     *            result for the earlier range, may be mutated and returned
+     * @param right
+     *            result for the later range, may be mutated and returned
+     * @return the result for the two ranges together
+     */
+    protected abstract R merge(R left, R right);
+
+    @Override protected R compute() {
+        if (to - from <= threshold) {
+            return computeDirectly(tweets.subList(from, to));
+        }
+
+        int middle = (from + to) >>> 1;
+        TweetTask<R> left = subtask(from, middle);
+        TweetTask<R> right = subtask(middle, to);
+
+        // run the left half elsewhere while this thread does the right half
+        left.fork();
+        R rightResult = right.compute();
+        R leftResult = left.join();
+        return merge(leftResult, rightResult);
+    }
+
+    /**
+     * Choose a piece size that gives each worker several pieces to balance load,
+     * without making pieces so small that merging dominates.
+     *
+     * @param size
+     *            number of tweets to process
+     * @param parallelism
+     *            number of workers, >= 1
+     * @return threshold for splitting, >= 1
+     */
+    static int threshold(int size, int parallelism) {
+        final int piecesPerWorker = 8;
+        final int minimumPiece = 1024;
+        return Math.max(minimumPiece, size / (parallelism * piecesPerWorker));
+    }
+}
@@ -0,0 +1,337 @@
+package twitter;
+
+/**
+ * TweetTokenizer walks the text of a tweet exactly once and reports the words,
+ * @-mentions and #hashtags it contains as offsets into that text.
+ *
+ * A word is a nonempty sequence of nonspace characters bounded by space
+ * characters and the ends of the text (as in Filter.containing()'s spec).
+ * A hashtag is a word that starts with "#" and has at least one more
+ * character; its token excludes the "#".
+ * A mention is "@" followed by a nonempty run of Twitter username characters
+ * (as in Tweet.getAuthor()'s spec), where the "@" is not immediately preceded
+ * by a username character; its token excludes the "@".
+ *
+ * Tokens are reported in text order of the words that contain them: first the
+ * word itself, then its hashtag (if any), then the mentions inside it.
+ *
+ * A tokenizer is mutable and may be reused for many texts with reset(), so
+ * that scanning a list of tweets allocates nothing per tweet. A CharSequence
+ * text is copied into a reusable buffer when reset; a char[] text is scanned
+ * in place. It is not safe for use by multiple threads.
+ */
+public class TweetTokenizer {
+
+    /**
+     * The kinds of token reported by a TweetTokenizer.
+     */
+    public enum Kind { WORD, HASHTAG, MENTION }
+
+    // the text being tokenized: text offset i is at chars[i - shift], for
+    // offsets in the region [origin, limit)
+    private char[] chars;
+    private int shift;
+    private int origin;
+    private int limit;
+
+    // reusable copy of CharSequence texts, so that scanning indexes an array
+    private char[] buffer = new char[256];
+    // the text, as a CharSequence for CaseFold
+    private final CharSequence text = new Text();
+
+    // start of the next word to scan
+    private int position;
+
+    // bounds of the current word, and where the mention scan within it resumes
+    private int wordStart, wordEnd, mentionScan;
+    private boolean hashtagPending;
+
+    // the current token
+    private Kind kind;
+    private int start, end;
+
+    /* Rep invariant:
+     *    0 <= wordStart <= mentionScan <= wordEnd <= position <= limit
+     *    chars[i - shift] is defined for all wordStart <= i < limit
+     *    if kind != null, 0 <= start < end <= limit
+     */
+
+    /**
+     * Make a tokenizer with no text; call reset() before next().
+     */
+    public TweetTokenizer() {
+        reset(buffer, 0, 0);
+    }
+
+    /**
+     * Start tokenizing a whole text.
+     *
+     * @param text
+     *            text to tokenize, not modified by this tokenizer.
+     * @return this tokenizer
+     */
+    public TweetTokenizer reset(CharSequence text) {
+        return reset(text, 0, text.length());
+    }
+
+    /**
+     * Start tokenizing the region [from, to) of a text. Characters outside the
+     * region are treated as the ends of the text.
+     *
+     * @param text
+     *            text to tokenize, not modified by this tokenizer. The region
+     *            is copied, so the text may change after this call.
+     * @param from
+     *            start of the region, inclusive.
+     * @param to
+     *            end of the region, exclusive. Requires from <= to <= text.length().
+     * @return this tokenizer
+     */
+    public TweetTokenizer reset(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length > buffer.length) {
+            buffer = new char[Math.max(length, 2 * buffer.length)];
+        }
+        if (text instanceof String) {
+            ((String) text).getChars(from, to, buffer, 0);
+        } else {
+            for (int i = 0; i < length; ++i) {
+                buffer[i] = text.charAt(from + i);
+            }
+        }
+        return reset(buffer, from, from, to);
+    }
+
+    /**
+     * Start tokenizing the region [from, to) of a character array, without
+     * copying it. Characters outside the region are treated as the ends of the
+     * text.
+     *
+     * @param text
+     *            text to tokenize, not modified by this tokenizer.
+     * @param from
+     *            start of the region, inclusive.
+     * @param to
+     *            end of the region, exclusive. Requires from <= to <= text.length.
+     * @return this tokenizer
+     */
+    public TweetTokenizer reset(char[] text, int from, int to) {
+        return reset(text, 0, from, to);
+    }
+
+    /*
+     * Start tokenizing text offsets [from, to), where offset i is at chars[i - shift].
+     */
+    private TweetTokenizer reset(char[] chars, int shift, int from, int to) {
+        this.chars = chars;
+        this.shift = shift;
+        this.origin = from;
+        this.limit = to;
+        this.position = from;
+        this.wordStart = this.wordEnd = this.mentionScan = from;
+        this.hashtagPending = false;
+        this.kind = null;
+        return this;
+    }
+
+    /**
+     * Advance to the next token.
+     *
+     * @return true if there is a current token, false if the text is exhausted
+     */
+    public boolean next() {
+        if (hashtagPending) {
+            hashtagPending = false;
+            setToken(Kind.HASHTAG, wordStart + 1, wordEnd);
+            return true;
+        }
+
+        if (nextMention()) {
+            return true;
+        }
+
+        if (nextWord()) {
+            setToken(Kind.WORD, wordStart, wordEnd);
+            hashtagPending = chars[wordStart - shift] == '#' && wordEnd - wordStart > 1;
+            return true;
+        }
+
+        kind = null;
+        return false;
+    }
+
+    /**
+     * @return the kind of the current token. Requires next() returned true.
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return offset of the first character of the current token in the text
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return offset just past the last character of the current token in the text
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return the current token as a new String. Allocates; prefer
+     *         start()/end() or matches() in inner loops.
+     */
+    public String token() {
+        return new String(chars, start - shift, end - start);
+    }
+
+    /**
+     * @return the current token as a new String, case-folded as by
+     *         CaseFold.fold()
+     */
+    public String foldedToken() {
+        return CaseFold.fold(text, start, end);
+    }
+
+    /*
+     * @return the text being tokenized, indexed by text offset, valid for
+     *         offsets in the region being tokenized until the next reset();
+     *         other offsets throw IndexOutOfBoundsException
+     */
+    CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Compare the current token with a string, ignoring case, without
+     * creating any copies.
+     *
+     * @param string
+     *            string to compare with
+     * @return true if the current token equals string, ignoring case
+     */
+    public boolean matches(String string) {
+        return string.length() == end - start && CaseFold.regionMatches(text, start, string, 0, end - start);
+    }
+
+    /**
+     * Check if letter is a valid letter in a Twitter username,
+     * as specified by Tweet.getAuthor() spec.
+     *
+     * @param letter
+     *          the letter to be checked
+     * @return true if the letter is valid, else false
+     */
+    public static boolean isUsernameChar(char letter) {
+        return (letter >= 'A' && letter <= 'Z') || (letter >= 'a' && letter <= 'z')
+                || (letter >= '0' && letter <= '9') || letter == '_' || letter == '-';
+    }
+
+    /*
+     * Find the next mention inside the current word, starting at mentionScan.
+     *
+     * @return true if a mention was found and made the current token
+     */
+    private boolean nextMention() {
+        for (int i = mentionScan; i < wordEnd; ++i) {
+            if (chars[i - shift] != '@') {
+                continue;
+            }
+
+            // ensure that the @ sign is not preceded by a valid username char
+            if (i > wordStart && isUsernameChar(chars[i - 1 - shift])) {
+                continue;
+            }
+
+            int userEnd = i + 1;
+            while (userEnd < wordEnd && isUsernameChar(chars[userEnd - shift])) {
+                ++userEnd;
+            }
+
+            if (userEnd > i + 1) {
+                mentionScan = userEnd;
+                setToken(Kind.MENTION, i + 1, userEnd);
+                return true;
+            }
+        }
+        mentionScan = wordEnd;
+        return false;
+    }
+
+    /*
+     * Move wordStart/wordEnd to the next word at or after position.
+     *
+     * @return true if there was another word
+     */
+    private boolean nextWord() {
+        int i = position;
+        while (i < limit && chars[i - shift] == ' ') {
+            ++i;
+        }
+        if (i == limit) {
+            position = limit;
+            return false;
+        }
+
+        // find the end of the word, noting its first @ so that the mention
+        // scan can skip words without one
+        int firstAt = -1;
+        int j = i;
+        for (char c; j < limit && (c = chars[j - shift]) != ' '; ++j) {
+            if (c == '@' && firstAt < 0) {
+                firstAt = j;
+            }
+        }
+
+        wordStart = i;
+        wordEnd = position = j;
+        mentionScan = firstAt < 0 ? j : firstAt;
+        return true;
+    }
+
+    private void setToken(Kind kind, int start, int end) {
+        this.kind = kind;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * The text being tokenized, as a CharSequence over chars indexed by text
+     * offset. length() is limit, so that offsets need no translation, but
+     * only offsets in the region [origin, limit) may be read: the chars
+     * before it are another text, or not there at all.
+     */
+    private class Text implements CharSequence {
+        @Override public int length() {
+            return limit;
+        }
+
+        @Override public char charAt(int index) {
+            checkRegion(index, index + 1);
+            return chars[index - shift];
+        }
+
+        @Override public CharSequence subSequence(int from, int to) {
+            checkRegion(from, to);
+            return new String(chars, from - shift, to - from);
+        }
+
+        /**
+         * @return the region being tokenized
+         */
+        @Override public String toString() {
+            return new String(chars, origin - shift, limit - origin);
+        }
+
+        private void checkRegion(int from, int to) {
+            if (from < origin || to > limit || from > to) {
+                throw new IndexOutOfBoundsException("[" + from + ", " + to + ") outside the region ["
+                        + origin + ", " + limit + ")");
+            }
+        }
+    }
+}
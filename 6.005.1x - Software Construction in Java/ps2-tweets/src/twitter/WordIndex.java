@@ -0,0 +1,255 @@
+package twitter;
+
+import java.util.*;
+
+/**
+ * WordIndex is a mutable, append-only inverted index from case-folded words
+ * to the positions of the tweets that contain them, which answers
+ * Filter.containing() as a union of posting lists instead of a scan.
+ *
+ * By default the index covers words as defined by Filter.containing(); it can
+ * instead cover the hashtags or @-mentions of the tweets, as reported by
+ * TweetTokenizer.
+ * Posting lists are delta-encoded varints (see PostingList), so a word that
+ * occurs in most tweets costs about one byte per tweet.
+ * A WordIndex is not safe for use by multiple threads while tweets are added
+ * or it is trimmed; its query methods only read it (the tokenizer it keeps is
+ * used only by add()), so once it is no longer modified and has been safely
+ * published, any number of threads may query it at once.
+ */
+public class WordIndex {
+
+    private final TweetTokenizer.Kind kind;
+    private final List<Tweet> tweets = new ArrayList<Tweet>();
+    private final Map<String, PostingList> postings = new HashMap<String, PostingList>();
+    private final TweetTokenizer tokenizer = new TweetTokenizer();
+
+    /* Rep invariant:
+     *    every key of postings is case-folded, as by CaseFold.fold()
+     *    postings.get(w) contains position p iff tweets.get(p) has a token of
+     *      this kind that folds to w
+     *    no posting list is empty
+     */
+
+    /**
+     * Make an empty index of words.
+     */
+    public WordIndex() {
+        this(TweetTokenizer.Kind.WORD);
+    }
+
+    /**
+     * Make an empty index of one kind of token.
+     *
+     * @param kind
+     *            kind of token to index: WORD, HASHTAG (without the "#") or
+     *            MENTION (without the "@")
+     */
+    public WordIndex(TweetTokenizer.Kind kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Make an index of the words in a list of tweets.
+     *
+     * @param tweets
+     *            tweets to index; not modified by this constructor, and later
+     *            changes to the list are not seen by the index.
+     */
+    public WordIndex(List<Tweet> tweets) {
+        this();
+        addAll(tweets);
+    }
+
+    /**
+     * Append a tweet to the index.
+     *
+     * @param tweet
+     *            tweet to append, with an id distinct from the indexed tweets.
+     */
+    public void add(Tweet tweet) {
+        int position = tweets.size();
+        tweets.add(tweet);
+
+        tokenizer.reset(tweet.getText());
+        while (tokenizer.next()) {
+            if (tokenizer.kind() != kind) {
+                continue;
+            }
+            String word = tokenizer.foldedToken();
+            PostingList list = postings.get(word);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(word, list);
+            }
+            list.add(position);
+        }
+    }
+
+    /**
+     * Append tweets to the index.
+     *
+     * @param tweets
+     *            tweets to append, in order, not modified by this method.
+     */
+    public void addAll(List<Tweet> tweets) {
+        for (Tweet tweet : tweets) {
+            add(tweet);
+        }
+    }
+
+    /**
+     * @return number of indexed tweets
+     */
+    public int size() {
+        return tweets.size();
+    }
+
+    /**
+     * @return the tweet at a position in indexing order, for 0 <= position < size()
+     */
+    public Tweet get(int position) {
+        return tweets.get(position);
+    }
+
+    /**
+     * @return number of distinct case-folded words in the index
+     */
+    public int vocabularySize() {
+        return postings.size();
+    }
+
+    /**
+     * Count the indexed tweets that contain a word, without decoding postings.
+     *
+     * @param word
+     *            word to look up, compared ignoring case
+     * @return number of indexed tweets containing word
+     */
+    public int frequency(String word) {
+        PostingList list = postings.get(CaseFold.fold(word));
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Find the indexed tweets that contain certain words.
+     *
+     * @param words
+     *            a list of words to search for, as in Filter.containing().
+     * @return all and only the indexed tweets that contain at least one of the
+     *         words, in the order they were indexed, as specified by
+     *         Filter.containing().
+     */
+    public List<Tweet> containing(List<String> words) {
+        int[] positions = positionsContaining(words);
+        List<Tweet> result = new ArrayList<Tweet>(positions.length);
+        for (int position : positions) {
+            result.add(tweets.get(position));
+        }
+        return result;
+    }
+
+    /**
+     * Find the positions of the indexed tweets that contain certain words.
+     *
+     * @param words
+     *            a list of words to search for, as in Filter.containing().
+     * @return new array of the positions (in indexing order, starting from 0)
+     *         of the tweets that contain at least one of the words, in
+     *         increasing order
+     */
+    public int[] positionsContaining(List<String> words) {
+        List<PostingList> lists = new ArrayList<PostingList>();
+        Set<String> seen = new HashSet<String>();
+        long total = 0;
+        for (String word : words) {
+            String folded = CaseFold.fold(word);
+            PostingList list = postings.get(folded);
+            if (list != null && seen.add(folded)) {
+                lists.add(list);
+                total += list.size();
+            }
+        }
+
+        if (lists.isEmpty()) {
+            return new int[0];
+        }
+        if (lists.size() == 1) {
+            int[] positions = new int[lists.get(0).size()];
+            lists.get(0).decode(positions, 0);
+            return positions;
+        }
+
+        // a bit set costs size()/64 words; sorting costs about total log total
+        if (total * 64 < tweets.size()) {
+            return sortedUnion(lists, (int) total);
+        }
+        return bitSetUnion(lists);
+    }
+
+    /**
+     * Estimate the heap retained by the index, excluding the tweets themselves.
+     *
+     * @return approximate bytes used by the dictionary, posting lists and the
+     *         list of tweet references
+     */
+    public long memoryBytes() {
+        final int referenceBytes = 8;
+        final int entryBytes = 32 + referenceBytes;
+        final int stringBytes = 24 + 16;
+
+        long bytes = (long) tweets.size() * referenceBytes;
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            bytes += entryBytes + referenceBytes + stringBytes + entry.getKey().length();
+            bytes += entry.getValue().memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Release unused capacity in the posting lists, e.g. after a bulk load.
+     */
+    public void trimToSize() {
+        for (PostingList list : postings.values()) {
+            list.trimToSize();
+        }
+    }
+
+    private static int[] sortedUnion(List<PostingList> lists, int total) {
+        int[] all = new int[total];
+        int offset = 0;
+        for (PostingList list : lists) {
+            offset = list.decode(all, offset);
+        }
+        Arrays.sort(all);
+
+        // remove tweets that contain more than one of the words
+        int count = 0;
+        for (int i = 0; i < all.length; ++i) {
+            if (count == 0 || all[count - 1] != all[i]) {
+                all[count++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, count);
+    }
+
+    private int[] bitSetUnion(List<PostingList> lists) {
+        long[] bits = new long[(tweets.size() + 63) >>> 6];
+        for (PostingList list : lists) {
+            list.mark(bits);
+        }
+
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        int[] positions = new int[count];
+        int k = 0;
+        for (int i = 0; i < bits.length; ++i) {
+            for (long word = bits[i]; word != 0; word &= word - 1) {
+                positions[k++] = (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,119 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class AuthorHashtagsTest {
+
+    /*
+     * Testing strategy for AuthorHashtags, ConcurrentAuthorHashtags and
+     * Extract.getAllHashtags()
+     *
+     * Partition the inputs as follows:
+     * tweets: 0, 1, > 1
+     * tweets per author: 1, > 1 (sets must accumulate, not be replaced)
+     * hashtags per tweet: 0, 1, > 1, repeated
+     * hashtag case: same, different (kept as written)
+     * merge: disjoint authors, shared authors and hashtags
+     * concurrency: 1 thread, many threads adding at once
+     *
+     * Results are compared with the union of each author's per-tweet sets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets
+    @Test
+    public void empty() {
+        AuthorHashtags hashtags = new AuthorHashtags();
+        assertEquals(0, hashtags.authorCount());
+        assertEquals(new HashMap<String, Set<String>>(), hashtags.toMap());
+        assertEquals(new HashSet<String>(), hashtags.hashtags("alyssa"));
+        assertEquals(new HashMap<String, Set<String>>(), Extract.getAllHashtags(new ArrayList<Tweet>()));
+    }
+
+    // covers 1 tweet, 0 hashtags
+    @Test
+    public void noHashtags() {
+        List<Tweet> tweets = Arrays.asList(new Tweet(1, "alyssa", "talk about rivest", d1));
+        Map<String, Set<String>> expected = new HashMap<String, Set<String>>();
+        expected.put("alyssa", new HashSet<String>());
+        assertEquals(expected, Extract.getAllHashtags(tweets));
+        assertEquals(Extract.getHashtags(tweets), Extract.getAllHashtags(tweets));
+    }
+
+    // covers > 1 tweets per author, > 1 and repeated hashtags, different case
+    @Test
+    public void accumulatesPerAuthor() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "#mit #hype #mit", d1),
+                new Tweet(2, "bbitdiddle", "#MIT rocks", d1),
+                new Tweet(3, "alyssa", "#rivest #MIT", d1),
+                new Tweet(4, "alyssa", "no tags", d1));
+
+        AuthorHashtags hashtags = new AuthorHashtags(tweets);
+        assertEquals(2, hashtags.authorCount());
+        assertEquals(4, hashtags.hashtagCount());
+        assertEquals(new HashSet<String>(Arrays.asList("mit", "hype", "rivest", "MIT")), hashtags.hashtags("alyssa"));
+        assertEquals(new HashSet<String>(Arrays.asList("MIT")), hashtags.hashtags("bbitdiddle"));
+        assertEquals(unionOfTweets(tweets), Extract.getAllHashtags(tweets));
+
+        // getHashtags() keeps only the last tweet of each author
+        assertEquals(new HashSet<String>(), Extract.getHashtags(tweets).get("alyssa"));
+    }
+
+    // covers many tweets, merge of shared authors and hashtags
+    @Test
+    public void mergeMatchesOneMap() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        AuthorHashtags merged = new AuthorHashtags(tweets.subList(0, 700));
+        merged.merge(new AuthorHashtags(tweets.subList(700, 2000)));
+        merged.merge(new AuthorHashtags());
+
+        assertEquals(unionOfTweets(tweets), merged.toMap());
+        assertEquals(100, merged.authorCount());
+        assertEquals(31, merged.hashtagCount());
+    }
+
+    // covers many threads adding at once
+    @Test
+    public void concurrentMatchesSequential() throws InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(20000);
+        ConcurrentAuthorHashtags hashtags = new ConcurrentAuthorHashtags(4);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; ++t) {
+            List<Tweet> piece = tweets.subList(t * 5000, (t + 1) * 5000);
+            threads.add(new Thread(() -> hashtags.addAll(piece)));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Map<String, Set<String>> expected = unionOfTweets(tweets);
+        assertEquals(expected, hashtags.toMap());
+        assertEquals(expected, hashtags.snapshot().toMap());
+        assertEquals(100, hashtags.authorCount());
+        assertEquals(expected.get("user7"), hashtags.hashtags("user7"));
+    }
+
+    private static Map<String, Set<String>> unionOfTweets(List<Tweet> tweets) {
+        Map<String, Set<String>> union = new HashMap<String, Set<String>>();
+        for (Tweet tweet : tweets) {
+            Set<String> set = union.computeIfAbsent(tweet.getAuthor(), author -> new HashSet<String>());
+            set.addAll(Extract.getHashtags(Arrays.asList(tweet)).get(tweet.getAuthor()));
+        }
+        return union;
+    }
+}
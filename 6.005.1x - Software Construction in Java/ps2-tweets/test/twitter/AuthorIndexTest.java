@@ -0,0 +1,81 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class AuthorIndexTest {
+
+    /*
+     * Testing strategy for AuthorIndex
+     *
+     * Partition the inputs as follows:
+     * indexed tweets: 0, 1, > 1
+     * username: absent, present with one spelling, present with several spellings,
+     *           queried in a different case
+     * batch usernames: none, distinct, equal ignoring case
+     *
+     * writtenBy() results are compared with Filter.writtenBy.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets, username absent
+    @Test
+    public void emptyIndex() {
+        AuthorIndex index = new AuthorIndex();
+
+        assertEquals(new ArrayList<Tweet>(), index.writtenBy("alyssa"));
+        assertEquals(0, index.positionsWrittenBy("alyssa").length);
+        assertTrue(index.authors().isEmpty());
+    }
+
+    // covers 1 tweet, queried in a different case
+    @Test
+    public void oneTweet() {
+        Tweet tweet = new Tweet(1, "Alyssa", "hi", d1);
+        AuthorIndex index = new AuthorIndex(Arrays.asList(tweet));
+
+        assertEquals(Arrays.asList(tweet), index.writtenBy("aLYSSA"));
+        assertEquals(new HashSet<String>(Arrays.asList("alyssa")), index.authors());
+    }
+
+    // covers > 1 tweets, several spellings of one author
+    @Test
+    public void manyTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        tweets.add(new Tweet(2000, "USER5", "shouting", d1));
+        AuthorIndex index = new AuthorIndex(tweets);
+
+        for (String username : Arrays.asList("user5", "User5", "user99", "nobody")) {
+            assertEquals(username, Filter.writtenBy(tweets, username), index.writtenBy(username));
+        }
+        assertEquals(11, index.frequency("user5"));
+        assertEquals(100, index.authors().size());
+    }
+
+    // covers batch usernames: none, distinct, equal ignoring case
+    @Test
+    public void batchWrittenBy() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        List<String> usernames = Arrays.asList("user1", "USER1", "user2", "nobody");
+        AuthorIndex index = new AuthorIndex(tweets);
+
+        Map<String, List<Tweet>> scanned = AuthorIndex.writtenBy(tweets, usernames);
+        Map<String, List<Tweet>> indexed = index.writtenBy(usernames);
+        assertEquals(usernames.size(), scanned.size());
+        for (String username : usernames) {
+            assertEquals(Filter.writtenBy(tweets, username), scanned.get(username));
+            assertEquals(Filter.writtenBy(tweets, username), indexed.get(username));
+        }
+        assertTrue(AuthorIndex.writtenBy(tweets, new ArrayList<String>()).isEmpty());
+    }
+}
@@ -0,0 +1,110 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+    /*
+     * Testing strategy for BloomFilter
+     *
+     * Partition the inputs as follows:
+     * insertions: 0, 1, many; fewer than expected, as expected
+     * false-positive rate: small, large
+     * string: added, added in another case, not added, empty;
+ *         BMP only, with supplementary characters
+     * stream: written filter, not a filter
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 insertions, empty string
+    @Test
+    public void empty() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        assertEquals(0, filter.insertions());
+        assertFalse(filter.mightContain("talk"));
+        assertFalse(filter.mightContain(""));
+        assertEquals(0.0, filter.expectedFalsePositiveRate(), 0.0);
+    }
+
+    // covers 1 insertion, added in another case
+    @Test
+    public void oneString() {
+        BloomFilter filter = new BloomFilter(1, 0.01);
+        filter.add("Caf\u00c9");
+        assertTrue(filter.mightContain("Caf\u00c9"));
+        assertTrue(filter.mightContain("caf\u00e9"));
+        assertTrue(filter.mightContain("CAF\u00c9"));
+        assertEquals(1, filter.insertions());
+    }
+
+    // covers added in another case, with supplementary characters
+    @Test
+    public void supplementaryCase() {
+        BloomFilter filter = new BloomFilter(1, 0.01);
+        filter.add("hi\uD801\uDC00");
+        assertTrue(filter.mightContain("HI\uD801\uDC28"));
+        assertEquals(BloomFilter.hash("\uD801\uDC28", 0, 2), BloomFilter.hash("x\uD801\uDC00", 1, 3));
+    }
+
+    // covers many insertions as expected, small and large false-positive rate
+    @Test
+    public void falsePositiveRate() {
+        for (double rate : new double[] { 0.01, 0.2 }) {
+            BloomFilter filter = new BloomFilter(10000, rate);
+            for (int i = 0; i < 10000; ++i) {
+                filter.add("word" + i);
+            }
+            for (int i = 0; i < 10000; ++i) {
+                assertTrue(filter.mightContain("WORD" + i));
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 100000; ++i) {
+                if (filter.mightContain("other" + i)) {
+                    ++falsePositives;
+                }
+            }
+            assertEquals(rate, falsePositives / 100000.0, rate / 3);
+            assertEquals(rate, filter.expectedFalsePositiveRate(), rate / 3);
+        }
+    }
+
+    // covers written filter, fewer insertions than expected
+    @Test
+    public void roundTrip() throws IOException {
+        BloomFilter filter = new BloomFilter(1000, 0.05);
+        filter.add("rivest");
+        filter.add("#mit");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        filter.writeTo(out);
+
+        BloomFilter read = BloomFilter.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(filter.bitSize(), read.bitSize());
+        assertEquals(filter.hashCount(), read.hashCount());
+        assertEquals(2, read.insertions());
+        assertTrue(read.mightContain("Rivest"));
+        assertTrue(read.mightContain("#MIT"));
+        assertFalse(read.mightContain("bitdiddle"));
+    }
+
+    // covers not a filter
+    @Test(expected=IOException.class)
+    public void notAFilter() throws IOException {
+        BloomFilter.readFrom(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 0, 0, 0, 1 }));
+    }
+
+    // covers bad arguments
+    @Test(expected=IllegalArgumentException.class)
+    public void badRate() {
+        new BloomFilter(10, 1.0);
+    }
+}
@@ -0,0 +1,122 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CaseFoldTest {
+
+    /*
+     * Testing strategy for CaseFold
+     *
+     * Partition the inputs as follows:
+     * text: empty, ASCII, Latin-1 and Greek, Turkish i forms, supplementary
+     *   characters, unpaired surrogates
+     * case: folded already, mixed
+     * region: whole text, proper region, region ending inside a surrogate pair
+     * caller: CaseFold directly, Filter and Extract on mixed-script tweets
+     *
+     * Non-ASCII characters are written as escapes, since sources are ASCII.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    // Greek capital sigma, small sigma, final sigma
+    private static final String SIGMAS = "\u03A3\u03C3\u03C2";
+    // Turkish dotted capital I, dotless small i
+    private static final String TURKISH_I = "\u0130\u0131";
+    // Deseret capital and small long I, both supplementary
+    private static final String DESERET_UPPER = "\uD801\uDC00";
+    private static final String DESERET_LOWER = "\uD801\uDC28";
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers empty, ASCII, folded already, mixed
+    @Test
+    public void foldAscii() {
+        assertEquals("", CaseFold.fold(""));
+        assertEquals("alyssa_p-42", CaseFold.fold("AlYsSa_P-42"));
+        String folded = "bitdiddle";
+        assertSame(folded, CaseFold.fold(folded));
+        assertEquals('z', CaseFold.fold('Z'));
+        assertEquals('@', CaseFold.fold('@'));
+    }
+
+    // covers Latin-1 and Greek, Turkish i forms
+    @Test
+    public void foldNonAscii() {
+        assertEquals("\u00E9t\u00E9", CaseFold.fold("\u00C9T\u00C9"));
+        assertEquals("\u03C3\u03C3\u03C3", CaseFold.fold(SIGMAS));
+        assertEquals("iiii", CaseFold.fold("Ii" + TURKISH_I));
+        // Kelvin sign folds to k
+        assertEquals("k", CaseFold.fold("\u212A"));
+        assertTrue(CaseFold.equals("\u0391\u039B\u03A6\u0391", "\u03B1\u03BB\u03C6\u03B1"));
+        assertFalse(CaseFold.equals("\u03B1", "a"));
+    }
+
+    // covers supplementary characters, unpaired surrogates, folded already
+    @Test
+    public void foldSupplementary() {
+        assertEquals(DESERET_LOWER + "x", CaseFold.fold(DESERET_UPPER + "X"));
+        assertEquals(0x10428, CaseFold.fold(0x10400));
+        assertTrue(CaseFold.equals(DESERET_UPPER, DESERET_LOWER));
+        String unpaired = "a\uDC00b\uD801";
+        assertSame(unpaired, CaseFold.fold(unpaired));
+        assertTrue(CaseFold.isFolded(unpaired, 0, unpaired.length()));
+        assertFalse(CaseFold.isFolded(DESERET_UPPER, 0, 2));
+    }
+
+    // covers proper region, region ending inside a surrogate pair
+    @Test
+    public void regions() {
+        String text = "say hi to @" + DESERET_UPPER + "BEN" + SIGMAS + " now";
+        int from = text.indexOf('@') + 1;
+        int to = text.indexOf(' ', from);
+        String folded = DESERET_LOWER + "ben\u03C3\u03C3\u03C3";
+        assertEquals(folded, CaseFold.fold(text, from, to));
+        assertEquals(folded.hashCode(), CaseFold.hashCode(text, from, to));
+        assertTrue(CaseFold.regionMatches(text, from, folded, 0, folded.length()));
+        assertFalse(CaseFold.regionMatches(text, from - 1, folded, 0, folded.length()));
+
+        // a region cut between the halves of a pair leaves the high half alone
+        assertEquals(DESERET_UPPER.substring(0, 1), CaseFold.fold(text, from, from + 1));
+        assertEquals(text.substring(from, from + 1).hashCode(), CaseFold.hashCode(text, from, from + 1));
+        assertEquals(0, CaseFold.hashCode(text, from, from));
+    }
+
+    // covers hashCode() agrees with fold() on every text
+    @Test
+    public void hashCodeAgreesWithFold() {
+        List<String> texts = Arrays.asList("", "Ab", SIGMAS, TURKISH_I, DESERET_UPPER + DESERET_LOWER,
+                                           "\u00DF\u1E9E", "x\uD801");
+        for (String text : texts) {
+            assertEquals(text, CaseFold.fold(text).hashCode(), CaseFold.hashCode(text, 0, text.length()));
+            assertEquals(text, CaseFold.fold(text).length(), text.length());
+        }
+    }
+
+    // covers Filter and Extract on mixed-script tweets
+    @Test
+    public void filterAndExtract() {
+        String nikos = "\u039D\u0399\u039A\u039F\u03A3";
+        String kalimera = "\u039A\u0391\u039B\u0397\u039C\u0395\u03A1\u0391";
+        Tweet greek = new Tweet(1, nikos, kalimera + " @Alyssa", d1);
+        Tweet turkish = new Tweet(2, "Y" + TURKISH_I + "LMAZ", "merhaba @ALYSSA @bitdiddle", d1.plusSeconds(1));
+        List<Tweet> tweets = Arrays.asList(greek, turkish);
+
+        assertEquals(Arrays.asList(greek), Filter.writtenBy(tweets, "\u03BD\u03B9\u03BA\u03BF\u03C2"));
+        assertEquals(Arrays.asList(turkish), Filter.writtenBy(tweets, "yiilmaz"));
+        assertEquals(Arrays.asList(greek),
+                     Filter.containing(tweets, Arrays.asList("\u03BA\u03B1\u03BB\u03B7\u03BC\u03B5\u03C1\u03B1")));
+        assertEquals(new HashSet<String>(Arrays.asList("alyssa", "bitdiddle")),
+                     Extract.getMentionedUsers(tweets));
+    }
+}
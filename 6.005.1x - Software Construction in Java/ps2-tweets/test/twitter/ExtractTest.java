@@ -256,6 +256,16 @@ public class ExtractTest {
         assertTrue(users.equals(answer));
     }
 
+    // covers tweets.size() = 2 (> 1), first tweet without any "@"
+    //        users.size() = 1
+    @Test
+    public void usersMentionAfterTweetWithoutAt() {
+        Tweet tweet2 = new Tweet(2, "bbitdiddle", "rivest talk in 30 minutes @hype", d2);
+
+        assertEquals(new HashSet<String>(Arrays.asList("hype")),
+                Extract.getMentionedUsers(Arrays.asList(tweet1, tweet2)));
+    }
+
     /*
      * END OF MY TESTS
      */
@@ -0,0 +1,152 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class FollowsGraphBuilderTest {
+
+    /*
+     * Testing strategy for FollowsGraphBuilder
+     *
+     * Partition the inputs as follows:
+     * tweets added: 0, 1, > 1
+     * added: one at a time, in batches
+     * window: none, some tweets expired, all tweets expired
+     * arrival order: by timestamp, out of order
+     * evidence: mention, common hashtag, both for the same edge
+     *
+     * Graphs are compared with SocialNetwork.guessFollowsGraph() of the live
+     * tweets, and influencers(k) with SocialNetwork.influencers(snapshot()).
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets, no window
+    @Test
+    public void noTweets() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+
+        assertEquals(0, builder.size());
+        assertEquals(0, builder.snapshot().userCount());
+        assertEquals(new ArrayList<String>(), builder.influencers(10));
+    }
+
+    // covers 1 tweet, mention
+    @Test
+    public void oneTweet() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+        builder.add(new Tweet(1, "Alyssa", "hi @Ben and @alyssa", d1));
+
+        assertEquals(1, builder.size());
+        assertEquals(1, builder.edgeCount());
+        assertEquals(1, builder.followerCount("BEN"));
+        assertEquals(Arrays.asList("ben", "alyssa"), builder.influencers(5));
+        FollowsGraphTest.assertSameFollows(SocialNetwork.guessFollowsGraph(Arrays.asList(
+                new Tweet(1, "Alyssa", "hi @Ben and @alyssa", d1))), builder.snapshot());
+    }
+
+    // covers > 1 tweets one at a time, no window, mention and hashtag for the same edge
+    @Test
+    public void manyTweetsOneAtATime() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+        for (Tweet tweet : tweets) {
+            builder.add(tweet);
+        }
+
+        FollowsGraph snapshot = builder.snapshot();
+        FollowsGraphTest.assertSameFollows(SocialNetwork.guessFollowsGraph(tweets), snapshot);
+        assertEquals(snapshot.edgeCount(), builder.edgeCount());
+        assertEquals(SocialNetwork.influencers(snapshot).subList(0, 10), builder.influencers(10));
+    }
+
+    // covers > 1 tweets in batches, snapshot unaffected by later tweets
+    @Test
+    public void batches() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        FollowsGraphBuilder builder = new FollowsGraphBuilder();
+        builder.addAll(tweets.subList(0, 500));
+        FollowsGraph first = builder.snapshot();
+        builder.addAll(tweets.subList(500, 1000));
+
+        FollowsGraphTest.assertSameFollows(SocialNetwork.guessFollowsGraph(tweets.subList(0, 500)), first);
+        FollowsGraphTest.assertSameFollows(SocialNetwork.guessFollowsGraph(tweets), builder.snapshot());
+    }
+
+    // covers window, some tweets expired, arrival by timestamp
+    @Test
+    public void windowExpiresOldTweets() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder(Duration.ofSeconds(15));
+        builder.add(new Tweet(1, "alyssa", "@ben #mit", d1));
+        builder.add(new Tweet(2, "carl", "#mit", d1.plusSeconds(10)));
+        assertEquals(1, builder.followerCount("ben"));
+        assertEquals(1, builder.followerCount("alyssa"));
+
+        builder.add(new Tweet(3, "dave", "@carl", d1.plusSeconds(20)));
+        assertEquals(2, builder.size());
+        assertEquals(0, builder.followerCount("ben"));
+        assertEquals(0, builder.followerCount("alyssa"));
+
+        Map<String, Set<String>> expected = new HashMap<String, Set<String>>();
+        expected.put("carl", new HashSet<String>());
+        expected.put("dave", new HashSet<String>(Arrays.asList("carl")));
+        assertEquals(expected, builder.snapshot().toMap());
+    }
+
+    // covers window, all tweets expired
+    @Test
+    public void windowExpiresAll() {
+        FollowsGraphBuilder builder = new FollowsGraphBuilder(Duration.ofMinutes(1));
+        builder.addAll(ParallelExtractTest.manyTweets(500));
+        builder.advanceTo(d1.plus(Duration.ofDays(30)));
+
+        assertEquals(0, builder.size());
+        assertEquals(0, builder.edgeCount());
+        assertEquals(0, builder.snapshot().userCount());
+        assertEquals(new ArrayList<String>(), builder.influencers(3));
+    }
+
+    // covers window, arrival by timestamp and out of order
+    @Test
+    public void windowMatchesRecompute() {
+        List<Tweet> unordered = ParallelExtractTest.manyTweets(3000);
+        List<Tweet> ordered = new ArrayList<Tweet>(unordered);
+        ordered.sort((a, b) -> a.getTimestamp().compareTo(b.getTimestamp()));
+        Duration window = Duration.ofSeconds(20000);
+
+        Instant newest = ordered.get(ordered.size() - 1).getTimestamp();
+        List<Tweet> live = new ArrayList<Tweet>();
+        for (Tweet tweet : unordered) {
+            if (tweet.getTimestamp().isAfter(newest.minus(window))) {
+                live.add(tweet);
+            }
+        }
+        Map<String, Set<String>> expected = SocialNetwork.guessFollowsGraph(live);
+
+        for (List<Tweet> tweets : Arrays.asList(ordered, unordered)) {
+            FollowsGraphBuilder builder = new FollowsGraphBuilder(window);
+            builder.addAll(tweets);
+
+            assertEquals(live.size(), builder.size());
+            FollowsGraph snapshot = builder.snapshot();
+            FollowsGraphTest.assertSameFollows(expected, snapshot);
+            assertEquals(SocialNetwork.influencers(snapshot), builder.influencers(snapshot.userCount()));
+        }
+    }
+
+    // covers window not positive
+    @Test(expected=IllegalArgumentException.class)
+    public void windowNotPositive() {
+        new FollowsGraphBuilder(Duration.ZERO);
+    }
+}
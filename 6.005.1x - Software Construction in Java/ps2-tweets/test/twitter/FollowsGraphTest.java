@@ -0,0 +1,135 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class FollowsGraphTest {
+
+    /*
+     * Testing strategy for FollowsGraph
+     *
+     * Partition the inputs as follows:
+     * users: 0, 1, > 1
+     * edges: none, duplicated, self-edge, in mixed case
+     * built by: Builder, fromMap(), fromTweets(), fromTweets() with
+     *   maxUsersPerHashtag below the users of a hashtag
+     * influencers: distinct follower counts, tied follower counts
+     *
+     * fromTweets() and influencers() are compared with the Map forms in
+     * SocialNetwork.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 users, built by Builder
+    @Test
+    public void emptyGraph() {
+        FollowsGraph graph = new FollowsGraph.Builder().build();
+
+        assertEquals(0, graph.userCount());
+        assertEquals(0, graph.edgeCount());
+        assertTrue(graph.toMap().isEmpty());
+        assertEquals(-1, graph.id("alyssa"));
+        assertEquals(new ArrayList<String>(), SocialNetwork.influencers(graph));
+    }
+
+    // covers 1 user, self-edge
+    @Test
+    public void oneUser() {
+        FollowsGraph graph = new FollowsGraph.Builder().addEdge("Alyssa", "alyssa").build();
+
+        assertEquals(1, graph.userCount());
+        assertEquals(0, graph.edgeCount());
+        assertEquals("alyssa", graph.username(0));
+        assertEquals(0, graph.id("ALYSSA"));
+        assertEquals(Collections.singletonMap("alyssa", new HashSet<String>()), graph.toMap());
+    }
+
+    // covers > 1 users, duplicated edges in mixed case
+    @Test
+    public void duplicateEdges() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("ben", "Alyssa")
+                .addEdge("BEN", "alyssa")
+                .addEdge("ben", "carl")
+                .addUser("dave")
+                .build();
+
+        assertEquals(4, graph.userCount());
+        assertEquals(2, graph.edgeCount());
+        int ben = graph.id("Ben");
+        assertEquals(2, graph.outDegree(ben));
+        assertArrayEquals(new int[] { graph.id("alyssa"), graph.id("carl") }, graph.follows(ben));
+        assertArrayEquals(new int[] { 1, 0, 1, 0 }, graph.inDegrees());
+    }
+
+    // covers built by fromMap()
+    @Test
+    public void fromMapRoundTrip() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        map.put("alyssa", new HashSet<String>(Arrays.asList("ben", "carl")));
+        map.put("ben", new HashSet<String>(Arrays.asList("alyssa")));
+        map.put("carl", new HashSet<String>());
+
+        assertEquals(map, FollowsGraph.fromMap(map).toMap());
+    }
+
+    // covers built by fromTweets(), mentions and common hashtags
+    @Test
+    public void fromTweetsSmall() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "Alyssa", "hi @Ben #mit", d1),
+                new Tweet(2, "alyssa", "and @carl", d1),
+                new Tweet(3, "dave", "#MIT rocks", d1));
+
+        assertSameFollows(SocialNetwork.guessFollowsGraph(tweets), FollowsGraph.fromTweets(tweets));
+    }
+
+    // covers built by fromTweets(), many users, maxUsersPerHashtag below the users of a hashtag
+    @Test
+    public void fromTweetsLarge() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+
+        FollowsGraph graph = FollowsGraph.fromTweets(tweets);
+        assertSameFollows(SocialNetwork.guessFollowsGraph(tweets), graph);
+        FollowsGraph capped = FollowsGraph.fromTweets(tweets, 10);
+        assertSameFollows(SocialNetwork.guessFollowsGraph(tweets, 10), capped);
+        assertTrue(capped.edgeCount() < graph.edgeCount());
+    }
+
+    // covers influencers: distinct and tied follower counts
+    @Test
+    public void influencers() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        map.put("alyssa", new HashSet<String>(Arrays.asList("ben", "carl")));
+        map.put("ben", new HashSet<String>(Arrays.asList("carl")));
+        map.put("dave", new HashSet<String>(Arrays.asList("ben", "carl")));
+        map.put("eve", new HashSet<String>());
+
+        List<String> influencers = SocialNetwork.influencers(FollowsGraph.fromMap(map));
+        assertEquals(Arrays.asList("carl", "ben", "alyssa", "dave", "eve"), influencers);
+        assertEquals(SocialNetwork.influencers(map), influencers);
+    }
+
+    /*
+     * Assert that graph has the same follows as map; users that are not keys
+     * of map must follow nobody.
+     */
+    static void assertSameFollows(Map<String, Set<String>> map, FollowsGraph graph) {
+        Map<String, Set<String>> graphMap = graph.toMap();
+        for (Map.Entry<String, Set<String>> entry : graphMap.entrySet()) {
+            Set<String> expected = map.containsKey(entry.getKey()) ? map.get(entry.getKey()) : new HashSet<String>();
+            assertEquals(entry.getKey(), expected, entry.getValue());
+        }
+        assertTrue(graphMap.keySet().containsAll(map.keySet()));
+    }
+}
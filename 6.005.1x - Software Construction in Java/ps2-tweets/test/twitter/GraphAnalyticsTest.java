@@ -0,0 +1,241 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class GraphAnalyticsTest {
+
+    /*
+     * Testing strategy for GraphAnalytics
+     *
+     * Partition the inputs as follows:
+     * graph: empty, one user, triangle, two rings joined by one edge,
+     *   edges in both directions, large random
+     * triangles: 0, 1, many; total and per user
+     * components: 1, > 1, isolated users
+     * communities: converged, iteration limit reached
+     * reachability: forwards, backwards; maxDepth 0, 1, > 1; user not in graph
+     * pool parallelism: 1, > 1
+     *
+     * The large random graph is compared with direct computations over sets
+     * of neighbours.
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers empty graph, 0 triangles
+    @Test
+    public void emptyGraph() {
+        FollowsGraph graph = new FollowsGraph.Builder().build();
+        GraphAnalytics analytics = new GraphAnalytics();
+        assertEquals(0, analytics.countTriangles(graph));
+        assertEquals(0, analytics.trianglesPerUser(graph).length);
+        assertEquals(0, analytics.components(graph).count());
+        assertEquals(0, analytics.communities(graph, 10).count());
+    }
+
+    // covers one user, isolated users, maxDepth 0
+    @Test
+    public void oneUser() {
+        FollowsGraph graph = new FollowsGraph.Builder().addUser("Alyssa").build();
+        GraphAnalytics analytics = new GraphAnalytics();
+        GraphAnalytics.Partition components = analytics.components(graph);
+        assertEquals(1, components.count());
+        assertEquals(0, components.group("ALYSSA"));
+        assertEquals(-1, components.group("bob"));
+        assertArrayEquals(new int[] { 0 }, analytics.distancesFrom(graph, "alyssa", 0));
+    }
+
+    // covers triangle, 1 triangle, edges in both directions, 1 component
+    @Test
+    public void triangle() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("a", "b").addEdge("b", "a").addEdge("b", "c").addEdge("a", "c").build();
+        GraphAnalytics analytics = new GraphAnalytics();
+        assertEquals(1, analytics.countTriangles(graph));
+        assertArrayEquals(new int[] { 1, 1, 1 }, analytics.trianglesPerUser(graph));
+        GraphAnalytics.Partition components = analytics.components(graph);
+        assertEquals(1, components.count());
+        assertEquals(Arrays.asList("a", "b", "c"), components.members(0));
+    }
+
+    // covers two rings joined by one edge, > 1 components, converged,
+    // forwards and backwards, maxDepth 1 and > 1
+    @Test
+    public void twoRings() {
+        FollowsGraph.Builder builder = new FollowsGraph.Builder();
+        List<String> left = Arrays.asList("a1", "a2", "a3", "a4", "a5");
+        List<String> right = Arrays.asList("b1", "b2", "b3", "b4", "b5");
+        for (List<String> ring : Arrays.asList(left, right)) {
+            for (String u : ring) {
+                for (String v : ring) {
+                    builder.addEdge(u, v);
+                }
+            }
+        }
+        builder.addEdge("a1", "b1").addUser("loner");
+        FollowsGraph graph = builder.build();
+        GraphAnalytics analytics = new GraphAnalytics();
+
+        // each ring is a 5-clique: 10 triangles each
+        assertEquals(20, analytics.countTriangles(graph));
+        assertEquals(6, analytics.trianglesPerUser(graph)[graph.id("a3")]);
+
+        GraphAnalytics.Partition components = analytics.components(graph);
+        assertEquals(2, components.count());
+        assertEquals(components.group("a2"), components.group("b5"));
+        assertEquals(1, components.size(components.group("loner")));
+
+        GraphAnalytics.Partition communities = analytics.communities(graph, 100);
+        assertEquals(3, communities.count());
+        assertEquals(left, communities.members(communities.group("a1")));
+        assertEquals(right, communities.members(communities.group("b1")));
+        assertTrue(communities.iterations() < 100);
+
+        int[] from = analytics.distancesFrom(graph, "a2", 2);
+        assertEquals(0, from[graph.id("a2")]);
+        assertEquals(1, from[graph.id("a1")]);
+        assertEquals(2, from[graph.id("b1")]);
+        assertEquals(-1, from[graph.id("b2")]);
+        assertEquals(-1, from[graph.id("loner")]);
+
+        int[] to = analytics.distancesTo(graph, "b3", 1);
+        assertEquals(1, to[graph.id("b1")]);
+        assertEquals(-1, to[graph.id("a1")]);
+        assertEquals(2, analytics.distancesTo(graph, "b3", 5)[graph.id("a1")]);
+    }
+
+    // covers iteration limit reached
+    @Test
+    public void iterationLimit() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("a", "b").addEdge("b", "c").addEdge("c", "d").addEdge("d", "e").build();
+        GraphAnalytics.Partition communities = new GraphAnalytics().communities(graph, 1);
+        assertEquals(1, communities.iterations());
+        assertTrue(communities.count() < 5);
+    }
+
+    // covers user not in graph
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownUser() {
+        FollowsGraph graph = new FollowsGraph.Builder().addEdge("a", "b").build();
+        new GraphAnalytics().distancesFrom(graph, "c", 3);
+    }
+
+    // covers large random, many triangles, parallelism 1 and > 1
+    @Test
+    public void matchesDirectComputation() {
+        FollowsGraph graph = randomGraph(20_000, 80_000, 3);
+        Map<Integer, Set<Integer>> neighbours = neighbours(graph);
+
+        int[] expectedTriangles = new int[graph.userCount()];
+        long expectedTotal = 0;
+        for (int u = 0; u < graph.userCount(); ++u) {
+            for (int v : neighbours.get(u)) {
+                for (int w : neighbours.get(v)) {
+                    if (u < v && v < w && neighbours.get(u).contains(w)) {
+                        ++expectedTotal;
+                        ++expectedTriangles[u];
+                        ++expectedTriangles[v];
+                        ++expectedTriangles[w];
+                    }
+                }
+            }
+        }
+        assertTrue(expectedTotal > 0);
+
+        String source = graph.username(7);
+        int[] expectedDistances = breadthFirst(graph, 7, 3);
+
+        for (int threads : new int[] { 1, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                GraphAnalytics analytics = new GraphAnalytics(pool);
+                assertEquals(expectedTotal, analytics.countTriangles(graph));
+                assertArrayEquals(expectedTriangles, analytics.trianglesPerUser(graph));
+
+                GraphAnalytics.Partition components = analytics.components(graph);
+                for (int u = 0; u < graph.userCount(); ++u) {
+                    for (int v : neighbours.get(u)) {
+                        assertEquals(components.group(u), components.group(v));
+                    }
+                }
+                GraphAnalytics.Partition communities = analytics.communities(graph, 50);
+                assertTrue(communities.count() >= components.count());
+                // every community lies within one component
+                int[] componentOf = new int[communities.count()];
+                Arrays.fill(componentOf, -1);
+                for (int u = 0; u < graph.userCount(); ++u) {
+                    int c = communities.group(u);
+                    if (componentOf[c] < 0) {
+                        componentOf[c] = components.group(u);
+                    }
+                    assertEquals(componentOf[c], components.group(u));
+                }
+                assertEquals(communities.count(), analytics.communities(graph, 50).count());
+
+                assertArrayEquals(expectedDistances, analytics.distancesFrom(graph, source, 3));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /*
+     * @return a random graph with clusters, so that it has triangles
+     */
+    static FollowsGraph randomGraph(int users, int edges, long seed) {
+        Random random = new Random(seed);
+        FollowsGraph.Builder builder = new FollowsGraph.Builder();
+        for (int u = 0; u < users; ++u) {
+            builder.addUser(TweetGenerator.author(u));
+        }
+        for (int e = 0; e < edges; ++e) {
+            int u = random.nextInt(users);
+            int v = random.nextInt(10) < 8 ? (u / 20) * 20 + random.nextInt(20) : random.nextInt(users);
+            builder.addEdge(TweetGenerator.author(u), TweetGenerator.author(Math.min(v, users - 1)));
+        }
+        return builder.build();
+    }
+
+    private static Map<Integer, Set<Integer>> neighbours(FollowsGraph graph) {
+        Map<Integer, Set<Integer>> neighbours = new HashMap<Integer, Set<Integer>>();
+        for (int u = 0; u < graph.userCount(); ++u) {
+            neighbours.put(u, new HashSet<Integer>());
+        }
+        for (int u = 0; u < graph.userCount(); ++u) {
+            for (int v : graph.follows(u)) {
+                neighbours.get(u).add(v);
+                neighbours.get(v).add(u);
+            }
+        }
+        return neighbours;
+    }
+
+    private static int[] breadthFirst(FollowsGraph graph, int source, int maxDepth) {
+        int[] distances = new int[graph.userCount()];
+        Arrays.fill(distances, -1);
+        distances[source] = 0;
+        Deque<Integer> queue = new ArrayDeque<Integer>(Arrays.asList(source));
+        while (!queue.isEmpty()) {
+            int u = queue.removeFirst();
+            if (distances[u] == maxDepth) {
+                continue;
+            }
+            for (int v : graph.follows(u)) {
+                if (distances[v] < 0) {
+                    distances[v] = distances[u] + 1;
+                    queue.addLast(v);
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,282 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IngestionServiceTest {
+
+    /*
+     * Testing strategy for IngestionService and TweetFileTail
+     *
+     * Partition the inputs as follows:
+     * producers: none, 1, > 1 threads
+     * tweets published: 0, 1 batch, many batches merged into segments
+     * snapshot: taken before more tweets are published, after
+     * queue: never full, full so that offer() times out
+     * service: open, closed, closed while producers submit, failed while
+ *   producers wait on a full queue
+     * tail: file missing, complete lines, partly written last line, resumed
+     *   from an offset, polled by a background thread
+     *
+     * Snapshot queries are compared with Filter and Extract on the tweets of
+     * the snapshot, which must be those submitted, in some order.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers no producers, 0 tweets published
+    @Test
+    public void empty() throws InterruptedException {
+        try (IngestionService service = new IngestionService(16, 4)) {
+            assertTrue(service.awaitPublished(1, TimeUnit.SECONDS));
+            IngestionService.Snapshot snapshot = service.snapshot();
+            assertEquals(0, snapshot.size());
+            assertEquals(0, snapshot.segmentCount());
+            assertEquals(new ArrayList<Tweet>(), snapshot.writtenBy("alyssa"));
+            assertEquals(new HashSet<String>(), snapshot.getMentionedUsers());
+            assertEquals(0, service.queueDepth());
+            assertEquals(0, service.lagNanos());
+        }
+    }
+
+    // covers 1 producer, many batches merged, snapshot taken before and after
+    @Test
+    public void oneProducer() throws InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        try (IngestionService service = new IngestionService(64, 16)) {
+            for (Tweet tweet : tweets.subList(0, 300)) {
+                service.submit(tweet);
+            }
+            assertTrue(service.awaitPublished(10, TimeUnit.SECONDS));
+            IngestionService.Snapshot before = service.snapshot();
+
+            for (Tweet tweet : tweets.subList(300, 1000)) {
+                service.submit(tweet);
+            }
+            assertTrue(service.awaitPublished(10, TimeUnit.SECONDS));
+            IngestionService.Snapshot after = service.snapshot();
+
+            // one producer, so the tweets are published in order
+            assertEquals(tweets.subList(0, 300), before.tweets());
+            assertEquals(tweets, after.tweets());
+            assertEquals(1000, service.published());
+            assertEquals(1000, service.submitted());
+            assertTrue(service.batches() >= 1000 / 16);
+            assertTrue(after.segmentCount() + " segments", after.segmentCount() <= 2 * 11);
+            assertMatches(before);
+            assertMatches(after);
+        }
+    }
+
+    // covers > 1 producers
+    @Test
+    public void manyProducers() throws InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        try (IngestionService service = new IngestionService(32, 8)) {
+            List<Thread> producers = new ArrayList<Thread>();
+            for (int p = 0; p < 4; ++p) {
+                List<Tweet> share = tweets.subList(p * 500, (p + 1) * 500);
+                producers.add(new Thread(() -> {
+                    try {
+                        for (Tweet tweet : share) {
+                            service.submit(tweet);
+                        }
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }));
+            }
+            for (Thread producer : producers) {
+                producer.start();
+            }
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            assertTrue(service.awaitPublished(10, TimeUnit.SECONDS));
+
+            IngestionService.Snapshot snapshot = service.snapshot();
+            assertEquals(new HashSet<Tweet>(tweets), new HashSet<Tweet>(snapshot.tweets()));
+            assertEquals(2000, snapshot.size());
+            assertEquals(0, service.queueDepth());
+            assertEquals(0, service.lagNanos());
+            assertMatches(snapshot);
+        }
+    }
+
+    // covers queue full so that offer() times out
+    @Test
+    public void backPressure() throws InterruptedException {
+        IngestionService service = new IngestionService(1, 1);
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(200);
+        int accepted = 0;
+        for (Tweet tweet : tweets) {
+            if (service.offer(tweet, 0, TimeUnit.MILLISECONDS)) {
+                ++accepted;
+            }
+        }
+        assertTrue(service.queueDepth() <= 1);
+        assertEquals(accepted, service.submitted());
+        service.close();
+        assertEquals(accepted, service.published());
+        assertEquals(accepted, service.snapshot().size());
+    }
+
+    // covers service closed
+    @Test(expected=IllegalStateException.class)
+    public void submitAfterClose() throws InterruptedException {
+        IngestionService service = new IngestionService(4, 4);
+        service.close();
+        service.submit(new Tweet(1, "alyssa", "hi", d1));
+    }
+
+    // covers closed while > 1 producers submit
+    @Test
+    public void closeWhileSubmitting() throws InterruptedException {
+        for (int round = 0; round < 20; ++round) {
+            IngestionService service = new IngestionService(8, 4);
+            List<Thread> producers = new ArrayList<Thread>();
+            for (int p = 0; p < 4; ++p) {
+                int first = p * 1_000_000;
+                producers.add(new Thread(() -> {
+                    try {
+                        for (int i = first; ; ++i) {
+                            service.submit(new Tweet(i, "alyssa", "hi @bob", d1));
+                        }
+                    } catch (IllegalStateException | InterruptedException e) {
+                        // closed
+                    }
+                }));
+            }
+            for (Thread producer : producers) {
+                producer.start();
+            }
+            Thread.sleep(5);
+            service.close();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+            // every tweet accepted before close() is published by it
+            assertEquals(service.submitted(), service.published());
+            assertEquals(service.submitted(), service.snapshot().size());
+        }
+    }
+
+    // covers failed while producers wait on a full queue
+    @Test(timeout=10000)
+    public void failureReleasesProducers() throws InterruptedException {
+        IngestionService service = new IngestionService(1, 1);
+        // a tweet without text makes indexing throw, which kills the worker
+        service.submit(new Tweet(1, "alyssa", null, d1));
+        try {
+            for (int i = 2; ; ++i) {
+                service.submit(new Tweet(i, "alyssa", "hi", d1));
+            }
+        } catch (IllegalStateException e) {
+            assertNotNull(e.getCause());
+        }
+        service.close();
+    }
+
+    // covers tail: file missing, complete lines, partly written last line, resumed
+    @Test
+    public void tailPolled() throws IOException, InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(50);
+        Path file = folder.getRoot().toPath().resolve("live.ndjson");
+        String first = TweetLoaderTest.toNdjson(tweets.subList(0, 20));
+        String rest = TweetLoaderTest.toNdjson(tweets.subList(20, 50));
+        int half = rest.length() / 2;
+
+        try (IngestionService service = new IngestionService(64, 8)) {
+            TweetFileTail tail = new TweetFileTail(file, service);
+            assertEquals(0, tail.poll());
+
+            append(file, first + rest.substring(0, half));
+            int polled = tail.poll();
+            assertTrue(polled >= 20 && polled < 50);
+            long offset = tail.offset();
+            assertEquals(TweetLoaderTest.toNdjson(tweets.subList(0, polled)).length(), offset);
+
+            append(file, rest.substring(half));
+            assertEquals(50 - polled, tail.poll());
+            assertEquals(0, tail.poll());
+            assertEquals(50, tail.tweets());
+            assertTrue(service.awaitPublished(10, TimeUnit.SECONDS));
+            assertEquals(tweets, service.snapshot().tweets());
+
+            // a new tail resumed from the saved offset reads only the rest
+            try (IngestionService resumed = new IngestionService(64, 8)) {
+                assertEquals(50 - polled, new TweetFileTail(file, resumed, offset).poll());
+                assertTrue(resumed.awaitPublished(10, TimeUnit.SECONDS));
+                assertEquals(tweets.subList(polled, 50), resumed.snapshot().tweets());
+            }
+        }
+    }
+
+    // covers tail polled by a background thread, > 1 producers
+    @Test
+    public void tailStarted() throws IOException, InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(300);
+        Path file = folder.getRoot().toPath().resolve("live.ndjson");
+        try (IngestionService service = new IngestionService(16, 4);
+             TweetFileTail tail = new TweetFileTail(file, service)) {
+            tail.start(1);
+            for (Tweet tweet : tweets.subList(0, 100)) {
+                service.submit(tweet);
+            }
+            for (int i = 100; i < 300; i += 50) {
+                append(file, TweetLoaderTest.toNdjson(tweets.subList(i, i + 50)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (tail.tweets() < 200 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertNull(tail.failure());
+            assertEquals(200, tail.tweets());
+            assertTrue(service.awaitPublished(10, TimeUnit.SECONDS));
+            assertEquals(new HashSet<Tweet>(tweets), new HashSet<Tweet>(service.snapshot().tweets()));
+        }
+    }
+
+    /*
+     * Assert that the queries of a snapshot agree with Filter and Extract.
+     */
+    private static void assertMatches(IngestionService.Snapshot snapshot) {
+        List<Tweet> tweets = new ArrayList<Tweet>(snapshot.tweets());
+        assertEquals(Filter.writtenBy(tweets, "user7"), snapshot.writtenBy("USER7"));
+        assertEquals(Filter.containing(tweets, Arrays.asList("rivest", "talk")),
+                     snapshot.containing(Arrays.asList("rivest", "talk")));
+        assertEquals(Filter.containing(tweets, Arrays.asList("#tag3")),
+                     snapshot.containing(Arrays.asList("#tag3")));
+        Timespan timespan = new Timespan(d1.plusSeconds(1000), d1.plusSeconds(30000));
+        assertEquals(Filter.inTimespan(tweets, timespan), snapshot.inTimespan(timespan));
+        TweetQuery query = TweetQuery.and(TweetQuery.taggedWith("tag5"), TweetQuery.mentioning("user9"));
+        assertEquals(query.filter(tweets), snapshot.query(query));
+        assertEquals(query.filter(tweets).size(), snapshot.count(query));
+        assertEquals(Extract.getMentionedUsers(tweets), snapshot.getMentionedUsers());
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+    }
+}
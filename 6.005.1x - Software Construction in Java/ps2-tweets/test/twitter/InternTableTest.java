@@ -0,0 +1,192 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class InternTableTest {
+
+    /*
+     * Testing strategy for InternTable, IdSetMap and the id forms of Extract
+     * and SocialNetwork
+     *
+     * Partition the inputs as follows:
+     * table: ignoring case, exact; empty, nonempty; private, shared
+     * name: new, seen, seen in another case, region of a longer text
+     * id: valid, negative, too large
+     * map: no keys, keys with empty sets, keys with duplicate values
+     * maxUsersPerHashtag: 0, below the users of a hashtag, unbounded
+     * threads: 1, > 1
+     *
+     * The id forms of Extract and SocialNetwork are compared with the String
+     * forms on the same tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers ignoring case, empty, new, seen, seen in another case, region
+    @Test
+    public void usernames() {
+        InternTable table = new InternTable(true);
+        assertTrue(table.ignoresCase());
+        assertEquals(0, table.size());
+        assertEquals(-1, table.id("alyssa"));
+
+        int alyssa = table.intern("Alyssa");
+        assertEquals(0, alyssa);
+        assertEquals(alyssa, table.intern("ALYSSA"));
+        assertEquals(alyssa, table.intern("hi @alyssa!", 4, 10));
+        assertEquals(1, table.intern("bitdiddle"));
+        assertEquals("alyssa", table.name(alyssa));
+        assertEquals(alyssa, table.id("aLySsA"));
+        assertEquals(2, table.size());
+    }
+
+    // covers exact, seen in another case
+    @Test
+    public void hashtags() {
+        InternTable table = new InternTable(false);
+        assertFalse(table.ignoresCase());
+        int lower = table.intern("mit");
+        int upper = table.intern("#MIT", 1, 4);
+        assertNotEquals(lower, upper);
+        assertEquals("MIT", table.name(upper));
+        assertEquals(-1, table.id("Mit"));
+    }
+
+    // covers negative id
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void negativeId() {
+        new InternTable(true).name(-1);
+    }
+
+    // covers too large id
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void unknownId() {
+        InternTable table = new InternTable(true);
+        table.intern("alyssa");
+        table.name(1);
+    }
+
+    // covers shared, > 1 threads
+    @Test
+    public void manyThreads() throws InterruptedException {
+        InternTable table = InternTable.USERNAMES;
+        int[][] ids = new int[4][500];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < ids.length; ++t) {
+            int[] mine = ids[t];
+            boolean upper = t % 2 == 0;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < mine.length; ++i) {
+                    String name = "internTableTest" + i;
+                    mine[i] = table.intern(upper ? name.toUpperCase(Locale.ROOT) : name);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Set<Integer> distinct = new HashSet<Integer>();
+        for (int i = 0; i < 500; ++i) {
+            for (int[] mine : ids) {
+                assertEquals(ids[0][i], mine[i]);
+            }
+            assertEquals("interntabletest" + i, table.name(ids[0][i]));
+            distinct.add(ids[0][i]);
+        }
+        assertEquals(500, distinct.size());
+    }
+
+    // covers no keys
+    @Test
+    public void emptyMap() {
+        IdSetMap map = IdSetMap.build(new IntList(), new IntList(), new IntList());
+        assertEquals(0, map.size());
+        assertEquals(0, map.valueCount());
+        assertFalse(map.containsKey(0));
+        assertArrayEquals(new int[0], map.get(0));
+    }
+
+    // covers keys with empty sets, duplicate values
+    @Test
+    public void buildMap() {
+        IntList keys = new IntList();
+        keys.add(9);
+        keys.add(2);
+        IntList sources = new IntList();
+        IntList destinations = new IntList();
+        int[][] pairs = { {5, 1}, {2, 7}, {5, 0}, {5, 1}, {2, 7} };
+        for (int[] pair : pairs) {
+            sources.add(pair[0]);
+            destinations.add(pair[1]);
+        }
+        IdSetMap map = IdSetMap.build(keys, sources, destinations);
+        assertArrayEquals(new int[] { 2, 5, 9 }, map.keys());
+        assertArrayEquals(new int[] { 0, 1 }, map.get(5));
+        assertArrayEquals(new int[] { 7 }, map.get(2));
+        assertArrayEquals(new int[0], map.get(9));
+        assertTrue(map.containsKey(9));
+        assertTrue(map.contains(5, 1));
+        assertFalse(map.contains(9, 1));
+        assertFalse(map.contains(3, 1));
+        assertEquals(3, map.valueCount());
+    }
+
+    // covers id forms of Extract and SocialNetwork agree with String forms
+    @Test
+    public void agreesWithStringForms() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "talk to @Bitdiddle about #mit", d1),
+                new Tweet(2, "BITDIDDLE", "#mit #hype with @ALYSSA and @ben", d1.plusSeconds(1)),
+                new Tweet(3, "ben", "nothing here, alyssa@mit.edu", d1.plusSeconds(2)),
+                new Tweet(4, "Alyssa", "#Hype is @alyssa herself", d1.plusSeconds(3)));
+        InternTable usernames = new InternTable(true);
+        InternTable hashtags = new InternTable(false);
+
+        int[] mentioned = Extract.getMentionedUsers(tweets, usernames);
+        Set<String> names = new HashSet<String>();
+        for (int i = 0; i < mentioned.length; ++i) {
+            assertTrue(i == 0 || mentioned[i - 1] < mentioned[i]);
+            names.add(usernames.name(mentioned[i]));
+        }
+        assertEquals(Extract.getMentionedUsers(tweets), names);
+
+        IdSetMap graph = SocialNetwork.guessFollowsGraph(tweets, usernames);
+        assertEquals(SocialNetwork.guessFollowsGraph(tweets), graph.toMap(usernames, usernames));
+
+        IdSetMap authorHashtags = Extract.getAllHashtags(tweets, usernames, hashtags);
+        Map<String, Set<String>> expected = new HashMap<String, Set<String>>();
+        expected.put("alyssa", new HashSet<String>(Arrays.asList("mit", "Hype")));
+        expected.put("bitdiddle", new HashSet<String>(Arrays.asList("mit", "hype")));
+        expected.put("ben", new HashSet<String>());
+        assertEquals(expected, authorHashtags.toMap(usernames, hashtags));
+    }
+
+    // covers id forms on many tweets, maxUsersPerHashtag 0 and below the users of a hashtag
+    @Test
+    public void agreesOnManyTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        InternTable usernames = new InternTable(true);
+        IdSetMap graph = SocialNetwork.guessFollowsGraph(tweets, usernames);
+        assertEquals(SocialNetwork.guessFollowsGraph(tweets), graph.toMap(usernames, usernames));
+        assertTrue(graph.memoryBytes() > 0);
+
+        for (int max : new int[] { 0, 10 }) {
+            IdSetMap capped = SocialNetwork.guessFollowsGraph(tweets, usernames, max);
+            assertEquals(SocialNetwork.guessFollowsGraph(tweets, max), capped.toMap(usernames, usernames));
+            assertTrue(capped.valueCount() < graph.valueCount());
+        }
+    }
+}
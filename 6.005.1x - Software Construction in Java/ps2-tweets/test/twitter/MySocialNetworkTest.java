@@ -89,4 +89,72 @@ public class MySocialNetworkTest {
 
         assertEquals(map, SocialNetwork.guessFollowsGraph(tweets));
     }
+
+    /*
+     * Testing strategy for SocialNetwork.guessFollowsGraph(tweets, maxUsersPerHashtag)
+     * 
+     * Partition the inputs as follows:
+     * users of a hashtag: < maxUsersPerHashtag, = maxUsersPerHashtag, > maxUsersPerHashtag
+     * authors: one spelling, two spellings of the same user
+     */
+    
+    // covers users of #big > maxUsersPerHashtag, users of #small = maxUsersPerHashtag
+    @Test
+    public void followsPopularHashtagSkipped() {
+        Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "#big #small", d1),
+                new Tweet(2, "tyrell", "#big #small", d1),
+                new Tweet(3, "elliott", "#big", d1));
+        
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        map.put("alyssa", new HashSet<String>(Arrays.asList("tyrell")));
+        map.put("tyrell", new HashSet<String>(Arrays.asList("alyssa")));
+        map.put("elliott", new HashSet<String>());
+        
+        assertEquals(map, SocialNetwork.guessFollowsGraph(tweets, 2));
+    }
+    
+    // covers users of a hashtag < maxUsersPerHashtag, two spellings of the same user
+    @Test
+    public void followsMixedCaseAuthors() {
+        Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "Alyssa", "#mit", d1),
+                new Tweet(2, "alyssa", "#mit", d1),
+                new Tweet(3, "DARLENE", "#mit", d1));
+        
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        map.put("alyssa", new HashSet<String>(Arrays.asList("darlene")));
+        map.put("darlene", new HashSet<String>(Arrays.asList("alyssa")));
+        
+        assertEquals(map, SocialNetwork.guessFollowsGraph(tweets, 10));
+        assertEquals(map, SocialNetwork.guessFollowsGraph(tweets));
+    }
+    
+    // covers influencers(followsGraph, k): k = 0, k < users, k > users, tied counts
+    @Test
+    public void influencersTopK() {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        map.put("alyssa", new HashSet<String>(Arrays.asList("Ben", "carl")));
+        map.put("ben", new HashSet<String>(Arrays.asList("carl")));
+        map.put("dave", new HashSet<String>(Arrays.asList("ben", "carl", "eve")));
+        
+        assertEquals(new ArrayList<String>(), SocialNetwork.influencers(map, 0));
+        assertEquals(Arrays.asList("carl", "ben"), SocialNetwork.influencers(map, 2));
+        assertEquals(Arrays.asList("carl", "ben", "eve", "alyssa", "dave"), SocialNetwork.influencers(map, 10));
+        assertEquals(SocialNetwork.influencers(map), SocialNetwork.influencers(map, 10));
+    }
+    
+    // covers influencers(followsGraph, k) with many users, compared with the full sort
+    @Test
+    public void influencersTopKMany() {
+        Map<String, Set<String>> map = SocialNetwork.guessFollowsGraph(ParallelExtractTest.manyTweets(2000));
+        List<String> all = SocialNetwork.influencers(map);
+        
+        for (int k : Arrays.asList(1, 7, 100, all.size())) {
+            assertEquals(all.subList(0, k), SocialNetwork.influencers(map, k));
+            assertEquals(all.subList(0, k), SocialNetwork.influencers(FollowsGraph.fromMap(map), k));
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class PageRankTest {
+
+    /*
+     * Testing strategy for PageRank
+     *
+     * Partition the inputs as follows:
+     * graph: empty, cycle, with users who follow nobody, large
+     * jump: uniform, personalized to a seed (in the graph, not in the graph)
+     * start: cold, warm from the same graph, warm from an earlier graph
+     *        with added users and edges
+     * pool parallelism: 1, > 1
+     *
+     * Ranks are compared with a direct dense computation of PageRank.
+     */
+
+    private static final double EPSILON = 1e-7;
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers empty graph
+    @Test
+    public void emptyGraph() {
+        PageRank.Ranking ranking = new PageRank().rank(new FollowsGraph.Builder().build());
+        assertEquals(new ArrayList<String>(), ranking.top(5));
+        assertEquals(0, ranking.rank("alyssa"), 0);
+    }
+
+    // covers cycle
+    @Test
+    public void cycleIsUniform() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("a", "b").addEdge("b", "c").addEdge("c", "a").build();
+        PageRank.Ranking ranking = new PageRank().rank(graph);
+        for (String user : Arrays.asList("a", "b", "c")) {
+            assertEquals(1.0 / 3, ranking.rank(user), EPSILON);
+        }
+        assertTrue(ranking.converged());
+        assertEquals(Arrays.asList("a", "b"), ranking.top(2));
+    }
+
+    // covers users who follow nobody, uniform jump
+    @Test
+    public void matchesDirectComputation() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("alyssa", "bob").addEdge("carol", "bob").addEdge("bob", "dave")
+                .addEdge("dave", "alyssa").addEdge("dave", "bob").addUser("eve").build();
+        PageRank.Ranking ranking = new PageRank().rank(graph);
+
+        double[] expected = directPageRank(graph, -1);
+        double sum = 0;
+        for (int u = 0; u < graph.userCount(); ++u) {
+            assertEquals(expected[u], ranking.rank(u), EPSILON);
+            sum += ranking.rank(u);
+        }
+        assertEquals(1, sum, EPSILON);
+        assertEquals(Arrays.asList("bob", "dave", "alyssa"), ranking.top(3));
+    }
+
+    // covers personalized jump to a seed
+    @Test
+    public void personalized() {
+        FollowsGraph graph = new FollowsGraph.Builder()
+                .addEdge("alyssa", "bob").addEdge("bob", "carol").addEdge("dave", "eve").addEdge("eve", "dave")
+                .build();
+        PageRank.Ranking ranking = new PageRank().rank(graph, "Alyssa", null);
+
+        double[] expected = directPageRank(graph, graph.id("alyssa"));
+        for (int u = 0; u < graph.userCount(); ++u) {
+            assertEquals(expected[u], ranking.rank(u), EPSILON);
+        }
+        assertEquals(0, ranking.rank("dave"), 0);
+        assertEquals(0, ranking.rank("eve"), 0);
+        assertTrue(ranking.rank("alyssa") > ranking.rank("bob"));
+    }
+
+    // covers seed not in the graph
+    @Test(expected=IllegalArgumentException.class)
+    public void unknownSeed() {
+        new PageRank().rank(new FollowsGraph.Builder().addEdge("a", "b").build(), "bitdiddle", null);
+    }
+
+    // covers large graph, pool parallelism > 1, warm start from the same and an earlier graph
+    @Test
+    public void parallelAndWarmStart() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(20000);
+        FollowsGraph before = FollowsGraph.fromTweets(tweets.subList(0, 19000));
+        FollowsGraph after = FollowsGraph.fromTweets(tweets);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        PageRank sequential = new PageRank(new ForkJoinPool(1), 0.85, 1e-10, 500);
+        PageRank parallel = new PageRank(pool, 0.85, 1e-10, 500);
+        PageRank.Ranking cold = sequential.rank(after);
+        PageRank.Ranking coldParallel = parallel.rank(after);
+        PageRank.Ranking warm = parallel.rank(after, parallel.rank(before));
+        PageRank.Ranking again = parallel.rank(after, cold);
+        pool.shutdown();
+
+        assertTrue(cold.converged());
+        assertTrue(warm.iterations() <= cold.iterations());
+        assertTrue(again.iterations() <= 2);
+        double[] expected = directPageRank(after, -1);
+        for (int u = 0; u < after.userCount(); ++u) {
+            assertEquals(expected[u], cold.rank(u), EPSILON);
+            assertEquals(cold.rank(u), coldParallel.rank(u), 1e-12);
+            assertEquals(cold.rank(u), warm.rank(u), EPSILON);
+        }
+        assertEquals(cold.top(10), warm.top(10));
+    }
+
+    /*
+     * PageRank by dense power iteration to convergence, seed -1 for uniform.
+     */
+    private static double[] directPageRank(FollowsGraph graph, int seed) {
+        int n = graph.userCount();
+        double[] ranks = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+        for (int iteration = 0; iteration < 2000; ++iteration) {
+            double[] next = new double[n];
+            double dangling = 0;
+            for (int u = 0; u < n; ++u) {
+                int[] follows = graph.follows(u);
+                if (follows.length == 0) {
+                    dangling += ranks[u];
+                }
+                for (int v : follows) {
+                    next[v] += 0.85 * ranks[u] / follows.length;
+                }
+            }
+            double jump = 0.15 + 0.85 * dangling;
+            for (int v = 0; v < n; ++v) {
+                next[v] += seed < 0 ? jump / n : v == seed ? jump : 0;
+            }
+            ranks = next;
+        }
+        return ranks;
+    }
+}
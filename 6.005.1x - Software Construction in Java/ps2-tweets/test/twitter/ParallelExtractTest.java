@@ -0,0 +1,89 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelExtractTest {
+
+    /*
+     * Testing strategy for ParallelExtract
+     *
+     * Partition the inputs as follows:
+     * tweets.size(): 0, small enough to run sequentially, large enough to split
+     * tweets: ArrayList, LinkedList (not random access)
+     * authors: distinct, repeated across pieces (later tweets must win in getHashtags)
+     *
+     * Every result is compared with the sequential Extract method.
+     */
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static final ParallelExtract extract = new ParallelExtract(pool);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers tweets.size() = 0
+    @Test
+    public void emptyList() {
+        List<Tweet> tweets = new ArrayList<Tweet>();
+
+        assertEquals(new HashSet<String>(), extract.getMentionedUsers(tweets));
+        assertEquals(new HashMap<String, Set<String>>(), extract.getHashtags(tweets));
+    }
+
+    // covers tweets.size() small, ArrayList
+    @Test
+    public void smallList() {
+        List<Tweet> tweets = manyTweets(10);
+
+        assertEquals(Extract.getTimespan(tweets), extract.getTimespan(tweets));
+        assertEquals(Extract.getMentionedUsers(tweets), extract.getMentionedUsers(tweets));
+        assertEquals(Extract.getHashtags(tweets), extract.getHashtags(tweets));
+    }
+
+    // covers tweets.size() large, ArrayList, repeated authors
+    @Test
+    public void largeList() {
+        List<Tweet> tweets = manyTweets(20000);
+
+        assertEquals(Extract.getTimespan(tweets), extract.getTimespan(tweets));
+        assertEquals(Extract.getMentionedUsers(tweets), extract.getMentionedUsers(tweets));
+        assertEquals(Extract.getHashtags(tweets), extract.getHashtags(tweets));
+    }
+
+    // covers tweets.size() large, LinkedList
+    @Test
+    public void largeLinkedList() {
+        List<Tweet> tweets = new LinkedList<Tweet>(manyTweets(5000));
+
+        assertEquals(Extract.getTimespan(tweets), extract.getTimespan(tweets));
+        assertEquals(Extract.getHashtags(tweets), extract.getHashtags(tweets));
+    }
+
+    /*
+     * Make tweets by 100 repeating authors with out-of-order timestamps,
+     * mentions and hashtags.
+     */
+    static List<Tweet> manyTweets(int count) {
+        Instant date = Instant.parse("2016-02-17T10:00:00Z");
+        List<Tweet> tweets = new ArrayList<Tweet>();
+        for (int i = 0; i < count; ++i) {
+            String text = "talk " + (i % 7) + " @user" + (i % 53) + " #tag" + (i % 31) + " Rivest";
+            tweets.add(new Tweet(i, "user" + (i % 100), text, date.plusSeconds((i * 7919L) % 100003)));
+        }
+        return tweets;
+    }
+}
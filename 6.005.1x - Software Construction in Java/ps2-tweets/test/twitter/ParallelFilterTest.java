@@ -0,0 +1,67 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelFilterTest {
+
+    /*
+     * Testing strategy for ParallelFilter
+     *
+     * Partition the inputs as follows:
+     * tweets.size(): 0, small enough to run sequentially, large enough to split
+     * result size: 0, > 0
+     *
+     * Every result is compared with the sequential Filter method, including order.
+     */
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static final ParallelFilter filter = new ParallelFilter(pool);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers tweets.size() = 0
+    @Test
+    public void emptyList() {
+        List<Tweet> tweets = new ArrayList<Tweet>();
+
+        assertEquals(tweets, filter.writtenBy(tweets, "alyssa"));
+        assertEquals(tweets, filter.containing(tweets, Arrays.asList("talk")));
+    }
+
+    // covers tweets.size() small, result size > 0
+    @Test
+    public void smallList() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(50);
+
+        assertEquals(Filter.writtenBy(tweets, "USER7"), filter.writtenBy(tweets, "USER7"));
+        assertEquals(Filter.containing(tweets, Arrays.asList("3")), filter.containing(tweets, Arrays.asList("3")));
+    }
+
+    // covers tweets.size() large, result size 0 and > 0
+    @Test
+    public void largeList() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(20000);
+        Timespan timespan = new Timespan(Instant.parse("2016-02-17T10:00:00Z"), Instant.parse("2016-02-17T20:00:00Z"));
+
+        assertEquals(Filter.writtenBy(tweets, "User42"), filter.writtenBy(tweets, "User42"));
+        assertEquals(Filter.writtenBy(tweets, "nobody"), filter.writtenBy(tweets, "nobody"));
+        assertEquals(Filter.inTimespan(tweets, timespan), filter.inTimespan(tweets, timespan));
+        assertEquals(Filter.containing(tweets, Arrays.asList("rivest", "5")),
+                filter.containing(tweets, Arrays.asList("rivest", "5")));
+    }
+}
@@ -0,0 +1,71 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+public class ParallelSocialNetworkTest {
+
+    /*
+     * Testing strategy for ParallelSocialNetwork
+     *
+     * Partition the inputs as follows:
+     * edges: small enough to run sequentially, large enough to split
+     * k: 0, < users, >= users
+     *
+     * Every result is compared with the sequential SocialNetwork method.
+     */
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static final ParallelSocialNetwork socialNetwork = new ParallelSocialNetwork(pool);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers edges small, k < users
+    @Test
+    public void smallGraph() {
+        FollowsGraph graph = FollowsGraph.fromTweets(ParallelExtractTest.manyTweets(100));
+
+        assertEquals(SocialNetwork.influencers(graph, 5), socialNetwork.influencers(graph, 5));
+    }
+
+    // covers edges large, k = 0, k < users, k >= users
+    @Test
+    public void largeGraph() {
+        FollowsGraph graph = randomGraph(300000, 200000);
+        List<String> all = SocialNetwork.influencers(graph);
+
+        assertEquals(new ArrayList<String>(), socialNetwork.influencers(graph, 0));
+        assertEquals(all.subList(0, 100), socialNetwork.influencers(graph, 100));
+        assertEquals(all, socialNetwork.influencers(graph, graph.userCount() + 1));
+    }
+
+    /*
+     * @return a graph of users "u0".."u<users-1>" with about edges random
+     *         edges, skewed so that low-numbered users have more followers
+     */
+    static FollowsGraph randomGraph(int users, int edges) {
+        Random random = new Random(6005);
+        FollowsGraph.Builder builder = new FollowsGraph.Builder();
+        for (int u = 0; u < users; ++u) {
+            builder.addUser("u" + u);
+        }
+        for (int e = 0; e < edges; ++e) {
+            int followed = (int) (users * Math.pow(random.nextDouble(), 3));
+            builder.addEdge("u" + random.nextInt(users), "u" + followed);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,158 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class QueryCacheTest {
+
+    /*
+     * Testing strategy for QueryCache
+     *
+     * Partition the inputs as follows:
+     * query: containing, writtenBy, getMentionedUsers
+     * lookup: miss, hit, hit with a username in another case
+     * corpus: one, > 1; appended to between lookups
+     * weight: within the bound, over it so that entries are evicted,
+     *   one result heavier than the bound
+     * threads: 1, > 1
+     *
+     * Results are compared with Filter and Extract on the same tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers each query, miss, hit, username and words in another case
+    @Test
+    public void missThenHit() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(500);
+        TweetCorpus corpus = corpus(tweets);
+        QueryCache cache = new QueryCache(100_000);
+        List<String> words = Arrays.asList("rivest", "#tag3");
+
+        List<Tweet> containing = cache.containing(corpus, words);
+        assertEquals(Filter.containing(tweets, words), containing);
+        assertSame(containing, cache.containing(corpus, new ArrayList<String>(words)));
+        assertSame(containing, cache.containing(corpus, Arrays.asList("RIVEST", "#Tag3")));
+
+        List<Tweet> written = cache.writtenBy(corpus, "user7");
+        assertEquals(Filter.writtenBy(tweets, "user7"), written);
+        assertSame(written, cache.writtenBy(corpus, "USER7"));
+
+        Set<String> mentioned = cache.getMentionedUsers(corpus);
+        assertEquals(Extract.getMentionedUsers(tweets), mentioned);
+        assertSame(mentioned, cache.getMentionedUsers(corpus));
+
+        assertEquals(3, cache.misses());
+        assertEquals(4, cache.hits());
+        assertEquals(3, cache.size());
+        assertEquals(3 + containing.size() + written.size() + mentioned.size(), cache.weight());
+        assertEquals(0, cache.evictions());
+    }
+
+    // covers cached results are unmodifiable
+    @Test(expected=UnsupportedOperationException.class)
+    public void unmodifiable() {
+        QueryCache cache = new QueryCache(1000);
+        cache.writtenBy(corpus(ParallelExtractTest.manyTweets(50)), "user1").clear();
+    }
+
+    // covers corpus appended to between lookups, > 1 corpus
+    @Test
+    public void appendInvalidates() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(300);
+        TweetCorpus corpus = corpus(tweets.subList(0, 200));
+        TweetCorpus other = corpus(tweets.subList(200, 300));
+        QueryCache cache = new QueryCache(100_000);
+
+        cache.writtenBy(corpus, "user1");
+        cache.getMentionedUsers(corpus);
+        Set<String> otherMentioned = cache.getMentionedUsers(other);
+
+        corpus.add(new Tweet(1000, "user1", "new @bitdiddle", d1));
+        List<Tweet> expected = new ArrayList<Tweet>(Filter.writtenBy(tweets.subList(0, 200), "user1"));
+        expected.add(corpus.get(200));
+        assertEquals(expected, cache.writtenBy(corpus, "user1"));
+        assertEquals(2, cache.invalidations());
+        assertTrue(cache.getMentionedUsers(corpus).contains("bitdiddle"));
+        assertSame(otherMentioned, cache.getMentionedUsers(other));
+        assertEquals(5, cache.misses());
+        assertEquals(1, cache.hits());
+    }
+
+    // covers weight over the bound, result heavier than the bound
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        List<Tweet> tweets = new ArrayList<Tweet>();
+        for (int i = 0; i < 40; ++i) {
+            tweets.add(new Tweet(i, "user" + (i % 4), "tweet " + i, d1.plusSeconds(i)));
+        }
+        TweetCorpus corpus = corpus(tweets);
+        // each writtenBy result has 10 tweets, weighing 11
+        QueryCache cache = new QueryCache(25);
+
+        List<Tweet> user0 = cache.writtenBy(corpus, "user0");
+        cache.writtenBy(corpus, "user1");
+        assertSame(user0, cache.writtenBy(corpus, "user0"));
+        cache.writtenBy(corpus, "user2");
+        assertEquals(1, cache.evictions());
+        assertEquals(2, cache.size());
+        assertEquals(22, cache.weight());
+
+        // user1 was least recently used, so it was evicted and user0 kept
+        assertSame(user0, cache.writtenBy(corpus, "user0"));
+        long misses = cache.misses();
+        cache.writtenBy(corpus, "user1");
+        assertEquals(misses + 1, cache.misses());
+
+        // a result heavier than the whole cache is returned but not kept
+        int size = cache.size();
+        assertEquals(tweets, cache.containing(corpus, Arrays.asList("tweet")));
+        assertEquals(size, cache.size());
+        assertTrue(cache.weight() <= 25);
+    }
+
+    // covers > 1 threads
+    @Test
+    public void manyThreads() throws InterruptedException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        TweetCorpus corpus = corpus(tweets);
+        QueryCache cache = new QueryCache(2_000);
+        List<Thread> threads = new ArrayList<Thread>();
+        List<AssertionError> failures = Collections.synchronizedList(new ArrayList<AssertionError>());
+        for (int t = 0; t < 4; ++t) {
+            int seed = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 200; ++i) {
+                    String user = "user" + ((i * 7 + seed) % 20);
+                    try {
+                        assertEquals(Filter.writtenBy(tweets, user), cache.writtenBy(corpus, user));
+                    } catch (AssertionError e) {
+                        failures.add(e);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(new ArrayList<AssertionError>(), failures);
+        assertEquals(800, cache.hits() + cache.misses());
+        assertTrue(cache.weight() <= 2_000);
+    }
+
+    private static TweetCorpus corpus(List<Tweet> tweets) {
+        return new TweetCorpus(tweets).indexAuthors().indexTokens(TweetTokenizer.Kind.WORD);
+    }
+}
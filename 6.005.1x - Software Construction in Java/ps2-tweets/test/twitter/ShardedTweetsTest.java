@@ -0,0 +1,134 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ShardedTweetsTest {
+
+    /*
+     * Testing strategy for ShardedTweets and ShardServer
+     *
+     * Partition the inputs as follows:
+     * shards: 1, > 1
+     * tweets added: none, in one batch, in several batches
+     * query matches: none, on one shard, on several shards
+     * shard servers: stopped by a client, sent an unknown request
+     *
+     * Shard servers run in this JVM on loopback sockets. Results are compared
+     * with Extract and Filter on the list of the tweets added.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    private final List<ShardServer> servers = new ArrayList<ShardServer>();
+
+    @After
+    public void stopServers() throws IOException {
+        for (ShardServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 1 shard, no tweets added, no matches
+    @Test
+    public void emptyOneShard() throws IOException {
+        try (ShardedTweets sharded = new ShardedTweets(start(1))) {
+            assertEquals(0, sharded.size());
+            assertEquals(new HashSet<String>(), sharded.getMentionedUsers());
+            assertEquals(new ArrayList<Tweet>(), sharded.writtenBy("alyssa"));
+            assertEquals(new ArrayList<Tweet>(), sharded.containing(Arrays.asList("talk")));
+        }
+    }
+
+    // covers > 1 shards, several batches, matches on one and several shards
+    @Test
+    public void manyShards() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        try (ShardedTweets sharded = new ShardedTweets(start(4))) {
+            sharded.addAll(tweets.subList(0, 1000));
+            sharded.addAll(new ArrayList<Tweet>());
+            sharded.addAll(tweets.subList(1000, 3000));
+            assertEquals(3000, sharded.size());
+            int total = 0;
+            for (ShardServer server : servers) {
+                assertTrue(server.size() > 0);
+                total += server.size();
+            }
+            assertEquals(3000, total);
+
+            Timespan expected = Extract.getTimespan(tweets);
+            assertEquals(expected.getStart(), sharded.getTimespan().getStart());
+            assertEquals(expected.getEnd(), sharded.getTimespan().getEnd());
+            assertEquals(Extract.getMentionedUsers(tweets), sharded.getMentionedUsers());
+            assertEquals(Extract.getHashtags(tweets), sharded.getHashtags());
+            assertEquals(TweetSummaryTest.inDegrees(SocialNetwork.guessFollowsGraph(tweets, 1)),
+                         sharded.followerCounts());
+            assertEquals(TweetSummary.of(tweets).influencers(5), sharded.influencers(5));
+
+            assertEquals(Filter.writtenBy(tweets, "USER42"), sharded.writtenBy("USER42"));
+            Timespan timespan = new Timespan(d1.plusSeconds(5000), d1.plusSeconds(60000));
+            assertEquals(Filter.inTimespan(tweets, timespan), sharded.inTimespan(timespan));
+            for (List<String> words : Arrays.asList(Arrays.asList("rivest"), Arrays.asList("#tag7", "bitdiddle"),
+                                                    Arrays.asList("@user3"))) {
+                assertEquals(words.toString(), Filter.containing(tweets, words), sharded.containing(words));
+            }
+        }
+    }
+
+    // covers shard servers stopped by a client
+    @Test
+    public void stopShards() throws IOException, InterruptedException {
+        ShardedTweets sharded = new ShardedTweets(start(2));
+        sharded.addAll(Arrays.asList(new Tweet(1, "alyssa", "hi @bbitdiddle", d1)));
+        sharded.stopShards();
+        for (ShardServer server : servers) {
+            server.awaitStop();
+        }
+    }
+
+    // covers shard server sent an unknown request
+    @Test
+    public void unknownRequest() throws IOException {
+        InetSocketAddress address = start(1).get(0);
+        try (Socket socket = new Socket(address.getAddress(), address.getPort())) {
+            socket.getOutputStream().write(99);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            assertEquals(ShardServer.UNKNOWN_REQUEST, in.readByte());
+            assertEquals("unknown request 99", in.readUTF());
+            try {
+                in.readByte();
+                fail("expected the connection to be closed");
+            } catch (EOFException e) {
+                // closed
+            }
+        }
+        assertTrue(servers.get(0).failure() instanceof UncheckedIOException);
+    }
+
+    private List<InetSocketAddress> start(int shards) throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<InetSocketAddress>();
+        for (int i = 0; i < shards; ++i) {
+            ShardServer server = new ShardServer(0);
+            servers.add(server);
+            addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()));
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,102 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TimeIndexTest {
+
+    /*
+     * Testing strategy for TimeIndex
+     *
+     * Partition the inputs as follows:
+     * indexed tweets: 0, 1, > 1
+     * construction order: sorted by timestamp, unsorted
+     * appends: none, in timestamp order, out of order (enough to merge the tail)
+     * timespan: before all tweets, covering some, covering all, endpoints equal
+     *           to tweet timestamps, extreme instants
+     *
+     * Results are compared with Filter.inTimespan and Extract.getTimespan.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets
+    @Test
+    public void emptyIndex() {
+        TimeIndex index = new TimeIndex();
+        Timespan timespan = index.getTimespan();
+
+        assertEquals(timespan.getStart(), timespan.getEnd());
+        assertEquals(new ArrayList<Tweet>(), index.inTimespan(new Timespan(d1, d1)));
+    }
+
+    // covers 1 tweet, endpoints equal to tweet timestamp
+    @Test
+    public void oneTweet() {
+        Tweet tweet = new Tweet(1, "alyssa", "hi", d1);
+        TimeIndex index = new TimeIndex(Arrays.asList(tweet));
+
+        assertEquals(new Timespan(d1, d1), index.getTimespan());
+        assertEquals(Arrays.asList(tweet), index.inTimespan(new Timespan(d1, d1)));
+        assertEquals(new ArrayList<Tweet>(), index.inTimespan(new Timespan(d1.plusNanos(1), d1.plusSeconds(1))));
+    }
+
+    // covers > 1 tweets, unsorted construction, extreme instants
+    @Test
+    public void unsortedTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        TimeIndex index = new TimeIndex(tweets);
+
+        assertEquals(Extract.getTimespan(tweets), index.getTimespan());
+        assertWindowsMatch(tweets, index);
+        Timespan all = new Timespan(Instant.MIN, Instant.MAX);
+        assertEquals(tweets, index.inTimespan(all));
+    }
+
+    // covers appends in timestamp order and out of order, merging the tail
+    @Test
+    public void appendedTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        TimeIndex index = new TimeIndex(tweets.subList(0, 100));
+        for (Tweet tweet : tweets.subList(100, tweets.size())) {
+            index.add(tweet);
+        }
+
+        assertEquals(tweets.size(), index.size());
+        assertEquals(Extract.getTimespan(tweets), index.getTimespan());
+        assertWindowsMatch(tweets, index);
+    }
+
+    // covers appends in timestamp order only
+    @Test
+    public void appendedInOrder() {
+        TimeIndex index = new TimeIndex();
+        List<Tweet> tweets = new ArrayList<Tweet>();
+        for (int i = 0; i < 100; ++i) {
+            Tweet tweet = new Tweet(i, "alyssa", "hi", d1.plusSeconds(i / 3));
+            tweets.add(tweet);
+            index.add(tweet);
+        }
+
+        assertEquals(Filter.inTimespan(tweets, new Timespan(d1.plusSeconds(3), d1.plusSeconds(5))),
+                index.inTimespan(new Timespan(d1.plusSeconds(3), d1.plusSeconds(5))));
+    }
+
+    private static void assertWindowsMatch(List<Tweet> tweets, TimeIndex index) {
+        for (int start = -10; start < 110000; start += 9973) {
+            for (int length : new int[] { 0, 1, 5000, 60000 }) {
+                Timespan timespan = new Timespan(d1.plusSeconds(start), d1.plusSeconds(start + length));
+                assertEquals(timespan.toString(), Filter.inTimespan(tweets, timespan), index.inTimespan(timespan));
+            }
+        }
+    }
+}
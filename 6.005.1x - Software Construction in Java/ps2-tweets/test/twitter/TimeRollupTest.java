@@ -0,0 +1,144 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TimeRollupTest {
+
+    /*
+     * Testing strategy for TimeRollup
+     *
+     * Partition the inputs as follows:
+     * tweets: 0, 1, many; added in time order, out of order
+     * timestamps: after the epoch, before it (negative minutes)
+     * range: empty, within one minute, across hours, across days;
+     *        aligned to whole minutes, not aligned (rounded outward)
+     * k: 0, less than the distinct names, more
+     * names: BMP only, with supplementary characters in different cases
+     *
+     * Counts are compared with Filter.inTimespan() followed by a count of
+     * the tokens in the filtered tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets, empty range
+    @Test
+    public void empty() {
+        TimeRollup rollup = new TimeRollup();
+        assertEquals(0, rollup.tweetCount(d1, d1.plusSeconds(86400)));
+        assertEquals(new HashMap<String, Integer>(), rollup.hashtagCounts(d1, d1.plusSeconds(86400)));
+        assertEquals(new ArrayList<String>(), rollup.topMentions(d1, d1.plusSeconds(60), 3));
+        assertEquals(0, rollup.bucketsCovering(d1, d1));
+    }
+
+    // covers 1 tweet before the epoch, range within one minute, not aligned
+    @Test
+    public void oneTweetBeforeEpoch() {
+        Instant time = Instant.parse("1960-01-01T00:00:30Z");
+        TimeRollup rollup = new TimeRollup(Arrays.asList(
+                new Tweet(1, "alyssa", "@Bob @bob #MIT rocks #mit", time)));
+
+        assertEquals(1, rollup.tweetCount(time, time.plusNanos(1)));
+        assertEquals(1, rollup.tweetCount(time.minusSeconds(30), time.minusSeconds(29)));
+        assertEquals(0, rollup.tweetCount(time.minusSeconds(31), time.minusSeconds(30)));
+        assertEquals(Collections.singletonMap("bob", 2), rollup.mentionCounts(time, time));
+        assertEquals(Collections.singletonMap("mit", 2), rollup.hashtagCounts(time.minusSeconds(3600), time));
+    }
+
+    // covers supplementary characters in different cases
+    @Test
+    public void supplementaryCase() {
+        TimeRollup rollup = new TimeRollup(Arrays.asList(
+                new Tweet(1, "alyssa", "#\uD801\uDC00", d1),
+                new Tweet(2, "bitdiddle", "#\uD801\uDC28", d1.plusSeconds(1))));
+        assertEquals(Collections.singletonMap("\uD801\uDC28", 2), rollup.hashtagCounts(d1, d1.plusSeconds(60)));
+    }
+
+    // covers many tweets out of order, aligned ranges across hours and days
+    @Test
+    public void matchesFilterAndCount() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(5000);
+        List<Tweet> shuffled = new ArrayList<Tweet>(tweets);
+        Collections.shuffle(shuffled, new Random(1));
+        TimeRollup rollup = new TimeRollup(shuffled);
+
+        long[][] ranges = { { 0, 60 }, { 17 * 60, 3 * 3600 + 60 }, { 0, 86400 }, { -3600, 2 * 86400 },
+                            { 59 * 60, 86400 + 61 * 60 } };
+        for (long[] range : ranges) {
+            Instant from = d1.plusSeconds(range[0]);
+            Instant to = d1.plusSeconds(range[1]);
+            List<Tweet> inRange = Filter.inTimespan(tweets, new Timespan(from, to.minusNanos(1)));
+
+            assertEquals(inRange.size(), rollup.tweetCount(from, to));
+            assertEquals(count(inRange, TweetTokenizer.Kind.MENTION), rollup.mentionCounts(from, to));
+            assertEquals(count(inRange, TweetTokenizer.Kind.HASHTAG), rollup.hashtagCounts(from, to));
+            assertEquals(Extract.getMentionedUsers(inRange), rollup.mentionCounts(from, to).keySet());
+        }
+    }
+
+    // covers ranges not aligned to minutes, rounded outward
+    @Test
+    public void unalignedRangesRoundOutward() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        TimeRollup rollup = new TimeRollup(tweets);
+        Instant from = d1.plusSeconds(125).plusMillis(500);
+        Instant to = d1.plusSeconds(7000).plusNanos(1);
+
+        List<Tweet> rounded = Filter.inTimespan(tweets,
+                new Timespan(d1.plusSeconds(120), d1.plusSeconds(7020).minusNanos(1)));
+        assertEquals(rounded.size(), rollup.tweetCount(from, to));
+        assertEquals(count(rounded, TweetTokenizer.Kind.HASHTAG), rollup.hashtagCounts(from, to));
+    }
+
+    // covers k = 0, k < distinct names, k > distinct names
+    @Test
+    public void topNames() {
+        List<Tweet> tweets = Arrays.asList(
+                new Tweet(1, "alyssa", "#b #a @x", d1),
+                new Tweet(2, "alyssa", "#c #a @y @x", d1.plusSeconds(3600)),
+                new Tweet(3, "alyssa", "#b #a", d1.plusSeconds(2 * 86400)));
+        TimeRollup rollup = new TimeRollup(tweets);
+        Instant to = d1.plusSeconds(3 * 86400);
+
+        assertEquals(new ArrayList<String>(), rollup.topHashtags(d1, to, 0));
+        assertEquals(Arrays.asList("a", "b"), rollup.topHashtags(d1, to, 2));
+        assertEquals(Arrays.asList("a", "b", "c"), rollup.topHashtags(d1, to, 10));
+        assertEquals(Arrays.asList("a", "b", "c"), rollup.topHashtags(d1, d1.plusSeconds(7200), 3));
+        assertEquals(Arrays.asList("x", "y"), rollup.topMentions(d1, to, 5));
+    }
+
+    // covers the number of buckets a long range reads
+    @Test
+    public void bucketsCovering() {
+        TimeRollup rollup = new TimeRollup();
+        Instant midnight = Instant.parse("2016-02-17T00:00:00Z");
+        assertEquals(1, rollup.bucketsCovering(midnight, midnight.plusSeconds(86400)));
+        assertEquals(30, rollup.bucketsCovering(midnight, midnight.plusSeconds(30 * 86400)));
+        assertEquals(59 + 23 + 5 + 23 + 59,
+                     rollup.bucketsCovering(midnight.minusSeconds(86400 - 60), midnight.plusSeconds(6 * 86400 - 60)));
+    }
+
+    private static Map<String, Integer> count(List<Tweet> tweets, TweetTokenizer.Kind kind) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        TweetTokenizer tokenizer = new TweetTokenizer();
+        for (Tweet tweet : tweets) {
+            tokenizer.reset(tweet.getText());
+            while (tokenizer.next()) {
+                if (tokenizer.kind() == kind) {
+                    counts.merge(tokenizer.foldedToken(), 1, Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,218 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TweetLoaderTest {
+
+    /*
+     * Testing strategy for TweetLoader
+     *
+     * Partition the inputs as follows:
+     * format: NDJSON, CSV
+     * records: 0, 1, > 1, with blank lines, with "\r\n" endings
+     * records vs. mapped region: within one region, crossing regions, longer
+     *                            than a region
+     * text: ASCII, escapes or quotes, 2-, 3- and 4-byte UTF-8, embedded newline
+     * fields: in any order, extra fields or columns, missing field
+     * timestamp: whole seconds, fraction, leap day, other ISO-8601 form, invalid
+     * read by: next(), nextBatch(), stream(), loadInto(TweetStore), readAll()
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers NDJSON, 0 records
+    @Test
+    public void emptyFile() throws IOException {
+        Path file = write("empty.ndjson", "");
+
+        assertEquals(new ArrayList<Tweet>(), TweetLoader.readAll(file));
+    }
+
+    // covers NDJSON, 1 record, escapes, UTF-8, fields in any order, extra fields
+    @Test
+    public void ndjsonOneRecord() throws IOException {
+        Path file = write("one.ndjson",
+                "{\"text\": \"caf\u00e9 \\\"\u20ac\\\" \ud83d\ude00 \\u0041\\n\", \"extra\": {\"a\": [1, \"}\"]},"
+                + " \"id\": 7, \"timestamp\": \"2016-02-17T10:00:00Z\", \"author\": \"alyssa\", \"n\": null}\n");
+
+        assertEquals(Arrays.asList(new Tweet(7, "alyssa", "caf\u00e9 \"\u20ac\" \ud83d\ude00 A\n", d1)),
+                     TweetLoader.readAll(file));
+    }
+
+    // covers CSV, > 1 records, quotes, embedded newline, extra column, "\r\n", blank lines
+    @Test
+    public void csvRecords() throws IOException {
+        Path file = write("tweets.csv",
+                "timestamp,lang,author,id,text\r\n"
+                + "2016-02-17T10:00:00Z,en,alyssa,1,\"hi, \"\"bob\"\"\nbye\"\r\n"
+                + "\r\n"
+                + "2016-02-17T10:00:00.25Z,fr,bbitdiddle,2,\u00e7a va\r\n");
+
+        assertEquals(Arrays.asList(
+                new Tweet(1, "alyssa", "hi, \"bob\"\nbye", d1),
+                new Tweet(2, "bbitdiddle", "\u00e7a va", d1.plusMillis(250))),
+                TweetLoader.readAll(file));
+    }
+
+    // covers timestamps: fraction, leap day, other ISO-8601 form
+    @Test
+    public void timestamps() throws IOException {
+        Path file = write("times.ndjson",
+                line(1, "2016-02-29T23:59:59.123456789Z")
+                + line(2, "1969-12-31T00:00:00Z")
+                + line(3, "+12016-01-01T00:00:00Z"));
+        List<Tweet> tweets = TweetLoader.readAll(file);
+
+        assertEquals(Instant.parse("2016-02-29T23:59:59.123456789Z"), tweets.get(0).getTimestamp());
+        assertEquals(Instant.parse("1969-12-31T00:00:00Z"), tweets.get(1).getTimestamp());
+        assertEquals(Instant.parse("+12016-01-01T00:00:00Z"), tweets.get(2).getTimestamp());
+    }
+
+    // covers > 1 records crossing regions, both formats, read by next()
+    @Test
+    public void recordsCrossRegions() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(300);
+        for (TweetLoader.Format format : TweetLoader.Format.values()) {
+            Path file = write("many." + format, format == TweetLoader.Format.CSV ? toCsv(tweets) : toNdjson(tweets));
+            try (TweetLoader loader = open(file, format, 256)) {
+                List<Tweet> read = new ArrayList<Tweet>();
+                while (loader.hasNext()) {
+                    read.add(loader.next());
+                }
+                assertEquals(format.toString(), tweets, read);
+                assertEquals(Files.size(file), loader.bytesRead());
+            }
+        }
+    }
+
+    // covers read by nextBatch() and stream(), feeding Extract and Filter
+    @Test
+    public void batchesAndStream() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(250);
+        Path file = write("many.ndjson", toNdjson(tweets));
+
+        try (TweetLoader loader = TweetLoader.open(file)) {
+            assertEquals(100, loader.nextBatch(100).size());
+            assertEquals(100, loader.nextBatch(100).size());
+            assertEquals(tweets.subList(200, 250), loader.nextBatch(100));
+            assertTrue(loader.nextBatch(100).isEmpty());
+        }
+
+        try (Stream<Tweet> stream = TweetLoader.open(file).stream()) {
+            List<Tweet> read = stream.filter(tweet -> tweet.getAuthor().equals("user3")).collect(Collectors.toList());
+            assertEquals(Filter.writtenBy(tweets, "user3"), read);
+        }
+        assertEquals(Extract.getMentionedUsers(tweets), Extract.getMentionedUsers(TweetLoader.readAll(file)));
+    }
+
+    // covers read by loadInto(TweetStore)
+    @Test
+    public void loadIntoStore() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(500);
+        Path file = write("many.csv", toCsv(tweets));
+        TweetStore store = new TweetStore();
+
+        try (TweetLoader loader = TweetLoader.open(file)) {
+            assertEquals(500, loader.loadInto(store));
+        }
+        assertEquals(tweets, store.toList());
+    }
+
+    // covers missing field
+    @Test(expected=UncheckedIOException.class)
+    public void missingField() throws IOException {
+        TweetLoader.readAll(write("bad.ndjson", "{\"id\": 1, \"author\": \"alyssa\", \"text\": \"hi\"}\n"));
+    }
+
+    // covers missing column in the CSV header
+    @Test(expected=UncheckedIOException.class)
+    public void missingColumn() throws IOException {
+        TweetLoader.readAll(write("bad.csv", "id,author,text\n1,alyssa,hi\n"));
+    }
+
+    // covers invalid timestamp
+    @Test(expected=UncheckedIOException.class)
+    public void invalidTimestamp() throws IOException {
+        TweetLoader.readAll(write("bad.ndjson", line(1, "2015-02-29T00:00:00Z")));
+    }
+
+    // covers record longer than a region
+    @Test
+    public void recordLongerThanRegion() throws IOException {
+        Path file = write("long.ndjson", line(1, "2016-02-17T10:00:00Z") + line(2, "2016-02-17T10:00:00Z"));
+
+        try (TweetLoader loader = open(file, TweetLoader.Format.NDJSON, 40)) {
+            loader.next();
+            fail("expected an UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("record 1"));
+        }
+    }
+
+    private Path write(String name, String contents) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static TweetLoader open(Path file, TweetLoader.Format format, int regionSize) throws IOException {
+        return new TweetLoader(FileChannel.open(file, StandardOpenOption.READ), file.toString(), format, regionSize);
+    }
+
+    private static String line(long id, String timestamp) {
+        return "{\"id\": " + id + ", \"author\": \"alyssa\", \"text\": \"hi\", \"timestamp\": \"" + timestamp + "\"}\n";
+    }
+
+    /*
+     * @return tweets in NDJSON; requires texts without '"', '\\' or control characters
+     */
+    static String toNdjson(List<Tweet> tweets) {
+        StringBuilder builder = new StringBuilder();
+        for (Tweet tweet : tweets) {
+            builder.append("{\"id\":").append(tweet.getId())
+                   .append(",\"author\":\"").append(tweet.getAuthor())
+                   .append("\",\"text\":\"").append(tweet.getText())
+                   .append("\",\"timestamp\":\"").append(tweet.getTimestamp())
+                   .append("\"}\n");
+        }
+        return builder.toString();
+    }
+
+    /*
+     * @return tweets in CSV with a header
+     */
+    static String toCsv(List<Tweet> tweets) {
+        StringBuilder builder = new StringBuilder("id,author,text,timestamp\n");
+        for (Tweet tweet : tweets) {
+            builder.append(tweet.getId()).append(',')
+                   .append(tweet.getAuthor()).append(",\"")
+                   .append(tweet.getText().replace("\"", "\"\"")).append("\",")
+                   .append(tweet.getTimestamp()).append('\n');
+        }
+        return builder.toString();
+    }
+}
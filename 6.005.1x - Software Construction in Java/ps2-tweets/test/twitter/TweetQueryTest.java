@@ -0,0 +1,148 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TweetQueryTest {
+
+    /*
+     * Testing strategy for TweetQuery and TweetCorpus
+     *
+     * Partition the inputs as follows:
+     * condition: writtenBy, inTimespan, containing, mentioning, taggedWith
+     * combination: leaf, and(), or(), nested, no operands
+     * token conditions per query: 0, 1, > 1
+     * corpus indexes: none, some, all; tweets added after indexing
+     * index lists in and(): similar lengths (intersected), very different
+     *                       (candidates checked)
+     *
+     * Results are compared with chained Filter calls on the same tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers each condition as a leaf
+    @Test
+    public void leaves() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(500);
+        Timespan timespan = new Timespan(d1.plusSeconds(100), d1.plusSeconds(20000));
+
+        assertEquals(Filter.writtenBy(tweets, "USER3"), TweetQuery.writtenBy("USER3").filter(tweets));
+        assertEquals(Filter.inTimespan(tweets, timespan), TweetQuery.inTimespan(timespan).filter(tweets));
+        assertEquals(Filter.containing(tweets, Arrays.asList("talk", "#TAG4")),
+                     TweetQuery.containing(Arrays.asList("talk", "#TAG4")).filter(tweets));
+        assertEquals(Filter.containing(tweets, Arrays.asList("@user7")),
+                     TweetQuery.mentioning("User7").filter(tweets));
+        assertEquals(Filter.containing(tweets, Arrays.asList("#tag4")),
+                     TweetQuery.taggedWith("#Tag4").filter(tweets));
+        assertEquals(TweetQuery.taggedWith("#tag4").filter(tweets), TweetQuery.taggedWith("tag4").filter(tweets));
+    }
+
+    // covers and(), > 1 token conditions, compared with chained Filter calls
+    @Test
+    public void andMatchesChainedFilters() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        Timespan timespan = new Timespan(d1.plusSeconds(1000), d1.plusSeconds(80000));
+        TweetQuery query = TweetQuery.and(
+                TweetQuery.containing(Arrays.asList("0", "3")),
+                TweetQuery.inTimespan(timespan),
+                TweetQuery.writtenBy("user3"),
+                TweetQuery.taggedWith("tag3"));
+
+        List<Tweet> expected = Filter.containing(Filter.writtenBy(Filter.inTimespan(
+                Filter.containing(tweets, Arrays.asList("0", "3")), timespan), "user3"),
+                Arrays.asList("#tag3"));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, query.filter(tweets));
+    }
+
+    // covers or(), nested, 1 token condition
+    @Test
+    public void nestedOr() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        TweetQuery query = TweetQuery.or(
+                TweetQuery.writtenBy("user5"),
+                TweetQuery.and(TweetQuery.writtenBy("user6"), TweetQuery.mentioning("user6")));
+
+        List<Tweet> expected = new ArrayList<Tweet>();
+        for (Tweet tweet : tweets) {
+            if (tweet.getAuthor().equals("user5")
+                    || (tweet.getAuthor().equals("user6") && tweet.getText().contains("@user6 "))) {
+                expected.add(tweet);
+            }
+        }
+        assertEquals(expected, query.filter(tweets));
+        for (Tweet tweet : tweets.subList(0, 20)) {
+            assertEquals(expected.contains(tweet), query.matches(tweet));
+        }
+    }
+
+    // covers no operands
+    @Test
+    public void emptyCombinations() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(50);
+
+        assertEquals(tweets, TweetQuery.and().filter(tweets));
+        assertEquals(new ArrayList<Tweet>(), TweetQuery.or().filter(tweets));
+        assertEquals(50, new TweetCorpus(tweets).indexAuthors().count(TweetQuery.and()));
+        assertEquals(0, new TweetCorpus(tweets).indexAuthors().count(TweetQuery.or()));
+    }
+
+    // covers corpus with no, some and all indexes, tweets added after indexing
+    @Test
+    public void corpusMatchesFilter() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        Timespan timespan = new Timespan(d1.plusSeconds(5000), d1.plusSeconds(200000));
+        List<TweetQuery> queries = Arrays.asList(
+                TweetQuery.writtenBy("user3"),
+                TweetQuery.and(TweetQuery.writtenBy("user3"), TweetQuery.inTimespan(timespan)),
+                TweetQuery.and(TweetQuery.taggedWith("tag3"), TweetQuery.containing(Arrays.asList("rivest")),
+                               TweetQuery.mentioning("user3")),
+                TweetQuery.and(TweetQuery.mentioning("user10"), TweetQuery.taggedWith("tag10"),
+                               TweetQuery.inTimespan(timespan)),
+                TweetQuery.or(TweetQuery.writtenBy("user1"), TweetQuery.taggedWith("tag2")),
+                TweetQuery.or(TweetQuery.writtenBy("user1"), TweetQuery.containing(Arrays.asList("4"))));
+
+        TweetCorpus none = new TweetCorpus(tweets.subList(0, 1000));
+        TweetCorpus some = new TweetCorpus(tweets.subList(0, 1000)).indexAuthors()
+                .indexTokens(TweetTokenizer.Kind.HASHTAG);
+        TweetCorpus all = new TweetCorpus(tweets.subList(0, 1000)).indexAuthors().indexTimestamps();
+        for (TweetTokenizer.Kind kind : TweetTokenizer.Kind.values()) {
+            all.indexTokens(kind);
+        }
+        for (TweetCorpus corpus : Arrays.asList(none, some, all)) {
+            corpus.addAll(tweets.subList(1000, 3000));
+        }
+
+        for (TweetQuery query : queries) {
+            List<Tweet> expected = query.filter(tweets);
+            for (TweetCorpus corpus : Arrays.asList(none, some, all)) {
+                assertEquals(query.toString(), expected, corpus.query(query));
+                assertEquals(query.toString(), expected.size(), corpus.count(query));
+            }
+        }
+    }
+
+    // covers index lists of similar and very different lengths
+    @Test
+    public void intersectAndUnion() {
+        int[] evens = new int[500];
+        for (int i = 0; i < evens.length; ++i) {
+            evens[i] = 2 * i;
+        }
+        assertArrayEquals(new int[] { 0, 998 }, TweetQuery.intersect(new int[] { 0, 1, 998, 999 }, evens));
+        assertArrayEquals(new int[] { 4, 6 }, TweetQuery.intersect(new int[] { 3, 4, 5, 6 }, new int[] { 4, 6, 8 }));
+        assertArrayEquals(new int[] { 10, 600 }, TweetQuery.intersect(evens, new int[] { 10, 11, 600, 1001 }));
+        assertArrayEquals(new int[0], TweetQuery.intersect(new int[0], evens));
+        assertArrayEquals(new int[] { 1, 2, 3, 5 }, TweetQuery.union(new int[] { 1, 3 }, new int[] { 2, 3, 5 }));
+    }
+}
@@ -0,0 +1,122 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TweetSegmentTest {
+
+    /*
+     * Testing strategy for TweetSegment
+     *
+     * Partition the inputs as follows:
+     * segments: 0, 1, > 1; empty segment
+     * segment: in memory, saved and loaded
+     * words: none, absent from every segment, present in some, in another case,
+ *        in another case with supplementary characters
+     *
+     * Results are compared with Filter.containing() on the same tweets.
+     */
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers empty segment, no words
+    @Test
+    public void emptySegment() {
+        TweetSegment segment = TweetSegment.of(new ArrayList<Tweet>(), 0.01);
+        assertEquals(0, segment.size());
+        assertTrue(segment.isLoaded());
+        assertFalse(segment.mightContain(Arrays.asList("talk")));
+        assertEquals(new ArrayList<Tweet>(), segment.containing(Arrays.asList("talk")));
+        assertEquals(new ArrayList<Tweet>(), TweetSegment.containing(new ArrayList<TweetSegment>(),
+                                                                     Arrays.asList("talk")));
+    }
+
+    // covers > 1 in-memory segments, words absent, present in some, in another case
+    @Test
+    public void inMemorySegments() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(1000);
+        List<TweetSegment> segments = segments(tweets, 7);
+        for (List<String> words : queries()) {
+            assertEquals(words.toString(), Filter.containing(tweets, words),
+                         TweetSegment.containing(segments, words));
+        }
+        assertFalse(segments.get(0).mightContain(Arrays.asList("bitdiddle")));
+        assertFalse(segments.get(0).mightContain(new ArrayList<String>()));
+    }
+
+    // covers 1 segment, in another case with supplementary characters
+    @Test
+    public void supplementaryCase() {
+        List<Tweet> tweets = Arrays.asList(new Tweet(1, "alyssa", "hi \uD801\uDC00", Instant.now()));
+        List<String> words = Arrays.asList("\uD801\uDC28");
+        assertEquals(1, Filter.containing(tweets, words).size());
+        assertEquals(Filter.containing(tweets, words), TweetSegment.of(tweets, 0.01).containing(words));
+    }
+
+    // covers saved and loaded segments
+    @Test
+    public void savedSegments() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(600);
+        List<TweetSegment> saved = new ArrayList<TweetSegment>();
+        List<TweetSegment> loaded = new ArrayList<TweetSegment>();
+        int i = 0;
+        for (TweetSegment segment : segments(tweets, 3)) {
+            Path file = folder.getRoot().toPath().resolve("segment" + i++);
+            saved.add(segment.save(file));
+            loaded.add(TweetSegment.load(file));
+        }
+
+        for (TweetSegment segment : loaded) {
+            assertFalse(segment.isLoaded());
+            assertEquals(200, segment.size());
+        }
+        assertEquals(tweets.subList(200, 400), loaded.get(1).tweets());
+        for (List<String> words : queries()) {
+            List<Tweet> expected = Filter.containing(tweets, words);
+            assertEquals(words.toString(), expected, TweetSegment.containing(saved, words));
+            assertEquals(words.toString(), expected, TweetSegment.containing(loaded, words));
+        }
+    }
+
+    // covers a filter file that does not hold a filter
+    @Test(expected=IOException.class)
+    public void notASegment() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("segment");
+        Files.write(file.resolveSibling("segment.words"), new byte[] { 0, 0, 0, 1, 2, 3, 4, 5 });
+        TweetSegment.load(file);
+    }
+
+    private static List<TweetSegment> segments(List<Tweet> tweets, int count) {
+        List<TweetSegment> segments = new ArrayList<TweetSegment>();
+        int size = (tweets.size() + count - 1) / count;
+        for (int from = 0; from < tweets.size(); from += size) {
+            segments.add(TweetSegment.of(tweets.subList(from, Math.min(from + size, tweets.size())), 0.01));
+        }
+        return segments;
+    }
+
+    private static List<List<String>> queries() {
+        return Arrays.asList(
+                new ArrayList<String>(),
+                Arrays.asList("bitdiddle"),
+                Arrays.asList("@user7"),
+                Arrays.asList("#TAG4", "bitdiddle"),
+                Arrays.asList("RIVEST"),
+                Arrays.asList("3", "@user52"));
+    }
+}
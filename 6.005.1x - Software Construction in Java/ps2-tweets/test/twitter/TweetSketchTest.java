@@ -0,0 +1,192 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TweetSketchTest {
+
+    /*
+     * Testing strategy for TweetSketch
+     *
+     * Partition the inputs as follows:
+     * tweets: 0, 1, many
+     * distinct mentions: 0, few (small range), many (>> registers)
+     * hashtags: none, fewer than capacity, more than capacity with heavy hitters
+     * case: usernames and hashtags in different cases, including
+ *       supplementary characters
+     * merge: empty, disjoint, overlapping, different parameters
+     * stream: written sketch, with one hashtag in two entries, not a sketch
+     *
+     * Estimates are compared with Extract and exact counts within the
+     * documented error bounds.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets
+    @Test
+    public void empty() {
+        TweetSketch sketch = new TweetSketch();
+        assertEquals(0, sketch.tweets());
+        assertEquals(0, sketch.distinctMentions());
+        assertEquals(0, sketch.hashtagCount("#mit"));
+        assertEquals(new ArrayList<String>(), sketch.topHashtags(10));
+    }
+
+    // covers 1 tweet, few mentions, hashtags in different cases
+    @Test
+    public void oneTweet() {
+        TweetSketch sketch = new TweetSketch();
+        sketch.add(new Tweet(1, "alyssa", "@Bob @bob @carol #MIT #mit #Rivest", d1));
+        assertEquals(1, sketch.tweets());
+        assertEquals(2, sketch.distinctMentions());
+        assertEquals(3, sketch.hashtagOccurrences());
+        assertEquals(2, sketch.hashtagCount("#Mit"));
+        assertEquals(2, sketch.hashtagCount("mit"));
+        assertEquals(Arrays.asList("mit", "rivest"), sketch.topHashtags(5));
+        assertEquals(Arrays.asList("mit"), sketch.topHashtags(1));
+    }
+
+    // covers many tweets, many distinct mentions
+    @Test
+    public void distinctMentions() {
+        List<Tweet> tweets = new ArrayList<Tweet>();
+        for (int i = 0; i < 100000; ++i) {
+            tweets.add(new Tweet(i, "alyssa", "hi @User" + i + " and @user" + (i / 2), d1));
+        }
+        TweetSketch sketch = new TweetSketch();
+        sketch.addAll(tweets);
+
+        int exact = Extract.getMentionedUsers(tweets).size();
+        assertEquals(exact, sketch.distinctMentions(), 3 * sketch.distinctMentionsError() * exact);
+    }
+
+    // covers more hashtags than capacity, with heavy hitters
+    @Test
+    public void heavyHitters() {
+        TweetSketch sketch = new TweetSketch(12, 512, 4, 20);
+        Map<String, Integer> exact = new HashMap<String, Integer>();
+        Random random = new Random(1);
+        for (int i = 0; i < 50000; ++i) {
+            // tags 0..4 take half the occurrences, the rest are spread over 5000
+            int tag = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(5000);
+            exact.merge("tag" + tag, 1, Integer::sum);
+            sketch.add(new Tweet(i, "alyssa", "talk #TAG" + tag, d1));
+        }
+
+        assertEquals(new HashSet<String>(Arrays.asList("tag0", "tag1", "tag2", "tag3", "tag4")),
+                     new HashSet<String>(sketch.topHashtags(5)));
+        long bound = (long) Math.ceil(Math.E / 512 * sketch.hashtagOccurrences());
+        int overBound = 0;
+        for (Map.Entry<String, Integer> entry : exact.entrySet()) {
+            long estimate = sketch.hashtagCount(entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate > entry.getValue() + bound) {
+                ++overBound;
+            }
+        }
+        assertTrue(overBound <= exact.size() * Math.exp(-4) * 2);
+    }
+
+    // covers merge of empty, disjoint and overlapping sketches
+    @Test
+    public void mergeMatchesOneSketch() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(3000);
+        TweetSketch whole = new TweetSketch(12, 256, 4, 16);
+        whole.addAll(tweets);
+
+        TweetSketch merged = new TweetSketch(12, 256, 4, 16);
+        merged.merge(new TweetSketch(12, 256, 4, 16));
+        for (int from = 0; from < 3000; from += 1000) {
+            TweetSketch piece = new TweetSketch(12, 256, 4, 16);
+            piece.addAll(tweets.subList(from, from + 1000));
+            merged.merge(piece);
+        }
+
+        assertEquals(3000, merged.tweets());
+        assertEquals(whole.hashtagOccurrences(), merged.hashtagOccurrences());
+        assertEquals(whole.distinctMentions(), merged.distinctMentions());
+        assertEquals(Extract.getMentionedUsers(tweets).size(), merged.distinctMentions(), 5);
+        for (int tag = 0; tag < 31; ++tag) {
+            assertTrue(merged.hashtagCount("tag" + tag) >= 3000 / 31);
+        }
+        assertEquals(16, merged.topHashtags(100).size());
+    }
+
+    // covers merge with different parameters
+    @Test(expected=IllegalArgumentException.class)
+    public void mergeDifferentParameters() {
+        new TweetSketch().merge(new TweetSketch(12, 2048, 5, 256));
+    }
+
+    // covers written sketch
+    @Test
+    public void roundTrip() throws IOException {
+        TweetSketch sketch = new TweetSketch(10, 64, 3, 8);
+        sketch.addAll(ParallelExtractTest.manyTweets(500));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sketch.writeTo(out);
+
+        TweetSketch read = TweetSketch.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(sketch.tweets(), read.tweets());
+        assertEquals(sketch.distinctMentions(), read.distinctMentions());
+        assertEquals(sketch.topHashtags(8), read.topHashtags(8));
+        for (int tag = 0; tag < 31; ++tag) {
+            assertEquals(sketch.hashtagCount("tag" + tag), read.hashtagCount("tag" + tag));
+        }
+    }
+
+    // covers supplementary characters in different cases, written sketch
+    @Test
+    public void supplementaryCaseRoundTrip() throws IOException {
+        TweetSketch sketch = new TweetSketch(10, 64, 3, 8);
+        sketch.addAll(Arrays.asList(
+                new Tweet(1, "alyssa", "#\uD801\uDC00", d1),
+                new Tweet(2, "bitdiddle", "#\uD801\uDC28", d1)));
+        assertEquals(Arrays.asList("\uD801\uDC28"), sketch.topHashtags(5));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sketch.writeTo(out);
+
+        TweetSketch read = TweetSketch.readFrom(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(Arrays.asList("\uD801\uDC28"), read.topHashtags(5));
+        assertEquals(2, read.hashtagCount("#\uD801\uDC00"));
+    }
+
+    // covers written sketch with one hashtag in two entries
+    @Test
+    public void duplicateEntries() throws IOException {
+        TweetSketch sketch = new TweetSketch(10, 64, 3, 8);
+        sketch.add(new Tweet(1, "alyssa", "#mit #mit #mit #xyz #xyz", d1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sketch.writeTo(out);
+        byte[] bytes = out.toByteArray();
+
+        // rename the entry for "xyz" to "MIT", as if "#MIT" were tracked apart from "#mit"
+        String written = new String(bytes, "ISO-8859-1");
+        int at = written.lastIndexOf("xyz");
+        bytes[at] = 'M';
+        bytes[at + 1] = 'I';
+        bytes[at + 2] = 'T';
+        TweetSketch read = TweetSketch.readFrom(new ByteArrayInputStream(bytes));
+        assertEquals(Arrays.asList("mit"), read.topHashtags(5));
+        assertEquals(3, read.hashtagCount("MIT"));
+    }
+
+    // covers not a sketch
+    @Test(expected=IOException.class)
+    public void notASketch() throws IOException {
+        TweetSketch.readFrom(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+    }
+}
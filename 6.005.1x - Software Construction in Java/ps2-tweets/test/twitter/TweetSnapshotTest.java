@@ -0,0 +1,156 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TweetSnapshotTest {
+
+    /*
+     * Testing strategy for TweetSnapshot
+     *
+     * Partition the inputs as follows:
+     * tweets: 0, 1, > 1 block of rows
+     * ids and timestamps: increasing, decreasing, negative, extreme
+     * text: ASCII, 2-, 3- and 4-byte UTF-8, unpaired surrogate
+     * mapped regions: one, many (records straddling regions)
+     * access: in order, backwards, via asList(), toStore()
+     * indexes: all, authors only
+     * file: snapshot, not a snapshot
+     *
+     * Queries are compared with Extract and Filter on the same tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("1960-01-01T00:00:00.123456789Z");
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets
+    @Test
+    public void emptySnapshot() throws IOException {
+        try (TweetSnapshot snapshot = TweetSnapshot.open(write(new ArrayList<Tweet>()))) {
+            assertEquals(0, snapshot.size());
+            assertEquals(new ArrayList<Tweet>(), snapshot.asList());
+            assertEquals(new ArrayList<Tweet>(), snapshot.writtenBy("alyssa"));
+            assertEquals(new HashSet<String>(), snapshot.getMentionedUsers());
+            assertEquals(0, snapshot.frequency(TweetTokenizer.Kind.WORD, "talk"));
+        }
+    }
+
+    // covers 1 tweet, negative and extreme ids and timestamps, UTF-8, unpaired surrogate
+    @Test
+    public void oneTweet() throws IOException {
+        Tweet tweet = new Tweet(Long.MIN_VALUE, "Alyssa", "caf\u00e9 \u20ac \ud83d\ude00 \ud83d @bob", d2);
+
+        try (TweetSnapshot snapshot = TweetSnapshot.open(write(Arrays.asList(tweet)))) {
+            Tweet copy = snapshot.get(0);
+            assertEquals(tweet.getId(), copy.getId());
+            assertEquals("Alyssa", copy.getAuthor());
+            assertEquals("caf\u00e9 \u20ac \ud83d\ude00 ? @bob", copy.getText());
+            assertEquals(d2, copy.getTimestamp());
+            assertEquals(Arrays.asList(copy), snapshot.writtenBy("ALYSSA"));
+        }
+    }
+
+    // covers > 1 block, ids and timestamps in both directions, in order and backwards
+    @Test
+    public void manyTweetsRoundTrip() throws IOException {
+        List<Tweet> tweets = manyTweets();
+
+        try (TweetSnapshot snapshot = TweetSnapshot.open(write(tweets))) {
+            assertEquals(tweets, snapshot.asList());
+            for (int i = tweets.size() - 1; i >= 0; i -= 7) {
+                assertEquals(tweets.get(i), snapshot.get(i));
+                assertEquals(tweets.get(i).getTimestamp(), TweetStore.instant(snapshot.epochNanos(i)));
+            }
+            assertEquals(tweets, snapshot.toStore().toList());
+        }
+    }
+
+    // covers many mapped regions, records straddling regions
+    @Test
+    public void smallRegions() throws IOException {
+        List<Tweet> tweets = manyTweets();
+
+        try (TweetSnapshot snapshot = TweetSnapshot.open(write(tweets), 8)) {
+            assertEquals(tweets, snapshot.asList());
+            assertEquals(Filter.writtenBy(tweets, "user3"), snapshot.writtenBy("user3"));
+            assertEquals(Extract.getMentionedUsers(tweets), snapshot.getMentionedUsers());
+        }
+    }
+
+    // covers all indexes, queries compared with Extract and Filter
+    @Test
+    public void indexedQueries() throws IOException {
+        List<Tweet> tweets = manyTweets();
+        List<String> words = Arrays.asList("TALK", "4", "nothing");
+
+        try (TweetSnapshot snapshot = TweetSnapshot.open(write(tweets))) {
+            assertTrue(snapshot.isIndexed(TweetTokenizer.Kind.HASHTAG));
+            assertEquals(Filter.writtenBy(tweets, "USER3"), snapshot.writtenBy("USER3"));
+            assertEquals(Filter.containing(tweets, words), snapshot.containing(words));
+            assertEquals(Extract.getMentionedUsers(tweets), snapshot.getMentionedUsers());
+            assertEquals(Filter.containing(tweets, Arrays.asList("#tag4")).size(),
+                         snapshot.frequency(TweetTokenizer.Kind.HASHTAG, "TAG4"));
+            assertArrayEquals(new int[] { 3 }, Arrays.copyOf(snapshot.positions(TweetTokenizer.Kind.MENTION, "user3"), 1));
+            assertEquals(0, snapshot.positions(TweetTokenizer.Kind.WORD, "nothing").length);
+        }
+    }
+
+    // covers authors only indexed
+    @Test
+    public void authorsOnly() throws IOException {
+        List<Tweet> tweets = manyTweets();
+        Path file = folder.newFile().toPath();
+        TweetSnapshot.write(TweetStore.of(tweets), file, EnumSet.noneOf(TweetTokenizer.Kind.class));
+        List<String> words = Arrays.asList("talk");
+
+        try (TweetSnapshot snapshot = TweetSnapshot.open(file)) {
+            assertFalse(snapshot.isIndexed(TweetTokenizer.Kind.WORD));
+            assertEquals(Filter.containing(tweets, words), snapshot.containing(words));
+            assertEquals(Extract.getMentionedUsers(tweets), snapshot.getMentionedUsers());
+            assertEquals(Filter.writtenBy(tweets, "user9"), snapshot.writtenBy("user9"));
+        }
+    }
+
+    // covers not a snapshot
+    @Test(expected=IOException.class)
+    public void notASnapshot() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, "{\"id\": 1}\n".getBytes(StandardCharsets.UTF_8));
+        TweetSnapshot.open(file);
+    }
+
+    private Path write(List<Tweet> tweets) throws IOException {
+        Path file = folder.newFile().toPath();
+        TweetSnapshot.write(TweetStore.of(tweets), file);
+        return file;
+    }
+
+    /*
+     * @return several blocks of tweets, with ids and timestamps going both ways
+     */
+    private static List<Tweet> manyTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(700);
+        for (int i = 0; i < 300; ++i) {
+            tweets.add(new Tweet(-i * 1_000_003L, "User" + (i % 10), "back \u00e7a #Tag" + (i % 5), d1.minusSeconds(i * 977L)));
+        }
+        return tweets;
+    }
+}
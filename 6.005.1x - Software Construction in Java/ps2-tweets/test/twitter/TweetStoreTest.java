@@ -0,0 +1,95 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TweetStoreTest {
+
+    /*
+     * Testing strategy for TweetStore and the TweetStore overloads of
+     * Extract, Filter and SocialNetwork
+     *
+     * Partition the inputs as follows:
+     * store.size(): 0, 1, > 1 (forcing the columns and arena to grow)
+     * authors: one spelling, same author in different case
+     * timestamps: before the epoch, after the epoch, with nanoseconds
+     *
+     * Overloads are compared with the List<Tweet> methods on the same tweets.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("1960-01-01T00:00:00.123456789Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers store.size() = 0
+    @Test
+    public void emptyStore() {
+        TweetStore store = new TweetStore();
+
+        assertEquals(0, store.size());
+        assertEquals(new ArrayList<Tweet>(), store.toList());
+        assertEquals(new HashSet<String>(), Extract.getMentionedUsers(store));
+        assertEquals(0, Filter.writtenBy(store, "alyssa").size());
+    }
+
+    // covers store.size() = 1, timestamps before the epoch with nanoseconds
+    @Test
+    public void roundTripOne() {
+        Tweet tweet = new Tweet(7, "alyssa", "old @news", d2);
+        TweetStore store = TweetStore.of(Arrays.asList(tweet));
+
+        Tweet copy = store.get(0);
+        assertEquals(tweet.getId(), copy.getId());
+        assertEquals(tweet.getAuthor(), copy.getAuthor());
+        assertEquals(tweet.getText(), copy.getText());
+        assertEquals(tweet.getTimestamp(), copy.getTimestamp());
+        assertEquals(1, store.authorCount());
+    }
+
+    // covers store.size() > 1, same author in different case
+    @Test
+    public void overloadsMatchListMethods() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(500);
+        tweets.add(new Tweet(1000, "USER3", "Talk about #tag1 @User7 and @bob", d1));
+        TweetStore store = TweetStore.of(tweets);
+        Timespan timespan = new Timespan(d1, d1.plusSeconds(50000));
+        List<String> words = Arrays.asList("TALK", "4");
+
+        assertEquals(tweets, store.toList());
+        assertEquals(Extract.getTimespan(tweets), Extract.getTimespan(store));
+        assertEquals(Extract.getMentionedUsers(tweets), Extract.getMentionedUsers(store));
+        assertEquals(Extract.getHashtags(tweets), Extract.getHashtags(store));
+        assertEquals(Filter.writtenBy(tweets, "user3"), Filter.writtenBy(store, "user3").toList());
+        assertEquals(Filter.inTimespan(tweets, timespan), Filter.inTimespan(store, timespan).toList());
+        assertEquals(Filter.containing(tweets, words), Filter.containing(store, words).toList());
+        assertEquals(SocialNetwork.guessFollowsGraph(tweets), SocialNetwork.guessFollowsGraph(store));
+    }
+
+    // covers select() keeping the columns of the chosen rows
+    @Test
+    public void selectRows() {
+        TweetStore store = TweetStore.of(Arrays.asList(
+                new Tweet(1, "a", "one", d1), new Tweet(2, "b", "two", d1), new Tweet(3, "a", "three", d2)));
+
+        TweetStore selected = store.select(new int[] { 2, 0 }, 2);
+        assertEquals(2, selected.size());
+        assertEquals(3, selected.id(0));
+        assertEquals("three", selected.get(0).getText());
+        assertEquals("one", selected.get(1).getText());
+        assertEquals(1, selected.authorCount());
+    }
+
+    // covers index out of bounds
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void indexOutOfBounds() {
+        new TweetStore().id(0);
+    }
+}
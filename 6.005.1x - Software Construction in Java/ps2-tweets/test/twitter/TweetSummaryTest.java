@@ -0,0 +1,113 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class TweetSummaryTest {
+
+    /*
+     * Testing strategy for TweetSummary
+     *
+     * Partition the inputs as follows:
+     * tweets: 0, 1, > 1
+     * partitions merged: 1, > 1 by author, some empty
+     * mentions: none, of self, of others, same user in several partitions
+     * summary: in memory, written and read back
+     *
+     * Results are compared with Extract, and follower counts with the
+     * in-degrees of SocialNetwork.guessFollowsGraph(tweets, 1).
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+    private static final Instant d2 = Instant.parse("2016-02-17T11:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets
+    @Test
+    public void empty() throws IOException {
+        TweetSummary summary = roundTrip(TweetSummary.of(new ArrayList<Tweet>()));
+        assertEquals(0, summary.tweets());
+        Timespan timespan = summary.getTimespan();
+        assertEquals(timespan.getStart(), timespan.getEnd());
+        assertEquals(new HashSet<String>(), summary.getMentionedUsers());
+        assertEquals(new HashMap<String, Set<String>>(), summary.getHashtags());
+        assertEquals(new ArrayList<String>(), summary.influencers(3));
+    }
+
+    // covers 1 tweet, mention of self and of another
+    @Test
+    public void oneTweet() {
+        Tweet tweet = new Tweet(1, "Alyssa", "@alyssa meet @BBitdiddle #mit", d1);
+        TweetSummary summary = TweetSummary.of(Arrays.asList(tweet));
+        assertEquals(d1, summary.getTimespan().getStart());
+        assertEquals(d1, summary.getTimespan().getEnd());
+        assertEquals(new HashSet<String>(Arrays.asList("alyssa", "bbitdiddle")), summary.getMentionedUsers());
+        assertEquals(Extract.getHashtags(Arrays.asList(tweet)), summary.getHashtags());
+        Map<String, Integer> followers = new HashMap<String, Integer>();
+        followers.put("alyssa", 0);
+        followers.put("bbitdiddle", 1);
+        assertEquals(followers, summary.followerCounts());
+        assertEquals(Arrays.asList("bbitdiddle", "alyssa"), summary.influencers(5));
+    }
+
+    // covers > 1 tweets, > 1 partitions by author, some empty, written and read back
+    @Test
+    public void mergedPartitions() throws IOException {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        tweets.add(new Tweet(5000, "late", "@user1 #tag1", d2.plusSeconds(86400 * 3)));
+        int partitions = 5;
+        List<List<Tweet>> parts = new ArrayList<List<Tweet>>();
+        for (int p = 0; p < partitions + 1; ++p) {
+            parts.add(new ArrayList<Tweet>());
+        }
+        for (Tweet tweet : tweets) {
+            parts.get(ShardedTweets.shard(tweet.getAuthor(), partitions)).add(tweet);
+        }
+
+        TweetSummary merged = new TweetSummary();
+        for (List<Tweet> part : parts) {
+            merged.merge(roundTrip(TweetSummary.of(part)));
+        }
+
+        assertEquals(tweets.size(), merged.tweets());
+        Timespan expected = Extract.getTimespan(tweets);
+        assertEquals(expected.getStart(), merged.getTimespan().getStart());
+        assertEquals(expected.getEnd(), merged.getTimespan().getEnd());
+        assertEquals(Extract.getMentionedUsers(tweets), merged.getMentionedUsers());
+        assertEquals(Extract.getHashtags(tweets), merged.getHashtags());
+        assertEquals(inDegrees(SocialNetwork.guessFollowsGraph(tweets, 1)), merged.followerCounts());
+        assertEquals(TweetSummary.of(tweets).followerCounts(), merged.followerCounts());
+        assertEquals(TweetSummary.of(tweets).influencers(10), merged.influencers(10));
+    }
+
+    /*
+     * @return the number of followers of each user of a follows graph
+     */
+    static Map<String, Integer> inDegrees(Map<String, Set<String>> graph) {
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        for (Map.Entry<String, Set<String>> entry : graph.entrySet()) {
+            counts.putIfAbsent(entry.getKey(), 0);
+            for (String user : entry.getValue()) {
+                counts.merge(user, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static TweetSummary roundTrip(TweetSummary summary) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        summary.writeTo(bytes);
+        return TweetSummary.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
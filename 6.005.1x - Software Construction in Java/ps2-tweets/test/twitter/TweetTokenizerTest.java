@@ -0,0 +1,121 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TweetTokenizerTest {
+
+    /*
+     * Testing strategy for TweetTokenizer
+     *
+     * Partition the inputs as follows:
+     * text: empty, only spaces, words separated by one or more spaces
+     * mentions: none, at start of word, inside word, preceded by username char,
+     *           "@" with no username
+     * hashtags: none, "#" alone, "#" followed by characters
+     * region: whole text, part of text, part of a char array
+     * text(): offsets in the region, before it
+     *
+     * Exhaustive Cartesian coverage is not needed; each part is covered below.
+     */
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers text empty, only spaces
+    @Test
+    public void tokenizeEmpty() {
+        assertEquals(Arrays.asList(), tokens(""));
+        assertEquals(Arrays.asList(), tokens("   "));
+    }
+
+    // covers words separated by one or more spaces, no mentions or hashtags
+    @Test
+    public void tokenizeWords() {
+        assertEquals(Arrays.asList("WORD is", "WORD it", "WORD so?"), tokens("  is it   so? "));
+    }
+
+    // covers mention at start of word, inside word, preceded by username char
+    @Test
+    public void tokenizeMentions() {
+        assertEquals(Arrays.asList("WORD @bob,(@Ann)", "MENTION bob", "MENTION Ann",
+                                   "WORD bitdiddle@mit.edu"),
+                tokens("@bob,(@Ann) bitdiddle@mit.edu"));
+    }
+
+    // covers "@" with no username, "@@" with a username
+    @Test
+    public void tokenizeBareAt() {
+        assertEquals(Arrays.asList("WORD @", "WORD @@x", "MENTION x"), tokens("@ @@x"));
+    }
+
+    // covers "#" alone, "#" followed by characters
+    @Test
+    public void tokenizeHashtags() {
+        assertEquals(Arrays.asList("WORD #", "WORD #hype!", "HASHTAG hype!", "WORD #@mit", "HASHTAG @mit", "MENTION mit"),
+                tokens("# #hype! #@mit"));
+    }
+
+    // covers region part of text
+    @Test
+    public void tokenizeRegion() {
+        TweetTokenizer tokenizer = new TweetTokenizer().reset("a@b @c d", 1, 6);
+        List<String> tokens = new ArrayList<String>();
+        while (tokenizer.next()) {
+            tokens.add(tokenizer.kind() + " " + tokenizer.token());
+        }
+        assertEquals(Arrays.asList("WORD @b", "MENTION b", "WORD @c", "MENTION c"), tokens);
+    }
+
+    // covers region part of a char array, text() offsets in the region and before it
+    @Test
+    public void textOfArrayRegion() {
+        char[] arena = "@other tweet|@Alyssa hi".toCharArray();
+        TweetTokenizer tokenizer = new TweetTokenizer().reset(arena, 13, arena.length);
+        CharSequence text = tokenizer.text();
+        assertEquals("@Alyssa hi", text.toString());
+        assertEquals('A', text.charAt(14));
+        assertEquals("Alyssa", text.subSequence(14, 20).toString());
+        assertTrue(tokenizer.next());
+        assertEquals("alyssa", tokenizer.foldedToken().substring(1));
+        try {
+            text.charAt(12);
+            fail("expected offsets before the region to be rejected");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    // covers region part of a CharSequence, text() offsets before it
+    @Test(expected=IndexOutOfBoundsException.class)
+    public void textBeforeCopiedRegion() {
+        new TweetTokenizer().reset(new StringBuilder("a@b @c d"), 2, 6).text().charAt(0);
+    }
+
+    // covers matches() with different case and different length
+    @Test
+    public void matchesIgnoresCase() {
+        TweetTokenizer tokenizer = new TweetTokenizer().reset("Obama");
+        assertTrue(tokenizer.next());
+        assertTrue(tokenizer.matches("obama"));
+        assertTrue(tokenizer.matches("OBAMA"));
+        assertFalse(tokenizer.matches("obam"));
+        assertFalse(tokenizer.next());
+    }
+
+    private static List<String> tokens(String text) {
+        TweetTokenizer tokenizer = new TweetTokenizer().reset(text);
+        List<String> tokens = new ArrayList<String>();
+        while (tokenizer.next()) {
+            tokens.add(tokenizer.kind() + " " + tokenizer.token());
+        }
+        return tokens;
+    }
+}
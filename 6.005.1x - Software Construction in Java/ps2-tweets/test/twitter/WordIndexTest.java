@@ -0,0 +1,99 @@
+package twitter;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.*;
+
+import org.junit.Test;
+
+public class WordIndexTest {
+
+    /*
+     * Testing strategy for WordIndex
+     *
+     * Partition the inputs as follows:
+     * indexed tweets: 0, 1, > 1
+     * query words: none, absent from index, one present, several present
+     *              (sparse union, dense union), repeated, different case
+     * tweets: word repeated within a tweet
+     * kind: WORD, HASHTAG, MENTION
+     *
+     * containing() results are compared with Filter.containing.
+     */
+
+    private static final Instant d1 = Instant.parse("2016-02-17T10:00:00Z");
+
+    @Test(expected=AssertionError.class)
+    public void testAssertionsEnabled() {
+        assert false; // make sure assertions are enabled with VM argument: -ea
+    }
+
+    // covers 0 tweets, no query words
+    @Test
+    public void emptyIndex() {
+        WordIndex index = new WordIndex();
+
+        assertEquals(new ArrayList<Tweet>(), index.containing(Arrays.asList("talk")));
+        assertEquals(new ArrayList<Tweet>(), index.containing(new ArrayList<String>()));
+        assertEquals(0, index.vocabularySize());
+    }
+
+    // covers 1 tweet, word repeated within the tweet, different case
+    @Test
+    public void oneTweet() {
+        Tweet tweet = new Tweet(1, "alyssa", "Talk talk TALK", d1);
+        WordIndex index = new WordIndex(Arrays.asList(tweet));
+
+        assertEquals(Arrays.asList(tweet), index.containing(Arrays.asList("tAlK")));
+        assertEquals(1, index.frequency("talk"));
+        assertEquals(1, index.vocabularySize());
+    }
+
+    // covers > 1 tweets, absent, sparse and dense unions, repeated query words
+    @Test
+    public void manyTweets() {
+        List<Tweet> tweets = ParallelExtractTest.manyTweets(2000);
+        tweets.add(new Tweet(5000, "bob", "a rare word", d1));
+        WordIndex index = new WordIndex(tweets);
+
+        for (List<String> words : Arrays.asList(
+                Arrays.asList("nothing"),
+                Arrays.asList("rivest"),
+                Arrays.asList("rare", "#tag3"),
+                Arrays.asList("1", "2", "RIVEST", "1"),
+                Arrays.asList("@user5", "3", "absent"))) {
+            assertEquals(words.toString(), Filter.containing(tweets, words), index.containing(words));
+        }
+        assertTrue(index.memoryBytes() > 0);
+    }
+
+    // covers incremental add after queries
+    @Test
+    public void incrementalAdd() {
+        WordIndex index = new WordIndex();
+        Tweet tweet1 = new Tweet(1, "alyssa", "hello world", d1);
+        Tweet tweet2 = new Tweet(2, "bob", "Hello again", d1);
+
+        index.add(tweet1);
+        assertEquals(Arrays.asList(tweet1), index.containing(Arrays.asList("hello")));
+        index.add(tweet2);
+        index.trimToSize();
+        assertEquals(Arrays.asList(tweet1, tweet2), index.containing(Arrays.asList("hello")));
+    }
+
+    // covers kind HASHTAG and MENTION
+    @Test
+    public void hashtagsAndMentions() {
+        Tweet tweet1 = new Tweet(1, "alyssa", "#MIT rocks, ask @Bob", d1);
+        Tweet tweet2 = new Tweet(2, "bob", "mit @alyssa", d1);
+        WordIndex hashtags = new WordIndex(TweetTokenizer.Kind.HASHTAG);
+        WordIndex mentions = new WordIndex(TweetTokenizer.Kind.MENTION);
+        hashtags.addAll(Arrays.asList(tweet1, tweet2));
+        mentions.addAll(Arrays.asList(tweet1, tweet2));
+
+        assertEquals(Arrays.asList(tweet1), hashtags.containing(Arrays.asList("mit")));
+        assertEquals(Arrays.asList(tweet1), mentions.containing(Arrays.asList("bob")));
+        assertEquals(new ArrayList<Tweet>(), mentions.containing(Arrays.asList("@alyssa")));
+    }
+}